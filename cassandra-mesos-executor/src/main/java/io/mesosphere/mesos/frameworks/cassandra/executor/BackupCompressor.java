@@ -0,0 +1,132 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.executor;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.BackupCompression;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import net.jpountz.lz4.LZ4Factory;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams SSTable components into and out of compressed backup files. Both directions compute size and
+ * CRC32 of the uncompressed data, so that a backup can be described by and verified against a
+ * {@link BackupManifest}. LZ4 additionally checksums each block, GZIP the whole stream.
+ */
+final class BackupCompressor {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int LZ4_BLOCK_SIZE = 1 << 22;
+
+    private BackupCompressor() {}
+
+    /**
+     * File name suffix of a component written with {@code compression}.
+     */
+    @NotNull
+    static String extension(@NotNull final BackupCompression compression) {
+        switch (compression) {
+            case LZ4:
+                return ".lz4";
+            case GZIP:
+                return ".gz";
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * Compresses {@code src} into {@code dest}, which is a plain copy for {@link BackupCompression#NONE}.
+     * Reading is limited by {@code throttle}.
+     *
+     * @return manifest entry describing the uncompressed contents of {@code src}
+     */
+    @NotNull
+    static BackupManifest.Entry compress(@NotNull final File src, @NotNull final Path dest, @NotNull final BackupCompression compression, @NotNull final IoThrottle throttle) throws IOException {
+        final CRC32 crc = new CRC32();
+        long size = 0;
+        try (InputStream in = new CheckedInputStream(Files.newInputStream(src.toPath()), crc);
+             OutputStream out = compressingStream(new BufferedOutputStream(Files.newOutputStream(dest), BUFFER_SIZE), compression)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                throttle.acquireBytes(n);
+                out.write(buffer, 0, n);
+                size += n;
+            }
+        }
+        return new BackupManifest.Entry(src.getName(), size, crc.getValue());
+    }
+
+    /**
+     * Decompresses {@code src} into {@code dest}. Writing is limited by {@code throttle}.
+     *
+     * @return manifest entry named {@code fileName} describing the uncompressed contents written to {@code dest}
+     */
+    @NotNull
+    static BackupManifest.Entry decompress(@NotNull final Path src, @NotNull final Path dest, @NotNull final String fileName, @NotNull final BackupCompression compression, @NotNull final IoThrottle throttle) throws IOException {
+        final CRC32 crc = new CRC32();
+        long size = 0;
+        try (InputStream in = decompressingStream(new BufferedInputStream(Files.newInputStream(src), BUFFER_SIZE), compression);
+             OutputStream out = new CheckedOutputStream(Files.newOutputStream(dest), crc)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                throttle.acquireBytes(n);
+                out.write(buffer, 0, n);
+                size += n;
+            }
+        }
+        return new BackupManifest.Entry(fileName, size, crc.getValue());
+    }
+
+    @NotNull
+    private static OutputStream compressingStream(@NotNull final OutputStream out, @NotNull final BackupCompression compression) throws IOException {
+        switch (compression) {
+            case LZ4:
+                return new LZ4BlockOutputStream(out, LZ4_BLOCK_SIZE, LZ4Factory.fastestInstance().fastCompressor());
+            case GZIP:
+                return new GZIPOutputStream(out, BUFFER_SIZE);
+            default:
+                return out;
+        }
+    }
+
+    @NotNull
+    private static InputStream decompressingStream(@NotNull final InputStream in, @NotNull final BackupCompression compression) throws IOException {
+        switch (compression) {
+            case LZ4:
+                return new LZ4BlockInputStream(in);
+            case GZIP:
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            default:
+                return in;
+        }
+    }
+}
@@ -1,30 +1,87 @@
 package io.mesosphere.mesos.frameworks.cassandra.executor;
 
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.BackupCompression;
 import io.mesosphere.mesos.frameworks.cassandra.executor.jmx.JmxConnect;
 import org.apache.cassandra.service.StorageServiceMBean;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileSystemException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 public class BackupManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(BackupManager.class);
 
+    private static final String RESTORE_STAGING_DIR = ".restore";
+    private static final String DATA_COMPONENT = "-Data.db";
+    private static final String DIGEST_COMPONENT = "-Digest.";
+
     @NotNull
     private final JmxConnect jmxConnect;
 
     @NotNull
     private final String backupDir;
 
+    /**
+     * Whether SSTable components are hard-linked instead of copied. SSTables are immutable, so a link is as good
+     * as a copy, but it only works if source and destination are on the same file system. This is cleared after
+     * the first failed attempt, so all later files are copied.
+     */
+    private volatile boolean hardLinks = true;
+
+    /**
+     * Content-addressed store of SSTable components, shared by all backups of this node.
+     */
+    @Nullable
+    private final File sstableStoreDir;
+
+    private final boolean incremental;
+
+    @NotNull
+    private final BackupCompression compression;
+
+    @NotNull
+    private final IoThrottle throttle;
+
     public BackupManager(@NotNull final JmxConnect jmxConnect, @NotNull final String backupDir) {
+        this(jmxConnect, backupDir, null, false);
+    }
+
+    public BackupManager(@NotNull final JmxConnect jmxConnect, @NotNull final String backupDir, @Nullable final String sstableStoreDir, final boolean incremental) {
+        this(jmxConnect, backupDir, sstableStoreDir, incremental, BackupCompression.NONE);
+    }
+
+    public BackupManager(@NotNull final JmxConnect jmxConnect, @NotNull final String backupDir, @Nullable final String sstableStoreDir, final boolean incremental, @NotNull final BackupCompression compression) {
+        this(jmxConnect, backupDir, sstableStoreDir, incremental, compression, IoThrottle.UNLIMITED);
+    }
+
+    public BackupManager(@NotNull final JmxConnect jmxConnect, @NotNull final String backupDir, @Nullable final String sstableStoreDir, final boolean incremental, @NotNull final BackupCompression compression, @NotNull final IoThrottle throttle) {
+        if (incremental && sstableStoreDir == null) {
+            throw new IllegalArgumentException("Incremental backups require an SSTable store directory");
+        }
         this.jmxConnect = jmxConnect;
         this.backupDir = backupDir;
+        this.sstableStoreDir = sstableStoreDir != null ? new File(sstableStoreDir) : null;
+        this.incremental = incremental;
+        this.compression = compression;
+        this.throttle = throttle;
     }
 
     public void backup(@NotNull final String keyspace) throws IOException {
@@ -32,16 +89,34 @@ public class BackupManager {
     }
 
     public void backup(@NotNull final String keyspace, @NotNull final String snapshot) throws IOException {
-        final StorageServiceMBean storageServiceProxy = jmxConnect.getStorageServiceProxy();
-
-        LOGGER.info("Creating snapshot of keyspace {}", keyspace);
-        storageServiceProxy.takeSnapshot(snapshot, keyspace);
+        takeSnapshot(snapshot, keyspace);
 
         LOGGER.info("Copying backup of keyspace {}", keyspace);
         copyKeyspaceSnapshot(snapshot, keyspace);
 
+        clearSnapshot(snapshot, keyspace);
+    }
+
+    /**
+     * Takes a snapshot of {@code keyspace} with a generated name.
+     *
+     * @return the name of the snapshot
+     */
+    @NotNull
+    public String takeSnapshot(@NotNull final String keyspace) throws IOException {
+        final String snapshot = "snapshot-" + System.currentTimeMillis();
+        takeSnapshot(snapshot, keyspace);
+        return snapshot;
+    }
+
+    public void takeSnapshot(@NotNull final String snapshot, @NotNull final String keyspace) throws IOException {
+        LOGGER.info("Creating snapshot of keyspace {}", keyspace);
+        jmxConnect.getStorageServiceProxy().takeSnapshot(snapshot, keyspace);
+    }
+
+    public void clearSnapshot(@NotNull final String snapshot, @NotNull final String keyspace) throws IOException {
         LOGGER.info("Clearing snapshot of keyspace {}", keyspace);
-        storageServiceProxy.clearSnapshot(snapshot, keyspace);
+        jmxConnect.getStorageServiceProxy().clearSnapshot(snapshot, keyspace);
     }
 
     private void copyKeyspaceSnapshot(@NotNull final String snapshot, @NotNull final String keyspace) throws IOException {
@@ -50,19 +125,231 @@ public class BackupManager {
             copyTableSnapshot(snapshot, keyspace, table);
     }
 
-    void copyTableSnapshot(@NotNull final String snapshot, @NotNull final String keyspace, @NotNull final String table) throws IOException {
+    public void copyTableSnapshot(@NotNull final String snapshot, @NotNull final String keyspace, @NotNull final String table) throws IOException {
         final File srcDir = findTableSnapshotDir(keyspace, table, snapshot);
         final File destDir = new File(backupDir, keyspace + "/" + table);
         Files.createDirectories(destDir.toPath());
 
-        final File[] files = srcDir.listFiles();
+        if (incremental) {
+            storeTableSnapshot(srcDir, destDir, keyspace, table);
+        } else if (compression != BackupCompression.NONE) {
+            compressTableSnapshot(srcDir, destDir, keyspace, table);
+        } else {
+            transferTableSnapshot(srcDir, destDir, keyspace, table);
+        }
+    }
+
+    /**
+     * Adds all components of a table snapshot that are not yet in the SSTable store and writes a manifest
+     * referencing them into {@code destDir}. All components except {@code Data.db} are checksummed. A
+     * {@code Data.db} component is not read again if the store holds exactly one blob with its name and size and the
+     * SSTable's {@code Digest} component, which contains the checksum of {@code Data.db} computed by Cassandra, is
+     * stored with the same checksum already. Name and size alone do not identify a component, generations start
+     * over when a data directory is recreated. This makes a daily backup cost about as much I/O as the data written
+     * since the previous one plus the small components.
+     */
+    private void storeTableSnapshot(@NotNull final File srcDir, @NotNull final File destDir, @NotNull final String keyspace, @NotNull final String table) throws IOException {
+        final File storeDir = new File(checkNotNull(sstableStoreDir), keyspace + "/" + table);
+        Files.createDirectories(storeDir.toPath());
+        final String extension = BackupCompressor.extension(compression);
+        final Map<String, List<BackupManifest.Entry>> storedComponents = storedComponents(storeDir, extension);
+
+        final List<File> files = listFiles(srcDir);
+        final Map<String, BackupManifest.Entry> entries = new LinkedHashMap<>();
+        int read = 0;
+        // the digests have to be known before the Data.db components are looked up
+        for (final File file : files) {
+            if (!file.getName().endsWith(DATA_COMPONENT)) {
+                entries.put(file.getName(), storeFile(file, storeDir, extension));
+                read++;
+            }
+        }
+        for (final File file : files) {
+            if (file.getName().endsWith(DATA_COMPONENT)) {
+                BackupManifest.Entry entry = storedDataComponent(file, entries, storedComponents);
+                if (entry == null) {
+                    entry = storeFile(file, storeDir, extension);
+                    read++;
+                }
+                entries.put(file.getName(), entry);
+            }
+        }
+
+        new BackupManifest(compression, new ArrayList<>(entries.values())).write(new File(destDir, BackupManifest.FILE_NAME));
+        LOGGER.info("Read {} new of {} SSTable components for {}/{}", read, entries.size(), keyspace, table);
+    }
+
+    /**
+     * Returns the stored blob of a {@code Data.db} component, or {@code null} if it has to be read, see
+     * {@link #storeTableSnapshot(File, File, String, String)}.
+     *
+     * @param entries          the entries of the other components of the snapshot
+     * @param storedComponents the blobs in the store before the snapshot has been added
+     */
+    @Nullable
+    private static BackupManifest.Entry storedDataComponent(
+        @NotNull final File file,
+        @NotNull final Map<String, BackupManifest.Entry> entries,
+        @NotNull final Map<String, List<BackupManifest.Entry>> storedComponents
+    ) {
+        final String name = file.getName();
+        final String digestPrefix = name.substring(0, name.length() - DATA_COMPONENT.length()) + DIGEST_COMPONENT;
+        BackupManifest.Entry digest = null;
+        for (final BackupManifest.Entry entry : entries.values()) {
+            if (entry.getFileName().startsWith(digestPrefix)) {
+                digest = entry;
+            }
+        }
+        final List<BackupManifest.Entry> storedDigests = digest != null ? storedComponents.get(digest.getFileName()) : null;
+        if (storedDigests == null || !storedDigests.contains(digest)) {
+            return null;
+        }
+
+        final List<BackupManifest.Entry> candidates = storedComponents.get(name);
+        BackupManifest.Entry result = null;
+        if (candidates != null) {
+            for (final BackupManifest.Entry candidate : candidates) {
+                if (candidate.getSize() != file.length()) {
+                    continue;
+                }
+                if (result != null) {
+                    // blobs of different SSTables with the same name, cannot tell which one the digest belongs to
+                    return null;
+                }
+                result = candidate;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds {@code file} to the SSTable store unless a blob with the same contents exists.
+     *
+     * @return the entry describing {@code file}
+     */
+    @NotNull
+    private BackupManifest.Entry storeFile(@NotNull final File file, @NotNull final File storeDir, @NotNull final String extension) throws IOException {
+        // write to a temporary name first - a partially written blob must never be referenced
+        final Path tmp = new File(storeDir, file.getName() + extension + ".tmp").toPath();
+        final BackupManifest.Entry entry;
+        if (compression == BackupCompression.NONE) {
+            entry = BackupManifest.entryFor(file, throttle);
+            if (new File(storeDir, entry.getBlobName()).isFile()) {
+                return entry;
+            }
+            transferFile(file.toPath(), tmp);
+        } else {
+            // the checksum is computed while compressing, the blob name is only known afterwards
+            throttle.acquireFile();
+            entry = BackupCompressor.compress(file, tmp, compression, throttle);
+        }
+        final File blob = new File(storeDir, entry.getBlobName() + extension);
+        if (blob.isFile()) {
+            Files.delete(tmp);
+        } else {
+            Files.move(tmp, blob.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return entry;
+    }
+
+    /**
+     * Lists the blobs in {@code storeDir} written with the current compression, keyed by file name.
+     */
+    @NotNull
+    private static Map<String, List<BackupManifest.Entry>> storedComponents(@NotNull final File storeDir, @NotNull final String extension) {
+        final Map<String, List<BackupManifest.Entry>> result = new HashMap<>();
+        for (final File file : listFiles(storeDir)) {
+            final String name = file.getName();
+            if (!name.endsWith(extension)) {
+                continue;
+            }
+            final BackupManifest.Entry entry = BackupManifest.Entry.fromBlobName(name.substring(0, name.length() - extension.length()));
+            if (entry != null) {
+                List<BackupManifest.Entry> entries = result.get(entry.getFileName());
+                if (entries == null) {
+                    entries = new ArrayList<>();
+                    result.put(entry.getFileName(), entries);
+                }
+                entries.add(entry);
+            }
+        }
+        return result;
+    }
+
+    private void compressTableSnapshot(@NotNull final File srcDir, @NotNull final File destDir, @NotNull final String keyspace, @NotNull final String table) throws IOException {
+        final String extension = BackupCompressor.extension(compression);
+
+        final List<BackupManifest.Entry> entries = new ArrayList<>();
+        for (final File file : listFiles(srcDir)) {
+            throttle.acquireFile();
+            entries.add(BackupCompressor.compress(file, new File(destDir, file.getName() + extension).toPath(), compression, throttle));
+        }
+
+        new BackupManifest(compression, entries).write(new File(destDir, BackupManifest.FILE_NAME));
+        LOGGER.info("Compressed {} SSTable components for {}/{} using {}", entries.size(), keyspace, table, compression);
+    }
+
+    /**
+     * Links or copies the components of a table snapshot into {@code destDir} and writes a manifest with their
+     * checksums, so that the restore can verify them like those of a compressed backup.
+     */
+    private void transferTableSnapshot(@NotNull final File srcDir, @NotNull final File destDir, @NotNull final String keyspace, @NotNull final String table) throws IOException {
+        final List<BackupManifest.Entry> entries = new ArrayList<>();
+        for (final File file : listFiles(srcDir)) {
+            entries.add(BackupManifest.entryFor(file, throttle));
+            transferFile(file.toPath(), new File(destDir, file.getName()).toPath());
+        }
+
+        new BackupManifest(entries).write(new File(destDir, BackupManifest.FILE_NAME));
+        LOGGER.info("Copied {} SSTable components for {}/{}", entries.size(), keyspace, table);
+    }
+
+    void setHardLinks(final boolean hardLinks) {
+        this.hardLinks = hardLinks;
+    }
+
+    boolean isHardLinks() {
+        return hardLinks;
+    }
+
+    private void transferFiles(@NotNull final File srcDir, @NotNull final File destDir) throws IOException {
+        for (final File file : listFiles(srcDir)) {
+            transferFile(file.toPath(), new File(destDir, file.getName()).toPath());
+        }
+    }
+
+    @NotNull
+    private static List<File> listFiles(@NotNull final File dir) {
+        final List<File> result = new ArrayList<>();
+        final File[] files = dir.listFiles();
         if (files != null) {
             for (final File file : files) {
                 if (file.isFile()) {
-                    Files.copy(file.toPath(), new File(destDir, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    result.add(file);
                 }
             }
         }
+        return result;
+    }
+
+    void transferFile(@NotNull final Path src, @NotNull final Path dest) throws IOException {
+        throttle.acquireFile();
+        if (hardLinks) {
+            Files.deleteIfExists(dest);
+            try {
+                Files.createLink(dest, src);
+                return;
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                LOGGER.info("Cannot hard link {} to {}, falling back to copying files: {}", src, dest, e.toString());
+                hardLinks = false;
+            }
+        }
+
+        if (throttle.isBytesLimited()) {
+            BackupCompressor.compress(src.toFile(), dest, BackupCompression.NONE, throttle);
+        } else {
+            Files.copy(src, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     File findTableSnapshotDir(@NotNull final String keyspace, @NotNull final String table, @NotNull final String snapshot) {
@@ -92,11 +379,47 @@ public class BackupManager {
         final List<String> tables = jmxConnect.getColumnFamilyNames(keyspace);
 
         for (final String table : tables) {
-            LOGGER.info("Restoring backup of {}/{}", keyspace, table);
-            restoreTableSnapshot(keyspace, table);
+            placeTable(keyspace, table);
+        }
+        loadNewSSTables(keyspace, tables);
+    }
+
+    public void restoreTable(@NotNull final String keyspace, @NotNull final String table) throws IOException {
+        placeTable(keyspace, table);
+        loadNewSSTables(keyspace, Collections.singletonList(table));
+    }
+
+    /**
+     * Puts the backed up SSTables of a table into its data directory without loading them.
+     * Tables can be placed concurrently; see {@link #loadNewSSTables(String, Collection)}.
+     */
+    public void placeTable(@NotNull final String keyspace, @NotNull final String table) throws IOException {
+        LOGGER.info("Restoring backup of {}/{}", keyspace, table);
+        restoreTableSnapshot(keyspace, table);
+    }
+
+    /**
+     * Makes Cassandra load the SSTables placed for {@code tables}. Every table is tried even if loading an
+     * earlier one failed.
+     *
+     * @throws IOException if loading any of the tables failed
+     */
+    public void loadNewSSTables(@NotNull final String keyspace, @NotNull final Collection<String> tables) throws IOException {
+        final long start = System.nanoTime();
+        final List<String> failed = new ArrayList<>();
+        for (final String table : tables) {
+            try {
+                jmxConnect.getColumnFamilyStoreProxy(keyspace, table).loadNewSSTables();
+            } catch (final RuntimeException e) {
+                LOGGER.error("Failed to load new SSTables for " + keyspace + '/' + table, e);
+                failed.add(table);
+            }
+        }
+        LOGGER.info("Loaded new SSTables for {} tables of keyspace {} in {} ms", tables.size() - failed.size(), keyspace,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 
-            LOGGER.info("Reloading SSTables for {}/{}", keyspace, table);
-            jmxConnect.getColumnFamilyStoreProxy(keyspace, table).loadNewSSTables();
+        if (!failed.isEmpty()) {
+            throw new IOException("Failed to load new SSTables for tables " + failed + " of keyspace " + keyspace);
         }
     }
 
@@ -108,13 +431,69 @@ public class BackupManager {
         final File destDir = findTableDir(keyspaceDir, table);
         Files.createDirectories(destDir.toPath());
 
-        final File[] files = srcDir.listFiles();
-        if (files != null) {
-            for (final File file : files) {
-                if (file.isFile()) {
-                    Files.copy(file.toPath(), new File(destDir, file.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        final File manifestFile = new File(srcDir, BackupManifest.FILE_NAME);
+        if (manifestFile.isFile()) {
+            restoreFromManifest(BackupManifest.read(manifestFile), srcDir, destDir, keyspace, table);
+        } else {
+            LOGGER.warn("Backup of {}/{} has no manifest, restoring it without verifying checksums", keyspace, table);
+            transferFiles(srcDir, destDir);
+        }
+    }
+
+    /**
+     * Restores the components listed in {@code manifest}, either from {@code srcDir} or from the SSTable store.
+     * Every component is verified against size and checksum in the manifest. All components are staged in a sub-directory, which
+     * Cassandra does not load SSTables from, and are only moved into {@code destDir} once all of them are complete.
+     */
+    private void restoreFromManifest(@NotNull final BackupManifest manifest, @NotNull final File srcDir, @NotNull final File destDir, @NotNull final String keyspace, @NotNull final String table) throws IOException {
+        final BackupCompression manifestCompression = manifest.getCompression();
+        final String extension = BackupCompressor.extension(manifestCompression);
+        final File storeDir = sstableStoreDir != null ? new File(sstableStoreDir, keyspace + "/" + table) : null;
+
+        // check all sources before touching the data directory
+        final List<File> sources = new ArrayList<>();
+        for (final BackupManifest.Entry entry : manifest.getEntries()) {
+            File source = new File(srcDir, entry.getFileName() + extension);
+            if (!source.isFile()) {
+                if (storeDir == null) {
+                    throw new IllegalStateException("Backup of " + keyspace + "/" + table + " is incremental, but no SSTable store directory is configured");
                 }
+                source = new File(storeDir, entry.getBlobName() + extension);
+            }
+            if (!source.isFile() || manifestCompression == BackupCompression.NONE && source.length() != entry.getSize()) {
+                throw new IllegalStateException("Backup of " + keyspace + "/" + table + " is missing " + source);
+            }
+            sources.add(source);
+        }
+
+        final File stagingDir = new File(destDir, RESTORE_STAGING_DIR);
+        Files.createDirectories(stagingDir.toPath());
+        try {
+            for (int i = 0; i < sources.size(); i++) {
+                final BackupManifest.Entry entry = manifest.getEntries().get(i);
+                final Path staged = new File(stagingDir, entry.getFileName()).toPath();
+                final BackupManifest.Entry restored;
+                if (manifestCompression == BackupCompression.NONE) {
+                    transferFile(sources.get(i).toPath(), staged);
+                    restored = BackupManifest.entryFor(staged.toFile(), throttle);
+                } else {
+                    throttle.acquireFile();
+                    restored = BackupCompressor.decompress(sources.get(i).toPath(), staged, entry.getFileName(), manifestCompression, throttle);
+                }
+                if (!restored.equals(entry)) {
+                    throw new IOException("Corrupted backup " + sources.get(i) + ": expected " + entry + " but got " + restored);
+                }
+            }
+
+            for (final BackupManifest.Entry entry : manifest.getEntries()) {
+                Files.move(new File(stagingDir, entry.getFileName()).toPath(), new File(destDir, entry.getFileName()).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            for (final File file : listFiles(stagingDir)) {
+                Files.deleteIfExists(file.toPath());
             }
+            Files.deleteIfExists(stagingDir.toPath());
         }
     }
 }
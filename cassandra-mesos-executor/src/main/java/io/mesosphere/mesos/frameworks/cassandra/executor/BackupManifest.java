@@ -0,0 +1,223 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.executor;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.BackupCompression;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Lists the SSTable components of a table in a backup. Each entry describes the uncompressed component by file
+ * name, size and CRC32, which every restore verifies. Components of an incremental backup are stored as blobs in
+ * the node's SSTable store, keyed by these three values; components of a full backup sit next to the manifest.
+ * <p>
+ * The manifest is a text file with one {@code <crc32> <size> <file name>} line per component, optionally preceded
+ * by a {@code #compression <type>} line.
+ */
+public final class BackupManifest {
+    public static final String FILE_NAME = "manifest";
+
+    private static final String COMPRESSION_HEADER = "#compression ";
+
+    @NotNull
+    private final BackupCompression compression;
+    @NotNull
+    private final List<Entry> entries;
+
+    public BackupManifest(@NotNull final List<Entry> entries) {
+        this(BackupCompression.NONE, entries);
+    }
+
+    public BackupManifest(@NotNull final BackupCompression compression, @NotNull final List<Entry> entries) {
+        this.compression = compression;
+        this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    @NotNull
+    public BackupCompression getCompression() {
+        return compression;
+    }
+
+    @NotNull
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    @NotNull
+    public static BackupManifest read(@NotNull final File file) throws IOException {
+        BackupCompression compression = BackupCompression.NONE;
+        final List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (line.startsWith(COMPRESSION_HEADER)) {
+                    try {
+                        compression = BackupCompression.valueOf(line.substring(COMPRESSION_HEADER.length()).trim());
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException("Unknown compression in backup manifest " + file + ": " + line, e);
+                    }
+                    continue;
+                }
+                final String[] parts = line.split(" ", 3);
+                if (parts.length != 3) {
+                    throw new IOException("Malformed line in backup manifest " + file + ": " + line);
+                }
+                try {
+                    entries.add(new Entry(parts[2], Long.parseLong(parts[1]), Long.parseLong(parts[0], 16)));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed line in backup manifest " + file + ": " + line, e);
+                }
+            }
+        }
+        return new BackupManifest(compression, entries);
+    }
+
+    /**
+     * Writes the manifest to a temporary file first and renames it, so that a manifest is either complete
+     * or absent.
+     */
+    public void write(@NotNull final File file) throws IOException {
+        final Path tmp = new File(file.getParentFile(), file.getName() + ".tmp").toPath();
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            if (compression != BackupCompression.NONE) {
+                writer.write(COMPRESSION_HEADER + compression.name());
+                writer.newLine();
+            }
+            for (final Entry entry : entries) {
+                writer.write(Long.toHexString(entry.getChecksum()) + ' ' + entry.getSize() + ' ' + entry.getFileName());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @NotNull
+    public static Entry entryFor(@NotNull final File file) throws IOException {
+        return entryFor(file, IoThrottle.UNLIMITED);
+    }
+
+    @NotNull
+    public static Entry entryFor(@NotNull final File file, @NotNull final IoThrottle throttle) throws IOException {
+        return new Entry(file.getName(), file.length(), checksum(file, throttle));
+    }
+
+    static long checksum(@NotNull final File file, @NotNull final IoThrottle throttle) throws IOException {
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[65536];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                throttle.acquireBytes(n);
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    public static final class Entry {
+        @NotNull
+        private final String fileName;
+        private final long size;
+        private final long checksum;
+
+        public Entry(@NotNull final String fileName, final long size, final long checksum) {
+            this.fileName = fileName;
+            this.size = size;
+            this.checksum = checksum;
+        }
+
+        @NotNull
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * Name of the blob holding this component in the SSTable store.
+         */
+        @NotNull
+        public String getBlobName() {
+            return fileName + '.' + size + '.' + Long.toHexString(checksum);
+        }
+
+        /**
+         * Parses a name returned by {@link #getBlobName()}.
+         *
+         * @return the entry or {@code null} if {@code blobName} is not a blob name
+         */
+        @Nullable
+        public static Entry fromBlobName(@NotNull final String blobName) {
+            final int checksumDot = blobName.lastIndexOf('.');
+            final int sizeDot = checksumDot > 0 ? blobName.lastIndexOf('.', checksumDot - 1) : -1;
+            if (sizeDot <= 0) {
+                return null;
+            }
+            try {
+                return new Entry(blobName.substring(0, sizeDot),
+                    Long.parseLong(blobName.substring(sizeDot + 1, checksumDot)),
+                    Long.parseLong(blobName.substring(checksumDot + 1), 16));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            final Entry entry = (Entry) o;
+            return size == entry.size && checksum == entry.checksum && fileName.equals(entry.fileName);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = fileName.hashCode();
+            result = 31 * result + (int) (size ^ (size >>> 32));
+            result = 31 * result + (int) (checksum ^ (checksum >>> 32));
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return getBlobName();
+        }
+    }
+}
@@ -33,6 +33,7 @@ import org.slf4j.MarkerFactory;
 
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.*;
@@ -69,12 +70,23 @@ public final class CassandraExecutor implements Executor {
     @NotNull
     private final ExecutorService executorService;
 
+    /**
+     * Workers for node jobs that process several tables at once, each job bounds its own parallelism.
+     */
+    @NotNull
+    private final ExecutorService nodeJobExecutorService;
+
     @NotNull
     private final ScheduledExecutorService scheduledExecutorService;
 
     @NotNull
     private final AtomicBoolean killDaemonSingleton = new AtomicBoolean();
     private ScheduledFuture<?> healthCheckTask;
+    /**
+     * Health check of the running server, kept for requested health checks as it caches static node information.
+     */
+    private ServerHealthCheckTask healthCheck;
+    private long healthCheckIntervalSeconds;
 
     public CassandraExecutor(@NotNull final ObjectFactory objectFactory) {
         this.objectFactory = objectFactory;
@@ -88,6 +100,15 @@ public final class CassandraExecutor implements Executor {
             }
         });
 
+        this.nodeJobExecutorService = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger seq = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NotNull final Runnable r) {
+                return new Thread(r, "cassandra-node-job-" + seq.incrementAndGet());
+            }
+        });
+
         this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
     }
 
@@ -218,13 +239,15 @@ public final class CassandraExecutor implements Executor {
                 job = new NodeRepairJob(task.getTaskId());
                 break;
             case CLEANUP:
-                job = new NodeCleanupJob(task.getTaskId(), executorService);
+                job = new NodeCleanupJob(task.getTaskId(), nodeJobExecutorService, nodeJob.getParallelism());
                 break;
             case BACKUP:
-                job = new NodeBackupJob(task.getTaskId(), nodeJob.getBackupDir(), executorService);
+                job = new NodeBackupJob(task.getTaskId(), nodeJob.getBackupDir(), nodeJobExecutorService, nodeJob.getParallelism(),
+                    nodeJob.hasSstableStoreDir() ? nodeJob.getSstableStoreDir() : null, nodeJob.getIncremental(), nodeJob.getCompression(), nodeJob.getIoLimits());
                 break;
             case RESTORE:
-                job = new NodeRestoreJob(task.getTaskId(), nodeJob.getBackupDir(), executorService);
+                job = new NodeRestoreJob(task.getTaskId(), nodeJob.getBackupDir(), nodeJobExecutorService, nodeJob.getParallelism(),
+                    nodeJob.hasSstableStoreDir() ? nodeJob.getSstableStoreDir() : null, nodeJob.getIoLimits());
                 break;
             case TRUNCATE:
                 job = new NodeTruncateJob(task.getTaskId(), executorService);
@@ -306,6 +329,9 @@ public final class CassandraExecutor implements Executor {
                 case NODE_JOB_STATUS:
                     jobStatus(driver, null);
                     break;
+                case HEALTH_CHECK:
+                    requestedHealthCheck(driver);
+                    break;
                 default:
                     LOGGER.debug("Unhandled frameworkMessage with detail type: {}", taskDetails.getType());
                     break;
@@ -325,6 +351,7 @@ public final class CassandraExecutor implements Executor {
         // TODO implement
 
         executorService.shutdown();
+        nodeJobExecutorService.shutdown();
     }
 
     @Override
@@ -520,14 +547,36 @@ public final class CassandraExecutor implements Executor {
     private void startCheckingHealth(@NotNull final ExecutorDriver driver, @Nullable final JmxConnect jmxConnect, final long intervalSeconds) {
         stopCheckingHealth();
         LOGGER.debug("Scheduling background health check task to run every {} seconds", intervalSeconds);
+        healthCheckIntervalSeconds = intervalSeconds;
+        healthCheck = new ServerHealthCheckTask(driver, jmxConnect);
         healthCheckTask = scheduledExecutorService.scheduleAtFixedRate(
-            new ServerHealthCheckTask(driver, jmxConnect),
+            healthCheck,
             0,
             intervalSeconds,
             TimeUnit.SECONDS
         );
     }
 
+    /**
+     * Runs a health check requested by the scheduler. The background health check task only acts as a fallback
+     * and is pushed back as long as the scheduler keeps requesting health checks.
+     */
+    private void requestedHealthCheck(@NotNull final ExecutorDriver driver) {
+        if (healthCheckTask == null) {
+            LOGGER.debug("Ignoring health check request, Cassandra server not running");
+            return;
+        }
+        stopCheckingHealth();
+        final ServerHealthCheckTask check = healthCheck;
+        scheduledExecutorService.execute(check);
+        healthCheckTask = scheduledExecutorService.scheduleAtFixedRate(
+            check,
+            2 * healthCheckIntervalSeconds,
+            healthCheckIntervalSeconds,
+            TimeUnit.SECONDS
+        );
+    }
+
     private void stopCheckingHealth() {
         if (healthCheckTask != null) {
             LOGGER.debug("Stopping scheduled background health check task");
@@ -0,0 +1,166 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.executor;
+
+import com.google.common.util.concurrent.RateLimiter;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.IoLimits;
+import io.mesosphere.mesos.frameworks.cassandra.executor.jmx.JmxConnect;
+import io.mesosphere.mesos.frameworks.cassandra.executor.jmx.JmxRuntimeException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets limiting the disk I/O of backup and restore jobs in bytes and files per second.
+ * <p>
+ * The configured limits are upper bounds. Every {@link #SAMPLE_INTERVAL_NANOS} one of the acquiring threads
+ * checks Cassandra's pending compactions and 99th percentile read latency via JMX. While either exceeds its
+ * threshold the effective rates are halved (down to {@link #MIN_FACTOR} of the limit), otherwise they recover
+ * by {@link #RECOVERY_STEP} of the limit per interval.
+ */
+public final class IoThrottle {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IoThrottle.class);
+
+    static final long SAMPLE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    static final double MIN_FACTOR = 0.1d;
+    static final double RECOVERY_STEP = 0.1d;
+
+    static final int MAX_PENDING_COMPACTIONS = 32;
+    static final double MAX_READ_LATENCY_MICROS = 50000d;
+
+    private static final String PENDING_COMPACTIONS_NAME = "org.apache.cassandra.metrics:type=Compaction,name=PendingTasks";
+    private static final String READ_LATENCY_NAME = "org.apache.cassandra.metrics:type=ClientRequest,scope=Read,name=Latency";
+
+    public static final IoThrottle UNLIMITED = new IoThrottle(0d, 0d, null);
+
+    private final double maxBytesPerSecond;
+    private final double maxFilesPerSecond;
+    @Nullable
+    private final RateLimiter bytes;
+    @Nullable
+    private final RateLimiter files;
+    @Nullable
+    private final JmxConnect jmxConnect;
+
+    private final AtomicLong nextSample = new AtomicLong(System.nanoTime() + SAMPLE_INTERVAL_NANOS);
+    private volatile double factor = 1d;
+
+    /**
+     * @param maxMbPerSecond    upper bound for bytes read or written in MB per second, {@code 0} for no limit
+     * @param maxFilesPerSecond upper bound for files transferred per second, {@code 0} for no limit
+     * @param jmxConnect        JMX connection used to check Cassandra's load or {@code null} to use the fixed limits
+     */
+    public IoThrottle(final double maxMbPerSecond, final double maxFilesPerSecond, @Nullable final JmxConnect jmxConnect) {
+        this.maxBytesPerSecond = maxMbPerSecond * 1024 * 1024;
+        this.maxFilesPerSecond = maxFilesPerSecond;
+        this.bytes = maxMbPerSecond > 0d ? RateLimiter.create(maxBytesPerSecond) : null;
+        this.files = maxFilesPerSecond > 0d ? RateLimiter.create(maxFilesPerSecond) : null;
+        this.jmxConnect = jmxConnect;
+    }
+
+    @NotNull
+    public static IoThrottle forLimits(@NotNull final IoLimits limits, @Nullable final JmxConnect jmxConnect) {
+        if (limits.getMaxMbPerSecond() <= 0d && limits.getMaxFilesPerSecond() <= 0d) {
+            return UNLIMITED;
+        }
+        return new IoThrottle(limits.getMaxMbPerSecond(), limits.getMaxFilesPerSecond(), jmxConnect);
+    }
+
+    public boolean isBytesLimited() {
+        return bytes != null;
+    }
+
+    public void acquireBytes(final int count) {
+        if (bytes != null && count > 0) {
+            maybeSample();
+            bytes.acquire(count);
+        }
+    }
+
+    public void acquireFile() {
+        if (files != null) {
+            maybeSample();
+            files.acquire();
+        }
+    }
+
+    double getFactor() {
+        return factor;
+    }
+
+    double getBytesPerSecond() {
+        return bytes != null ? bytes.getRate() : 0d;
+    }
+
+    double getFilesPerSecond() {
+        return files != null ? files.getRate() : 0d;
+    }
+
+    /**
+     * Backs off multiplicatively while Cassandra is {@code overloaded}, otherwise recovers additively.
+     */
+    synchronized void adjust(final boolean overloaded) {
+        final double newFactor = overloaded
+            ? Math.max(MIN_FACTOR, factor / 2)
+            : Math.min(1d, factor + RECOVERY_STEP);
+        if (newFactor == factor) {
+            return;
+        }
+
+        factor = newFactor;
+        if (bytes != null) {
+            bytes.setRate(maxBytesPerSecond * newFactor);
+        }
+        if (files != null) {
+            files.setRate(maxFilesPerSecond * newFactor);
+        }
+        if (overloaded) {
+            LOGGER.info("Cassandra is busy, throttling backup/restore I/O to {}% of the configured limits", Math.round(newFactor * 100));
+        } else {
+            LOGGER.debug("Raising backup/restore I/O to {}% of the configured limits", Math.round(newFactor * 100));
+        }
+    }
+
+    private void maybeSample() {
+        if (jmxConnect == null) {
+            return;
+        }
+        final long now = System.nanoTime();
+        final long next = nextSample.get();
+        if (now - next < 0 || !nextSample.compareAndSet(next, now + SAMPLE_INTERVAL_NANOS)) {
+            return;
+        }
+        adjust(isOverloaded(jmxConnect));
+    }
+
+    private static boolean isOverloaded(@NotNull final JmxConnect jmxConnect) {
+        try {
+            final Object pendingCompactions = jmxConnect.getAttribute(PENDING_COMPACTIONS_NAME, "Value");
+            if (pendingCompactions instanceof Number && ((Number) pendingCompactions).intValue() > MAX_PENDING_COMPACTIONS) {
+                return true;
+            }
+            final Object readLatency = jmxConnect.getAttribute(READ_LATENCY_NAME, "99thPercentile");
+            return readLatency instanceof Number && ((Number) readLatency).doubleValue() > MAX_READ_LATENCY_MICROS;
+        } catch (final JmxRuntimeException e) {
+            LOGGER.debug("Failed to check Cassandra's load, keeping current I/O rates", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.executor;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.DiskUsage;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.NodeMetrics;
+import io.mesosphere.mesos.frameworks.cassandra.executor.jmx.JmxConnect;
+import io.mesosphere.mesos.frameworks.cassandra.executor.jmx.JmxRuntimeException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the performance metrics of the Cassandra node that are sent with each health check.
+ * <p>
+ * Keeps the previous values of cumulative counters to send the increase since the previous collection.
+ * A counter that went backwards indicates a restarted Cassandra process, its current value is sent as the increase.
+ * <p>
+ * Every value is a remote JMX call, so the number of calls per collection is kept constant: the SSTable count is
+ * read from Cassandra's aggregate over all tables instead of reading every table and the names of the garbage
+ * collector MBeans are only queried once. Cached values and previous counter values are dropped when the JMX
+ * connection has been re-established, as the Cassandra process may have been restarted.
+ */
+final class NodeMetricsCollector {
+
+    static final String READ_LATENCY_NAME = "org.apache.cassandra.metrics:type=ClientRequest,scope=Read,name=Latency";
+    static final String WRITE_LATENCY_NAME = "org.apache.cassandra.metrics:type=ClientRequest,scope=Write,name=Latency";
+    static final String PENDING_COMPACTIONS_NAME = "org.apache.cassandra.metrics:type=Compaction,name=PendingTasks";
+    static final String DROPPED_MUTATIONS_NAME = "org.apache.cassandra.metrics:type=DroppedMessage,scope=MUTATION,name=Dropped";
+    static final String LIVE_SSTABLE_COUNT_NAME = "org.apache.cassandra.metrics:type=ColumnFamily,name=LiveSSTableCount";
+    static final String LIVE_SSTABLE_COUNT_PATTERN = "org.apache.cassandra.metrics:type=ColumnFamily,*,name=LiveSSTableCount";
+    static final String GARBAGE_COLLECTOR_PATTERN = ManagementFactory.GARBAGE_COLLECTOR_MXBEAN_DOMAIN_TYPE + ",*";
+    static final String STORAGE_SERVICE_NAME = "org.apache.cassandra.db:type=StorageService";
+    static final String STORAGE_PROXY_NAME = "org.apache.cassandra.db:type=StorageProxy";
+
+    @NotNull
+    private final JmxConnect jmxConnect;
+
+    // guarded by this
+    private long connectionGeneration;
+    private long lastCollectMillis;
+    private long lastDroppedMutations = -1L;
+    private long lastGcMillis = -1L;
+    @Nullable
+    private String[] dataFileLocations;
+    @Nullable
+    private List<String> gcNames;
+    private boolean perTableSstableCount;
+
+    NodeMetricsCollector(@NotNull final JmxConnect jmxConnect) {
+        this.jmxConnect = jmxConnect;
+    }
+
+    @NotNull
+    synchronized NodeMetrics collect() {
+        final long now = System.currentTimeMillis();
+        final NodeMetrics.Builder builder = NodeMetrics.newBuilder();
+        if (lastCollectMillis > 0L) {
+            builder.setIntervalMillis(now - lastCollectMillis);
+        }
+        lastCollectMillis = now;
+
+        // the first call connects if necessary
+        final Map<String, Object> readLatency = jmxConnect.getAttributes(READ_LATENCY_NAME, "50thPercentile", "99thPercentile");
+        final long generation = jmxConnect.connectionGeneration();
+        if (generation != connectionGeneration) {
+            connectionGeneration = generation;
+            lastDroppedMutations = -1L;
+            lastGcMillis = -1L;
+            dataFileLocations = null;
+            gcNames = null;
+            perTableSstableCount = false;
+        }
+
+        final Long read50 = asLong(readLatency.get("50thPercentile"));
+        if (read50 != null) {
+            builder.setReadLatency50Micros(read50);
+        }
+        final Long read99 = asLong(readLatency.get("99thPercentile"));
+        if (read99 != null) {
+            builder.setReadLatency99Micros(read99);
+        }
+
+        final Map<String, Object> writeLatency = jmxConnect.getAttributes(WRITE_LATENCY_NAME, "50thPercentile", "99thPercentile");
+        final Long write50 = asLong(writeLatency.get("50thPercentile"));
+        if (write50 != null) {
+            builder.setWriteLatency50Micros(write50);
+        }
+        final Long write99 = asLong(writeLatency.get("99thPercentile"));
+        if (write99 != null) {
+            builder.setWriteLatency99Micros(write99);
+        }
+
+        final Long pendingCompactions = asLong(jmxConnect.getAttribute(PENDING_COMPACTIONS_NAME, "Value"));
+        if (pendingCompactions != null) {
+            builder.setPendingCompactions(pendingCompactions.intValue());
+        }
+
+        final Long droppedMutations = asLong(jmxConnect.getAttribute(DROPPED_MUTATIONS_NAME, "Count"));
+        if (droppedMutations != null) {
+            if (lastDroppedMutations >= 0L) {
+                builder.setDroppedMutations(delta(lastDroppedMutations, droppedMutations));
+            }
+            lastDroppedMutations = droppedMutations;
+        }
+
+        final Object heap = jmxConnect.getAttribute(ManagementFactory.MEMORY_MXBEAN_NAME, "HeapMemoryUsage");
+        if (heap instanceof CompositeData) {
+            final MemoryUsage heapUsage = MemoryUsage.from((CompositeData) heap);
+            builder.setHeapUsedBytes(heapUsage.getUsed())
+                .setHeapMaxBytes(heapUsage.getMax());
+        }
+
+        final long gcMillis = gcMillis();
+        if (lastGcMillis >= 0L) {
+            builder.setGcPauseMillis(delta(lastGcMillis, gcMillis));
+        }
+        lastGcMillis = gcMillis;
+
+        builder.setSstableCount((int) sstableCount());
+
+        final Long hintsInProgress = asLong(jmxConnect.getAttribute(STORAGE_PROXY_NAME, "HintsInProgress"));
+        if (hintsInProgress != null) {
+            builder.setHintsInProgress(hintsInProgress.intValue());
+        }
+
+        // Cassandra runs on the same host, so the data file locations can be inspected directly
+        for (final String location : dataFileLocations()) {
+            final File dir = new File(location);
+            final long total = dir.getTotalSpace();
+            if (total > 0L) {
+                builder.addDiskUsage(DiskUsage.newBuilder()
+                    .setPath(location)
+                    .setUsedBytes(total - dir.getFreeSpace())
+                    .setTotalBytes(total));
+            }
+        }
+
+        return builder.build();
+    }
+
+    @NotNull
+    private String[] dataFileLocations() {
+        if (dataFileLocations == null) {
+            final Object locations = jmxConnect.getAttribute(STORAGE_SERVICE_NAME, "AllDataFileLocations");
+            if (!(locations instanceof String[])) {
+                return new String[0];
+            }
+            dataFileLocations = (String[]) locations;
+        }
+        return dataFileLocations;
+    }
+
+    private long gcMillis() {
+        if (gcNames == null) {
+            gcNames = jmxConnect.queryNames(GARBAGE_COLLECTOR_PATTERN);
+        }
+        long sum = 0L;
+        try {
+            for (final String name : gcNames) {
+                final Long l = asLong(jmxConnect.getAttribute(name, "CollectionTime"));
+                if (l != null) {
+                    sum += l;
+                }
+            }
+        } catch (final JmxRuntimeException e) {
+            // query the names again, a restarted Cassandra process may use other collectors
+            gcNames = null;
+            throw e;
+        }
+        return sum;
+    }
+
+    private long sstableCount() {
+        if (!perTableSstableCount) {
+            try {
+                final Long count = asLong(jmxConnect.getAttribute(LIVE_SSTABLE_COUNT_NAME, "Value"));
+                if (count != null) {
+                    return count;
+                }
+            } catch (final JmxRuntimeException e) {
+                if (!isCausedBy(e, InstanceNotFoundException.class)) {
+                    throw e;
+                }
+            }
+            // Cassandra version without the aggregate
+            perTableSstableCount = true;
+        }
+        return sum(jmxConnect.queryAttribute(LIVE_SSTABLE_COUNT_PATTERN, "Value"));
+    }
+
+    private static boolean isCausedBy(@NotNull final Throwable t, @NotNull final Class<? extends Throwable> type) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long delta(final long previous, final long current) {
+        return current >= previous ? current - previous : current;
+    }
+
+    private static long sum(@NotNull final Map<String, Object> values) {
+        long sum = 0L;
+        for (final Object value : values.values()) {
+            final Long l = asLong(value);
+            if (l != null) {
+                sum += l;
+            }
+        }
+        return sum;
+    }
+
+    @Nullable
+    private static Long asLong(@Nullable final Object value) {
+        return value instanceof Number ? Math.round(((Number) value).doubleValue()) : null;
+    }
+}
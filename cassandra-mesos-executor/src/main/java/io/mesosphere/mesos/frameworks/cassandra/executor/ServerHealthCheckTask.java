@@ -4,6 +4,7 @@ import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.HealthCheckDetails;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.SlaveStatusDetails;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.SlaveStatusDetails.StatusDetailsType;
+import io.mesosphere.mesos.frameworks.cassandra.executor.jmx.InconsistentNodeException;
 import io.mesosphere.mesos.frameworks.cassandra.executor.jmx.JmxConnect;
 import io.mesosphere.mesos.frameworks.cassandra.executor.jmx.Nodetool;
 import org.apache.mesos.ExecutorDriver;
@@ -14,6 +15,8 @@ import org.slf4j.LoggerFactory;
 
 import java.net.UnknownHostException;
 import java.rmi.ConnectException;
+import java.util.List;
+import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static io.mesosphere.mesos.util.ProtoUtils.protoToString;
@@ -22,14 +25,41 @@ public final class ServerHealthCheckTask implements Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ServerHealthCheckTask.class);
 
+    /**
+     * StorageService attributes that can change while the node is running, read with a single remote call.
+     */
+    private static final String[] STATUS_ATTRIBUTES = {
+        "OperationMode", "Joined", "Initialized", "GossipRunning", "NativeTransportRunning", "RPCServerRunning"
+    };
+
     @NotNull
     private final ExecutorDriver driver;
     @Nullable
     private final JmxConnect jmxConnect;
+    @Nullable
+    private final NodeMetricsCollector metricsCollector;
+
+    /**
+     * Values that do not change during the lifetime of the Cassandra process: version and cluster name after the
+     * first successful health check, plus endpoint, token count, data center, rack and host ID once the node is
+     * {@code NORMAL}. Dropped whenever a health check fails or the JMX connection has been re-established, as the
+     * process may have been restarted.
+     */
+    @Nullable
+    private volatile CassandraFrameworkProtos.NodeInfo staticInfo;
+    /**
+     * {@link JmxConnect#connectionGeneration()} of the connection {@link #staticInfo} has been read with.
+     */
+    private volatile long staticInfoGeneration;
+    /**
+     * Start time of the Cassandra JVM, used to compute the uptime without another remote call.
+     */
+    private volatile long startTimeMillis;
 
     public ServerHealthCheckTask(@NotNull final ExecutorDriver driver, @Nullable final JmxConnect jmxConnect) {
         this.driver = driver;
         this.jmxConnect = jmxConnect;
+        this.metricsCollector = jmxConnect != null ? new NodeMetricsCollector(jmxConnect) : null;
     }
 
     @Override
@@ -68,7 +98,9 @@ public final class ServerHealthCheckTask implements Runnable {
                 info.getRack(),
                 info.getHostId(),
                 info.getVersion());
+            collectMetrics(builder);
         } catch (final Exception e) {
+            staticInfo = null;
             //noinspection ThrowableResultOfMethodCallIgnored
             final ConnectException connectException = findConnectException(e);
             if (connectException != null) {
@@ -90,39 +122,99 @@ public final class ServerHealthCheckTask implements Runnable {
         // C* should be considered healthy, if the information can be collected.
         // All flags can be manually set by any administrator and represent a valid state.
 
-        final String operationMode = nodetool.getOperationMode();
-        final boolean joined = nodetool.isJoined();
-        final boolean gossipInitialized = nodetool.isGossipInitialized();
-        final boolean gossipRunning = nodetool.isGossipRunning();
-        final boolean nativeTransportRunning = nodetool.isNativeTransportRunning();
-        final boolean rpcServerRunning = nodetool.isRPCServerRunning();
+        final Map<String, Object> status = nodetool.getStorageServiceAttributes(STATUS_ATTRIBUTES);
+        // a transparent reconnect, e.g. to a restarted process, does not fail the health check
+        final long generation = checkNotNull(jmxConnect).connectionGeneration();
+        if (generation != staticInfoGeneration) {
+            staticInfo = null;
+            staticInfoGeneration = generation;
+        }
+        final String operationMode = (String) status.get("OperationMode");
+        if (operationMode == null) {
+            throw new InconsistentNodeException("Could not read operation mode of Cassandra node");
+        }
+        final boolean joined = flag(status, "Joined");
+        final boolean gossipInitialized = flag(status, "Initialized");
+        final boolean gossipRunning = flag(status, "GossipRunning");
+        final boolean nativeTransportRunning = flag(status, "NativeTransportRunning");
+        final boolean rpcServerRunning = flag(status, "RPCServerRunning");
 
         final boolean valid = "NORMAL".equals(operationMode);
 
         LOGGER.info("Cassandra node status: operationMode={}, joined={}, gossipInitialized={}, gossipRunning={}, nativeTransportRunning={}, rpcServerRunning={}",
             operationMode, joined, gossipInitialized, gossipRunning, nativeTransportRunning, rpcServerRunning);
 
-        final CassandraFrameworkProtos.NodeInfo.Builder builder = CassandraFrameworkProtos.NodeInfo.newBuilder()
+        final CassandraFrameworkProtos.NodeInfo.Builder builder = CassandraFrameworkProtos.NodeInfo.newBuilder(staticInfo(nodetool, valid))
             .setOperationMode(operationMode)
             .setJoined(joined)
             .setGossipInitialized(gossipInitialized)
             .setGossipRunning(gossipRunning)
             .setNativeTransportRunning(nativeTransportRunning)
             .setRpcServerRunning(rpcServerRunning)
-            .setUptimeMillis(nodetool.getUptimeInMillis())
-            .setVersion(nodetool.getVersion())
-            .setClusterName(nodetool.getClusterName());
-
-        if (valid) {
-            final String endpoint = nodetool.getEndpoint();
-            builder.setEndpoint(endpoint)
-                .setTokenCount(nodetool.getTokenCount())
+            .setUptimeMillis(System.currentTimeMillis() - startTimeMillis);
+
+        if (!valid) {
+            builder.clearEndpoint()
+                .clearTokenCount()
+                .clearDataCenter()
+                .clearRack()
+                .clearHostId();
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Returns the cached static values, reading the missing ones from the node.
+     */
+    @NotNull
+    private CassandraFrameworkProtos.NodeInfo staticInfo(@NotNull final Nodetool nodetool, final boolean valid) throws UnknownHostException {
+        CassandraFrameworkProtos.NodeInfo info = staticInfo;
+        if (info == null) {
+            final Map<String, Object> attributes = nodetool.getStorageServiceAttributes("ReleaseVersion", "ClusterName");
+            startTimeMillis = nodetool.getStartTimeInMillis();
+            info = CassandraFrameworkProtos.NodeInfo.newBuilder()
+                .setVersion(String.valueOf(attributes.get("ReleaseVersion")))
+                .setClusterName(String.valueOf(attributes.get("ClusterName")))
+                .build();
+            staticInfo = info;
+        }
+
+        if (valid && !info.hasHostId()) {
+            final Map<String, Object> attributes = nodetool.getStorageServiceAttributes("LocalHostId", "Tokens");
+            final String hostId = (String) attributes.get("LocalHostId");
+            final List<?> tokens = (List<?>) attributes.get("Tokens");
+            if (hostId == null || tokens == null) {
+                throw new InconsistentNodeException("Could not read host ID and tokens of Cassandra node");
+            }
+            final String endpoint = nodetool.getEndpoint(hostId);
+            info = CassandraFrameworkProtos.NodeInfo.newBuilder(info)
+                .setEndpoint(endpoint)
+                .setTokenCount(tokens.size())
                 .setDataCenter(nodetool.getDataCenter(endpoint))
                 .setRack(nodetool.getRack(endpoint))
-                .setHostId(nodetool.getHostID());
+                .setHostId(hostId)
+                .build();
+            staticInfo = info;
         }
 
-        return builder.build();
+        return info;
+    }
+
+    private static boolean flag(@NotNull final Map<String, Object> attributes, @NotNull final String name) {
+        return Boolean.TRUE.equals(attributes.get(name));
+    }
+
+    /**
+     * Adds the node's metrics to a successful health check. The node is healthy regardless of whether the metrics
+     * could be collected.
+     */
+    private void collectMetrics(@NotNull final HealthCheckDetails.Builder builder) {
+        try {
+            builder.setMetrics(checkNotNull(metricsCollector).collect());
+        } catch (final Exception e) {
+            LOGGER.debug("Failed to collect node metrics", e);
+        }
     }
 
     @Nullable
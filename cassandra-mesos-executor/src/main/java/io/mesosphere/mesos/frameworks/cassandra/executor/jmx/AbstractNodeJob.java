@@ -24,13 +24,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
-import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
-import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Lists.newArrayList;
 import static io.mesosphere.mesos.util.ProtoUtils.protoToString;
 
@@ -52,11 +50,11 @@ public abstract class AbstractNodeJob implements Closeable {
     @Nullable
     private List<String> remainingKeyspaces;
     @NotNull
-    private final Map<String, CassandraFrameworkProtos.ClusterJobKeyspaceStatus> keyspaceStatus = new HashMap<>();
+    private final Map<String, CassandraFrameworkProtos.ClusterJobKeyspaceStatus> keyspaceStatus = new ConcurrentHashMap<>();
 
     private volatile long keyspaceStartedAt;
 
-    private long finishedTimestamp;
+    private volatile long finishedTimestamp;
 
     protected AbstractNodeJob(@NotNull final Protos.TaskID taskId) {
         this.taskId = taskId;
@@ -84,13 +82,12 @@ public abstract class AbstractNodeJob implements Closeable {
         return true;
     }
 
+    /**
+     * Releases resources held by the job. The {@link JmxConnect} is shared with the health checks and
+     * other jobs and owned by the executor, so it stays open.
+     */
     @Override
     public void close() {
-        try {
-            checkNotNull(jmxConnect).close();
-        } catch (final IOException e) {
-            // ignore
-        }
     }
 
     public long getStartTimestamp() {
@@ -135,8 +132,12 @@ public abstract class AbstractNodeJob implements Closeable {
     }
 
     protected void keyspaceFinished(@NotNull final String status, @NotNull final String keyspace) {
+        keyspaceFinished(status, keyspace, keyspaceStartedAt);
+    }
+
+    protected void keyspaceFinished(@NotNull final String status, @NotNull final String keyspace, final long startedAt) {
         keyspaceStatus.put(keyspace, CassandraFrameworkProtos.ClusterJobKeyspaceStatus.newBuilder()
-                .setDuration(System.currentTimeMillis() - keyspaceStartedAt)
+                .setDuration(System.currentTimeMillis() - startedAt)
                 .setStatus(status)
                 .setKeyspace(keyspace)
                 .build());
@@ -155,6 +156,18 @@ public abstract class AbstractNodeJob implements Closeable {
         return null;
     }
 
+    /**
+     * Removes the next keyspace to process, without finishing the job when there is none left.
+     */
+    @Nullable
+    protected String pollKeyspace() {
+        final List<String> remaining = remainingKeyspaces;
+        if (remaining == null || remaining.isEmpty()) {
+            return null;
+        }
+        return remaining.remove(0);
+    }
+
     public abstract void startNextKeyspace();
 
     public void forceAbort() {
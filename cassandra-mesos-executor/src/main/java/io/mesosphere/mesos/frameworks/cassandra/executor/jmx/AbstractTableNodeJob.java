@@ -0,0 +1,233 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.executor.jmx;
+
+import org.apache.mesos.Protos;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Base class for node jobs that work table by table. Up to {@code parallelism} tables, of the same or of
+ * different keyspaces, are processed at the same time. Status is still reported per keyspace: a keyspace
+ * is finished when all of its tables are, and it failed if any of its tables failed.
+ */
+public abstract class AbstractTableNodeJob extends AbstractNodeJob {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTableNodeJob.class);
+
+    @NotNull
+    private final ExecutorService executorService;
+    private final int parallelism;
+
+    // guarded by this
+    @NotNull
+    private final Deque<Runnable> pendingWork = new ArrayDeque<>();
+    @NotNull
+    private final Set<Future<?>> runningWork = new HashSet<>();
+    private int inFlight;
+    private boolean closed;
+
+    protected AbstractTableNodeJob(@NotNull final Protos.TaskID taskId, @NotNull final ExecutorService executorService, final int parallelism) {
+        super(taskId);
+        this.executorService = executorService;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public void startNextKeyspace() {
+        dispatch();
+    }
+
+    /**
+     * Called on a worker thread before the first table of {@code keyspace} is processed.
+     */
+    protected void keyspaceStarting(@NotNull final String keyspace) throws Exception {
+    }
+
+    protected abstract void processTable(@NotNull String keyspace, @NotNull String table) throws Exception;
+
+    /**
+     * Called on a worker thread after the last table of {@code keyspace} has been processed.
+     */
+    protected void keyspaceDone(@NotNull final String keyspace, final boolean success) throws Exception {
+    }
+
+    @Override
+    public void forceAbort() {
+        synchronized (this) {
+            closed = true;
+            pendingWork.clear();
+        }
+        super.forceAbort();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            pendingWork.clear();
+            for (final Future<?> future : runningWork) {
+                future.cancel(true);
+            }
+            runningWork.clear();
+        }
+        super.close();
+    }
+
+    private synchronized void dispatch() {
+        while (!closed && inFlight < parallelism) {
+            Runnable work = pendingWork.poll();
+            if (work == null) {
+                // only open the next keyspace when all tables of the opened ones are taken
+                final String keyspace = pollKeyspace();
+                if (keyspace == null) {
+                    break;
+                }
+                work = openKeyspace(keyspace);
+            }
+            inFlight++;
+            submit(work);
+        }
+
+        if (!closed && inFlight == 0 && pendingWork.isEmpty() && getRemainingKeyspaces().isEmpty() && !isFinished()) {
+            cleanupAfterJobFinished();
+        }
+    }
+
+    private void submit(@NotNull final Runnable work) {
+        final AtomicReference<Future<?>> future = new AtomicReference<>();
+        future.set(executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    work.run();
+                } finally {
+                    workDone(future);
+                }
+            }
+        }));
+        runningWork.add(future.get());
+    }
+
+    private synchronized void workDone(@NotNull final AtomicReference<Future<?>> future) {
+        runningWork.remove(future.get());
+        inFlight--;
+        dispatch();
+    }
+
+    @NotNull
+    private Runnable openKeyspace(@NotNull final String keyspace) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                LOGGER.info("Starting {} on keyspace {}", getType(), keyspace);
+                final KeyspaceRun keyspaceRun = new KeyspaceRun(keyspace);
+
+                final List<String> tables;
+                try {
+                    keyspaceStarting(keyspace);
+                    tables = checkNotNull(jmxConnect).getColumnFamilyNames(keyspace);
+                } catch (final Exception e) {
+                    LOGGER.error("Failed to start " + getType() + " on keyspace " + keyspace, e);
+                    keyspaceRun.failed = true;
+                    finishKeyspace(keyspaceRun);
+                    return;
+                }
+
+                if (tables.isEmpty()) {
+                    finishKeyspace(keyspaceRun);
+                    return;
+                }
+
+                synchronized (AbstractTableNodeJob.this) {
+                    keyspaceRun.remainingTables = tables.size();
+                    for (final String table : tables) {
+                        pendingWork.add(tableWork(keyspaceRun, table));
+                    }
+                }
+            }
+        };
+    }
+
+    @NotNull
+    private Runnable tableWork(@NotNull final KeyspaceRun keyspaceRun, @NotNull final String table) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                boolean success = false;
+                try {
+                    processTable(keyspaceRun.keyspace, table);
+                    success = true;
+                } catch (final Exception e) {
+                    LOGGER.error("Failed to " + getType() + " table " + keyspaceRun.keyspace + '/' + table, e);
+                }
+
+                final boolean last;
+                synchronized (AbstractTableNodeJob.this) {
+                    if (!success) {
+                        keyspaceRun.failed = true;
+                    }
+                    last = --keyspaceRun.remainingTables == 0;
+                }
+                if (last) {
+                    finishKeyspace(keyspaceRun);
+                }
+            }
+        };
+    }
+
+    private void finishKeyspace(@NotNull final KeyspaceRun keyspaceRun) {
+        boolean success;
+        synchronized (this) {
+            success = !keyspaceRun.failed;
+        }
+        try {
+            keyspaceDone(keyspaceRun.keyspace, success);
+        } catch (final Exception e) {
+            LOGGER.error("Failed to finish " + getType() + " on keyspace " + keyspaceRun.keyspace, e);
+            success = false;
+        }
+        keyspaceFinished(success ? SUCCESS : FAILURE, keyspaceRun.keyspace, keyspaceRun.startedAt);
+    }
+
+    private static final class KeyspaceRun {
+        @NotNull
+        private final String keyspace;
+        private final long startedAt = System.currentTimeMillis();
+        // guarded by the job
+        private int remainingTables;
+        private boolean failed;
+
+        private KeyspaceRun(@NotNull final String keyspace) {
+            this.keyspace = keyspace;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.apache.cassandra.db.ColumnFamilyStoreMBean;
 import org.apache.cassandra.locator.EndpointSnitchInfoMBean;
 import org.apache.cassandra.service.*;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 import java.lang.management.RuntimeMXBean;
@@ -46,4 +47,46 @@ public interface JmxConnect extends Closeable {
 
     @NotNull
     List<String> getColumnFamilyNames(@NotNull String keyspace);
+
+    /**
+     * Reads a single attribute of an arbitrary MBean, for example one of Cassandra's metrics.
+     *
+     * @throws JmxRuntimeException if the MBean or the attribute cannot be read
+     */
+    @Nullable
+    Object getAttribute(@NotNull String objectName, @NotNull String attribute);
+
+    /**
+     * Reads several attributes of the same MBean in a single remote call.
+     * Attributes that could not be read are absent from the returned map.
+     *
+     * @throws JmxRuntimeException if the MBean cannot be read
+     */
+    @NotNull
+    Map<String, Object> getAttributes(@NotNull String objectName, @NotNull String... attributes);
+
+    /**
+     * Reads an attribute of all MBeans matching an object name pattern, for example
+     * {@code java.lang:type=GarbageCollector,*}. MBeans without that attribute are skipped.
+     *
+     * @return attribute values keyed by object name
+     * @throws JmxRuntimeException if the MBeans cannot be queried
+     */
+    @NotNull
+    Map<String, Object> queryAttribute(@NotNull String objectNamePattern, @NotNull String attribute);
+
+    /**
+     * Returns the canonical names of all MBeans matching an object name pattern.
+     *
+     * @throws JmxRuntimeException if the MBeans cannot be queried
+     */
+    @NotNull
+    List<String> queryNames(@NotNull String objectNamePattern);
+
+    /**
+     * Returns a number that changes whenever a new connection to the Cassandra process has been established, for
+     * example after the process has been restarted. Values cached for the lifetime of the process must be read
+     * again when it changes.
+     */
+    long connectionGeneration();
 }
@@ -17,34 +17,70 @@ package io.mesosphere.mesos.frameworks.cassandra.executor.jmx;
 
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
 import io.mesosphere.mesos.frameworks.cassandra.executor.BackupManager;
+import io.mesosphere.mesos.frameworks.cassandra.executor.IoThrottle;
 import org.apache.mesos.Protos;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-public class NodeBackupJob extends AbstractNodeJob {
+public class NodeBackupJob extends AbstractTableNodeJob {
     private static final Logger LOGGER = LoggerFactory.getLogger(NodeBackupJob.class);
 
-    @NotNull
-    private final ExecutorService executorService;
     @NotNull
     private final String backupDir;
+    @Nullable
+    private final String sstableStoreDir;
+    private final boolean incremental;
+    @NotNull
+    private final CassandraFrameworkProtos.BackupCompression compression;
+    @NotNull
+    private final CassandraFrameworkProtos.IoLimits ioLimits;
+    @NotNull
+    private final ConcurrentMap<String, String> snapshots = new ConcurrentHashMap<>();
 
-    private Future<?> backupFuture;
+    private BackupManager backupManager;
 
     public NodeBackupJob(
             @NotNull final Protos.TaskID taskId,
             @NotNull final String backupDir,
             @NotNull final ExecutorService executorService)
     {
-        super(taskId);
+        this(taskId, backupDir, executorService, 1);
+    }
+
+    public NodeBackupJob(
+            @NotNull final Protos.TaskID taskId,
+            @NotNull final String backupDir,
+            @NotNull final ExecutorService executorService,
+            final int parallelism)
+    {
+        this(taskId, backupDir, executorService, parallelism, null, false, CassandraFrameworkProtos.BackupCompression.NONE,
+            CassandraFrameworkProtos.IoLimits.getDefaultInstance());
+    }
+
+    public NodeBackupJob(
+            @NotNull final Protos.TaskID taskId,
+            @NotNull final String backupDir,
+            @NotNull final ExecutorService executorService,
+            final int parallelism,
+            @Nullable final String sstableStoreDir,
+            final boolean incremental,
+            @NotNull final CassandraFrameworkProtos.BackupCompression compression,
+            @NotNull final CassandraFrameworkProtos.IoLimits ioLimits)
+    {
+        super(taskId, executorService, parallelism);
         this.backupDir = backupDir;
-        this.executorService = executorService;
+        this.sstableStoreDir = sstableStoreDir;
+        this.incremental = incremental;
+        this.compression = compression;
+        this.ioLimits = ioLimits;
     }
 
     @NotNull
@@ -58,48 +94,30 @@ public class NodeBackupJob extends AbstractNodeJob {
             return false;
         }
 
-        LOGGER.info("Initiated backup into '{}' for keyspaces {}", backupDir, getRemainingKeyspaces());
+        backupManager = new BackupManager(jmxConnect, backupDir, sstableStoreDir, incremental, compression,
+            IoThrottle.forLimits(ioLimits, jmxConnect));
+
+        LOGGER.info("Initiated {} backup into '{}' with parallelism {} and compression {} for keyspaces {}",
+                incremental ? "incremental" : "full", backupDir, getParallelism(), compression, getRemainingKeyspaces());
 
         return true;
     }
 
     @Override
-    public void startNextKeyspace() {
-        final String keyspace = super.nextKeyspace();
-        if (keyspace == null) {
-            return;
-        }
+    protected void keyspaceStarting(@NotNull final String keyspace) throws Exception {
+        snapshots.put(keyspace, checkNotNull(backupManager).takeSnapshot(keyspace));
+    }
 
-        backupFuture = executorService.submit(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    LOGGER.info("Starting backup on keyspace {}", keyspace);
-                    keyspaceStarted();
-
-                    final BackupManager backupManager = new BackupManager(checkNotNull(jmxConnect), backupDir);
-                    backupManager.backup(keyspace);
-
-                    keyspaceFinished(SUCCESS, keyspace);
-                } catch (final Exception e) {
-                    LOGGER.error("Failed to backup keyspace " + keyspace, e);
-                    keyspaceFinished(FAILURE, keyspace);
-                } finally {
-                    startNextKeyspace();
-                }
-            }
-        });
-
-        LOGGER.info("Submitted backup for keyspace {}", keyspace);
+    @Override
+    protected void processTable(@NotNull final String keyspace, @NotNull final String table) throws Exception {
+        checkNotNull(backupManager).copyTableSnapshot(checkNotNull(snapshots.get(keyspace)), keyspace, table);
     }
 
     @Override
-    public void close() {
-        if (backupFuture != null) {
-            backupFuture.cancel(true);
-            backupFuture = null;
+    protected void keyspaceDone(@NotNull final String keyspace, final boolean success) throws Exception {
+        final String snapshot = snapshots.remove(keyspace);
+        if (snapshot != null) {
+            checkNotNull(backupManager).clearSnapshot(snapshot, keyspace);
         }
-
-        super.close();
     }
 }
@@ -22,22 +22,19 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-public class NodeCleanupJob extends AbstractNodeJob {
+public class NodeCleanupJob extends AbstractTableNodeJob {
     private static final Logger LOGGER = LoggerFactory.getLogger(NodeCleanupJob.class);
-    @NotNull
-    private final ExecutorService executorService;
-    private Future<?> cleanupFuture;
 
     public NodeCleanupJob(@NotNull final Protos.TaskID taskId, @NotNull final ExecutorService executorService) {
-        super(taskId);
+        this(taskId, executorService, 1);
+    }
 
-        this.executorService = executorService;
+    public NodeCleanupJob(@NotNull final Protos.TaskID taskId, @NotNull final ExecutorService executorService, final int parallelism) {
+        super(taskId, executorService, parallelism);
     }
 
     @NotNull
@@ -51,56 +48,20 @@ public class NodeCleanupJob extends AbstractNodeJob {
             return false;
         }
 
-        LOGGER.info("Initiated cleanup job for keyspaces {}", getRemainingKeyspaces());
+        LOGGER.info("Initiated cleanup job with parallelism {} for keyspaces {}", getParallelism(), getRemainingKeyspaces());
 
         return true;
     }
 
     @Override
-    public void startNextKeyspace() {
-        final String keyspace = super.nextKeyspace();
-        if (keyspace == null) {
-            return;
-        }
-
-        cleanupFuture = executorService.submit(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    LOGGER.info("Starting cleanup on keyspace {}", keyspace);
-                    keyspaceStarted();
-                    final List<String> cfNames = checkNotNull(jmxConnect).getColumnFamilyNames(keyspace);
-                    for (final String cfName : cfNames) {
-                        final int status = jmxConnect.getStorageServiceProxy().forceKeyspaceCleanup(keyspace, cfName);
-                        CompactionManager.AllSSTableOpStatus s = CompactionManager.AllSSTableOpStatus.SUCCESSFUL;
-                        for (final CompactionManager.AllSSTableOpStatus st : CompactionManager.AllSSTableOpStatus.values()) {
-                            if (st.statusCode == status) {
-                                s = st;
-                            }
-                        }
-                        LOGGER.info("Cleanup of {}.{} returned with {}", keyspace, cfName, s);
-                    }
-                    keyspaceFinished(SUCCESS, keyspace);
-                } catch (final Exception e) {
-                    LOGGER.error("Failed to cleanup keyspace " + keyspace, e);
-                    keyspaceFinished(FAILURE, keyspace);
-                } finally {
-                    startNextKeyspace();
-                }
+    protected void processTable(@NotNull final String keyspace, @NotNull final String table) throws Exception {
+        final int status = checkNotNull(jmxConnect).getStorageServiceProxy().forceKeyspaceCleanup(keyspace, table);
+        CompactionManager.AllSSTableOpStatus s = CompactionManager.AllSSTableOpStatus.SUCCESSFUL;
+        for (final CompactionManager.AllSSTableOpStatus st : CompactionManager.AllSSTableOpStatus.values()) {
+            if (st.statusCode == status) {
+                s = st;
             }
-        });
-
-        LOGGER.info("Submitted cleanup for keyspace {}", keyspace);
-    }
-
-    @Override
-    public void close() {
-        if (cleanupFuture != null) {
-            cleanupFuture.cancel(true);
-            cleanupFuture = null;
         }
-
-        super.close();
+        LOGGER.info("Cleanup of {}.{} returned with {}", keyspace, table, s);
     }
-
 }
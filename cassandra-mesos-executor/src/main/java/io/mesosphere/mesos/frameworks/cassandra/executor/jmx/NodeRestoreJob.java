@@ -17,34 +17,65 @@ package io.mesosphere.mesos.frameworks.cassandra.executor.jmx;
 
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
 import io.mesosphere.mesos.frameworks.cassandra.executor.BackupManager;
+import io.mesosphere.mesos.frameworks.cassandra.executor.IoThrottle;
 import org.apache.mesos.Protos;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-public class NodeRestoreJob extends AbstractNodeJob {
+public class NodeRestoreJob extends AbstractTableNodeJob {
     private static final Logger LOGGER = LoggerFactory.getLogger(NodeRestoreJob.class);
 
-    @NotNull
-    private final ExecutorService executorService;
     @NotNull
     private final String backupDir;
+    @Nullable
+    private final String sstableStoreDir;
+    @NotNull
+    private final CassandraFrameworkProtos.IoLimits ioLimits;
+
+    @NotNull
+    private final ConcurrentMap<String, Queue<String>> placedTables = new ConcurrentHashMap<>();
 
-    private Future<?> restoreFeature;
+    private BackupManager backupManager;
 
     public NodeRestoreJob(
             @NotNull final Protos.TaskID taskId,
             @NotNull final String backupDir,
             @NotNull final ExecutorService executorService)
     {
-        super(taskId);
+        this(taskId, backupDir, executorService, 1);
+    }
+
+    public NodeRestoreJob(
+            @NotNull final Protos.TaskID taskId,
+            @NotNull final String backupDir,
+            @NotNull final ExecutorService executorService,
+            final int parallelism)
+    {
+        this(taskId, backupDir, executorService, parallelism, null, CassandraFrameworkProtos.IoLimits.getDefaultInstance());
+    }
+
+    public NodeRestoreJob(
+            @NotNull final Protos.TaskID taskId,
+            @NotNull final String backupDir,
+            @NotNull final ExecutorService executorService,
+            final int parallelism,
+            @Nullable final String sstableStoreDir,
+            @NotNull final CassandraFrameworkProtos.IoLimits ioLimits)
+    {
+        super(taskId, executorService, parallelism);
         this.backupDir = backupDir;
-        this.executorService = executorService;
+        this.sstableStoreDir = sstableStoreDir;
+        this.ioLimits = ioLimits;
     }
 
     @NotNull
@@ -58,48 +89,36 @@ public class NodeRestoreJob extends AbstractNodeJob {
             return false;
         }
 
-        LOGGER.info("Initiated restore from '{}' for keyspaces {}", backupDir, getRemainingKeyspaces());
+        backupManager = new BackupManager(jmxConnect, backupDir, sstableStoreDir, false, CassandraFrameworkProtos.BackupCompression.NONE,
+            IoThrottle.forLimits(ioLimits, jmxConnect));
+
+        LOGGER.info("Initiated restore from '{}' with parallelism {} for keyspaces {}", backupDir, getParallelism(), getRemainingKeyspaces());
 
         return true;
     }
 
+    /**
+     * Only places the table's SSTables; Cassandra loads them for all tables of the keyspace in
+     * {@link #keyspaceDone(String, boolean)}, so that placing tables in parallel is not interleaved with JMX calls
+     * that each make Cassandra rescan a data directory.
+     */
     @Override
-    public void startNextKeyspace() {
-        final String keyspace = super.nextKeyspace();
-        if (keyspace == null) {
-            return;
-        }
+    protected void processTable(@NotNull final String keyspace, @NotNull final String table) throws Exception {
+        checkNotNull(backupManager).placeTable(keyspace, table);
+        placedTables.get(keyspace).add(table);
+    }
 
-        restoreFeature = executorService.submit(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    LOGGER.info("Starting restore on keyspace {}", keyspace);
-                    keyspaceStarted();
-
-                    final BackupManager backupManager = new BackupManager(checkNotNull(jmxConnect), backupDir);
-                    backupManager.restore(keyspace);
-
-                    keyspaceFinished(SUCCESS, keyspace);
-                } catch (final Exception e) {
-                    LOGGER.error("Failed to restore keyspace " + keyspace, e);
-                    keyspaceFinished(FAILURE, keyspace);
-                } finally {
-                    startNextKeyspace();
-                }
-            }
-        });
-
-        LOGGER.info("Submitted restore for keyspace {}", keyspace);
+    @Override
+    protected void keyspaceStarting(@NotNull final String keyspace) throws Exception {
+        placedTables.put(keyspace, new ConcurrentLinkedQueue<String>());
     }
 
     @Override
-    public void close() {
-        if (restoreFeature != null) {
-            restoreFeature.cancel(true);
-            restoreFeature = null;
+    protected void keyspaceDone(@NotNull final String keyspace, final boolean success) throws Exception {
+        // load whatever was placed, even if some tables failed - otherwise Cassandra would pick them up on restart
+        final Queue<String> tables = placedTables.remove(keyspace);
+        if (tables != null && !tables.isEmpty()) {
+            checkNotNull(backupManager).loadNewSSTables(keyspace, tables);
         }
-
-        super.close();
     }
 }
@@ -21,6 +21,8 @@ import java.net.UnknownHostException;
 import java.util.Map;
 
 public class Nodetool {
+    static final String STORAGE_SERVICE = "org.apache.cassandra.db:type=StorageService";
+
     @NotNull
     private final JmxConnect jmxConnect;
 
@@ -80,6 +82,23 @@ public class Nodetool {
         return jmxConnect.getRuntimeProxy().getUptime();
     }
 
+    /**
+     * Start time of the Cassandra JVM in milliseconds since the epoch.
+     */
+    public long getStartTimeInMillis() {
+        return jmxConnect.getRuntimeProxy().getStartTime();
+    }
+
+    /**
+     * Reads the given attributes of the StorageService MBean in a single remote call.
+     * Attribute names follow the MBean getters, e.g. {@code OperationMode} for {@link #getOperationMode()} or
+     * {@code Joined} for {@link #isJoined()}.
+     */
+    @NotNull
+    public Map<String, Object> getStorageServiceAttributes(@NotNull final String... attributes) {
+        return jmxConnect.getAttributes(STORAGE_SERVICE, attributes);
+    }
+
     @NotNull
     public String getHostID() {
         return jmxConnect.getStorageServiceProxy().getLocalHostId();
@@ -111,14 +130,20 @@ public class Nodetool {
 
     @NotNull
     public String getEndpoint() {
-        // Try to find the endpoint using the local token, doing so in a crazy manner
-        // to maintain backwards compatibility with the MBean interface
-        final String stringToken = jmxConnect.getStorageServiceProxy().getTokens().get(0);
-        final Map<String, String> tokenToEndpoint = jmxConnect.getStorageServiceProxy().getTokenToEndpointMap();
-
-        for (final Map.Entry<String, String> pair : tokenToEndpoint.entrySet()) {
-            if (pair.getKey().equals(stringToken)) {
-                return pair.getValue();
+        return getEndpoint(getHostID());
+    }
+
+    /**
+     * Finds the endpoint of the node with the given host ID. The host ID map has one entry per node, whereas
+     * the token map has one entry per token and grows with the number of vnodes.
+     */
+    @NotNull
+    public String getEndpoint(@NotNull final String hostId) {
+        final Map<String, String> endpointToHostId = jmxConnect.getStorageServiceProxy().getHostIdMap();
+
+        for (final Map.Entry<String, String> pair : endpointToHostId.entrySet()) {
+            if (pair.getValue().equals(hostId)) {
+                return pair.getKey();
             }
         }
 
@@ -21,26 +21,52 @@ import org.apache.cassandra.locator.EndpointSnitchInfoMBean;
 import org.apache.cassandra.service.StorageServiceMBean;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.InstanceNotFoundException;
 import javax.management.JMX;
 import javax.management.MBeanServerConnection;
+import javax.management.Notification;
+import javax.management.NotificationListener;
 import javax.management.ObjectName;
+import javax.management.remote.JMXConnectionNotification;
 import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.RemoteException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.ReentrantLock;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * JMX interface class to Cassandra node.
- * The JMX via RMI connection is lazily created when the first call requires it.
+ * The JMX via RMI connection is lazily created when the first call requires it and then kept open. It is shared
+ * by the health checks and all node jobs; calls from different threads run concurrently.
+ * <p>
+ * The proxies returned by this class stay valid across reconnects: each call is forwarded to an MBean proxy of the
+ * current connection, which is created once per connection and MBean. A connection is dropped when the
+ * connector reports it failed or closed or when a call fails with a {@link RemoteException}; the next call then
+ * reconnects. Failed connection attempts are retried with exponential backoff, calls in between fail fast.
  *
  * @author Robert Stupp
  */
 public class ProdJmxConnect implements JmxConnect {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProdJmxConnect.class);
+
     private static final String DEFATULT_CASSANDRA_JMX_HOST = "127.0.0.1";
     private static final int DEFAULT_CASSANDRA_JMX_PORT = 7199;
 
@@ -49,6 +75,9 @@ public class ProdJmxConnect implements JmxConnect {
 
     private static final String fmtUrl = "service:jmx:rmi:///jndi/rmi://[%s]:%d/jmxrmi";
 
+    static final long MIN_RECONNECT_DELAY_MILLIS = 100;
+    static final long MAX_RECONNECT_DELAY_MILLIS = 5000;
+
     @NotNull
     private final String host;
     private final int port;
@@ -57,15 +86,24 @@ public class ProdJmxConnect implements JmxConnect {
     @Nullable
     private final String password;
 
-    private JMXConnector jmxc;
-    private MBeanServerConnection mbeanServerConn;
+    @Nullable
+    private volatile Connection connection;
+    // incremented under lock
+    private volatile long connectionGeneration;
 
-    private StorageServiceMBean ssProxy;
-    private EndpointSnitchInfoMBean snitchProxy;
-    private RuntimeMXBean runtimeProxy;
+    /**
+     * Proxies handed out to callers, by MBean name. They do not depend on a particular connection.
+     */
+    @NotNull
+    private final ConcurrentMap<String, Object> proxies = new ConcurrentHashMap<>();
 
     @NotNull
     private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private long reconnectDelayMillis;
+    private long nextConnectAttempt;
+    @Nullable
+    private IOException lastConnectFailure;
 
     public ProdJmxConnect(@Nullable String host, int port, @Nullable final String username, @Nullable final String password) {
         if (host == null || host.trim().isEmpty())
@@ -87,106 +125,160 @@ public class ProdJmxConnect implements JmxConnect {
         this(jmxInfo.getIp(), jmxInfo.getJmxPort());
     }
 
+    /**
+     * Closes the current connection, if any. A later call connects again.
+     */
     @Override
     public void close() throws IOException {
+        final Connection conn;
         lock.lock();
         try {
-            if (jmxc == null) {
-                return;
-            }
-
-            jmxc.close();
+            conn = connection;
+            connection = null;
+            reconnectDelayMillis = 0;
+            nextConnectAttempt = 0;
+            lastConnectFailure = null;
         } finally {
             lock.unlock();
+        }
 
-            jmxc = null;
-            mbeanServerConn = null;
-            ssProxy = null;
-            snitchProxy = null;
-            runtimeProxy = null;
+        if (conn != null) {
+            conn.connector.close();
         }
     }
 
-    private void connect() throws IOException {
+    @NotNull
+    private Connection connection() {
+        final Connection current = connection;
+        if (current != null) {
+            return current;
+        }
+
         lock.lock();
         try {
-            if (jmxc != null) {
-                return;
+            if (connection != null) {
+                return connection;
             }
 
-            final JMXServiceURL jmxUrl = new JMXServiceURL(String.format(fmtUrl, host, port));
-            final Map<String, Object> env = new HashMap<>();
-            if (username != null) {
-                final String[] creds = {username, password};
-                env.put(JMXConnector.CREDENTIALS, creds);
+            final long now = System.currentTimeMillis();
+            if (now < nextConnectAttempt) {
+                throw new JmxRuntimeException("Not connected to JMX at " + host + ':' + port + ", next attempt in " + (nextConnectAttempt - now) + "ms",
+                    checkNotNull(lastConnectFailure));
+            }
+
+            try {
+                final Connection conn = connect();
+                connection = conn;
+                connectionGeneration++;
+                reconnectDelayMillis = 0;
+                lastConnectFailure = null;
+                return conn;
+            } catch (final IOException e) {
+                reconnectDelayMillis = reconnectDelayMillis == 0
+                    ? MIN_RECONNECT_DELAY_MILLIS
+                    : Math.min(MAX_RECONNECT_DELAY_MILLIS, reconnectDelayMillis * 2);
+                nextConnectAttempt = now + reconnectDelayMillis;
+                lastConnectFailure = e;
+                throw new JmxRuntimeException("Failed to connect to JMX at " + host + ':' + port, e);
             }
-            jmxc = JMXConnectorFactory.connect(jmxUrl, env);
-            mbeanServerConn = jmxc.getMBeanServerConnection();
         } finally {
             lock.unlock();
         }
     }
 
     @NotNull
-    private <T> T newProxy(final String name, final Class<T> type) {
+    private Connection connect() throws IOException {
+        final JMXServiceURL jmxUrl = new JMXServiceURL(String.format(fmtUrl, host, port));
+        final Map<String, Object> env = new HashMap<>();
+        if (username != null) {
+            final String[] creds = {username, password};
+            env.put(JMXConnector.CREDENTIALS, creds);
+        }
+        final JMXConnector jmxc = JMXConnectorFactory.connect(jmxUrl, env);
+        final Connection conn = new Connection(jmxc, jmxc.getMBeanServerConnection());
+        jmxc.addConnectionNotificationListener(new NotificationListener() {
+            @Override
+            public void handleNotification(final Notification notification, final Object handback) {
+                final String type = notification.getType();
+                if (JMXConnectionNotification.FAILED.equals(type) || JMXConnectionNotification.CLOSED.equals(type)) {
+                    connectionLost(conn, type);
+                }
+            }
+        }, null, null);
+        LOGGER.info("Connected to JMX at {}:{}", host, port);
+        return conn;
+    }
+
+    private void connectionLost(@NotNull final Connection conn, @NotNull final String reason) {
         lock.lock();
         try {
-            connect();
-            return JMX.newMBeanProxy(mbeanServerConn, new ObjectName(name), type);
-        } catch (final Exception e) {
-            throw new JmxRuntimeException("Failed to create proxy for " + name, e);
+            if (connection != conn) {
+                return;
+            }
+            connection = null;
         } finally {
             lock.unlock();
         }
+        LOGGER.info("Lost JMX connection to {}:{} ({}), reconnecting on next use", host, port, reason);
+    }
+
+    /**
+     * Drops {@code conn} if {@code t} indicates that the connection itself is broken.
+     */
+    private void checkConnectionFailure(@NotNull final Connection conn, @NotNull final Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RemoteException) {
+                connectionLost(conn, cause.toString());
+                try {
+                    conn.connector.close();
+                } catch (final IOException ignore) {
+                    // already broken
+                }
+                return;
+            }
+        }
     }
 
     @NotNull
-    private <T> T newPlatformProxy(final String name, final Class<T> type) {
-        lock.lock();
-        try {
-            connect();
-            return ManagementFactory.newPlatformMXBeanProxy(mbeanServerConn, name, type);
-        } catch (final Exception e) {
-            throw new JmxRuntimeException("Failed to create proxy for " + name, e);
-        } finally {
-            lock.unlock();
+    private <T> T proxy(@NotNull final String name, @NotNull final Class<T> type, final boolean platform) {
+        Object proxy = proxies.get(name);
+        if (proxy == null) {
+            proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new ReconnectingHandler(name, type, platform));
+            final Object existing = proxies.putIfAbsent(name, proxy);
+            if (existing != null) {
+                proxy = existing;
+            }
         }
+        return type.cast(proxy);
     }
 
     @NotNull
     public RuntimeMXBean getRuntimeProxy() {
-        if (runtimeProxy == null) {
-            runtimeProxy = newPlatformProxy(ManagementFactory.RUNTIME_MXBEAN_NAME, RuntimeMXBean.class);
-        }
-        return runtimeProxy;
+        return proxy(ManagementFactory.RUNTIME_MXBEAN_NAME, RuntimeMXBean.class, true);
     }
 
     @NotNull
     public StorageServiceMBean getStorageServiceProxy() {
-        if (ssProxy == null)
-            ssProxy = newProxy(STORAGE_SERVICE_NAME, StorageServiceMBean.class);
-        return ssProxy;
+        return proxy(STORAGE_SERVICE_NAME, StorageServiceMBean.class, false);
     }
 
     @NotNull
     public EndpointSnitchInfoMBean getEndpointSnitchInfoProxy() {
-        if (snitchProxy == null) {
-            snitchProxy = newProxy(ENDPOINT_SNITCH_INFO_NAME, EndpointSnitchInfoMBean.class);
-        }
-        return snitchProxy;
+        return proxy(ENDPOINT_SNITCH_INFO_NAME, EndpointSnitchInfoMBean.class, false);
     }
 
     @NotNull
     public ColumnFamilyStoreMBean getColumnFamilyStoreProxy(@NotNull final String keyspace, @NotNull final String table) {
         final String beanName = "org.apache.cassandra.db:type=ColumnFamilies,keyspace=" + keyspace  + ",columnfamily=" + table;
-        return newProxy(beanName, ColumnFamilyStoreMBean.class);
+        return proxy(beanName, ColumnFamilyStoreMBean.class, false);
     }
 
     @NotNull
     public List<String> getColumnFamilyNames(@NotNull final String keyspace) {
+        final Connection conn = connection();
         try {
             final ObjectName query = new ObjectName("org.apache.cassandra.db:type=ColumnFamilies,keyspace=" + keyspace + ",*");
-            final Set<ObjectName> cfObjects = mbeanServerConn.queryNames(query, null);
+            final Set<ObjectName> cfObjects = conn.mbeanServerConn.queryNames(query, null);
             final List<String> r = new ArrayList<>();
             for(final ObjectName n : cfObjects)
             {
@@ -195,7 +287,157 @@ public class ProdJmxConnect implements JmxConnect {
             }
             return r;
         } catch (final Exception e) {
+            checkConnectionFailure(conn, e);
             throw new JmxRuntimeException("Failed to get column family names for keyspace " + keyspace, e);
         }
     }
+
+    @Nullable
+    public Object getAttribute(@NotNull final String objectName, @NotNull final String attribute) {
+        final Connection conn = connection();
+        try {
+            return conn.mbeanServerConn.getAttribute(new ObjectName(objectName), attribute);
+        } catch (final Exception e) {
+            checkConnectionFailure(conn, e);
+            throw new JmxRuntimeException("Failed to get attribute " + attribute + " of " + objectName, e);
+        }
+    }
+
+    @NotNull
+    @Override
+    public Map<String, Object> getAttributes(@NotNull final String objectName, @NotNull final String... attributes) {
+        final Connection conn = connection();
+        final AttributeList list;
+        try {
+            list = conn.mbeanServerConn.getAttributes(new ObjectName(objectName), attributes);
+        } catch (final Exception e) {
+            checkConnectionFailure(conn, e);
+            throw new JmxRuntimeException("Failed to get attributes " + Arrays.toString(attributes) + " of " + objectName, e);
+        }
+        final Map<String, Object> r = new HashMap<>();
+        for (final Attribute attribute : list.asList()) {
+            r.put(attribute.getName(), attribute.getValue());
+        }
+        return r;
+    }
+
+    @NotNull
+    @Override
+    public Map<String, Object> queryAttribute(@NotNull final String objectNamePattern, @NotNull final String attribute) {
+        final Connection conn = connection();
+        try {
+            final Map<String, Object> r = new HashMap<>();
+            for (final ObjectName name : conn.mbeanServerConn.queryNames(new ObjectName(objectNamePattern), null)) {
+                try {
+                    r.put(name.getCanonicalName(), conn.mbeanServerConn.getAttribute(name, attribute));
+                } catch (final AttributeNotFoundException | InstanceNotFoundException ignored) {
+                    // MBean without that attribute or unregistered meanwhile
+                }
+            }
+            return r;
+        } catch (final Exception e) {
+            checkConnectionFailure(conn, e);
+            throw new JmxRuntimeException("Failed to query attribute " + attribute + " of " + objectNamePattern, e);
+        }
+    }
+
+    @NotNull
+    @Override
+    public List<String> queryNames(@NotNull final String objectNamePattern) {
+        final Connection conn = connection();
+        try {
+            final List<String> r = new ArrayList<>();
+            for (final ObjectName name : conn.mbeanServerConn.queryNames(new ObjectName(objectNamePattern), null)) {
+                r.add(name.getCanonicalName());
+            }
+            return r;
+        } catch (final Exception e) {
+            checkConnectionFailure(conn, e);
+            throw new JmxRuntimeException("Failed to query names " + objectNamePattern, e);
+        }
+    }
+
+    @Override
+    public long connectionGeneration() {
+        return connectionGeneration;
+    }
+
+    /**
+     * An open JMX connection and the MBean proxies created for it.
+     */
+    private static final class Connection {
+        @NotNull
+        private final JMXConnector connector;
+        @NotNull
+        private final MBeanServerConnection mbeanServerConn;
+        @NotNull
+        private final ConcurrentMap<String, Object> mbeanProxies = new ConcurrentHashMap<>();
+
+        private Connection(@NotNull final JMXConnector connector, @NotNull final MBeanServerConnection mbeanServerConn) {
+            this.connector = connector;
+            this.mbeanServerConn = mbeanServerConn;
+        }
+
+        @NotNull
+        private Object mbeanProxy(@NotNull final String name, @NotNull final Class<?> type, final boolean platform) {
+            Object proxy = mbeanProxies.get(name);
+            if (proxy == null) {
+                try {
+                    proxy = platform
+                        ? ManagementFactory.newPlatformMXBeanProxy(mbeanServerConn, name, type)
+                        : JMX.newMBeanProxy(mbeanServerConn, new ObjectName(name), type);
+                } catch (final Exception e) {
+                    throw new JmxRuntimeException("Failed to create proxy for " + name, e);
+                }
+                final Object existing = mbeanProxies.putIfAbsent(name, proxy);
+                if (existing != null) {
+                    proxy = existing;
+                }
+            }
+            return proxy;
+        }
+    }
+
+    /**
+     * Forwards calls to the MBean proxy of the current connection.
+     */
+    private final class ReconnectingHandler implements InvocationHandler {
+        @NotNull
+        private final String name;
+        @NotNull
+        private final Class<?> type;
+        private final boolean platform;
+
+        private ReconnectingHandler(@NotNull final String name, @NotNull final Class<?> type, final boolean platform) {
+            this.name = name;
+            this.type = type;
+            this.platform = platform;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "JMX proxy for " + name;
+                }
+            }
+
+            final Connection conn = connection();
+            try {
+                return method.invoke(conn.mbeanProxy(name, type, platform), args);
+            } catch (final InvocationTargetException e) {
+                final Throwable cause = e.getCause();
+                checkConnectionFailure(conn, cause);
+                throw cause;
+            } catch (final JmxRuntimeException e) {
+                checkConnectionFailure(conn, e);
+                throw e;
+            }
+        }
+    }
 }
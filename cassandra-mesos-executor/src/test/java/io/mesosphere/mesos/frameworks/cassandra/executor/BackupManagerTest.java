@@ -1,10 +1,12 @@
 package io.mesosphere.mesos.frameworks.cassandra.executor;
 
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.BackupCompression;
 import io.mesosphere.mesos.frameworks.cassandra.executor.jmx.JmxConnect;
 import org.apache.cassandra.db.ColumnFamilyStoreMBean;
 import org.apache.cassandra.locator.EndpointSnitchInfoMBean;
 import org.apache.cassandra.service.StorageServiceMBean;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -20,10 +22,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.TestCase.fail;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class BackupManagerTest {
@@ -91,6 +95,27 @@ public class BackupManagerTest {
         assertTrue(new File(backupDir, KEYSPACE + "/" + TABLE + "/index.db").exists());
     }
 
+    @Test
+    public void copyTableSnapshotUsesHardLinks() throws IOException {
+        createCassandraDirs(KEYSPACE, TABLE, SNAPSHOT, true);
+        backupManager.copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+
+        final File snapshotDir = new File(dataDir, KEYSPACE + "/" + TABLE + "-0/snapshots/" + SNAPSHOT);
+        assertTrue(backupManager.isHardLinks());
+        assertTrue(Files.isSameFile(new File(snapshotDir, "data.db").toPath(), new File(backupDir, KEYSPACE + "/" + TABLE + "/data.db").toPath()));
+    }
+
+    @Test
+    public void copyTableSnapshotWithoutHardLinks() throws IOException {
+        createCassandraDirs(KEYSPACE, TABLE, SNAPSHOT, true);
+        backupManager.setHardLinks(false);
+        backupManager.copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+
+        final File snapshotDir = new File(dataDir, KEYSPACE + "/" + TABLE + "-0/snapshots/" + SNAPSHOT);
+        assertTrue(new File(backupDir, KEYSPACE + "/" + TABLE + "/data.db").isFile());
+        assertFalse(Files.isSameFile(new File(snapshotDir, "data.db").toPath(), new File(backupDir, KEYSPACE + "/" + TABLE + "/data.db").toPath()));
+    }
+
     @Test
     public void testBackup() throws IOException {
         createCassandraDirs(KEYSPACE, TABLE, SNAPSHOT, true);
@@ -126,6 +151,190 @@ public class BackupManagerTest {
         assertTrue(new File(dataDir, KEYSPACE + "/" + TABLE + "-0/index.db").isFile());
     }
 
+    @Test
+    public void testPlaceTableThenLoad() throws IOException {
+        createCassandraDirs(KEYSPACE, TABLE, SNAPSHOT, false);
+        createBackupDirs(KEYSPACE, TABLE);
+
+        backupManager.placeTable(KEYSPACE, TABLE);
+        assertEquals(Arrays.<String>asList(), jmxConnect.getInvocations());
+        assertTrue(new File(dataDir, KEYSPACE + "/" + TABLE + "-0/data.db").isFile());
+
+        backupManager.loadNewSSTables(KEYSPACE, Arrays.asList(TABLE));
+        assertEquals(Arrays.asList("loadNewSSTables"), jmxConnect.getInvocations());
+    }
+
+    @Test
+    public void testIncrementalBackup() throws IOException {
+        final File snapshotDir = new File(dataDir, KEYSPACE + "/" + TABLE + "-0/snapshots/" + SNAPSHOT);
+        final File storeDir = new File(backupDir, ".sstables");
+        createCassandraDirs(KEYSPACE, TABLE, SNAPSHOT, true);
+        Files.write(new File(snapshotDir, "data.db").toPath(), "data".getBytes("UTF-8"));
+
+        new BackupManager(jmxConnect, backupDir + "/b1", "" + storeDir, true).copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+        assertTrue(new File(backupDir, "b1/" + KEYSPACE + "/" + TABLE + "/" + BackupManifest.FILE_NAME).isFile());
+        assertFalse(new File(backupDir, "b1/" + KEYSPACE + "/" + TABLE + "/data.db").exists());
+        assertEquals(2, listStore(storeDir).length);
+
+        Files.write(new File(snapshotDir, "data2.db").toPath(), "more data".getBytes("UTF-8"));
+        new BackupManager(jmxConnect, backupDir + "/b2", "" + storeDir, true).copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+        assertEquals(3, listStore(storeDir).length);
+
+        final BackupManifest manifest = BackupManifest.read(new File(backupDir, "b2/" + KEYSPACE + "/" + TABLE + "/" + BackupManifest.FILE_NAME));
+        assertEquals(3, manifest.getEntries().size());
+        assertTrue(manifest.getEntries().contains(BackupManifest.entryFor(new File(snapshotDir, "data.db"))));
+    }
+
+    @Test
+    public void testIncrementalBackupOnlyReadsNewComponents() throws IOException {
+        final File snapshotDir = new File(dataDir, KEYSPACE + "/" + TABLE + "-0/snapshots/" + SNAPSHOT);
+        final File storeDir = new File(backupDir, ".sstables");
+        createCassandraDirs(KEYSPACE, TABLE, SNAPSHOT, true);
+        writeSSTable(snapshotDir, "data", "digest1", "stats1");
+        new BackupManager(jmxConnect, backupDir + "/b1", "" + storeDir, true).copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+        final BackupManifest.Entry data = BackupManifest.entryFor(new File(snapshotDir, "ks-t-ka-1-Data.db"));
+
+        // Data.db with an unchanged digest is not read again
+        // (files are replaced, not rewritten, as the store holds hard links to them)
+        writeSSTable(snapshotDir, "DATA", "digest1", "stats2");
+        new BackupManager(jmxConnect, backupDir + "/b2", "" + storeDir, true).copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+
+        BackupManifest manifest = BackupManifest.read(new File(backupDir, "b2/" + KEYSPACE + "/" + TABLE + "/" + BackupManifest.FILE_NAME));
+        assertTrue(manifest.getEntries().contains(data));
+        // other components with known name and size are checksummed
+        assertTrue(manifest.getEntries().contains(BackupManifest.entryFor(new File(snapshotDir, "ks-t-ka-1-Statistics.db"))));
+
+        // a recreated data directory starts over with the same generation, the digest tells the SSTables apart
+        writeSSTable(snapshotDir, "DATA", "digest2", "stats2");
+        new BackupManager(jmxConnect, backupDir + "/b3", "" + storeDir, true).copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+
+        manifest = BackupManifest.read(new File(backupDir, "b3/" + KEYSPACE + "/" + TABLE + "/" + BackupManifest.FILE_NAME));
+        assertFalse(manifest.getEntries().contains(data));
+        assertTrue(manifest.getEntries().contains(BackupManifest.entryFor(new File(snapshotDir, "ks-t-ka-1-Data.db"))));
+    }
+
+    private static void writeSSTable(@NotNull final File dir, @NotNull final String data, @NotNull final String digest, @NotNull final String statistics) throws IOException {
+        for (final String component : Arrays.asList("Data.db", "Digest.sha1", "Statistics.db")) {
+            Files.deleteIfExists(new File(dir, "ks-t-ka-1-" + component).toPath());
+        }
+        Files.write(new File(dir, "ks-t-ka-1-Data.db").toPath(), data.getBytes("UTF-8"));
+        Files.write(new File(dir, "ks-t-ka-1-Digest.sha1").toPath(), digest.getBytes("UTF-8"));
+        Files.write(new File(dir, "ks-t-ka-1-Statistics.db").toPath(), statistics.getBytes("UTF-8"));
+    }
+
+    @Test
+    public void testRestoreIncrementalBackup() throws IOException {
+        final File snapshotDir = new File(dataDir, KEYSPACE + "/" + TABLE + "-0/snapshots/" + SNAPSHOT);
+        final File storeDir = new File(backupDir, ".sstables");
+        createCassandraDirs(KEYSPACE, TABLE, SNAPSHOT, true);
+        Files.write(new File(snapshotDir, "data.db").toPath(), "data".getBytes("UTF-8"));
+        new BackupManager(jmxConnect, backupDir + "/b1", "" + storeDir, true).copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+
+        new BackupManager(jmxConnect, backupDir + "/b1", "" + storeDir, false).restoreTableSnapshot(KEYSPACE, TABLE);
+        assertEquals("data", new String(Files.readAllBytes(new File(dataDir, KEYSPACE + "/" + TABLE + "-0/data.db").toPath()), "UTF-8"));
+        assertTrue(new File(dataDir, KEYSPACE + "/" + TABLE + "-0/index.db").isFile());
+
+        try {
+            new BackupManager(jmxConnect, backupDir + "/b1").restoreTableSnapshot(KEYSPACE, TABLE);
+            fail();
+        } catch (IllegalStateException e) {}
+    }
+
+    @Test
+    public void testCompressedBackupAndRestore() throws IOException {
+        for (final BackupCompression compression : Arrays.asList(BackupCompression.LZ4, BackupCompression.GZIP)) {
+            final File snapshotDir = new File(dataDir, KEYSPACE + "/" + TABLE + "-0/snapshots/" + SNAPSHOT);
+            createCassandraDirs(KEYSPACE, TABLE, SNAPSHOT, true);
+            Files.write(new File(snapshotDir, "data.db").toPath(), repeat("data", 10000).getBytes("UTF-8"));
+
+            final BackupManager manager = new BackupManager(jmxConnect, backupDir + "/" + compression, null, false, compression);
+            manager.copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+
+            final File compressed = new File(backupDir, compression + "/" + KEYSPACE + "/" + TABLE + "/data.db" + BackupCompressor.extension(compression));
+            assertTrue(compressed.isFile());
+            assertTrue(compressed.length() < 40000);
+            assertEquals(compression, BackupManifest.read(new File(backupDir, compression + "/" + KEYSPACE + "/" + TABLE + "/" + BackupManifest.FILE_NAME)).getCompression());
+
+            delete(new File(dataDir, KEYSPACE));
+            createCassandraDirs(KEYSPACE, TABLE, SNAPSHOT, false);
+            manager.restoreTableSnapshot(KEYSPACE, TABLE);
+            assertEquals(repeat("data", 10000), new String(Files.readAllBytes(new File(dataDir, KEYSPACE + "/" + TABLE + "-0/data.db").toPath()), "UTF-8"));
+            assertTrue(new File(dataDir, KEYSPACE + "/" + TABLE + "-0/index.db").isFile());
+            assertFalse(new File(dataDir, KEYSPACE + "/" + TABLE + "-0/.restore").exists());
+            delete(new File(dataDir, KEYSPACE));
+        }
+    }
+
+    @Test
+    public void testCorruptedBackupIsNotRestored() throws IOException {
+        final File snapshotDir = new File(dataDir, KEYSPACE + "/" + TABLE + "-0/snapshots/" + SNAPSHOT);
+        createCassandraDirs(KEYSPACE, TABLE, SNAPSHOT, true);
+        Files.write(new File(snapshotDir, "data.db").toPath(), repeat("data", 10000).getBytes("UTF-8"));
+
+        final File storeDir = new File(backupDir, ".sstables");
+        final BackupManager manager = new BackupManager(jmxConnect, "" + backupDir, "" + storeDir, true, BackupCompression.GZIP);
+        manager.copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+
+        final BackupManifest.Entry entry = BackupManifest.entryFor(new File(snapshotDir, "data.db"));
+        final File blob = new File(storeDir, KEYSPACE + "/" + TABLE + "/" + entry.getBlobName() + ".gz");
+        final byte[] bytes = Files.readAllBytes(blob.toPath());
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(blob.toPath(), bytes);
+
+        try {
+            manager.restoreTableSnapshot(KEYSPACE, TABLE);
+            fail();
+        } catch (IOException e) {}
+        assertFalse(new File(dataDir, KEYSPACE + "/" + TABLE + "-0/data.db").exists());
+        assertFalse(new File(dataDir, KEYSPACE + "/" + TABLE + "-0/.restore").exists());
+    }
+
+    @Test
+    public void testCorruptedUncompressedBackupIsNotRestored() throws IOException {
+        final File snapshotDir = new File(dataDir, KEYSPACE + "/" + TABLE + "-0/snapshots/" + SNAPSHOT);
+        createCassandraDirs(KEYSPACE, TABLE, SNAPSHOT, true);
+        Files.write(new File(snapshotDir, "data.db").toPath(), "data".getBytes("UTF-8"));
+
+        final File storeDir = new File(backupDir, ".sstables");
+        final BackupManager full = new BackupManager(jmxConnect, backupDir + "/full");
+        final BackupManager incremental = new BackupManager(jmxConnect, backupDir + "/incremental", "" + storeDir, true);
+        full.copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+        incremental.copyTableSnapshot(SNAPSHOT, KEYSPACE, TABLE);
+        assertTrue(new File(backupDir, "full/" + KEYSPACE + "/" + TABLE + "/" + BackupManifest.FILE_NAME).isFile());
+
+        // same size, different contents - replaced rather than rewritten, as backups hard link the snapshot
+        final BackupManifest.Entry entry = BackupManifest.entryFor(new File(snapshotDir, "data.db"));
+        for (final File file : Arrays.asList(
+            new File(backupDir, "full/" + KEYSPACE + "/" + TABLE + "/data.db"),
+            new File(storeDir, KEYSPACE + "/" + TABLE + "/" + entry.getBlobName()))) {
+            Files.delete(file.toPath());
+            Files.write(file.toPath(), "DATA".getBytes("UTF-8"));
+        }
+
+        for (final BackupManager manager : Arrays.asList(full, incremental)) {
+            try {
+                manager.restoreTableSnapshot(KEYSPACE, TABLE);
+                fail();
+            } catch (IOException e) {}
+            assertFalse(new File(dataDir, KEYSPACE + "/" + TABLE + "-0/data.db").exists());
+            assertFalse(new File(dataDir, KEYSPACE + "/" + TABLE + "-0/.restore").exists());
+        }
+    }
+
+    private static String repeat(final String s, final int count) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    private File[] listStore(final File storeDir) {
+        final File[] files = new File(storeDir, KEYSPACE + "/" + TABLE).listFiles();
+        assertTrue(files != null);
+        return files;
+    }
+
     private void createCassandraDirs(String keyspace, String table, String snapshot, boolean createFiles) throws IOException {
         File tableDir = new File(dataDir, keyspace + "/" + table + "-0");
         File snapshotDir = new File(tableDir, "snapshots/" + snapshot);
@@ -199,6 +408,35 @@ public class BackupManagerTest {
             return Arrays.asList(TABLE);
         }
 
+        @Nullable
+        @Override
+        public Object getAttribute(@NotNull final String objectName, @NotNull final String attribute) {
+            return null;
+        }
+
+        @NotNull
+        @Override
+        public Map<String, Object> getAttributes(@NotNull final String objectName, @NotNull final String... attributes) {
+            return Collections.emptyMap();
+        }
+
+        @NotNull
+        @Override
+        public Map<String, Object> queryAttribute(@NotNull final String objectNamePattern, @NotNull final String attribute) {
+            return Collections.emptyMap();
+        }
+
+        @NotNull
+        @Override
+        public List<String> queryNames(@NotNull final String objectNamePattern) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public long connectionGeneration() {
+            return 0L;
+        }
+
         @Override
         public void close() throws IOException {}
 
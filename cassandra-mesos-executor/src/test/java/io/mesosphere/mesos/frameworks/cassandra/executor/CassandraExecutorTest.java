@@ -18,6 +18,7 @@ package io.mesosphere.mesos.frameworks.cassandra.executor;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import io.mesosphere.mesos.frameworks.cassandra.executor.jmx.AbstractNodeJob;
 import org.apache.cassandra.service.ActiveRepairService;
 import org.apache.mesos.Protos;
 import org.jetbrains.annotations.NotNull;
@@ -99,6 +100,15 @@ public class CassandraExecutorTest {
         cleanupJob();
     }
 
+    @Test
+    public void testExecutorParallelCleanup() throws Exception {
+        startServer();
+
+        cleanupJob(4);
+
+        cleanupJob(2);
+    }
+
     @Test
     public void testExecutorRepairCleanup() throws Exception {
         startServer();
@@ -113,6 +123,10 @@ public class CassandraExecutorTest {
     }
 
     private void cleanupJob() {
+        cleanupJob(1);
+    }
+
+    private void cleanupJob(final int parallelism) {
         final CassandraFrameworkProtos.ClusterJobType jobType = CassandraFrameworkProtos.ClusterJobType.CLEANUP;
 
         assertNull(executor.getCurrentJob());
@@ -125,7 +139,8 @@ public class CassandraExecutorTest {
                 CassandraFrameworkProtos.TaskDetails.newBuilder()
                         .setType(CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB)
                         .setNodeJobTask(CassandraFrameworkProtos.NodeJobTask.newBuilder()
-                                .setJobType(jobType))
+                                .setJobType(jobType)
+                                .setParallelism(parallelism))
                         .build(),
                 "node job task",
                 Collections.<Protos.Resource>emptyList());
@@ -140,6 +155,9 @@ public class CassandraExecutorTest {
 
         assertEquals(0, executor.getCurrentJob().getRemainingKeyspaces().size());
         assertEquals(3, executor.getCurrentJob().getKeyspaceStatus().size());
+        for (final CassandraFrameworkProtos.ClusterJobKeyspaceStatus keyspaceStatus : executor.getCurrentJob().getKeyspaceStatus().values()) {
+            assertEquals(AbstractNodeJob.SUCCESS, keyspaceStatus.getStatus());
+        }
         assertTrue(executor.getCurrentJob().isFinished());
 
         driver.frameworkMessage(CassandraFrameworkProtos.TaskDetails.newBuilder()
@@ -0,0 +1,78 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.executor;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IoThrottleTest {
+
+    @Test
+    public void testUnlimited() {
+        assertSame(IoThrottle.UNLIMITED, IoThrottle.forLimits(CassandraFrameworkProtos.IoLimits.getDefaultInstance(), null));
+        assertFalse(IoThrottle.UNLIMITED.isBytesLimited());
+
+        // must not block
+        IoThrottle.UNLIMITED.acquireBytes(Integer.MAX_VALUE);
+        IoThrottle.UNLIMITED.acquireFile();
+    }
+
+    @Test
+    public void testBackOffAndRecover() {
+        final IoThrottle throttle = IoThrottle.forLimits(CassandraFrameworkProtos.IoLimits.newBuilder()
+            .setMaxMbPerSecond(100)
+            .setMaxFilesPerSecond(10)
+            .build(), null);
+        assertTrue(throttle.isBytesLimited());
+        assertEquals(100d * 1024 * 1024, throttle.getBytesPerSecond(), 1d);
+        assertEquals(10d, throttle.getFilesPerSecond(), 0.001d);
+
+        throttle.adjust(true);
+        assertEquals(0.5d, throttle.getFactor(), 0.001d);
+        assertEquals(50d * 1024 * 1024, throttle.getBytesPerSecond(), 1d);
+        assertEquals(5d, throttle.getFilesPerSecond(), 0.001d);
+
+        for (int i = 0; i < 10; i++) {
+            throttle.adjust(true);
+        }
+        assertEquals(IoThrottle.MIN_FACTOR, throttle.getFactor(), 0.001d);
+        assertEquals(1d, throttle.getFilesPerSecond(), 0.001d);
+
+        throttle.adjust(false);
+        assertEquals(IoThrottle.MIN_FACTOR + IoThrottle.RECOVERY_STEP, throttle.getFactor(), 0.001d);
+
+        for (int i = 0; i < 20; i++) {
+            throttle.adjust(false);
+        }
+        assertEquals(1d, throttle.getFactor(), 0.001d);
+        assertEquals(10d, throttle.getFilesPerSecond(), 0.001d);
+    }
+
+    @Test
+    public void testFilesOnlyLimit() {
+        final IoThrottle throttle = new IoThrottle(0d, 1000d, null);
+        assertFalse(throttle.isBytesLimited());
+        assertEquals(0d, throttle.getBytesPerSecond(), 0d);
+
+        throttle.acquireBytes(Integer.MAX_VALUE);
+        throttle.acquireFile();
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.executor;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.NodeMetrics;
+import io.mesosphere.mesos.frameworks.cassandra.executor.jmx.JmxConnect;
+import org.apache.cassandra.db.ColumnFamilyStoreMBean;
+import org.apache.cassandra.locator.EndpointSnitchInfoMBean;
+import org.apache.cassandra.service.StorageServiceMBean;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NodeMetricsCollectorTest {
+
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    private final Counter droppedMutations = new Counter();
+
+    @Before
+    public void before() throws Exception {
+        mbeanServer.registerMBean(droppedMutations, new ObjectName(NodeMetricsCollector.DROPPED_MUTATIONS_NAME));
+    }
+
+    @After
+    public void after() throws Exception {
+        mbeanServer.unregisterMBean(new ObjectName(NodeMetricsCollector.DROPPED_MUTATIONS_NAME));
+    }
+
+    @Test
+    public void testCountersAreSentAsDeltas() {
+        final NodeMetricsCollector collector = new NodeMetricsCollector(new PlatformJmxConnect());
+
+        droppedMutations.count = 10L;
+        final NodeMetrics first = collector.collect();
+        assertFalse(first.hasIntervalMillis());
+        assertFalse(first.hasDroppedMutations());
+        assertFalse(first.hasGcPauseMillis());
+        assertTrue(first.getHeapUsedBytes() > 0L);
+        assertTrue(first.getHeapMaxBytes() != 0L);
+        // no Cassandra in this JVM
+        assertFalse(first.hasReadLatency99Micros());
+        assertEquals(0, first.getSstableCount());
+
+        droppedMutations.count = 15L;
+        final NodeMetrics second = collector.collect();
+        assertTrue(second.hasIntervalMillis());
+        assertEquals(5L, second.getDroppedMutations());
+        assertTrue(second.getGcPauseMillis() >= 0L);
+
+        // counter reset by a restarted Cassandra process
+        droppedMutations.count = 3L;
+        assertEquals(3L, collector.collect().getDroppedMutations());
+    }
+
+    @Test
+    public void testReconnectDropsPreviousCounters() {
+        final PlatformJmxConnect jmxConnect = new PlatformJmxConnect();
+        final NodeMetricsCollector collector = new NodeMetricsCollector(jmxConnect);
+
+        droppedMutations.count = 10L;
+        collector.collect();
+        droppedMutations.count = 15L;
+        assertEquals(5L, collector.collect().getDroppedMutations());
+
+        // a restarted process whose counter already exceeds the previous value
+        jmxConnect.generation++;
+        droppedMutations.count = 20L;
+        assertFalse(collector.collect().hasDroppedMutations());
+        droppedMutations.count = 22L;
+        assertEquals(2L, collector.collect().getDroppedMutations());
+    }
+
+    @Test
+    public void testSstableCountFromAggregate() throws Exception {
+        final NodeMetricsCollector collector = new NodeMetricsCollector(new PlatformJmxConnect());
+        final Gauge sstables = new Gauge();
+        sstables.value = 42;
+        mbeanServer.registerMBean(sstables, new ObjectName(NodeMetricsCollector.LIVE_SSTABLE_COUNT_NAME));
+        try {
+            assertEquals(42, collector.collect().getSstableCount());
+        } finally {
+            mbeanServer.unregisterMBean(new ObjectName(NodeMetricsCollector.LIVE_SSTABLE_COUNT_NAME));
+        }
+    }
+
+    public interface GaugeMBean {
+        Object getValue();
+    }
+
+    public static final class Gauge implements GaugeMBean {
+        volatile Object value;
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    public interface CounterMBean {
+        long getCount();
+    }
+
+    public static final class Counter implements CounterMBean {
+        volatile long count;
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Reads attributes from the MBean server of this JVM.
+     */
+    private final class PlatformJmxConnect implements JmxConnect {
+        volatile long generation;
+
+        @NotNull
+        @Override
+        public RuntimeMXBean getRuntimeProxy() {
+            return ManagementFactory.getRuntimeMXBean();
+        }
+
+        @NotNull
+        @Override
+        public StorageServiceMBean getStorageServiceProxy() {
+            throw new UnsupportedOperationException();
+        }
+
+        @NotNull
+        @Override
+        public EndpointSnitchInfoMBean getEndpointSnitchInfoProxy() {
+            throw new UnsupportedOperationException();
+        }
+
+        @NotNull
+        @Override
+        public ColumnFamilyStoreMBean getColumnFamilyStoreProxy(@NotNull final String keyspace, @NotNull final String table) {
+            throw new UnsupportedOperationException();
+        }
+
+        @NotNull
+        @Override
+        public List<String> getColumnFamilyNames(@NotNull final String keyspace) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Nullable
+        @Override
+        public Object getAttribute(@NotNull final String objectName, @NotNull final String attribute) {
+            try {
+                return mbeanServer.getAttribute(new ObjectName(objectName), attribute);
+            } catch (final Exception e) {
+                return null;
+            }
+        }
+
+        @NotNull
+        @Override
+        public Map<String, Object> getAttributes(@NotNull final String objectName, @NotNull final String... attributes) {
+            final Map<String, Object> r = new HashMap<>();
+            try {
+                for (final Attribute attribute : mbeanServer.getAttributes(new ObjectName(objectName), attributes).asList()) {
+                    r.put(attribute.getName(), attribute.getValue());
+                }
+            } catch (final Exception e) {
+                // not registered
+            }
+            return r;
+        }
+
+        @NotNull
+        @Override
+        public Map<String, Object> queryAttribute(@NotNull final String objectNamePattern, @NotNull final String attribute) {
+            final Map<String, Object> r = new HashMap<>();
+            try {
+                for (final ObjectName name : mbeanServer.queryNames(new ObjectName(objectNamePattern), null)) {
+                    r.put(name.getCanonicalName(), mbeanServer.getAttribute(name, attribute));
+                }
+            } catch (final Exception e) {
+                throw new RuntimeException(e);
+            }
+            return r;
+        }
+
+        @NotNull
+        @Override
+        public List<String> queryNames(@NotNull final String objectNamePattern) {
+            final List<String> r = new ArrayList<>();
+            try {
+                for (final ObjectName name : mbeanServer.queryNames(new ObjectName(objectNamePattern), null)) {
+                    r.add(name.getCanonicalName());
+                }
+            } catch (final Exception e) {
+                throw new RuntimeException(e);
+            }
+            return r;
+        }
+
+        @Override
+        public long connectionGeneration() {
+            return generation;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.cassandra.db.ColumnFamilyStoreMBean;
 import org.apache.cassandra.db.compaction.CompactionManager;
 import org.apache.cassandra.locator.EndpointSnitchInfoMBean;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.apache.cassandra.service.ActiveRepairService;
 import org.apache.cassandra.service.StorageServiceMBean;
 import org.slf4j.Marker;
@@ -129,6 +130,54 @@ class TestObjectFactory implements ObjectFactory {
             return Arrays.asList(keyspace + "_a", keyspace + "_b", keyspace + "_c");
         }
 
+        @Nullable
+        @Override
+        public Object getAttribute(@NotNull final String objectName, @NotNull final String attribute) {
+            return null;
+        }
+
+        /**
+         * Reads StorageService attributes from the mock by calling the corresponding getters.
+         */
+        @NotNull
+        @Override
+        public Map<String, Object> getAttributes(@NotNull final String objectName, @NotNull final String... attributes) {
+            final Map<String, Object> r = new HashMap<>();
+            if (!objectName.equals("org.apache.cassandra.db:type=StorageService")) {
+                return r;
+            }
+            for (final String attribute : attributes) {
+                for (final String prefix : new String[]{"get", "is"}) {
+                    try {
+                        r.put(attribute, StorageServiceMBean.class.getMethod(prefix + attribute).invoke(storageServiceProxy));
+                        break;
+                    } catch (final NoSuchMethodException ignored) {
+                        // try next prefix
+                    } catch (final Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+            return r;
+        }
+
+        @NotNull
+        @Override
+        public Map<String, Object> queryAttribute(@NotNull final String objectNamePattern, @NotNull final String attribute) {
+            return Collections.emptyMap();
+        }
+
+        @NotNull
+        @Override
+        public List<String> queryNames(@NotNull final String objectNamePattern) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public long connectionGeneration() {
+            return 0L;
+        }
+
         @Override
         public void close() {
             //
@@ -331,7 +380,7 @@ class TestObjectFactory implements ObjectFactory {
 
         @Override
         public Map<String, String> getHostIdMap() {
-            throw new UnsupportedOperationException();
+            return Collections.singletonMap("1.2.3.4", hostId);
         }
 
         @Override
@@ -0,0 +1,127 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.executor.jmx;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.net.ServerSocket;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ProdJmxConnectTest {
+    private int port;
+    private Registry registry;
+    private JMXConnectorServer server;
+
+    @Before
+    public void before() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        registry = LocateRegistry.createRegistry(port);
+        server = JMXConnectorServerFactory.newJMXConnectorServer(
+            new JMXServiceURL("service:jmx:rmi:///jndi/rmi://127.0.0.1:" + port + "/jmxrmi"), null, ManagementFactory.getPlatformMBeanServer());
+        server.start();
+    }
+
+    @After
+    public void after() throws IOException {
+        if (server != null) {
+            server.stop();
+        }
+        if (registry != null) {
+            UnicastRemoteObject.unexportObject(registry, true);
+        }
+    }
+
+    @Test
+    public void testProxiesSurviveReconnect() throws IOException {
+        final ProdJmxConnect jmxConnect = new ProdJmxConnect("127.0.0.1", port);
+        try {
+            final RuntimeMXBean runtime = jmxConnect.getRuntimeProxy();
+            assertSame(runtime, jmxConnect.getRuntimeProxy());
+            assertEquals(ManagementFactory.getRuntimeMXBean().getName(), runtime.getName());
+
+            jmxConnect.close();
+            assertEquals(ManagementFactory.getRuntimeMXBean().getName(), runtime.getName());
+            assertTrue(jmxConnect.getAttribute(ManagementFactory.RUNTIME_MXBEAN_NAME, "Uptime") instanceof Long);
+        } finally {
+            jmxConnect.close();
+        }
+    }
+
+    @Test
+    public void testGetAttributes() throws IOException {
+        final ProdJmxConnect jmxConnect = new ProdJmxConnect("127.0.0.1", port);
+        try {
+            final Map<String, Object> attributes = jmxConnect.getAttributes(ManagementFactory.RUNTIME_MXBEAN_NAME, "StartTime", "Name", "NoSuchAttribute");
+            assertEquals(ManagementFactory.getRuntimeMXBean().getStartTime(), attributes.get("StartTime"));
+            assertEquals(ManagementFactory.getRuntimeMXBean().getName(), attributes.get("Name"));
+            assertFalse(attributes.containsKey("NoSuchAttribute"));
+        } finally {
+            jmxConnect.close();
+        }
+    }
+
+    @Test
+    public void testReconnectBackoff() throws IOException {
+        server.stop();
+        server = null;
+
+        final ProdJmxConnect jmxConnect = new ProdJmxConnect("127.0.0.1", port);
+        try {
+            jmxConnect.getRuntimeProxy().getUptime();
+            fail();
+        } catch (final JmxRuntimeException e) {
+            assertTrue(e.getMessage().startsWith("Failed to connect"));
+        }
+
+        // the next attempt is delayed, calls in between fail fast but still carry the connect failure
+        try {
+            jmxConnect.getRuntimeProxy().getUptime();
+            fail();
+        } catch (final JmxRuntimeException e) {
+            assertTrue(e.getMessage().startsWith("Not connected"));
+            assertTrue(hasCause(e, IOException.class));
+        }
+        jmxConnect.close();
+    }
+
+    private static boolean hasCause(final Throwable t, final Class<? extends Throwable> type) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -38,6 +38,7 @@ import org.glassfish.grizzly.http.server.HttpServer;
 import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.intellij.lang.annotations.Language;
+import org.jetbrains.annotations.NotNull;
 import org.joda.time.Period;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -140,6 +141,10 @@ public final class Main {
         final String    frameworkName               =                       frameworkName(clusterNameOpt);
         final String    zkUrl                       =                       Env.option("CASSANDRA_ZK").or("zk://localhost:2181/cassandra-mesos");
         final long      zkTimeoutMs                 = Long.parseLong(       Env.option("CASSANDRA_ZK_TIMEOUT_MS").or("10000"));
+        final long      stateWriteBehindMs          = Long.parseLong(       Env.option("CASSANDRA_STATE_WRITE_BEHIND_MS").or("250"));
+        final long      httpSlowRequestThresholdMs  = Long.parseLong(       Env.option("CASSANDRA_HTTP_SLOW_REQUEST_THRESHOLD_MS").or(String.valueOf(HttpMetricsFilter.DEFAULT_SLOW_REQUEST_THRESHOLD_MS)));
+        final double    offerRefuseSeconds          = Double.parseDouble(   Env.option("CASSANDRA_OFFER_REFUSE_SECONDS").or(String.valueOf(CassandraScheduler.DEFAULT_DECLINE_REFUSE_SECONDS)));
+        final double    offerLongRefuseSeconds      = Double.parseDouble(   Env.option("CASSANDRA_OFFER_LONG_REFUSE_SECONDS").or(String.valueOf(CassandraScheduler.DEFAULT_LONG_DECLINE_REFUSE_SECONDS)));
         final String    mesosMasterZkUrl            =                       Env.option("MESOS_ZK").or("zk://localhost:2181/mesos");
         final String    mesosUser                   =                       Env.option("MESOS_USER").or("");
         final long      failoverTimeout             = Long.parseLong(       Env.option("CASSANDRA_FAILOVER_TIMEOUT_SECONDS").or(String.valueOf(Period.days(7).toStandardSeconds().getSeconds())));
@@ -150,6 +155,8 @@ public final class Main {
         final boolean   jmxNoAuthentication         = Boolean.parseBoolean( Env.option("CASSANDRA_JMX_NO_AUTHENTICATION").or("false"));
         final String    defaultRack                 =                       Env.option("CASSANDRA_DEFAULT_RACK").or("RAC1");
         final String    defaultDc                   =                       Env.option("CASSANDRA_DEFAULT_DC").or("DC1");
+        final long      placementHoldBackSec        = Long.parseLong(       Env.option("CASSANDRA_PLACEMENT_HOLD_BACK_SECONDS").or("0"));
+        final String    preferredDiskType           =                       Env.option("CASSANDRA_PREFERRED_DISK_TYPE").orNull();
 
         final List<ExternalDc> externalDcs = getExternalDcs(Env.filterStartsWith("CASSANDRA_EXTERNAL_DC_", true));
         final Matcher matcher = validateZkUrl(zkUrl);
@@ -207,15 +214,22 @@ public final class Main {
         final PersistedCassandraClusterHealthCheckHistory healthCheckHistory = new PersistedCassandraClusterHealthCheckHistory(state);
         final PersistedCassandraClusterState clusterState = new PersistedCassandraClusterState(state);
         final SeedManager seedManager = new SeedManager(configuration, new ObjectMapper(), new SystemClock());
+        final PersistedCassandraClusterJobs jobsState = new PersistedCassandraClusterJobs(state);
+        final StateWriteBehind stateWriteBehind = new StateWriteBehind(stateWriteBehindMs);
+        if (stateWriteBehindMs > 0) {
+            // the configuration changes rarely and stays synchronous, CassandraCluster.flushState() does not flush it
+            stateWriteBehind.attach(clusterState, healthCheckHistory, jobsState);
+        }
         final CassandraCluster cassandraCluster = new CassandraCluster(
             clock,
             httpServerBaseUri.toString(),
             new ExecutorCounter(state, 0L),
             clusterState,
             healthCheckHistory,
-            new PersistedCassandraClusterJobs(state),
+            jobsState,
             configuration,
-            seedManager
+            seedManager,
+            new PlacementEngine(TimeUnit.SECONDS.toMillis(placementHoldBackSec), preferredDiskType)
         );
         final HealthReportService healthReportService = new HealthReportService(
             clusterState,
@@ -226,7 +240,9 @@ public final class Main {
         final Scheduler scheduler = new CassandraScheduler(
             configuration,
             cassandraCluster,
-            clock
+            clock,
+            offerRefuseSeconds,
+            offerLongRefuseSeconds
         );
 
         final JsonFactory factory = new JsonFactory();
@@ -249,9 +265,12 @@ public final class Main {
                 new ConfigController(cassandraCluster, factory),
                 new LiveEndpointsController(cassandraCluster, factory),
                 new NodeController(cassandraCluster, factory),
+                new MetricsController(cassandraCluster, factory),
+                new EventsController(cassandraCluster, factory),
                 new HealthCheckController(healthReportService),
                 new QaReportController(cassandraCluster, factory),
                 new ScaleOutController(cassandraCluster, factory),
+                new HttpMetricsFilter(httpSlowRequestThresholdMs),
                 provider
             );
         final HttpServer httpServer = GrizzlyHttpServerFactory.createHttpServer(httpServerBaseUri, rc);
@@ -265,8 +284,16 @@ public final class Main {
             frameworkBuilder.setPrincipal("cassandra-framework");
             driver = new MesosSchedulerDriver(scheduler, frameworkBuilder.build(), mesosMasterZkUrl);
         }
+        stateWriteBehind.conflictListener(new StateWriteBehind.ConflictListener() {
+            @Override
+            public void stateConflict(@NotNull final StateConflictException e) {
+                driver.abort();
+            }
+        });
 
         seedManager.startSyncingSeeds(60);
+        final FrameworkMessageTimer frameworkMessageTimer = new FrameworkMessageTimer(cassandraCluster, clock, FrameworkMessageTimer.DEFAULT_TICK_MILLIS);
+        frameworkMessageTimer.start(driver);
 
         final int status;
         switch (driver.run()) {
@@ -284,7 +311,14 @@ public final class Main {
                 break;
         }
 
+        frameworkMessageTimer.shutdown();
         httpServer.shutdownNow();
+        stateWriteBehind.shutdown();
+        try {
+            cassandraCluster.flushState();
+        } catch (final StateConflictException e) {
+            LOGGER.error("State has been written by another scheduler instance, pending changes are discarded", e);
+        }
         // Ensure that the driver process terminates.
         driver.stop(true);
         return status;
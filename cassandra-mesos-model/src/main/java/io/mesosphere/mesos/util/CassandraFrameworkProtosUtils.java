@@ -183,6 +183,72 @@ public final class CassandraFrameworkProtosUtils {
         return builder;
     }
 
+    /**
+     * Returns the status of all nodes currently executing the given cluster job. Jobs persisted before
+     * {@code currentNodes} existed only carry {@code currentNode}.
+     */
+    @NotNull
+    public static List<NodeJobStatus> getCurrentNodes(@NotNull final ClusterJobStatus clusterJob) {
+        if (clusterJob.getCurrentNodesCount() == 0 && clusterJob.hasCurrentNode()) {
+            return Collections.singletonList(clusterJob.getCurrentNode());
+        }
+        return clusterJob.getCurrentNodesList();
+    }
+
+    @Nullable
+    public static NodeJobStatus getCurrentNode(@NotNull final ClusterJobStatus clusterJob, @NotNull final String executorId) {
+        for (final NodeJobStatus nodeJobStatus : getCurrentNodes(clusterJob)) {
+            if (nodeJobStatus.getExecutorId().equals(executorId)) {
+                return nodeJobStatus;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds {@code nodeJobStatus} to the current nodes of {@code clusterJob} or replaces the status of the same executor.
+     */
+    @NotNull
+    public static ClusterJobStatus.Builder putCurrentNode(@NotNull final ClusterJobStatus clusterJob, @NotNull final NodeJobStatus nodeJobStatus) {
+        final List<NodeJobStatus> currentNodes = newArrayList(getCurrentNodes(clusterJob));
+        boolean replaced = false;
+        for (int i = 0; i < currentNodes.size(); i++) {
+            if (currentNodes.get(i).getExecutorId().equals(nodeJobStatus.getExecutorId())) {
+                currentNodes.set(i, nodeJobStatus);
+                replaced = true;
+                break;
+            }
+        }
+        if (!replaced) {
+            currentNodes.add(nodeJobStatus);
+        }
+        return setCurrentNodes(ClusterJobStatus.newBuilder(clusterJob), currentNodes);
+    }
+
+    @NotNull
+    public static ClusterJobStatus.Builder removeCurrentNode(@NotNull final ClusterJobStatus clusterJob, @NotNull final String executorId) {
+        final List<NodeJobStatus> currentNodes = newArrayList(getCurrentNodes(clusterJob));
+        for (int i = 0; i < currentNodes.size(); i++) {
+            if (currentNodes.get(i).getExecutorId().equals(executorId)) {
+                currentNodes.remove(i);
+                break;
+            }
+        }
+        return setCurrentNodes(ClusterJobStatus.newBuilder(clusterJob), currentNodes);
+    }
+
+    @NotNull
+    private static ClusterJobStatus.Builder setCurrentNodes(@NotNull final ClusterJobStatus.Builder builder, @NotNull final List<NodeJobStatus> currentNodes) {
+        builder.clearCurrentNodes()
+            .addAllCurrentNodes(currentNodes);
+        if (currentNodes.isEmpty()) {
+            builder.clearCurrentNode();
+        } else {
+            builder.setCurrentNode(currentNodes.get(0));
+        }
+        return builder;
+    }
+
     @NotNull
     public static Function<Resource, TreeSet<Long>> resourceToPortSet() {
         return ResourceToPortSet.INSTANCE;
@@ -20,10 +20,15 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.*;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.events.ClusterEvent;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.events.ClusterEventLog;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.NodeMetricsStore;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.SchedulerMetrics;
 import io.mesosphere.mesos.frameworks.cassandra.scheduler.util.Env;
 import io.mesosphere.mesos.util.CassandraFrameworkProtosUtils;
 import io.mesosphere.mesos.util.Clock;
@@ -116,15 +121,26 @@ public final class CassandraCluster {
     @NotNull
     private final PersistedCassandraClusterHealthCheckHistory healthCheckHistory;
     @NotNull
+    private final NodeMetricsStore metricsStore = new NodeMetricsStore();
+    @NotNull
+    private final ClusterEventLog eventLog;
+    @NotNull
     private final PersistedCassandraFrameworkConfiguration configuration;
     @NotNull
     private final PersistedCassandraClusterJobs jobsState;
     @NotNull
     private final SeedManager seedManager;
+    @NotNull
+    private final PlacementEngine placementEngine;
 
     @NotNull
     private final Map<ClusterJobType, ClusterJobHandler> clusterJobHandlers;
 
+    @Nullable
+    private volatile OfferDemandListener offerDemandListener;
+    @Nullable
+    private volatile ExecutorLifecycleListener executorLifecycleListener;
+
     public static int getPortMapping(@NotNull final CassandraFrameworkConfiguration configuration, @NotNull final String name) {
         for (final PortMapping portMapping : configuration.getPortMappingList()) {
             if (portMapping.getName().equals(name)) {
@@ -147,6 +163,20 @@ public final class CassandraCluster {
         @NotNull final PersistedCassandraClusterJobs jobsState,
         @NotNull final PersistedCassandraFrameworkConfiguration configuration,
         @NotNull final SeedManager seedManager
+    ) {
+        this(clock, httpServerBaseUrl, execCounter, clusterState, healthCheckHistory, jobsState, configuration, seedManager, new PlacementEngine());
+    }
+
+    public CassandraCluster(
+        @NotNull final Clock clock,
+        @NotNull final String httpServerBaseUrl,
+        @NotNull final ExecutorCounter execCounter,
+        @NotNull final PersistedCassandraClusterState clusterState,
+        @NotNull final PersistedCassandraClusterHealthCheckHistory healthCheckHistory,
+        @NotNull final PersistedCassandraClusterJobs jobsState,
+        @NotNull final PersistedCassandraFrameworkConfiguration configuration,
+        @NotNull final SeedManager seedManager,
+        @NotNull final PlacementEngine placementEngine
     ) {
         this.clock = clock;
         this.httpServerBaseUrl = httpServerBaseUrl;
@@ -156,6 +186,8 @@ public final class CassandraCluster {
         this.jobsState = jobsState;
         this.configuration = configuration;
         this.seedManager = seedManager;
+        this.placementEngine = placementEngine;
+        this.eventLog = new ClusterEventLog(clock);
 
         clusterJobHandlers = new EnumMap<>(ClusterJobType.class);
         clusterJobHandlers.put(ClusterJobType.CLEANUP, new NodeTaskClusterJobHandler(this, jobsState));
@@ -181,17 +213,99 @@ public final class CassandraCluster {
         return seedManager;
     }
 
-    @Nullable
-    public ExecutorMetadata metadataForExecutor(@NotNull final String executorId) {
-        for (final ExecutorMetadata executorMetadata : clusterState.executorMetadata()) {
-            if (executorId.equals(executorMetadata.getExecutorId())) {
-                return executorMetadata;
+    @NotNull
+    public NodeMetricsStore getMetricsStore() {
+        return metricsStore;
+    }
+
+    @NotNull
+    public ClusterEventLog getEventLog() {
+        return eventLog;
+    }
+
+    /**
+     * Returns a number that increases whenever the cluster state, the configuration, the cluster jobs or the
+     * health check history change. Data derived from these is current as long as the version did not change.
+     */
+    public long stateVersion() {
+        return clusterState.version() + configuration.version() + jobsState.version() + healthCheckHistory.version();
+    }
+
+    /**
+     * Writes all pending state changes. Must be called before acting on the result of
+     * {@link #getTasksForOffer(Protos.Offer)} so that launched tasks are always backed by persisted state.
+     * The configuration is not attached to the write-behind and always written synchronously.
+     */
+    public void flushState() {
+        clusterState.flush();
+        jobsState.flush();
+        healthCheckHistory.flush();
+    }
+
+    public void offerDemandListener(@Nullable final OfferDemandListener offerDemandListener) {
+        this.offerDemandListener = offerDemandListener;
+    }
+
+    private void offersRequired() {
+        final OfferDemandListener listener = offerDemandListener;
+        if (listener != null) {
+            listener.offersRequired();
+        }
+    }
+
+    public void executorLifecycleListener(@Nullable final ExecutorLifecycleListener executorLifecycleListener) {
+        this.executorLifecycleListener = executorLifecycleListener;
+    }
+
+    /**
+     * Checks whether any resource offers are needed to make progress - i.e. whether nodes have to be acquired,
+     * a cluster job is running or a node does not yet match its target run state.
+     * If not, offers can be declined with a long filter until {@link OfferDemandListener#offersRequired()} is called.
+     */
+    public boolean offersNeeded() {
+        if (getCurrentClusterJob() != null) {
+            return true;
+        }
+        if (clusterState.nodeCounts().getNodeCount() < configuration.targetNumberOfNodes()) {
+            return true;
+        }
+        for (final CassandraNode node : clusterState.nodes()) {
+            if (!isSettled(node)) {
+                return true;
             }
         }
-        return null;
+        return false;
+    }
+
+    /**
+     * @return {@code false}, if there's no node for the host and no node needs to be acquired
+     */
+    public boolean mayUseOffersFrom(@NotNull final String hostname) {
+        return cassandraNodeForHostname(hostname).isPresent()
+            || clusterState.nodeCounts().getNodeCount() < configuration.targetNumberOfNodes();
+    }
+
+    private static boolean isSettled(@NotNull final CassandraNode node) {
+        final boolean hasServerTask = getTaskForNode(node, CassandraNodeTask.NodeTaskType.SERVER) != null;
+        switch (node.getTargetRunState()) {
+            case RUN:
+                return hasServerTask && !node.getNeedsConfigUpdate();
+            case STOP:
+                return !hasServerTask && getTaskForNode(node, CassandraNodeTask.NodeTaskType.METADATA) != null;
+            case TERMINATE:
+                return !node.hasCassandraNodeExecutor() || node.getTasksCount() == 0;
+            default:
+                return false;
+        }
+    }
+
+    @Nullable
+    public ExecutorMetadata metadataForExecutor(@NotNull final String executorId) {
+        return clusterState.registry().metadataForExecutor(executorId);
     }
 
     public void removeTask(@NotNull final String taskId, @NotNull final Protos.TaskStatus status) {
+        final ClusterJobStatus jobBefore = getCurrentClusterJob();
         final List<CassandraNode> nodes = clusterState.nodes();
         final List<CassandraNode> newNodes = new ArrayList<>(nodes.size());
         boolean changed = false;
@@ -213,6 +327,10 @@ public final class CassandraCluster {
                     break;
                 case SERVER:
                     builder.clearCassandraDaemonPid();
+                    publishEvent(ClusterEvent.Type.SERVER_TASK_REMOVED, cassandraNode, ImmutableMap.<String, Object>of(
+                        "taskId", taskId,
+                        "state", status.getState().name()
+                    ));
                     if (status.hasSource()) {
                         switch (status.getSource()) {
                             case SOURCE_MASTER:
@@ -239,13 +357,23 @@ public final class CassandraCluster {
 
         final ClusterJobStatus clusterJob = getCurrentClusterJob();
         if (clusterJob != null) {
-            if (clusterJob.hasCurrentNode() && clusterJob.getCurrentNode().getTaskId().equals(taskId)) {
-                clusterJobHandlers.get(clusterJob.getJobType()).onTaskRemoved(status, clusterJob);
+            for (final NodeJobStatus currentNode : getCurrentNodes(clusterJob)) {
+                if (currentNode.getTaskId().equals(taskId)) {
+                    clusterJobHandlers.get(clusterJob.getJobType()).onTaskRemoved(status, clusterJob);
+                    break;
+                }
             }
         }
+        publishClusterJobProgress(jobBefore);
+
+        if (changed) {
+            offersRequired();
+        }
     }
 
     public void removeExecutor(@NotNull final String executorId) {
+        final Optional<CassandraNode> node = cassandraNodeForExecutorId(executorId);
+        final ClusterJobStatus jobBefore = getCurrentClusterJob();
         final FluentIterable<CassandraNode> update = from(clusterState.nodes())
             .transform(cassandraNodeToBuilder())
             .transform(new ContinuingTransform<CassandraNode.Builder>() {
@@ -263,25 +391,24 @@ public final class CassandraCluster {
         jobsState.clearClusterJobCurrentNode(executorId);
         clusterState.nodes(newArrayList(update));
         removeExecutorMetadata(executorId);
+        metricsStore.remove(executorId);
+        eventLog.publish(ClusterEvent.Type.EXECUTOR_REMOVED, executorId, node.isPresent() ? node.get().getIp() : null);
+        publishClusterJobProgress(jobBefore);
+        final ExecutorLifecycleListener listener = executorLifecycleListener;
+        if (listener != null) {
+            listener.executorRemoved(executorId);
+        }
+        offersRequired();
     }
 
     @NotNull
     public Optional<String> getExecutorIdForTask(@NotNull final String taskId) {
-        return headOption(
-            from(clusterState.nodes())
-                .filter(cassandraNodeForTaskId(taskId))
-                .filter(cassandraNodeHasExecutor())
-                .transform(executorIdFromCassandraNode())
-        );
+        return getNodeForTask(taskId).transform(executorIdFromCassandraNode());
     }
 
     @NotNull
     public Optional<CassandraNode> getNodeForTask(@NotNull final String taskId) {
-        return headOption(
-            from(clusterState.nodes())
-                .filter(cassandraNodeForTaskId(taskId))
-                .filter(cassandraNodeHasExecutor())
-        );
+        return clusterState.registry().nodeWithExecutorForTaskId(taskId);
     }
 
     public void addExecutorMetadata(@NotNull final ExecutorMetadata executorMetadata) {
@@ -307,11 +434,16 @@ public final class CassandraCluster {
         return healthCheckHistory.last(executorId);
     }
 
+    private void publishEvent(@NotNull final ClusterEvent.Type type, @NotNull final CassandraNode node, @NotNull final Map<String, Object> attributes) {
+        eventLog.publish(type, node.hasCassandraNodeExecutor() ? node.getCassandraNodeExecutor().getExecutorId() : null, node.getIp(), attributes);
+    }
+
     public void recordHealthCheck(@NotNull final String executorId, @NotNull final HealthCheckDetails details) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("> recordHealthCheck(executorId : {}, details : {})", executorId, protoToString(details));
         }
         final Optional<CassandraNode> nodeOpt = cassandraNodeForExecutorId(executorId);
+        final boolean wasLive = isLiveNode(healthCheckHistory.last(executorId));
         if (nodeOpt.isPresent()) {
             if (!details.getHealthy()) {
                 LOGGER.info(
@@ -324,10 +456,26 @@ public final class CassandraCluster {
                 final CassandraNodeTask serverTask = CassandraFrameworkProtosUtils.getTaskForNode(nodeOpt.get(), CassandraNodeTask.NodeTaskType.SERVER);
                 if (serverTask != null && nodeOpt.get().hasReplacementForIp()) {
                     clusterState.nodeReplaced(nodeOpt.get());
+                    publishEvent(ClusterEvent.Type.NODE_REPLACED, nodeOpt.get(), ImmutableMap.<String, Object>of(
+                        "replacementForIp", nodeOpt.get().getReplacementForIp()
+                    ));
+                    offersRequired();
                 }
             }
         }
-        healthCheckHistory.record(executorId, clock.now().getMillis(), details);
+        final long timestamp = clock.now().getMillis();
+        if (details.hasMetrics()) {
+            // metrics are only kept in memory, persisting them would rewrite the history with every health check
+            metricsStore.record(executorId, timestamp, details.getMetrics());
+            healthCheckHistory.record(executorId, timestamp, details.toBuilder().clearMetrics().build());
+        } else {
+            healthCheckHistory.record(executorId, timestamp, details);
+        }
+        final boolean isLive = isLiveNode(healthCheckHistory.last(executorId));
+        if (nodeOpt.isPresent() && isLive != wasLive) {
+            publishEvent(isLive ? ClusterEvent.Type.NODE_HEALTHY : ClusterEvent.Type.NODE_UNHEALTHY, nodeOpt.get(),
+                details.hasMsg() ? ImmutableMap.<String, Object>of("message", details.getMsg()) : ImmutableMap.<String, Object>of());
+        }
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("< recordHealthCheck(executorId : {}, details : {})", executorId, protoToString(details));
         }
@@ -353,6 +501,37 @@ public final class CassandraCluster {
         return nodes;
     }
 
+    /**
+     * Registers the offers of a batch that could host a new node with the {@link PlacementEngine}, before the
+     * offers are evaluated one by one via {@link #getTasksForOffer(Protos.Offer)}.
+     *
+     * @return the offers in the order they have to be evaluated in, see
+     * {@link PlacementEngine#rank(List, List, int, TaskResources, String)}
+     */
+    @NotNull
+    public List<Protos.Offer> offersReceived(@NotNull final List<Protos.Offer> offers) {
+        final long now = clock.now().getMillis();
+        placementEngine.expire(now);
+        if (clusterState.nodeCounts().getNodeCount() >= configuration.targetNumberOfNodes()) {
+            return offers;
+        }
+        final CassandraConfigRole configRole = configuration.getDefaultConfigRole();
+        final TaskResources resources = newNodeResources(configRole);
+        final Map<String, Long> portMappings = portMappings(configuration.get());
+        for (final Protos.Offer offer : offers) {
+            if (!cassandraNodeForHostname(offer.getHostname()).isPresent()
+                && hasResources(offer, resources, portMappings, configRole.getMesosRole()).isEmpty()) {
+                placementEngine.offered(offer, getRackDc(offer), now);
+            }
+        }
+        return placementEngine.rank(offers, clusterState.nodes(), configuration.targetNumberOfNodes(), resources, configRole.getMesosRole());
+    }
+
+    @NotNull
+    private static TaskResources newNodeResources(@NotNull final CassandraConfigRole configRole) {
+        return add(add(EXECUTOR_RESOURCES, METADATA_TASK_RESOURCES), configRole.getResources());
+    }
+
     @Nullable
     public TasksForOffer getTasksForOffer(@NotNull final Protos.Offer offer) {
         final Marker marker = MarkerFactory.getMarker("offerId:" + offer.getId().getValue() + ",hostname:" + offer.getHostname());
@@ -360,9 +539,11 @@ public final class CassandraCluster {
             LOGGER.debug(marker, "> getTasksForOffer(offer : {})", protoToString(offer));
         }
 
+        final long startNanos = System.nanoTime();
         try {
             return _getTasksForOffer(marker, offer);
         } finally {
+            SchedulerMetrics.GET_TASKS_FOR_OFFER.observeSince(startNanos);
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(marker, "< getTasksForOffer(offer : {}) = {}, {}", protoToString(offer));
             }
@@ -399,18 +580,12 @@ public final class CassandraCluster {
 
     @NotNull
     public Optional<CassandraNode> cassandraNodeForHostname(@NotNull final String hostname) {
-        return headOption(
-            from(clusterState.nodes())
-                .filter(cassandraNodeHostnameEq(hostname))
-        );
+        return clusterState.registry().nodeForHostname(hostname);
     }
 
     @NotNull
     public Optional<CassandraNode> cassandraNodeForExecutorId(@NotNull final String executorId) {
-        return headOption(
-            from(clusterState.nodes())
-                .filter(cassandraNodeExecutorIdEq(executorId))
-        );
+        return clusterState.registry().nodeForExecutorId(executorId);
     }
 
     @NotNull
@@ -481,14 +656,11 @@ public final class CassandraCluster {
 
     @NotNull
     private String getExecutorIdForOffer(@NotNull final Protos.Offer offer) {
-        final FluentIterable<CassandraNode> filter =
-            from(clusterState.nodes())
-                .filter(cassandraNodeHasExecutor())
-                .filter(cassandraNodeHostnameEq(offer.getHostname()));
-        if (filter.isEmpty()) {
+        final Optional<CassandraNode> node = clusterState.registry().nodeWithExecutorForHostname(offer.getHostname());
+        if (!node.isPresent()) {
             return configuration.frameworkName() + ".node." + execCounter.getAndIncrement() + ".executor";
         } else {
-            return filter.get(0).getCassandraNodeExecutor().getExecutorId();
+            return node.get().getCassandraNodeExecutor().getExecutorId();
         }
     }
 
@@ -613,9 +785,7 @@ public final class CassandraCluster {
 
     @NotNull
     private Optional<ExecutorMetadata> getExecutorMetadata(@NotNull final String executorId) {
-        final FluentIterable<ExecutorMetadata> filter = from(clusterState.executorMetadata())
-            .filter(executorMetadataExecutorIdEq(executorId));
-        return headOption(filter);
+        return Optional.fromNullable(clusterState.registry().metadataForExecutor(executorId));
     }
 
     @NotNull
@@ -713,6 +883,7 @@ public final class CassandraCluster {
             throw new IllegalArgumentException("Can not decrease the number of nodes.");
         } else if (nodeCount > currentDesiredNodeCount) {
             configuration.targetNumberOfNodes(nodeCount);
+            offersRequired();
         }
         return nodeCount;
     }
@@ -728,6 +899,7 @@ public final class CassandraCluster {
         final Optional<CassandraNode> nodeForExecutorId = cassandraNodeForExecutorId(executorId);
 
         clusterJobHandlers.get(currentJob.getJobType()).handleTaskOffer(currentJob, executorId, nodeForExecutorId, tasksForOffer);
+        publishClusterJobProgress(currentJob);
     }
 
     public void onNodeJobStatus(@NotNull final SlaveStatusDetails statusDetails) {
@@ -750,6 +922,8 @@ public final class CassandraCluster {
         }
 
         clusterJobHandlers.get(currentJob.getJobType()).onNodeJobStatus(currentJob, nodeJobStatus);
+        publishClusterJobProgress(currentJob);
+        offersRequired();
     }
 
     public boolean startClusterTask(@NotNull final ClusterJobType jobType) {
@@ -757,16 +931,49 @@ public final class CassandraCluster {
     }
 
     public boolean startClusterTask(@NotNull final ClusterJobType jobType, final String backupName) {
+        return startClusterTask(jobType, backupName, 1, 1);
+    }
+
+    public boolean startClusterTask(@NotNull final ClusterJobType jobType, final String backupName, final int maxConcurrentNodes, final int parallelism) {
+        final ClusterJobStatus.Builder job = ClusterJobStatus.newBuilder()
+                .setJobType(jobType)
+                .setMaxConcurrentNodes(maxConcurrentNodes)
+                .setParallelism(parallelism);
+        if (backupName != null) {
+            job.setBackupName(backupName);
+        }
+        return startClusterTask(job);
+    }
+
+    /**
+     * Starts a cluster-wide job with the type and options set in {@code job}.
+     * The job runs on at most {@code maxConcurrentNodes} nodes at the same time, each node processing up to
+     * {@code parallelism} tables at once. {@link ClusterJobType#RESTART} always restarts one node after the other.
+     * {@code incremental} and {@code compression} only apply to backups.
+     */
+    public boolean startClusterTask(@NotNull final ClusterJobStatus.Builder job) {
+        if (job.getMaxConcurrentNodes() < 1) {
+            throw new IllegalArgumentException("maxConcurrentNodes must be at least 1");
+        }
+        if (job.getParallelism() < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        if (job.getIoLimits().getMaxMbPerSecond() < 0 || job.getIoLimits().getMaxFilesPerSecond() < 0) {
+            throw new IllegalArgumentException("I/O limits must not be negative");
+        }
         if (jobsState.get().hasCurrentClusterJob()) {
             return false;
         }
 
-        final ClusterJobStatus.Builder builder = ClusterJobStatus.newBuilder()
-                .setJobType(jobType)
-                .setStartedTimestamp(clock.now().getMillis());
-
-        if (backupName != null) {
-            builder.setBackupName(backupName);
+        final ClusterJobType jobType = job.getJobType();
+        final ClusterJobStatus.Builder builder = job.clone()
+                .setStartedTimestamp(clock.now().getMillis())
+                .clearRemainingNodes();
+        if (jobType == ClusterJobType.RESTART) {
+            builder.setMaxConcurrentNodes(1);
+        }
+        if (jobType != ClusterJobType.BACKUP) {
+            builder.clearIncremental().clearCompression();
         }
 
         for (final CassandraNode cassandraNode : clusterState.nodes()) {
@@ -776,10 +983,66 @@ public final class CassandraCluster {
         }
 
         jobsState.setCurrentJob(builder.build());
+        eventLog.publish(ClusterEvent.Type.CLUSTER_JOB_STARTED, null, null, ImmutableMap.<String, Object>of(
+            "jobType", jobType.name(),
+            "remainingNodes", builder.getRemainingNodesCount()
+        ));
+        offersRequired();
 
         return true;
     }
 
+    /**
+     * Publishes events for the nodes that completed the cluster job {@code before} since it has been read and
+     * whether that job has finished meanwhile, and tells the {@link ExecutorLifecycleListener} about nodes that
+     * are no longer working on the job.
+     */
+    private void publishClusterJobProgress(@Nullable final ClusterJobStatus before) {
+        if (before == null) {
+            return;
+        }
+        final ClusterJobStatus current = getCurrentClusterJob();
+        final boolean finished = current == null || current.getStartedTimestamp() != before.getStartedTimestamp();
+        final ExecutorLifecycleListener listener = executorLifecycleListener;
+        if (listener != null) {
+            final List<NodeJobStatus> currentNodes = finished ? Collections.<NodeJobStatus>emptyList() : getCurrentNodes(current);
+            for (final NodeJobStatus nodeBefore : getCurrentNodes(before)) {
+                if (!containsExecutor(currentNodes, nodeBefore.getExecutorId())) {
+                    listener.nodeJobFinished(nodeBefore.getExecutorId());
+                }
+            }
+        }
+        final ClusterJobStatus after = finished ? getLastClusterJob(before.getJobType()) : current;
+        if (after != null && after.getStartedTimestamp() == before.getStartedTimestamp()) {
+            for (int i = before.getCompletedNodesCount(); i < after.getCompletedNodesCount(); i++) {
+                final NodeJobStatus nodeJobStatus = after.getCompletedNodes(i);
+                final Optional<CassandraNode> node = cassandraNodeForExecutorId(nodeJobStatus.getExecutorId());
+                eventLog.publish(ClusterEvent.Type.CLUSTER_JOB_PROGRESS, nodeJobStatus.getExecutorId(), node.isPresent() ? node.get().getIp() : null,
+                    ImmutableMap.<String, Object>of(
+                        "jobType", after.getJobType().name(),
+                        "failed", nodeJobStatus.getFailed(),
+                        "completedNodes", i + 1,
+                        "remainingNodes", after.getRemainingNodesCount() + after.getCurrentNodesCount()
+                    ));
+            }
+        }
+        if (finished) {
+            eventLog.publish(ClusterEvent.Type.CLUSTER_JOB_FINISHED, null, null, ImmutableMap.<String, Object>of(
+                "jobType", before.getJobType().name(),
+                "aborted", after != null ? after.getAborted() : before.getAborted()
+            ));
+        }
+    }
+
+    private static boolean containsExecutor(@NotNull final List<NodeJobStatus> nodes, @NotNull final String executorId) {
+        for (final NodeJobStatus node : nodes) {
+            if (node.getExecutorId().equals(executorId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean abortClusterJob(@NotNull final ClusterJobType jobType) {
         ClusterJobStatus current = getCurrentClusterJob(jobType);
         if (current == null || current.getAborted()) {
@@ -789,6 +1052,7 @@ public final class CassandraCluster {
         current = ClusterJobStatus.newBuilder(current)
                 .setAborted(true).build();
         jobsState.setCurrentJob(current);
+        offersRequired();
         return true;
     }
 
@@ -821,14 +1085,7 @@ public final class CassandraCluster {
 
     @Nullable
     public CassandraNode findNode(@NotNull final String node) {
-        for (final CassandraNode cassandraNode : clusterState.nodes()) {
-            if (cassandraNode.getIp().equals(node)
-                || cassandraNode.getHostname().equals(node)
-                || (cassandraNode.hasCassandraNodeExecutor() && cassandraNode.getCassandraNodeExecutor().getExecutorId().equals(node))) {
-                return cassandraNode;
-            }
-        }
-        return null;
+        return clusterState.registry().findNode(node);
     }
 
     @Nullable
@@ -869,6 +1126,10 @@ public final class CassandraCluster {
             .setTargetRunState(targetRunState)
             .build();
         clusterState.addOrSetNode(cassandraNode);
+        publishEvent(ClusterEvent.Type.NODE_TARGET_RUN_STATE_CHANGED, cassandraNode, ImmutableMap.<String, Object>of(
+            "targetRunState", targetRunState.name()
+        ));
+        offersRequired();
 
         return cassandraNode;
     }
@@ -970,6 +1231,7 @@ public final class CassandraCluster {
         }
 
         clusterState.replaceNode(cassandraNode.getIp());
+        offersRequired();
         return cassandraNode;
     }
 
@@ -1005,6 +1267,8 @@ public final class CassandraCluster {
 
         clusterState.setNodeAndUpdateConfig(CassandraNode.newBuilder(cassandraNode)
             .setSeed(seed));
+        publishEvent(ClusterEvent.Type.SEED_CHANGED, cassandraNode, ImmutableMap.<String, Object>of("seed", seed));
+        offersRequired();
 
         return true;
     }
@@ -1139,10 +1403,7 @@ public final class CassandraCluster {
                 return null;
             }
 
-            final TaskResources allResources = add(
-                add(EXECUTOR_RESOURCES, METADATA_TASK_RESOURCES),
-                configRole.getResources()
-            );
+            final TaskResources allResources = newNodeResources(configRole);
             final List<String> executorSizeErrors = hasResources(
                 offer,
                 allResources,
@@ -1159,10 +1420,17 @@ public final class CassandraCluster {
                 return null;
             }
 
+            if (!placementEngine.shouldPlace(offer, getRackDc(offer), clusterState.nodes(), configuration.targetNumberOfNodes(),
+                allResources, configRole.getMesosRole(), now)) {
+                LOGGER.info(marker, "Not placing a new node on this host, waiting for competing offers.");
+                return null;
+            }
+
             final String replacementForIp = clusterState.nextReplacementIp();
 
             final CassandraNode newNode = buildCassandraNode(offer, !allSeedsAcquired, replacementForIp);
             clusterState.nodeAcquired(newNode);
+            placementEngine.placed(offer.getHostname(), now);
             node = CassandraNode.newBuilder(newNode);
         } else {
             node = CassandraNode.newBuilder(nodeOption.get());
@@ -1183,6 +1451,7 @@ public final class CassandraCluster {
         final CassandraNodeExecutor executor = node.getCassandraNodeExecutor();
 
         final TasksForOffer result = new TasksForOffer(executor);
+        result.setNodeAcquired(!nodeOption.isPresent());
         final String executorId = executor.getExecutorId();
         CassandraNodeTask metadataTask = CassandraFrameworkProtosUtils.getTaskForNode(node.build(), CassandraNodeTask.NodeTaskType.METADATA);
         if (metadataTask == null) {
@@ -1259,6 +1528,7 @@ public final class CassandraCluster {
                         node.addTasks(task)
                             .setNeedsConfigUpdate(false);
                         result.getLaunchTasks().add(task);
+                        result.setServerTask(task);
 
                         clusterState.updateLastServerLaunchTimestamp(now);
                     }
@@ -1295,12 +1565,51 @@ public final class CassandraCluster {
             return null;
         }
 
+        // the slave is needed to send framework messages to the executor
+        node.setSlaveId(offer.getSlaveId().getValue());
+
         final CassandraNode built = node.build();
         clusterState.addOrSetNode(built);
+        result.setNode(built);
 
         return result;
     }
 
+    /**
+     * Publishes the events for a node acquired and a server task launched by {@code tasksForOffer}. Called after
+     * the state changes made by {@link #getTasksForOffer(Protos.Offer)} have been flushed and the tasks have been
+     * handed over to Mesos, so that clients never see a node or server that the scheduler failed to launch.
+     */
+    public void tasksLaunched(@NotNull final TasksForOffer tasksForOffer) {
+        final ExecutorLifecycleListener listener = executorLifecycleListener;
+        if (listener != null && !tasksForOffer.getLaunchTasks().isEmpty()) {
+            final String executorId = tasksForOffer.getExecutor().getExecutorId();
+            listener.executorLaunched(executorId);
+            for (final CassandraNodeTask task : tasksForOffer.getLaunchTasks()) {
+                if (task.getType() == CassandraNodeTask.NodeTaskType.CLUSTER_JOB) {
+                    listener.nodeJobStarted(executorId);
+                }
+            }
+        }
+
+        final CassandraNode node = tasksForOffer.getNode();
+        if (node == null) {
+            return;
+        }
+        if (tasksForOffer.isNodeAcquired()) {
+            publishEvent(ClusterEvent.Type.NODE_ACQUIRED, node, ImmutableMap.<String, Object>of(
+                "hostname", node.getHostname(),
+                "seed", node.getSeed()
+            ));
+        }
+        final CassandraNodeTask serverTask = tasksForOffer.getServerTask();
+        if (serverTask != null) {
+            publishEvent(ClusterEvent.Type.SERVER_TASK_LAUNCHED, node, ImmutableMap.<String, Object>of(
+                "taskId", serverTask.getTaskId()
+            ));
+        }
+    }
+
     private boolean anySeedRunningAndHealthy() {
         boolean anySeedRunning = false;
         for (final CassandraNode cassandraNode : clusterState.nodes()) {
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ListMultimap;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.SchedulerMetrics;
 import io.mesosphere.mesos.util.Clock;
 import org.apache.mesos.Protos.*;
 import org.apache.mesos.Scheduler;
@@ -37,7 +38,11 @@ import org.slf4j.MarkerFactory;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Lists.newArrayList;
@@ -51,6 +56,12 @@ public final class CassandraScheduler implements Scheduler {
 
     private static final Joiner JOIN_WITH_SPACE = Joiner.on(" ").skipNulls();
 
+    /**
+     * Same as the default of {@code Filters.refuse_seconds}.
+     */
+    public static final double DEFAULT_DECLINE_REFUSE_SECONDS = 5d;
+    public static final double DEFAULT_LONG_DECLINE_REFUSE_SECONDS = 300d;
+
     private static final Function<FileDownload, CommandInfo.URI> uriToCommandInfoUri = new Function<FileDownload, CommandInfo.URI>() {
         @Override
         public CommandInfo.URI apply(final FileDownload input) {
@@ -64,15 +75,47 @@ public final class CassandraScheduler implements Scheduler {
     private final CassandraCluster cassandraCluster;
     @NotNull
     private final Clock clock;
+    private final double declineRefuseSeconds;
+    private final double longDeclineRefuseSeconds;
+
+    /**
+     * Set when offers may have been declined with {@link #longDeclineRefuseSeconds}, cleared by reviving offers.
+     */
+    private final AtomicBoolean longFiltersActive = new AtomicBoolean();
+    @Nullable
+    private volatile SchedulerDriver driver;
 
     public CassandraScheduler(
         @NotNull final PersistedCassandraFrameworkConfiguration configuration,
         @NotNull final CassandraCluster cassandraCluster,
         @NotNull final Clock clock
+    ) {
+        this(configuration, cassandraCluster, clock, DEFAULT_DECLINE_REFUSE_SECONDS, DEFAULT_LONG_DECLINE_REFUSE_SECONDS);
+    }
+
+    /**
+     * @param declineRefuseSeconds     value of {@code refuse_seconds} used for offers the scheduler launches or declines
+     * @param longDeclineRefuseSeconds value of {@code refuse_seconds} used to decline offers that are not needed
+     *                                 until the cluster requests offers again
+     */
+    public CassandraScheduler(
+        @NotNull final PersistedCassandraFrameworkConfiguration configuration,
+        @NotNull final CassandraCluster cassandraCluster,
+        @NotNull final Clock clock,
+        final double declineRefuseSeconds,
+        final double longDeclineRefuseSeconds
     ) {
         this.configuration = configuration;
         this.cassandraCluster = cassandraCluster;
         this.clock = clock;
+        this.declineRefuseSeconds = declineRefuseSeconds;
+        this.longDeclineRefuseSeconds = longDeclineRefuseSeconds;
+        cassandraCluster.offerDemandListener(new OfferDemandListener() {
+            @Override
+            public void offersRequired() {
+                reviveOffers();
+            }
+        });
     }
 
     @Override
@@ -80,6 +123,7 @@ public final class CassandraScheduler implements Scheduler {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("> registered(driver : {}, frameworkId : {}, masterInfo : {})", driver, protoToString(frameworkId), protoToString(masterInfo));
         }
+        this.driver = driver;
         configuration.frameworkId(frameworkId.getValue());
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("< registered(driver : {}, frameworkId : {}, masterInfo : {})", driver, protoToString(frameworkId), protoToString(masterInfo));
@@ -91,6 +135,7 @@ public final class CassandraScheduler implements Scheduler {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("reregistered(driver : {}, masterInfo : {})", driver, protoToString(masterInfo));
         }
+        this.driver = driver;
         driver.reconcileTasks(Collections.<TaskStatus>emptySet());
     }
 
@@ -99,15 +144,72 @@ public final class CassandraScheduler implements Scheduler {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("> resourceOffers(driver : {}, offers : {})", driver, protoToString(offers));
         }
+        SchedulerMetrics.OFFERS_RECEIVED.inc(offers.size());
+        // offers that could host a new node are evaluated best first, so that several nodes can be placed per batch
+        final List<Offer> ranked = cassandraCluster.offersReceived(offers);
+
+        // evaluate all offers first, so that the resulting state changes are persisted once for the whole batch
+        final List<Offer> unusedOffers = newArrayList();
+        final Map<Offer, TasksForOffer> plan = new LinkedHashMap<>();
+        for (final Offer offer : ranked) {
+            final Marker marker = offerMarker(offer);
+            final TasksForOffer tasksForOffer = evaluateOffer(marker, offer);
+            if (tasksForOffer != null) {
+                plan.put(offer, tasksForOffer);
+            } else {
+                unusedOffers.add(offer);
+            }
+        }
 
-        for (final Offer offer : offers) {
-            final Marker marker = MarkerFactory.getMarker("offerId:" + offer.getId().getValue() + ",hostname:" + offer.getHostname());
-            final boolean offerUsed = evaluateOffer(driver, marker, offer);
-            if (!offerUsed) {
-                LOGGER.trace(marker, "Declining Offer: {}", offer.getId().getValue());
-                driver.declineOffer(offer.getId());
+        if (!plan.isEmpty()) {
+            // state changes made while evaluating the offers have to be persisted before anything is sent to mesos
+            try {
+                cassandraCluster.flushState();
+            } catch (final StateConflictException e) {
+                // another scheduler instance wrote the state, this one must not act on its outdated view
+                LOGGER.error("State has been written by another scheduler instance, aborting", e);
+                driver.abort();
+                return;
+            }
+        }
+
+        final Map<SlaveID, SlaveLaunch> launches = new LinkedHashMap<>();
+        // tasks launched in the same executor with several offers of a slave share one ExecutorInfo
+        final Map<ExecutorID, ExecutorInfo> executorInfos = new HashMap<>();
+        for (final Map.Entry<Offer, TasksForOffer> entry : plan.entrySet()) {
+            final Offer offer = entry.getKey();
+            final List<TaskInfo> taskInfos = executeOfferPlan(driver, offerMarker(offer), offer, entry.getValue(), executorInfos);
+            if (taskInfos.isEmpty()) {
+                unusedOffers.add(offer);
+                continue;
+            }
+            SlaveLaunch launch = launches.get(offer.getSlaveId());
+            if (launch == null) {
+                launch = new SlaveLaunch();
+                launches.put(offer.getSlaveId(), launch);
+            }
+            launch.offerIds.add(offer.getId());
+            launch.taskInfos.addAll(taskInfos);
+            launch.plans.add(entry.getValue());
+        }
+
+        final Filters filters = Filters.newBuilder().setRefuseSeconds(declineRefuseSeconds).build();
+        for (final SlaveLaunch launch : launches.values()) {
+            final Status status = driver.launchTasks(launch.offerIds, launch.taskInfos, filters);
+            SchedulerMetrics.OFFERS_ACCEPTED.inc(launch.offerIds.size());
+            if (status == Status.DRIVER_RUNNING) {
+                for (final TasksForOffer tasksForOffer : launch.plans) {
+                    cassandraCluster.tasksLaunched(tasksForOffer);
+                }
+            } else {
+                LOGGER.warn("Launching tasks on offers {} returned driver status {}", protoToString(launch.offerIds), status);
             }
         }
+        if (!unusedOffers.isEmpty()) {
+            declineOffers(driver, unusedOffers, filters);
+            SchedulerMetrics.OFFERS_DECLINED.inc(unusedOffers.size());
+        }
+
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("< resourceOffers(driver : {}, offers : {})", driver, protoToString(offers));
         }
@@ -126,6 +228,7 @@ public final class CassandraScheduler implements Scheduler {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug(taskIdMarker, "> statusUpdate(driver : {}, status : {})", driver, protoToString(status));
         }
+        SchedulerMetrics.STATUS_UPDATES.labels(status.getState().name()).inc();
         try {
             final ExecutorID executorId = status.getExecutorId();
             final TaskID taskId = status.getTaskId();
@@ -223,6 +326,7 @@ public final class CassandraScheduler implements Scheduler {
 
         try {
             final SlaveStatusDetails statusDetails = SlaveStatusDetails.parseFrom(data);
+            SchedulerMetrics.FRAMEWORK_MESSAGES.labels(statusDetails.getStatusDetailsType().name()).inc();
             switch (statusDetails.getStatusDetailsType()) {
                 case HEALTH_CHECK_DETAILS:
                     cassandraCluster.recordHealthCheck(executorId.getValue(), statusDetails.getHealthCheckDetails());
@@ -272,21 +376,77 @@ public final class CassandraScheduler implements Scheduler {
     // ---------------------------- Helper methods ---------------------------------------------------------------------
 
     /**
-     * @return boolean representing if the the offer was used
+     * Declines offers that are not needed at all with the long filter. Offers of hosts that will never run
+     * a node are declined with the long filter as well.
      */
-    private boolean evaluateOffer(@NotNull final SchedulerDriver driver, @NotNull final Marker marker, @NotNull final Offer offer) {
+    private void declineOffers(@NotNull final SchedulerDriver driver, @NotNull final List<Offer> unusedOffers, @NotNull final Filters filters) {
+        // flag has to be set before checking the demand, so that a concurrent demand change revives the offers
+        final boolean wasActive = longFiltersActive.getAndSet(true);
+        final boolean offersNeeded = cassandraCluster.offersNeeded();
+        final Filters longFilters = Filters.newBuilder().setRefuseSeconds(longDeclineRefuseSeconds).build();
+        boolean anyLongFilter = false;
+        for (final Offer offer : unusedOffers) {
+            final Marker marker = offerMarker(offer);
+            if (!offersNeeded || !cassandraCluster.mayUseOffersFrom(offer.getHostname())) {
+                LOGGER.trace(marker, "Declining Offer: {} for {}s", offer.getId().getValue(), longDeclineRefuseSeconds);
+                driver.declineOffer(offer.getId(), longFilters);
+                anyLongFilter = true;
+            } else {
+                LOGGER.trace(marker, "Declining Offer: {}", offer.getId().getValue());
+                driver.declineOffer(offer.getId(), filters);
+            }
+        }
+        if (!anyLongFilter && !wasActive) {
+            longFiltersActive.compareAndSet(true, false);
+        }
+    }
+
+    /**
+     * Clears all offer filters, if offers might have been declined with the long filter.
+     * Mesos 0.22 has no {@code suppressOffers()}, so long decline filters are used instead.
+     */
+    private void reviveOffers() {
+        final SchedulerDriver d = driver;
+        if (d != null && longFiltersActive.compareAndSet(true, false)) {
+            LOGGER.info("Reviving offers");
+            d.reviveOffers();
+        }
+    }
+
+    /**
+     * @return the tasks to process for the offer or {@code null}, if there's nothing to do
+     */
+    @Nullable
+    private TasksForOffer evaluateOffer(@NotNull final Marker marker, @NotNull final Offer offer) {
         if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug(marker, "> evaluateOffer(driver : {}, offer : {})", protoToString(offer));
+            LOGGER.debug(marker, "> evaluateOffer(offer : {})", protoToString(offer));
         }
 
         final TasksForOffer tasksForOffer = cassandraCluster.getTasksForOffer(offer);
         if (tasksForOffer == null || !tasksForOffer.hasAnyTask()) {
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug(marker, "< evaluateOffer(driver : {}, offer : {}) = nothing to do", protoToString(offer));
+                LOGGER.debug(marker, "< evaluateOffer(offer : {}) = nothing to do", protoToString(offer));
             }
-            return false;
+            return null;
         }
+        return tasksForOffer;
+    }
 
+    /**
+     * Kills tasks and submits framework messages for an evaluated offer.
+     *
+     * @param executorInfos the executors already built for the batch of offers, an executor is only built
+     *                      and added if it is not contained
+     * @return the tasks to launch using the offer, empty if the offer is not used
+     */
+    @NotNull
+    private List<TaskInfo> executeOfferPlan(
+        @NotNull final SchedulerDriver driver,
+        @NotNull final Marker marker,
+        @NotNull final Offer offer,
+        @NotNull final TasksForOffer tasksForOffer,
+        @NotNull final Map<ExecutorID, ExecutorInfo> executorInfos
+    ) {
         final CassandraNodeExecutor executor = tasksForOffer.getExecutor();
         final ExecutorID executorId = executorId(executor.getExecutorId());
 
@@ -308,18 +468,16 @@ public final class CassandraScheduler implements Scheduler {
 
         if (tasksForOffer.getLaunchTasks().isEmpty()) {
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug(marker, "< evaluateOffer(driver : {}, offer : {}) = no tasks to launch", protoToString(offer));
+                LOGGER.debug(marker, "< executeOfferPlan(offer : {}) = no tasks to launch", protoToString(offer));
             }
             // no tasks to launch
-            return false;
+            return Collections.emptyList();
         }
 
-        final List<TaskInfo> taskInfos = newArrayList();
-
-        for (final CassandraNodeTask cassandraNodeTask : tasksForOffer.getLaunchTasks()) {
-            final TaskDetails taskDetails = cassandraNodeTask.getTaskDetails();
-
-            final ExecutorInfo info = executorInfo(
+        // all tasks of an offer run in the same executor
+        ExecutorInfo info = executorInfos.get(executorId);
+        if (info == null) {
+            info = executorInfo(
                 executorId,
                 executorId.getValue(),
                 executor.getSource(),
@@ -330,6 +488,13 @@ public final class CassandraScheduler implements Scheduler {
                 ),
                 resourceList(executor.getResources(), configuration.mesosRole(), offer)
             );
+            executorInfos.put(executorId, info);
+        }
+
+        final List<TaskInfo> taskInfos = newArrayList();
+
+        for (final CassandraNodeTask cassandraNodeTask : tasksForOffer.getLaunchTasks()) {
+            final TaskDetails taskDetails = cassandraNodeTask.getTaskDetails();
 
             final TaskID taskId = taskId(cassandraNodeTask.getTaskId());
             final List<Resource> resources = resourceList(cassandraNodeTask.getResources(), configuration.mesosRole(), offer);
@@ -353,12 +518,15 @@ public final class CassandraScheduler implements Scheduler {
         }
 
         if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug(marker, "< evaluateOffer(driver : {}, offer : {}) = {}", protoToString(offer), protoToString(taskInfos));
+            LOGGER.debug(marker, "< executeOfferPlan(offer : {}) = {}", protoToString(offer), protoToString(taskInfos));
         }
 
-        driver.launchTasks(Collections.singleton(offer.getId()), taskInfos);
+        return taskInfos;
+    }
 
-        return true;
+    @NotNull
+    private static Marker offerMarker(@NotNull final Offer offer) {
+        return MarkerFactory.getMarker("offerId:" + offer.getId().getValue() + ",hostname:" + offer.getHostname());
     }
 
     @NotNull
@@ -419,4 +587,13 @@ public final class CassandraScheduler implements Scheduler {
         }
         return builder.build();
     }
+
+    /**
+     * Offers of the same slave are launched with a single call.
+     */
+    private static final class SlaveLaunch {
+        private final List<OfferID> offerIds = newArrayList();
+        private final List<TaskInfo> taskInfos = newArrayList();
+        private final List<TasksForOffer> plans = newArrayList();
+    }
 }
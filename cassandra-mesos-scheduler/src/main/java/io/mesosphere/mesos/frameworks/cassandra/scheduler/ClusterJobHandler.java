@@ -20,6 +20,8 @@ import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
 import org.apache.mesos.Protos;
 import org.jetbrains.annotations.NotNull;
 
+import static io.mesosphere.mesos.util.CassandraFrameworkProtosUtils.removeCurrentNode;
+
 public abstract class ClusterJobHandler {
     @NotNull
     protected final CassandraCluster cluster;
@@ -40,8 +42,7 @@ public abstract class ClusterJobHandler {
     public abstract void onNodeJobStatus(@NotNull CassandraFrameworkProtos.ClusterJobStatus currentJob, @NotNull CassandraFrameworkProtos.NodeJobStatus nodeJobStatus);
 
     protected final void nodeFinished(@NotNull final CassandraFrameworkProtos.NodeJobStatus nodeJobStatus, @NotNull final CassandraFrameworkProtos.ClusterJobStatus currentJob) {
-        final CassandraFrameworkProtos.ClusterJobStatus.Builder builder = CassandraFrameworkProtos.ClusterJobStatus.newBuilder(currentJob)
-            .clearCurrentNode()
+        final CassandraFrameworkProtos.ClusterJobStatus.Builder builder = removeCurrentNode(currentJob, nodeJobStatus.getExecutorId())
             .clearRemainingNodes()
             .addCompletedNodes(nodeJobStatus);
 
@@ -51,7 +52,7 @@ public abstract class ClusterJobHandler {
             }
         }
 
-        if (builder.getRemainingNodesCount() == 0) {
+        if (builder.getRemainingNodesCount() == 0 && builder.getCurrentNodesCount() == 0) {
             jobsState.finishJob(builder
                 .setFinishedTimestamp(System.currentTimeMillis())
                 .build());
@@ -0,0 +1,32 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Notified by {@link CassandraCluster} when tasks have been launched on an executor, when an executor has been
+ * removed and when a node starts or finishes its part of a cluster job.
+ */
+public interface ExecutorLifecycleListener {
+    void executorLaunched(@NotNull String executorId);
+
+    void executorRemoved(@NotNull String executorId);
+
+    void nodeJobStarted(@NotNull String executorId);
+
+    void nodeJobFinished(@NotNull String executorId);
+}
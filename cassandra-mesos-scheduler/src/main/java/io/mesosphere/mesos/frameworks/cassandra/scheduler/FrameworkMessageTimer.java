@@ -0,0 +1,226 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import io.mesosphere.mesos.util.Clock;
+import io.mesosphere.mesos.util.Tuple2;
+import org.apache.mesos.Protos;
+import org.apache.mesos.SchedulerDriver;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.*;
+import static io.mesosphere.mesos.util.CassandraFrameworkProtosUtils.getCurrentNodes;
+import static io.mesosphere.mesos.util.CassandraFrameworkProtosUtils.getTaskForNode;
+import static io.mesosphere.mesos.util.ProtoUtils.executorId;
+import static io.mesosphere.mesos.util.Tuple2.tuple2;
+
+/**
+ * Sends health check requests and node job status inquiries to the executors on a schedule that does not depend
+ * on resource offers.
+ * <p>
+ * Health checks are requested every {@code healthCheckIntervalSeconds}. Every node gets a fixed phase offset derived
+ * from its executor ID, so that the requests to all nodes are spread over the interval. The executor running
+ * the current node of a cluster job is asked for its job status every {@link #NODE_JOB_STATUS_INTERVAL_MILLIS}.
+ * <p>
+ * Timers are registered and cancelled via {@link ExecutorLifecycleListener} when tasks are launched on an executor,
+ * the executor is removed and a node starts or finishes its part of a cluster job. Only the nodes and cluster job
+ * known when the timer is created are registered by scanning the cluster state, each tick only advances the wheel.
+ */
+public final class FrameworkMessageTimer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FrameworkMessageTimer.class);
+
+    public static final long DEFAULT_TICK_MILLIS = 250L;
+    static final long NODE_JOB_STATUS_INTERVAL_MILLIS = 5000L;
+    private static final int WHEEL_SIZE = 512;
+
+    @NotNull
+    private final CassandraCluster cluster;
+    @NotNull
+    private final Clock clock;
+    private final long tickMillis;
+    @NotNull
+    private final ScheduledExecutorService scheduledExecutorService;
+
+    // guarded by this
+    @NotNull
+    private final TimerWheel<Tuple2<String, TaskDetails.TaskDetailsType>> wheel;
+
+    public FrameworkMessageTimer(@NotNull final CassandraCluster cluster, @NotNull final Clock clock, final long tickMillis) {
+        this.cluster = cluster;
+        this.clock = clock;
+        this.tickMillis = tickMillis;
+        this.wheel = new TimerWheel<>(WHEEL_SIZE, tickMillis, clock.now().getMillis());
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NotNull final Runnable r) {
+                final Thread t = new Thread(r, "framework-message-timer");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        cluster.executorLifecycleListener(new ExecutorLifecycleListener() {
+            @Override
+            public void executorLaunched(@NotNull final String executorId) {
+                register(executorId, TaskDetails.TaskDetailsType.HEALTH_CHECK);
+            }
+
+            @Override
+            public void executorRemoved(@NotNull final String executorId) {
+                cancel(executorId, TaskDetails.TaskDetailsType.HEALTH_CHECK);
+                cancel(executorId, TaskDetails.TaskDetailsType.NODE_JOB_STATUS);
+            }
+
+            @Override
+            public void nodeJobStarted(@NotNull final String executorId) {
+                register(executorId, TaskDetails.TaskDetailsType.NODE_JOB_STATUS);
+            }
+
+            @Override
+            public void nodeJobFinished(@NotNull final String executorId) {
+                cancel(executorId, TaskDetails.TaskDetailsType.NODE_JOB_STATUS);
+            }
+        });
+
+        // nodes and the cluster job persisted before the scheduler has been started
+        for (final CassandraNode node : cluster.getClusterState().nodes()) {
+            if (node.hasCassandraNodeExecutor()) {
+                register(node.getCassandraNodeExecutor().getExecutorId(), TaskDetails.TaskDetailsType.HEALTH_CHECK);
+            }
+        }
+        final ClusterJobStatus currentJob = cluster.getCurrentClusterJob();
+        if (currentJob != null) {
+            for (final NodeJobStatus currentNode : getCurrentNodes(currentJob)) {
+                register(currentNode.getExecutorId(), TaskDetails.TaskDetailsType.NODE_JOB_STATUS);
+            }
+        }
+    }
+
+    public void start(@NotNull final SchedulerDriver driver) {
+        scheduledExecutorService.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    tick(driver);
+                } catch (final RuntimeException e) {
+                    // an exception would cancel all further executions
+                    LOGGER.error("Failed to send scheduled framework messages", e);
+                }
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        cluster.executorLifecycleListener(null);
+        scheduledExecutorService.shutdown();
+    }
+
+    @VisibleForTesting
+    synchronized void tick(@NotNull final SchedulerDriver driver) {
+        final long now = clock.now().getMillis();
+        for (final Tuple2<String, TaskDetails.TaskDetailsType> key : wheel.advance(now)) {
+            final Optional<CassandraNode> nodeOption = cluster.cassandraNodeForExecutorId(key._1);
+            if (!nodeOption.isPresent()) {
+                // executor is gone, drop its timer
+                continue;
+            }
+            final CassandraNode node = nodeOption.get();
+            switch (key._2) {
+                case HEALTH_CHECK:
+                    if (node.hasSlaveId()
+                        && node.getTargetRunState() == CassandraNode.TargetRunState.RUN
+                        && getTaskForNode(node, CassandraNodeTask.NodeTaskType.SERVER) != null) {
+                        send(driver, node, key._2);
+                    }
+                    wheel.schedule(key, now + healthCheckIntervalMillis());
+                    break;
+                case NODE_JOB_STATUS:
+                    // the timer ends with the node's part of the job, even if that has not been reported
+                    if (isCurrentJobNode(key._1)) {
+                        if (node.hasSlaveId()) {
+                            send(driver, node, key._2);
+                        }
+                        wheel.schedule(key, now + NODE_JOB_STATUS_INTERVAL_MILLIS);
+                    }
+                    break;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    synchronized boolean isScheduled(@NotNull final String executorId, @NotNull final TaskDetails.TaskDetailsType type) {
+        return wheel.isScheduled(tuple2(executorId, type));
+    }
+
+    private synchronized void register(@NotNull final String executorId, @NotNull final TaskDetails.TaskDetailsType type) {
+        final Tuple2<String, TaskDetails.TaskDetailsType> key = tuple2(executorId, type);
+        if (!wheel.isScheduled(key)) {
+            final long intervalMillis = type == TaskDetails.TaskDetailsType.HEALTH_CHECK
+                ? healthCheckIntervalMillis()
+                : NODE_JOB_STATUS_INTERVAL_MILLIS;
+            wheel.schedule(key, clock.now().getMillis() + phase(executorId, intervalMillis));
+        }
+    }
+
+    private synchronized void cancel(@NotNull final String executorId, @NotNull final TaskDetails.TaskDetailsType type) {
+        wheel.cancel(tuple2(executorId, type));
+    }
+
+    private boolean isCurrentJobNode(@NotNull final String executorId) {
+        final ClusterJobStatus currentJob = cluster.getCurrentClusterJob();
+        if (currentJob != null) {
+            for (final NodeJobStatus currentNode : getCurrentNodes(currentJob)) {
+                if (currentNode.getExecutorId().equals(executorId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private long healthCheckIntervalMillis() {
+        return Math.max(tickMillis, cluster.getConfiguration().healthCheckInterval().getMillis());
+    }
+
+    /**
+     * @return a stable offset within {@code [0, intervalMillis)} for the executor
+     */
+    @VisibleForTesting
+    static long phase(@NotNull final String executorId, final long intervalMillis) {
+        return (executorId.hashCode() & Integer.MAX_VALUE) % intervalMillis;
+    }
+
+    private static void send(@NotNull final SchedulerDriver driver, @NotNull final CassandraNode node, @NotNull final TaskDetails.TaskDetailsType type) {
+        final String executorId = node.getCassandraNodeExecutor().getExecutorId();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Sending {} to executor {} on slave {}", type, executorId, node.getSlaveId());
+        }
+        driver.sendFrameworkMessage(
+            executorId(executorId),
+            Protos.SlaveID.newBuilder().setValue(node.getSlaveId()).build(),
+            TaskDetails.newBuilder().setType(type).build().toByteArray()
+        );
+    }
+}
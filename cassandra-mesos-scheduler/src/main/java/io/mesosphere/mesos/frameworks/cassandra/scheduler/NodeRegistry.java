@@ -0,0 +1,146 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import com.google.common.base.Optional;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.*;
+
+/**
+ * Immutable lookup index over the nodes and executor metadata of one {@link CassandraClusterState} instance.
+ * All lookups return the first match in the order of {@link CassandraClusterState#getNodesList()}, like a linear
+ * scan over the nodes would do.
+ */
+final class NodeRegistry {
+    @NotNull
+    private final CassandraClusterState state;
+    @NotNull
+    private final List<CassandraNode> nodes;
+
+    // values are indexes into nodes
+    @NotNull
+    private final Map<String, Integer> byHostname = new HashMap<>();
+    @NotNull
+    private final Map<String, Integer> byHostnameWithExecutor = new HashMap<>();
+    @NotNull
+    private final Map<String, Integer> byIp = new HashMap<>();
+    @NotNull
+    private final Map<String, Integer> byExecutorId = new HashMap<>();
+    @NotNull
+    private final Map<String, Integer> byTaskIdWithExecutor = new HashMap<>();
+
+    @NotNull
+    private final Map<String, ExecutorMetadata> metadataByExecutorId = new HashMap<>();
+
+    NodeRegistry(@NotNull final CassandraClusterState state) {
+        this.state = state;
+        this.nodes = state.getNodesList();
+
+        for (int i = 0; i < nodes.size(); i++) {
+            final CassandraNode node = nodes.get(i);
+            if (node.hasHostname()) {
+                putFirst(byHostname, node.getHostname(), i);
+            }
+            putFirst(byIp, node.getIp(), i);
+            if (node.hasCassandraNodeExecutor()) {
+                putFirst(byExecutorId, node.getCassandraNodeExecutor().getExecutorId(), i);
+                if (node.hasHostname()) {
+                    putFirst(byHostnameWithExecutor, node.getHostname(), i);
+                }
+                for (final CassandraNodeTask task : node.getTasksList()) {
+                    putFirst(byTaskIdWithExecutor, task.getTaskId(), i);
+                }
+            }
+        }
+
+        for (final ExecutorMetadata executorMetadata : state.getExecutorMetadataList()) {
+            if (!metadataByExecutorId.containsKey(executorMetadata.getExecutorId())) {
+                metadataByExecutorId.put(executorMetadata.getExecutorId(), executorMetadata);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if this registry has been built from exactly the given state instance
+     */
+    boolean isFor(@NotNull final CassandraClusterState state) {
+        return this.state == state;
+    }
+
+    @NotNull
+    Optional<CassandraNode> nodeForHostname(@NotNull final String hostname) {
+        return node(byHostname.get(hostname));
+    }
+
+    /**
+     * Returns the first node for the given hostname that has an executor.
+     */
+    @NotNull
+    Optional<CassandraNode> nodeWithExecutorForHostname(@NotNull final String hostname) {
+        return node(byHostnameWithExecutor.get(hostname));
+    }
+
+    @NotNull
+    Optional<CassandraNode> nodeForExecutorId(@NotNull final String executorId) {
+        return node(byExecutorId.get(executorId));
+    }
+
+    /**
+     * Returns the first node that has an executor and a task with the given ID.
+     */
+    @NotNull
+    Optional<CassandraNode> nodeWithExecutorForTaskId(@NotNull final String taskId) {
+        return node(byTaskIdWithExecutor.get(taskId));
+    }
+
+    /**
+     * Returns the first node whose IP, hostname or executor ID equals {@code node}.
+     */
+    @Nullable
+    CassandraNode findNode(@NotNull final String node) {
+        int idx = Integer.MAX_VALUE;
+        idx = min(idx, byIp.get(node));
+        idx = min(idx, byHostname.get(node));
+        idx = min(idx, byExecutorId.get(node));
+        return idx == Integer.MAX_VALUE ? null : nodes.get(idx);
+    }
+
+    @Nullable
+    ExecutorMetadata metadataForExecutor(@NotNull final String executorId) {
+        return metadataByExecutorId.get(executorId);
+    }
+
+    @NotNull
+    private Optional<CassandraNode> node(@Nullable final Integer idx) {
+        return idx == null ? Optional.<CassandraNode>absent() : Optional.of(nodes.get(idx));
+    }
+
+    private static int min(final int a, @Nullable final Integer b) {
+        return b == null ? a : Math.min(a, b);
+    }
+
+    private static void putFirst(@NotNull final Map<String, Integer> index, @NotNull final String key, final int idx) {
+        if (!index.containsKey(key)) {
+            index.put(key, idx);
+        }
+    }
+}
@@ -23,107 +23,176 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.ClusterJobType;
+import static io.mesosphere.mesos.util.CassandraFrameworkProtosUtils.getCurrentNode;
+import static io.mesosphere.mesos.util.CassandraFrameworkProtosUtils.getCurrentNodes;
+import static io.mesosphere.mesos.util.CassandraFrameworkProtosUtils.putCurrentNode;
 
 public class NodeTaskClusterJobHandler extends ClusterJobHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(NodeTaskClusterJobHandler.class);
 
+    /**
+     * Name of the directory next to a node's backups that holds the SSTables shared by incremental backups.
+     */
+    static final String SSTABLE_STORE_DIR = ".sstables";
+
     public NodeTaskClusterJobHandler(@NotNull final CassandraCluster cluster, @NotNull final PersistedCassandraClusterJobs jobsState) {
         super(cluster, jobsState);
     }
 
     @Override
     public void handleTaskOffer(@NotNull final CassandraFrameworkProtos.ClusterJobStatus currentJob, @NotNull final String executorId, @NotNull final Optional<CassandraFrameworkProtos.CassandraNode> nodeForExecutorId, @NotNull final TasksForOffer tasksForOffer) {
-        if (currentJob.hasCurrentNode()) {
-            final CassandraFrameworkProtos.NodeJobStatus nodJobStatus = currentJob.getCurrentNode();
-            if (executorId.equals(nodJobStatus.getExecutorId())) {
-                // submit status request
-                tasksForOffer.getSubmitTasks().add(CassandraFrameworkProtos.TaskDetails.newBuilder()
-                    .setType(CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB_STATUS)
-                    .build());
-
-                LOGGER.info("Inquiring cluster job status for {} from {}", currentJob.getJobType().name(),
-                    nodJobStatus.getExecutorId());
-
-                return;
-            }
+        final CassandraFrameworkProtos.NodeJobStatus nodJobStatus = getCurrentNode(currentJob, executorId);
+        if (nodJobStatus != null) {
+            // submit status request
+            tasksForOffer.getSubmitTasks().add(CassandraFrameworkProtos.TaskDetails.newBuilder()
+                .setType(CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB_STATUS)
+                .build());
+
+            LOGGER.info("Inquiring cluster job status for {} from {}", currentJob.getJobType().name(),
+                nodJobStatus.getExecutorId());
+
             return;
         }
 
-        if (currentJob.getAborted() && !currentJob.hasCurrentNode()) {
-            jobsState.setCurrentJob(null);
-            // TODO record aborted job in history??
+        final List<CassandraFrameworkProtos.NodeJobStatus> currentNodes = getCurrentNodes(currentJob);
+
+        if (currentJob.getAborted()) {
+            if (currentNodes.isEmpty()) {
+                jobsState.setCurrentJob(null);
+                // TODO record aborted job in history??
+            }
             return;
         }
 
-        if (!currentJob.hasCurrentNode()) {
-            final List<String> remainingNodes = new ArrayList<>(currentJob.getRemainingNodesList());
-            if (remainingNodes.isEmpty()) {
+        final List<String> remainingNodes = new ArrayList<>(currentJob.getRemainingNodesList());
+        if (remainingNodes.isEmpty()) {
+            if (currentNodes.isEmpty()) {
                 jobsState.finishJob(currentJob);
-                return;
             }
+            return;
+        }
 
-            if (!remainingNodes.remove(executorId)) {
-                return;
-            }
+        if (currentNodes.size() >= maxConcurrentNodes(currentJob)) {
+            return;
+        }
 
-            if (!nodeForExecutorId.isPresent()) {
-                rejectNode(currentJob, remainingNodes);
-                return;
-            }
+        if (!remainingNodes.remove(executorId)) {
+            return;
+        }
 
-            final CassandraFrameworkProtos.CassandraNode node = nodeForExecutorId.get();
+        if (!nodeForExecutorId.isPresent()) {
+            rejectNode(currentJob, remainingNodes);
+            return;
+        }
 
-            if (node.getTargetRunState() != CassandraFrameworkProtos.CassandraNode.TargetRunState.RUN
-                || !cluster.isLiveNode(node)) {
-                rejectNode(currentJob, remainingNodes);
-                return;
-            }
+        final CassandraFrameworkProtos.CassandraNode node = nodeForExecutorId.get();
 
-            final boolean truncateJob = currentJob.getJobType() == ClusterJobType.RESTORE && currentJob.getCompletedNodesCount() == 0;
-            final ClusterJobType jobType = truncateJob ? ClusterJobType.TRUNCATE : currentJob.getJobType();
+        if (node.getTargetRunState() != CassandraFrameworkProtos.CassandraNode.TargetRunState.RUN
+            || !cluster.isLiveNode(node)) {
+            rejectNode(currentJob, remainingNodes);
+            return;
+        }
+
+        if (!currentNodes.isEmpty() && !mayStartInRack(node, currentNodes, remainingNodes)) {
+            LOGGER.debug("Deferring cluster job {} on {}/{} - rack {} is busy", currentJob.getJobType().name(),
+                node.getIp(), node.getHostname(), rackKey(node));
+            return;
+        }
+
+        final boolean truncateJob = currentJob.getJobType() == ClusterJobType.RESTORE && currentJob.getCompletedNodesCount() == 0;
+        final ClusterJobType jobType = truncateJob ? ClusterJobType.TRUNCATE : currentJob.getJobType();
+
+        final CassandraFrameworkProtos.NodeJobTask.Builder nodeJobTaskBuilder = CassandraFrameworkProtos.NodeJobTask.newBuilder()
+                .setJobType(jobType)
+                .setParallelism(currentJob.getParallelism());
+
+        if (Arrays.asList(ClusterJobType.BACKUP, ClusterJobType.RESTORE).contains(jobType)) {
+            final PersistedCassandraFrameworkConfiguration configuration = cluster.getConfiguration();
+            final String nodeBackupDir = configuration.getDefaultConfigRole().getBackupDirectory()
+                    + "/" + configuration.get().getFrameworkName()
+                    + "/" + node.getCassandraNodeExecutor().getExecutorId();
+
+            nodeJobTaskBuilder.setBackupDir(nodeBackupDir + "/" + currentJob.getBackupName())
+                    .setSstableStoreDir(nodeBackupDir + "/" + SSTABLE_STORE_DIR)
+                    .setIncremental(currentJob.getIncremental())
+                    .setCompression(currentJob.getCompression())
+                    .setIoLimits(currentJob.getIoLimits());
+        }
 
-            final CassandraFrameworkProtos.NodeJobTask.Builder nodeJobTaskBuilder = CassandraFrameworkProtos.NodeJobTask.newBuilder()
-                    .setJobType(jobType);
+        final CassandraFrameworkProtos.TaskDetails taskDetails = CassandraFrameworkProtos.TaskDetails.newBuilder()
+            .setType(CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB)
+            .setNodeJobTask(nodeJobTaskBuilder)
+            .build();
+        final CassandraFrameworkProtos.CassandraNodeTask cassandraNodeTask = CassandraFrameworkProtos.CassandraNodeTask.newBuilder()
+            .setType(CassandraFrameworkProtos.CassandraNodeTask.NodeTaskType.CLUSTER_JOB)
+            .setTaskId(executorId + '.' + jobType.name())
+            .setResources(CassandraFrameworkProtos.TaskResources.newBuilder()
+                .setCpuCores(0.1)
+                .setMemMb(16)
+                .setDiskMb(16))
+            .setTaskDetails(taskDetails)
+            .build();
+        tasksForOffer.getLaunchTasks().add(cassandraNodeTask);
+
+        final CassandraFrameworkProtos.NodeJobStatus currentNode = CassandraFrameworkProtos.NodeJobStatus.newBuilder()
+            .setExecutorId(node.getCassandraNodeExecutor().getExecutorId())
+            .setTaskId(cassandraNodeTask.getTaskId())
+            .setJobType(jobType)
+            .setStartedTimestamp(System.currentTimeMillis())
+            .build();
+        jobsState.updateJobCurrentNode(currentJob, currentNode);
+
+        LOGGER.info("Starting cluster job {} on {}/{}", jobType.name(), node.getIp(),
+            node.getHostname());
+    }
 
-            if (Arrays.asList(ClusterJobType.BACKUP, ClusterJobType.RESTORE).contains(jobType)) {
-                final PersistedCassandraFrameworkConfiguration configuration = cluster.getConfiguration();
-                final String backupDir = configuration.getDefaultConfigRole().getBackupDirectory()
-                        + "/" + configuration.get().getFrameworkName()
-                        + "/" + node.getCassandraNodeExecutor().getExecutorId()
-                        + "/" + currentJob.getBackupName();
+    /**
+     * Number of nodes that may run the job at the same time. The TRUNCATE phase of a RESTORE always runs alone.
+     */
+    private static int maxConcurrentNodes(@NotNull final CassandraFrameworkProtos.ClusterJobStatus currentJob) {
+        if (currentJob.getJobType() == ClusterJobType.RESTORE && currentJob.getCompletedNodesCount() == 0) {
+            return 1;
+        }
+        return Math.max(1, currentJob.getMaxConcurrentNodes());
+    }
 
-                nodeJobTaskBuilder.setBackupDir(backupDir);
+    /**
+     * Rack-aware placement: a node in a rack that already runs the job is only started if none of the other
+     * remaining nodes could run in an idle rack instead.
+     */
+    private boolean mayStartInRack(@NotNull final CassandraFrameworkProtos.CassandraNode node, @NotNull final List<CassandraFrameworkProtos.NodeJobStatus> currentNodes, @NotNull final List<String> remainingNodes) {
+        final Set<String> busyRacks = new HashSet<>();
+        for (final CassandraFrameworkProtos.NodeJobStatus currentNode : currentNodes) {
+            final Optional<CassandraFrameworkProtos.CassandraNode> running = cluster.cassandraNodeForExecutorId(currentNode.getExecutorId());
+            if (running.isPresent()) {
+                busyRacks.add(rackKey(running.get()));
             }
+        }
 
-            final CassandraFrameworkProtos.TaskDetails taskDetails = CassandraFrameworkProtos.TaskDetails.newBuilder()
-                .setType(CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB)
-                .setNodeJobTask(nodeJobTaskBuilder)
-                .build();
-            final CassandraFrameworkProtos.CassandraNodeTask cassandraNodeTask = CassandraFrameworkProtos.CassandraNodeTask.newBuilder()
-                .setType(CassandraFrameworkProtos.CassandraNodeTask.NodeTaskType.CLUSTER_JOB)
-                .setTaskId(executorId + '.' + jobType.name())
-                .setResources(CassandraFrameworkProtos.TaskResources.newBuilder()
-                    .setCpuCores(0.1)
-                    .setMemMb(16)
-                    .setDiskMb(16))
-                .setTaskDetails(taskDetails)
-                .build();
-            tasksForOffer.getLaunchTasks().add(cassandraNodeTask);
-
-            final CassandraFrameworkProtos.NodeJobStatus currentNode = CassandraFrameworkProtos.NodeJobStatus.newBuilder()
-                .setExecutorId(node.getCassandraNodeExecutor().getExecutorId())
-                .setTaskId(cassandraNodeTask.getTaskId())
-                .setJobType(jobType)
-                .setStartedTimestamp(System.currentTimeMillis())
-                .build();
-            jobsState.updateJobCurrentNode(currentJob, currentNode);
+        if (!busyRacks.contains(rackKey(node))) {
+            return true;
+        }
 
-            LOGGER.info("Starting cluster job {} on {}/{}", jobType.name(), node.getIp(),
-                node.getHostname());
+        for (final String executorId : remainingNodes) {
+            final Optional<CassandraFrameworkProtos.CassandraNode> other = cluster.cassandraNodeForExecutorId(executorId);
+            if (other.isPresent()
+                && other.get().getTargetRunState() == CassandraFrameworkProtos.CassandraNode.TargetRunState.RUN
+                && cluster.isLiveNode(other.get())
+                && !busyRacks.contains(rackKey(other.get()))) {
+                return false;
+            }
         }
+        return true;
+    }
+
+    @NotNull
+    private static String rackKey(@NotNull final CassandraFrameworkProtos.CassandraNode node) {
+        return node.getRackDc().getDc() + '/' + node.getRackDc().getRack();
     }
 
     private void rejectNode(@NotNull final CassandraFrameworkProtos.ClusterJobStatus currentJob, @NotNull final List<String> remainingNodes) {
@@ -139,11 +208,9 @@ public class NodeTaskClusterJobHandler extends ClusterJobHandler {
     public void onNodeJobStatus(@NotNull final CassandraFrameworkProtos.ClusterJobStatus currentJob, @NotNull final CassandraFrameworkProtos.NodeJobStatus nodeJobStatus) {
         LOGGER.info("Got node job status from {}, running={}", nodeJobStatus.getExecutorId(), nodeJobStatus.getRunning());
 
-        if (currentJob.getCurrentNode() != null && currentJob.getCurrentNode().getExecutorId().equals(nodeJobStatus.getExecutorId())) {
+        if (getCurrentNode(currentJob, nodeJobStatus.getExecutorId()) != null) {
             if (nodeJobStatus.getRunning()) {
-                jobsState.setCurrentJob(CassandraFrameworkProtos.ClusterJobStatus.newBuilder(currentJob)
-                    .setCurrentNode(nodeJobStatus)
-                    .build());
+                jobsState.setCurrentJob(putCurrentNode(currentJob, nodeJobStatus).build());
             } else {
                 nodeFinished(nodeJobStatus, currentJob);
 
@@ -15,24 +15,67 @@
  */
 package io.mesosphere.mesos.frameworks.cassandra.scheduler;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import io.mesosphere.mesos.util.Clock;
 import io.mesosphere.mesos.util.ProtoUtils;
+import io.mesosphere.mesos.util.SystemClock;
 import org.apache.mesos.state.State;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Health check history of all nodes.
+ * <p>
+ * The history is kept in memory as one fixed size ring of entries per executor, so recording a health check and
+ * looking up the last one does not depend on the number of nodes. The persisted
+ * {@link CassandraFrameworkProtos.CassandraClusterHealthCheckHistory} is rebuilt from the rings at most once per
+ * persist interval: in write-behind mode by a flush scheduled with the first unpersisted record, otherwise by the
+ * first record after the interval elapsed. {@link #flush()} always writes unpersisted records.
+ */
 public final class PersistedCassandraClusterHealthCheckHistory extends StatePersistedObject<CassandraFrameworkProtos.CassandraClusterHealthCheckHistory> {
     static final int DEFAULT_MAX_ENTRIES_PER_NODE = 5;
+    static final long DEFAULT_PERSIST_INTERVAL_MILLIS = 10000L;
+
+    private final long persistIntervalMillis;
+    @NotNull
+    private final Clock clock;
+
+    // guards all fields below
+    @NotNull
+    private final Object historyLock = new Object();
+    @Nullable
+    private Map<String, EntryRing> rings = null;
+    private int maxEntriesPerNode;
+    private boolean dirty = false;
+    private long lastPersistMillis = 0L;
 
     public PersistedCassandraClusterHealthCheckHistory(
         @NotNull final State state
+    ) {
+        this(state, DEFAULT_PERSIST_INTERVAL_MILLIS);
+    }
+
+    public PersistedCassandraClusterHealthCheckHistory(
+        @NotNull final State state,
+        final long persistIntervalMillis
+    ) {
+        this(state, persistIntervalMillis, new SystemClock());
+    }
+
+    public PersistedCassandraClusterHealthCheckHistory(
+        @NotNull final State state,
+        final long persistIntervalMillis,
+        @NotNull final Clock clock
     ) {
         super(
             "CassandraClusterHealthCheckHistory",
@@ -62,36 +105,54 @@ public final class PersistedCassandraClusterHealthCheckHistory extends StatePers
                 }
             }
         );
+        this.persistIntervalMillis = persistIntervalMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the complete history including all recorded, but not yet persisted entries.
+     * Does not write the state.
+     */
+    @NotNull
+    @Override
+    public CassandraFrameworkProtos.CassandraClusterHealthCheckHistory get() {
+        synchronized (historyLock) {
+            if (dirty) {
+                return build();
+            }
+            return super.get();
+        }
     }
 
     @NotNull
     public List<CassandraFrameworkProtos.HealthCheckHistoryEntry> entries() {
-        return get().getEntriesList();
+        synchronized (historyLock) {
+            final List<CassandraFrameworkProtos.HealthCheckHistoryEntry> entries = new ArrayList<>();
+            for (final EntryRing ring : rings().values()) {
+                ring.addTo(entries);
+            }
+            return entries;
+        }
     }
 
     @NotNull
     public List<CassandraFrameworkProtos.HealthCheckHistoryEntry> entriesForExecutor(@NotNull final String executorId) {
-        final CassandraFrameworkProtos.CassandraClusterHealthCheckHistory history = get();
-        final List<CassandraFrameworkProtos.HealthCheckHistoryEntry> forNode = new ArrayList<>(history.getMaxEntriesPerNode());
-        final int count = history.getEntriesCount();
-        for (int i = 0; i < count; i++) {
-            final CassandraFrameworkProtos.HealthCheckHistoryEntry hc = history.getEntries(i);
-            if (executorId.equals(hc.getExecutorId()))
-                forNode.add(hc);
+        synchronized (historyLock) {
+            final List<CassandraFrameworkProtos.HealthCheckHistoryEntry> forNode = new ArrayList<>(maxEntriesPerNode);
+            final EntryRing ring = rings().get(executorId);
+            if (ring != null) {
+                ring.addTo(forNode);
+            }
+            return forNode;
         }
-        return forNode;
     }
 
     @Nullable
     public CassandraFrameworkProtos.HealthCheckHistoryEntry last(@NotNull final String executorId) {
-        final CassandraFrameworkProtos.CassandraClusterHealthCheckHistory history = get();
-        final int count = history.getEntriesCount();
-        for (int i = count - 1; i >= 0; i--) {
-            final CassandraFrameworkProtos.HealthCheckHistoryEntry hc = history.getEntries(i);
-            if (executorId.equals(hc.getExecutorId()))
-                return hc;
+        synchronized (historyLock) {
+            final EntryRing ring = rings().get(executorId);
+            return ring != null ? ring.last() : null;
         }
-        return null;
     }
 
     /**
@@ -99,58 +160,98 @@ public final class PersistedCassandraClusterHealthCheckHistory extends StatePers
      * Instead it updates the timespan in the previous one.
      */
     public void record(@NotNull final String executorId, final long timestamp, @NotNull final CassandraFrameworkProtos.HealthCheckDetails healthCheckDetails) {
-        final CassandraFrameworkProtos.CassandraClusterHealthCheckHistory prev = get();
-        final int maxEntriesPerNode = prev.getMaxEntriesPerNode();
-        final CassandraFrameworkProtos.CassandraClusterHealthCheckHistory.Builder builder =
-            CassandraFrameworkProtos.CassandraClusterHealthCheckHistory.newBuilder()
-                .setMaxEntriesPerNode(maxEntriesPerNode);
+        synchronized (historyLock) {
+            final Map<String, EntryRing> rings = rings();
+            EntryRing ring = rings.get(executorId);
+            if (ring == null) {
+                ring = new EntryRing(maxEntriesPerNode);
+                rings.put(executorId, ring);
+            }
 
-        // copy entries from other nodes to new value, collect old entries from current node in temporary list
-        final List<CassandraFrameworkProtos.HealthCheckHistoryEntry> forNode = new ArrayList<>(maxEntriesPerNode);
-        for (final CassandraFrameworkProtos.HealthCheckHistoryEntry healthCheckHistoryEntry : prev.getEntriesList()) {
-            if (healthCheckHistoryEntry.getExecutorId().equals(executorId)) {
-                forNode.add(healthCheckHistoryEntry);
+            final CassandraFrameworkProtos.HealthCheckHistoryEntry last = ring.last();
+            if (last == null) {
+                // first history entry
+                ring.add(buildEntry(executorId, timestamp, healthCheckDetails).build());
             } else {
-                builder.addEntries(healthCheckHistoryEntry);
+                // Check if previous entry is similar to the previous.
+                // If yes, then just update HealthCheckHistoryEntry.timestampLast,
+                // otherwise add the entry and remove the eldest historic entry.
+                if (last.getTimestampEnd() > timestamp) {
+                    // we already have more recent information - discard the current details
+                    return;
+                }
+                if (isSimilarEntry(last.getDetails(), healthCheckDetails)) {
+                    ring.replaceLast(buildEntry(executorId, timestamp, healthCheckDetails)
+                        .setTimestampStart(last.getTimestampStart())
+                        .build());
+                } else {
+                    ring.add(buildEntry(executorId, timestamp, healthCheckDetails).build());
+                }
             }
-        }
 
-        if (forNode.isEmpty()) {
-            // first history entry, just add it to the builder
-            builder.addEntries(buildEntry(executorId, timestamp, healthCheckDetails));
-        } else {
-            // Check if previous entry is similar to the previous.
-            // If yes, then just update HealthCheckHistoryEntry.timestampLast,
-            // otherwise add the entry and remove the eldest historic entry.
-            final CassandraFrameworkProtos.HealthCheckHistoryEntry last = forNode.get(forNode.size() - 1);
-            if (last.getTimestampEnd() > timestamp) {
-                // we already have more recent information - discard the current details
+            dirty = true;
+            changed();
+            if (flushWithin(persistIntervalMillis)) {
+                // written by the scheduled flush
                 return;
             }
-            if (isSimilarEntry(last.getDetails(), healthCheckDetails)) {
-                for (int i = 0; i < forNode.size() - 1; i++) {
-                    builder.addEntries(forNode.get(i));
-                }
-                builder.addEntries(buildEntry(executorId, timestamp, healthCheckDetails)
-                    .setTimestampStart(last.getTimestampStart()));
-            } else {
-                for (int i = Math.max(0, forNode.size() + 1 - maxEntriesPerNode); i < forNode.size(); i++)
-                    builder.addEntries(forNode.get(i));
-                builder.addEntries(buildEntry(executorId, timestamp, healthCheckDetails));
+            if (clock.now().getMillis() - lastPersistMillis >= persistIntervalMillis) {
+                persist();
             }
         }
+    }
 
-        setValue(builder.build());
+    @Override
+    protected void beforeFlush() {
+        synchronized (historyLock) {
+            if (dirty) {
+                persist();
+            }
+        }
     }
 
+    /**
+     * Checks whether two health check details only differ in {@code info.uptimeMillis} and {@code metrics}, which
+     * change with nearly every health check. Metrics are normally stripped before recording, see
+     * {@link io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.NodeMetricsStore}.
+     * Compares the fields directly, see {@link #isSimilarEntryReflective(CassandraFrameworkProtos.HealthCheckDetails, CassandraFrameworkProtos.HealthCheckDetails)}
+     * for the descriptor based reference implementation. Both must be kept in sync when fields are added.
+     */
     static boolean isSimilarEntry(@NotNull final CassandraFrameworkProtos.HealthCheckDetails existing, @NotNull final CassandraFrameworkProtos.HealthCheckDetails current) {
+        return existing.getHealthy() == current.getHealthy()
+            && existing.getMsg().equals(current.getMsg())
+            && isSimilarEntry(existing.getInfo(), current.getInfo());
+    }
+
+    static boolean isSimilarEntry(@NotNull final CassandraFrameworkProtos.NodeInfo existing, @NotNull final CassandraFrameworkProtos.NodeInfo current) {
+        // 'uptimeMillis' is ignored, cheap boolean and numeric fields are compared first
+        return existing.getJoined() == current.getJoined()
+            && existing.getRpcServerRunning() == current.getRpcServerRunning()
+            && existing.getNativeTransportRunning() == current.getNativeTransportRunning()
+            && existing.getGossipInitialized() == current.getGossipInitialized()
+            && existing.getGossipRunning() == current.getGossipRunning()
+            && existing.getTokenCount() == current.getTokenCount()
+            && existing.getOperationMode().equals(current.getOperationMode())
+            && existing.getClusterName().equals(current.getClusterName())
+            && existing.getHostId().equals(current.getHostId())
+            && existing.getEndpoint().equals(current.getEndpoint())
+            && existing.getDataCenter().equals(current.getDataCenter())
+            && existing.getRack().equals(current.getRack())
+            && existing.getVersion().equals(current.getVersion());
+    }
+
+    @VisibleForTesting
+    static boolean isSimilarEntryReflective(@NotNull final CassandraFrameworkProtos.HealthCheckDetails existing, @NotNull final CassandraFrameworkProtos.HealthCheckDetails current) {
         for (final Descriptors.FieldDescriptor f : existing.getDescriptorForType().getFields()) {
+            if ("metrics".equals(f.getName())) {
+                continue;
+            }
             if (!"info".equals(f.getName())) {
                 if (!objEquals(existing.getField(f), current.getField(f))) {
                     return false;
                 }
             } else {
-                if (!isSimilarEntry(existing.getInfo(), current.getInfo())) {
+                if (!isSimilarEntryReflective(existing.getInfo(), current.getInfo())) {
                     return false;
                 }
             }
@@ -158,7 +259,8 @@ public final class PersistedCassandraClusterHealthCheckHistory extends StatePers
         return true;
     }
 
-    static boolean isSimilarEntry(@NotNull final CassandraFrameworkProtos.NodeInfo existing, @NotNull final CassandraFrameworkProtos.NodeInfo current) {
+    @VisibleForTesting
+    static boolean isSimilarEntryReflective(@NotNull final CassandraFrameworkProtos.NodeInfo existing, @NotNull final CassandraFrameworkProtos.NodeInfo current) {
         for (final Descriptors.FieldDescriptor f : existing.getDescriptorForType().getFields()) {
             // ignore 'uptime' field
             if (!"uptimeMillis".equals(f.getName())) {
@@ -183,4 +285,101 @@ public final class PersistedCassandraClusterHealthCheckHistory extends StatePers
             .setTimestampEnd(timestamp)
             .setDetails(healthCheckDetails);
     }
+
+    /**
+     * Passes the history rebuilt from the rings to {@link #setValue}, which writes it right away or, in
+     * write-behind mode, with the next flush. Must be called with {@link #historyLock} held.
+     */
+    private void persist() {
+        setValue(build());
+        dirty = false;
+        lastPersistMillis = clock.now().getMillis();
+    }
+
+    /**
+     * Must be called with {@link #historyLock} held.
+     */
+    @NotNull
+    private CassandraFrameworkProtos.CassandraClusterHealthCheckHistory build() {
+        final CassandraFrameworkProtos.CassandraClusterHealthCheckHistory.Builder builder =
+            CassandraFrameworkProtos.CassandraClusterHealthCheckHistory.newBuilder()
+                .setMaxEntriesPerNode(maxEntriesPerNode);
+        for (final EntryRing ring : rings().values()) {
+            ring.addTo(builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the rings, loading them from the persisted value on first access.
+     * Must be called with {@link #historyLock} held.
+     */
+    @NotNull
+    private Map<String, EntryRing> rings() {
+        if (rings == null) {
+            final CassandraFrameworkProtos.CassandraClusterHealthCheckHistory history = super.get();
+            maxEntriesPerNode = Math.max(1, history.getMaxEntriesPerNode());
+            final Map<String, EntryRing> loaded = new LinkedHashMap<>();
+            for (final CassandraFrameworkProtos.HealthCheckHistoryEntry entry : history.getEntriesList()) {
+                EntryRing ring = loaded.get(entry.getExecutorId());
+                if (ring == null) {
+                    ring = new EntryRing(maxEntriesPerNode);
+                    loaded.put(entry.getExecutorId(), ring);
+                }
+                ring.add(entry);
+            }
+            rings = loaded;
+        }
+        return rings;
+    }
+
+    /**
+     * Fixed size ring of the latest entries of one executor, oldest entry first.
+     */
+    private static final class EntryRing {
+        @NotNull
+        private final CassandraFrameworkProtos.HealthCheckHistoryEntry[] entries;
+        private int start;
+        private int size;
+
+        EntryRing(final int capacity) {
+            entries = new CassandraFrameworkProtos.HealthCheckHistoryEntry[capacity];
+        }
+
+        @Nullable
+        CassandraFrameworkProtos.HealthCheckHistoryEntry last() {
+            return size == 0 ? null : entries[index(size - 1)];
+        }
+
+        void replaceLast(@NotNull final CassandraFrameworkProtos.HealthCheckHistoryEntry entry) {
+            entries[index(size - 1)] = entry;
+        }
+
+        void add(@NotNull final CassandraFrameworkProtos.HealthCheckHistoryEntry entry) {
+            if (size < entries.length) {
+                entries[index(size)] = entry;
+                size++;
+            } else {
+                // overwrite the eldest entry
+                entries[start] = entry;
+                start = index(1);
+            }
+        }
+
+        void addTo(@NotNull final List<CassandraFrameworkProtos.HealthCheckHistoryEntry> list) {
+            for (int i = 0; i < size; i++) {
+                list.add(entries[index(i)]);
+            }
+        }
+
+        void addTo(@NotNull final CassandraFrameworkProtos.CassandraClusterHealthCheckHistory.Builder builder) {
+            for (int i = 0; i < size; i++) {
+                builder.addEntries(entries[index(i)]);
+            }
+        }
+
+        private int index(final int i) {
+            return (start + i) % entries.length;
+        }
+    }
 }
@@ -19,12 +19,18 @@ import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.SchedulerMetrics;
 import io.mesosphere.mesos.util.ProtoUtils;
 import org.apache.mesos.Protos;
 import org.apache.mesos.state.State;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import static io.mesosphere.mesos.util.CassandraFrameworkProtosUtils.getCurrentNode;
+import static io.mesosphere.mesos.util.CassandraFrameworkProtosUtils.getCurrentNodes;
+import static io.mesosphere.mesos.util.CassandraFrameworkProtosUtils.putCurrentNode;
+import static io.mesosphere.mesos.util.CassandraFrameworkProtosUtils.removeCurrentNode;
+
 public final class PersistedCassandraClusterJobs extends StatePersistedObject<CassandraFrameworkProtos.CassandraClusterJobs> {
     public PersistedCassandraClusterJobs(@NotNull final State state) {
         super(
@@ -66,27 +72,32 @@ public final class PersistedCassandraClusterJobs extends StatePersistedObject<Ca
     }
 
     public void removeTaskForCurrentNode(@NotNull final Protos.TaskStatus status, @NotNull final CassandraFrameworkProtos.ClusterJobStatus currentJob) {
-        final CassandraFrameworkProtos.ClusterJobStatus.Builder builder = CassandraFrameworkProtos.ClusterJobStatus.newBuilder(currentJob);
+        final String taskId = status.getTaskId().getValue();
+        for (final CassandraFrameworkProtos.NodeJobStatus nodeJobStatus : getCurrentNodes(currentJob)) {
+            if (!nodeJobStatus.getTaskId().equals(taskId)) {
+                continue;
+            }
 
-        final CassandraFrameworkProtos.NodeJobStatus.Builder currentNode = CassandraFrameworkProtos.NodeJobStatus.newBuilder(builder.getCurrentNode())
-            .setFailed(true)
-            .setFailureMessage(
-                    "TaskStatus:" + status.getState()
-                    + ", reason:" + status.getReason()
-                    + ", source:" + status.getSource()
-                    + ", healthy:" + status.getHealthy()
-                    + ", message:" + status.getMessage()
-            );
+            final CassandraFrameworkProtos.NodeJobStatus.Builder currentNode = CassandraFrameworkProtos.NodeJobStatus.newBuilder(nodeJobStatus)
+                .setFailed(true)
+                .setFailureMessage(
+                        "TaskStatus:" + status.getState()
+                        + ", reason:" + status.getReason()
+                        + ", source:" + status.getSource()
+                        + ", healthy:" + status.getHealthy()
+                        + ", message:" + status.getMessage()
+                );
 
-        setCurrentJob(builder.addCompletedNodes(currentNode)
-            .clearCurrentNode()
-            .build());
+            setCurrentJob(removeCurrentNode(currentJob, nodeJobStatus.getExecutorId())
+                .addCompletedNodes(currentNode)
+                .build());
+            return;
+        }
     }
 
     public void updateJobCurrentNode(@NotNull final CassandraFrameworkProtos.ClusterJobStatus currentJob, @NotNull final CassandraFrameworkProtos.NodeJobStatus currentNode) {
-        final CassandraFrameworkProtos.ClusterJobStatus.Builder builder = CassandraFrameworkProtos.ClusterJobStatus.newBuilder(currentJob)
-            .clearRemainingNodes()
-            .setCurrentNode(currentNode);
+        final CassandraFrameworkProtos.ClusterJobStatus.Builder builder = putCurrentNode(currentJob, currentNode)
+            .clearRemainingNodes();
 
         for (final String nodeExecutorId : currentJob.getRemainingNodesList()) {
             if (!nodeExecutorId.equals(currentNode.getExecutorId())) {
@@ -98,6 +109,10 @@ public final class PersistedCassandraClusterJobs extends StatePersistedObject<Ca
     }
 
     public void finishJob(@NotNull final CassandraFrameworkProtos.ClusterJobStatus currentJob) {
+        if (currentJob.hasFinishedTimestamp()) {
+            SchedulerMetrics.CLUSTER_JOB_DURATION.labels(currentJob.getJobType().name())
+                .observe(currentJob.getFinishedTimestamp() - currentJob.getStartedTimestamp());
+        }
         final CassandraFrameworkProtos.CassandraClusterJobs.Builder clusterJobsBuilder = CassandraFrameworkProtos.CassandraClusterJobs.newBuilder()
             .addLastClusterJobs(currentJob);
 
@@ -116,13 +131,9 @@ public final class PersistedCassandraClusterJobs extends StatePersistedObject<Ca
             return;
         }
         final CassandraFrameworkProtos.ClusterJobStatus current = clusterJobs.getCurrentClusterJob();
-        if (!current.hasCurrentNode()) {
-            return;
-        }
-        final CassandraFrameworkProtos.NodeJobStatus currentNode = current.getCurrentNode();
-        if (currentNode.getExecutorId().equals(executorId)) {
-            setCurrentJob(CassandraFrameworkProtos.ClusterJobStatus.newBuilder(current)
-                .clearCurrentNode()
+        final CassandraFrameworkProtos.NodeJobStatus currentNode = getCurrentNode(current, executorId);
+        if (currentNode != null) {
+            setCurrentJob(removeCurrentNode(current, executorId)
                 .addCompletedNodes(CassandraFrameworkProtos.NodeJobStatus.newBuilder(currentNode)
                     .setFailed(true)
                     .setFailureMessage("Task finished without any additional information"))
@@ -21,20 +21,49 @@ import com.google.protobuf.InvalidProtocolBufferException;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
 import io.mesosphere.mesos.util.ProtoUtils;
 import org.apache.mesos.state.State;
+import org.apache.mesos.state.Variable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
+import static io.mesosphere.mesos.frameworks.cassandra.scheduler.util.Futures.await;
 import static io.mesosphere.mesos.util.Functions.append;
 
+/**
+ * Persists the {@link CassandraFrameworkProtos.CassandraClusterState}.
+ * <p>
+ * Each node is stored in its own state variable, the {@code CassandraClusterState} variable itself only contains
+ * the remaining fields and the names of the node variables. Only node variables whose content changed are written.
+ * Node variables are named after the node's executor ID, so a node keeps its variable regardless of its position
+ * in the list of nodes.
+ * A state persisted in the old layout (all nodes inline in the {@code CassandraClusterState} variable) is migrated
+ * when it is loaded.
+ */
 public final class PersistedCassandraClusterState extends StatePersistedObject<CassandraFrameworkProtos.CassandraClusterState> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistedCassandraClusterState.class);
+
+    static final String VARIABLE_NAME = "CassandraClusterState";
+    static final String NODE_VARIABLE_PREFIX = VARIABLE_NAME + ".node.";
+    static final String EXECUTOR_NODE_VARIABLE_PREFIX = NODE_VARIABLE_PREFIX + "executor.";
+    static final String HOST_NODE_VARIABLE_PREFIX = NODE_VARIABLE_PREFIX + "host.";
+
+    // Both maps are keyed by node variable name and only accessed with the store lock held.
+    @NotNull
+    private final Map<String, Variable> nodeVariables = new HashMap<>();
+    @NotNull
+    private final Map<String, CassandraFrameworkProtos.CassandraNode> storedNodes = new HashMap<>();
+
+    @Nullable
+    private volatile NodeRegistry registry = null;
+
     public PersistedCassandraClusterState(
         @NotNull final State state
     ) {
         super(
-            "CassandraClusterState",
+            VARIABLE_NAME,
             state,
             new Supplier<CassandraFrameworkProtos.CassandraClusterState>() {
                 @Override
@@ -60,6 +89,13 @@ public final class PersistedCassandraClusterState extends StatePersistedObject<C
                 }
             }
         );
+
+        final List<CassandraFrameworkProtos.CassandraNode> nodes = nodes();
+        if (!nodes.isEmpty() && storedNodes.isEmpty()) {
+            // nodes have been loaded from the old layout
+            LOGGER.info("Migrating {} nodes to per-node state variables", nodes.size());
+            setValue(get());
+        }
     }
 
     @NotNull
@@ -76,6 +112,21 @@ public final class PersistedCassandraClusterState extends StatePersistedObject<C
         );
     }
 
+    /**
+     * Returns the lookup index for the current state. The index is rebuilt on the first call after the state
+     * has changed and is never out of sync with the state instance it has been built from.
+     */
+    @NotNull
+    NodeRegistry registry() {
+        final CassandraFrameworkProtos.CassandraClusterState current = get();
+        NodeRegistry r = registry;
+        if (r == null || !r.isFor(current)) {
+            r = new NodeRegistry(current);
+            registry = r;
+        }
+        return r;
+    }
+
     @NotNull
     public List<CassandraFrameworkProtos.ExecutorMetadata> executorMetadata() {
         return get().getExecutorMetadataList();
@@ -203,4 +254,111 @@ public final class PersistedCassandraClusterState extends StatePersistedObject<C
 
         setValue(builder.build());
     }
+
+    @NotNull
+    @Override
+    protected CassandraFrameworkProtos.CassandraClusterState deserialize(@NotNull final byte[] value) {
+        final CassandraFrameworkProtos.CassandraClusterState persisted = super.deserialize(value);
+        if (persisted.getNodeVariablesCount() == 0) {
+            // empty state or old layout with all nodes inline
+            return persisted;
+        }
+
+        final CassandraFrameworkProtos.CassandraClusterState.Builder builder = CassandraFrameworkProtos.CassandraClusterState.newBuilder(persisted)
+            .clearNodeVariables()
+            .clearNodes();
+        for (final String name : persisted.getNodeVariablesList()) {
+            final Variable var = await(getState().fetch(name));
+            final CassandraFrameworkProtos.CassandraNode node;
+            try {
+                node = CassandraFrameworkProtos.CassandraNode.parseFrom(var.value());
+            } catch (final InvalidProtocolBufferException e) {
+                throw new ProtoUtils.RuntimeInvalidProtocolBufferException(e);
+            }
+            nodeVariables.put(name, var);
+            storedNodes.put(name, node);
+            builder.addNodes(node);
+        }
+        return builder.build();
+    }
+
+    @NotNull
+    @Override
+    protected byte[] serialize(@NotNull final CassandraFrameworkProtos.CassandraClusterState newValue) {
+        final List<String> names = nodeVariableNames(newValue.getNodesList());
+        for (int i = 0; i < names.size(); i++) {
+            final String name = names.get(i);
+            final CassandraFrameworkProtos.CassandraNode node = newValue.getNodes(i);
+            if (!node.equals(storedNodes.get(name))) {
+                storeNode(name, node);
+            }
+        }
+
+        return super.serialize(
+            CassandraFrameworkProtos.CassandraClusterState.newBuilder(newValue)
+                .clearNodes()
+                .clearNodeVariables()
+                .addAllNodeVariables(names)
+                .build()
+        );
+    }
+
+    @Override
+    protected void stored(@NotNull final CassandraFrameworkProtos.CassandraClusterState newValue) {
+        // remove node variables that are no longer referenced
+        final Set<String> names = new HashSet<>(nodeVariableNames(newValue.getNodesList()));
+        final Iterator<Map.Entry<String, Variable>> iter = nodeVariables.entrySet().iterator();
+        while (iter.hasNext()) {
+            final Map.Entry<String, Variable> entry = iter.next();
+            if (names.contains(entry.getKey())) {
+                continue;
+            }
+            try {
+                await(getState().expunge(entry.getValue()));
+                storedNodes.remove(entry.getKey());
+                iter.remove();
+            } catch (final RuntimeException e) {
+                // will be retried with the next write
+                LOGGER.warn("Failed to expunge state variable " + entry.getKey(), e);
+            }
+        }
+    }
+
+    private void storeNode(@NotNull final String name, @NotNull final CassandraFrameworkProtos.CassandraNode node) {
+        Variable var = nodeVariables.get(name);
+        if (var == null) {
+            var = await(getState().fetch(name));
+        }
+        final Variable stored = await(getState().store(var.mutate(node.toByteArray())));
+        if (stored == null) {
+            // the node is not written again, that would overwrite the concurrent change
+            throw new StateConflictException(name);
+        }
+        nodeVariables.put(name, stored);
+        storedNodes.put(name, node);
+    }
+
+    /**
+     * Returns the names of the state variables for the given nodes. Nodes are identified by their executor ID, which
+     * is unique. Nodes without an executor (not launched yet or executor lost) are identified by their hostname,
+     * only these get a counter appended if they share a hostname.
+     */
+    @NotNull
+    static List<String> nodeVariableNames(@NotNull final List<CassandraFrameworkProtos.CassandraNode> nodes) {
+        final List<String> names = new ArrayList<>(nodes.size());
+        final Set<String> used = new HashSet<>();
+        for (final CassandraFrameworkProtos.CassandraNode node : nodes) {
+            if (node.hasCassandraNodeExecutor()) {
+                names.add(EXECUTOR_NODE_VARIABLE_PREFIX + node.getCassandraNodeExecutor().getExecutorId());
+                continue;
+            }
+            final String base = HOST_NODE_VARIABLE_PREFIX + node.getHostname();
+            String name = base;
+            for (int i = 1; !used.add(name); i++) {
+                name = base + '.' + i;
+            }
+            names.add(name);
+        }
+        return names;
+    }
 }
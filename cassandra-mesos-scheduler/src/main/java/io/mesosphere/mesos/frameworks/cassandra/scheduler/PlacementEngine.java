@@ -0,0 +1,294 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import com.google.common.collect.ListMultimap;
+import org.apache.mesos.Protos;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.CassandraNode;
+import static io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.RackDc;
+import static io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.TaskResources;
+import static io.mesosphere.mesos.util.CassandraFrameworkProtosUtils.*;
+
+/**
+ * Chooses the offers that new Cassandra nodes are placed on.
+ * <p>
+ * Offers that could host a new node are scored by
+ * <ol>
+ *     <li>rack balance - how far the number of nodes in the offer's rack is below the number of nodes per rack
+ *     needed to spread the target number of nodes evenly across all known racks,</li>
+ *     <li>disk type - whether the {@value #DISK_TYPE_ATTRIBUTE} attribute of the offer matches the preferred disk
+ *     type, if one is configured,</li>
+ *     <li>resource fit - how little cpu, memory and disk remains in the offer after placing the node, to keep
+ *     larger offers for larger tasks.</li>
+ * </ol>
+ * The weights make rack balance the most important criterion and resource fit a tie-breaker.
+ * <p>
+ * With a hold-back window, a new node is not placed before the window has passed since the previous node has
+ * been placed (or since the first candidate offer has been seen), so that offers of other hosts can compete.
+ * A node is only placed on the best offer among the candidates seen within the window. Declined candidates are
+ * offered again by Mesos after the decline filter expired.
+ */
+public final class PlacementEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlacementEngine.class);
+
+    public static final String DISK_TYPE_ATTRIBUTE = "CASSANDRA_DISK_TYPE";
+
+    static final double RACK_BALANCE_WEIGHT = 4d;
+    static final double DISK_TYPE_WEIGHT = 2d;
+    static final double RESOURCE_FIT_WEIGHT = 1d;
+
+    private static final double EPSILON = 1e-9;
+
+    private final long holdBackMillis;
+    @Nullable
+    private final String preferredDiskType;
+
+    // guarded by this
+    @NotNull
+    private final Map<String, Candidate> candidates = new HashMap<>();
+    private long roundStart = -1L;
+
+    /**
+     * Places new nodes on the first offer with sufficient resources, like without a placement engine, but prefers
+     * the best offer of a batch of offers.
+     */
+    public PlacementEngine() {
+        this(0L, null);
+    }
+
+    /**
+     * @param holdBackMillis    time to collect competing offers before placing a new node, {@code 0} to place
+     *                          new nodes right away
+     * @param preferredDiskType value of the {@value #DISK_TYPE_ATTRIBUTE} offer attribute to prefer, e.g.
+     *                          {@code ssd}, or {@code null}
+     */
+    public PlacementEngine(final long holdBackMillis, @Nullable final String preferredDiskType) {
+        if (holdBackMillis < 0) {
+            throw new IllegalArgumentException("holdBackMillis must not be negative");
+        }
+        this.holdBackMillis = holdBackMillis;
+        this.preferredDiskType = preferredDiskType;
+    }
+
+    /**
+     * Forgets candidates that have not been offered again within the hold-back window. Called once per batch of
+     * offers before the offers of the batch are registered via {@link #offered(Protos.Offer, RackDc, long)}.
+     */
+    public synchronized void expire(final long now) {
+        for (final Iterator<Candidate> iter = candidates.values().iterator(); iter.hasNext(); ) {
+            if (iter.next().seenAt < now - holdBackMillis) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Registers an offer that has enough resources for a new node as candidate.
+     */
+    public synchronized void offered(@NotNull final Protos.Offer offer, @NotNull final RackDc rackDc, final long now) {
+        candidates.put(offer.getHostname(), new Candidate(offer, rackDc, now));
+        if (roundStart < 0) {
+            roundStart = now;
+        }
+    }
+
+    /**
+     * Decides whether a new node should be placed on {@code offer} now.
+     *
+     * @param nodes           all nodes of the cluster
+     * @param targetNodeCount target number of nodes of the cluster
+     * @param resources       resources needed by a new node including its executor
+     */
+    public synchronized boolean shouldPlace(
+        @NotNull final Protos.Offer offer,
+        @NotNull final RackDc rackDc,
+        @NotNull final List<CassandraNode> nodes,
+        final int targetNodeCount,
+        @NotNull final TaskResources resources,
+        @NotNull final String mesosRole,
+        final long now
+    ) {
+        if (!candidates.containsKey(offer.getHostname())) {
+            offered(offer, rackDc, now);
+        }
+        if (holdBackMillis > 0 && now - roundStart < holdBackMillis) {
+            LOGGER.debug("Holding back placement of a new node for another {}ms", holdBackMillis - (now - roundStart));
+            return false;
+        }
+
+        final Set<String> usedHosts = new HashSet<>();
+        for (final CassandraNode node : nodes) {
+            usedHosts.add(node.getHostname());
+        }
+        final Map<String, Integer> nodesPerRack = nodesPerRack(nodes);
+        final int rackCount = rackCount(nodesPerRack);
+
+        final double score = score(offer, rackDc, nodesPerRack, rackCount, targetNodeCount, resources, mesosRole);
+        for (final Candidate candidate : candidates.values()) {
+            if (usedHosts.contains(candidate.offer.getHostname()) || candidate.offer.getHostname().equals(offer.getHostname())) {
+                continue;
+            }
+            final double candidateScore = score(candidate.offer, candidate.rackDc, nodesPerRack, rackCount, targetNodeCount, resources, mesosRole);
+            if (candidateScore > score + EPSILON) {
+                LOGGER.debug("Not placing a new node on {} (score {}), {} has a better score {}",
+                    offer.getHostname(), score, candidate.offer.getHostname(), candidateScore);
+                return false;
+            }
+        }
+        LOGGER.info("Placing a new node on {} in {} with score {} out of {} candidates",
+            offer.getHostname(), rackKey(rackDc), score, candidates.size());
+        return true;
+    }
+
+    /**
+     * Orders a batch of offers so that evaluating them one by one via
+     * {@link #shouldPlace(Protos.Offer, RackDc, List, int, TaskResources, String, long)} can place several new
+     * nodes. In arrival order, an offer is rejected as long as a better candidate follows later in the batch and
+     * is not evaluated again after that candidate has been placed.
+     * <p>
+     * Candidates of the batch are ordered greedily: the best candidate first, then the best one among the rest
+     * after a node has been placed on the first, and so on. Offers that are no candidates come first and keep
+     * their order.
+     */
+    @NotNull
+    public synchronized List<Protos.Offer> rank(
+        @NotNull final List<Protos.Offer> offers,
+        @NotNull final List<CassandraNode> nodes,
+        final int targetNodeCount,
+        @NotNull final TaskResources resources,
+        @NotNull final String mesosRole
+    ) {
+        final List<Protos.Offer> ranked = new ArrayList<>(offers.size());
+        final List<Candidate> batch = new ArrayList<>();
+        for (final Protos.Offer offer : offers) {
+            final Candidate candidate = candidates.get(offer.getHostname());
+            if (candidate != null && candidate.offer.getId().equals(offer.getId())) {
+                batch.add(candidate);
+            } else {
+                ranked.add(offer);
+            }
+        }
+
+        final Map<String, Integer> nodesPerRack = nodesPerRack(nodes);
+        final int rackCount = rackCount(nodesPerRack);
+        while (!batch.isEmpty()) {
+            Candidate best = null;
+            double bestScore = 0d;
+            for (final Candidate candidate : batch) {
+                final double score = score(candidate.offer, candidate.rackDc, nodesPerRack, rackCount, targetNodeCount, resources, mesosRole);
+                // like shouldPlace, the earlier offer wins a tie
+                if (best == null || score > bestScore + EPSILON) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            batch.remove(best);
+            ranked.add(best.offer);
+            final String rack = rackKey(best.rackDc);
+            final Integer count = nodesPerRack.get(rack);
+            nodesPerRack.put(rack, count == null ? 1 : count + 1);
+        }
+        return ranked;
+    }
+
+    /**
+     * Starts a new hold-back window after a new node has been placed on {@code hostname}.
+     */
+    public synchronized void placed(@NotNull final String hostname, final long now) {
+        candidates.remove(hostname);
+        roundStart = now;
+    }
+
+    double score(
+        @NotNull final Protos.Offer offer,
+        @NotNull final RackDc rackDc,
+        @NotNull final Map<String, Integer> nodesPerRack,
+        final int rackCount,
+        final int targetNodeCount,
+        @NotNull final TaskResources resources,
+        @NotNull final String mesosRole
+    ) {
+        final double nodesPerRackTarget = Math.ceil((double) Math.max(targetNodeCount, 1) / Math.max(rackCount, 1));
+        final Integer inRack = nodesPerRack.get(rackKey(rackDc));
+        final double rackBalance = Math.max(0d, 1d - (inRack == null ? 0 : inRack) / nodesPerRackTarget);
+
+        final double diskType = preferredDiskType != null && preferredDiskType.equals(attributeValue(offer, DISK_TYPE_ATTRIBUTE)) ? 1d : 0d;
+
+        final ListMultimap<String, Protos.Resource> available = resourcesForRoleAndOffer(mesosRole, offer);
+        final double leftover = (
+            leftover(maxResourceValueDouble(available.get("cpus")).or(0d), resources.getCpuCores())
+            + leftover(maxResourceValueLong(available.get("mem")).or(0L), resources.getMemMb())
+            + leftover(maxResourceValueLong(available.get("disk")).or(0L), resources.getDiskMb())
+        ) / 3d;
+
+        return RACK_BALANCE_WEIGHT * rackBalance + DISK_TYPE_WEIGHT * diskType + RESOURCE_FIT_WEIGHT * (1d - leftover);
+    }
+
+    @NotNull
+    private static Map<String, Integer> nodesPerRack(@NotNull final List<CassandraNode> nodes) {
+        final Map<String, Integer> nodesPerRack = new HashMap<>();
+        for (final CassandraNode node : nodes) {
+            final String rack = rackKey(node.getRackDc());
+            final Integer count = nodesPerRack.get(rack);
+            nodesPerRack.put(rack, count == null ? 1 : count + 1);
+        }
+        return nodesPerRack;
+    }
+
+    /**
+     * Number of racks with nodes or candidates.
+     */
+    private int rackCount(@NotNull final Map<String, Integer> nodesPerRack) {
+        final Set<String> racks = new HashSet<>(nodesPerRack.keySet());
+        for (final Candidate candidate : candidates.values()) {
+            racks.add(rackKey(candidate.rackDc));
+        }
+        return racks.size();
+    }
+
+    /**
+     * Fraction of {@code available} that remains after taking {@code required}.
+     */
+    private static double leftover(final double available, final double required) {
+        return available > 0d ? Math.max(0d, available - required) / available : 0d;
+    }
+
+    @NotNull
+    private static String rackKey(@NotNull final RackDc rackDc) {
+        return rackDc.getDc() + '/' + rackDc.getRack();
+    }
+
+    private static final class Candidate {
+        @NotNull
+        final Protos.Offer offer;
+        @NotNull
+        final RackDc rackDc;
+        final long seenAt;
+
+        Candidate(@NotNull final Protos.Offer offer, @NotNull final RackDc rackDc, final long seenAt) {
+            this.offer = offer;
+            this.rackDc = rackDc;
+            this.seenAt = seenAt;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Thrown when a state variable has been modified by someone else since it has been read, which can only be another
+ * scheduler instance. The in-memory state can no longer be persisted without overwriting that change.
+ */
+public class StateConflictException extends IllegalStateException {
+    public StateConflictException(@NotNull final String variableName) {
+        super("Variable " + variableName + " has been modified concurrently");
+    }
+}
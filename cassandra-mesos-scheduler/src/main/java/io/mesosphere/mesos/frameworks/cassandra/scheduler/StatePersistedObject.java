@@ -17,16 +17,34 @@ package io.mesosphere.mesos.frameworks.cassandra.scheduler;
 
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.Histogram;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.SchedulerMetrics;
 import org.apache.mesos.state.State;
 import org.apache.mesos.state.Variable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 import static io.mesosphere.mesos.frameworks.cassandra.scheduler.util.Futures.await;
 
+/**
+ * Base class for objects persisted in a single Mesos {@link State} variable.
+ * <p>
+ * By default every {@link #setValue(Object)} is written synchronously. After {@link StateWriteBehind#attach}
+ * mutations only update the in-memory value and are written asynchronously, coalescing all mutations of one
+ * batch window into a single versioned write. Callers that need the persisted state to be current (e.g. before
+ * launching tasks) must call {@link #flush()}.
+ * <p>
+ * A write that fails because the variable has been modified concurrently throws a {@link StateConflictException}.
+ * The change made by the other writer is never overwritten: all further writes of the object fail as well and the
+ * pending value is not retried.
+ */
 public abstract class StatePersistedObject<A> {
 
+    @NotNull
+    private final String variableName;
     @NotNull
     private final State state;
     @NotNull
@@ -35,12 +53,35 @@ public abstract class StatePersistedObject<A> {
     private final Function<byte[], A> deserializer;
     @NotNull
     private final Function<A, byte[]> serializer;
+    @NotNull
+    private final Histogram writeLatency;
+    @NotNull
+    private final Histogram writeBytes;
+    /**
+     * Incremented after each change of the in-memory value, see {@link #version()}.
+     */
+    @NotNull
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Guards {@link #var}, i.e. serializes all writes to the state.
+     */
+    @NotNull
+    private final Object storeLock = new Object();
 
     @NotNull
     private Variable var;
 
     @Nullable
-    private A parsedValue = null;
+    private volatile A parsedValue = null;
+
+    @Nullable
+    private volatile StateWriteBehind writeBehind = null;
+    // pendingValue and flushScheduled are guarded by this
+    @Nullable
+    private A pendingValue = null;
+    private boolean flushScheduled = false;
+    private volatile boolean conflict = false;
 
 
     public StatePersistedObject(
@@ -50,26 +91,36 @@ public abstract class StatePersistedObject<A> {
         @NotNull final Function<byte[], A> deserializer,
         @NotNull final Function<A, byte[]> serializer
     ) {
+        this.variableName = variableName;
         this.deserializer = deserializer;
         this.serializer = serializer;
         this.defaultValue = defaultValue.get();
         this.state = state;
+        final String metricsLabel = getClass().getSimpleName().isEmpty() ? variableName : getClass().getSimpleName();
+        this.writeLatency = SchedulerMetrics.STATE_WRITE_LATENCY.labels(metricsLabel);
+        this.writeBytes = SchedulerMetrics.STATE_WRITE_BYTES.labels(metricsLabel);
         this.var = await(state.fetch(variableName));
     }
 
     @NotNull
-    public final A get() {
-        if (parsedValue == null) {
-            parsedValue = parseValue();
+    public A get() {
+        final A value = parsedValue;
+        if (value != null) {
+            return value;
+        }
+        synchronized (storeLock) {
+            if (parsedValue == null) {
+                parsedValue = parseValue();
+            }
+            return checkNotNull(parsedValue);
         }
-        return checkNotNull(parsedValue);
     }
 
     private A parseValue() {
         final byte[] value = var.value();
         final A retVal;
         if (value.length > 0) {
-            retVal = deserializer.apply(value);
+            retVal = deserialize(value);
         } else {
             final A newValue = defaultValue;
             var = store(newValue);
@@ -79,11 +130,175 @@ public abstract class StatePersistedObject<A> {
     }
 
     protected final void setValue(@NotNull final A newValue) {
-        var = store(newValue);
-        parsedValue = newValue;
+        if (writeBehind == null) {
+            synchronized (storeLock) {
+                var = store(newValue);
+                parsedValue = newValue;
+            }
+            changed();
+            return;
+        }
+
+        synchronized (this) {
+            parsedValue = newValue;
+            pendingValue = newValue;
+        }
+        changed();
+        requestFlush();
+    }
+
+    /**
+     * Returns a number that increases whenever the value returned by {@link #get()} changes, which allows to
+     * cache data derived from the value. A value read after this method returned is at least as recent as the
+     * returned version.
+     */
+    public final long version() {
+        return version.get();
     }
 
+    /**
+     * Increments the {@link #version()}. Subclasses that keep state in memory in addition to the value passed to
+     * {@link #setValue(Object)} call this after they modified that state.
+     */
+    protected final void changed() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Writes the latest value set via {@link #setValue(Object)} if it has not been persisted yet, including state
+     * that subclasses keep in memory, see {@link #beforeFlush()}.
+     * Returns immediately if there is nothing to write; otherwise blocks until the write completed.
+     */
+    public final void flush() {
+        beforeFlush();
+        synchronized (storeLock) {
+            final A toStore;
+            synchronized (this) {
+                toStore = pendingValue;
+                pendingValue = null;
+                flushScheduled = false;
+            }
+            if (toStore == null) {
+                return;
+            }
+            try {
+                var = store(toStore);
+            } catch (final StateConflictException e) {
+                // retrying would overwrite the concurrent change
+                throw e;
+            } catch (final RuntimeException e) {
+                synchronized (this) {
+                    // keep the value for the next attempt unless it has been superseded in the meantime
+                    if (pendingValue == null) {
+                        pendingValue = toStore;
+                    }
+                }
+                requestFlush();
+                throw e;
+            }
+        }
+    }
+
+    @NotNull
+    final String variableName() {
+        return variableName;
+    }
+
+    final void writeBehind(@NotNull final StateWriteBehind writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    private void requestFlush() {
+        final StateWriteBehind wb = writeBehind;
+        if (wb != null) {
+            scheduleFlush(wb, wb.getBatchWindowMillis());
+        }
+    }
+
+    /**
+     * Schedules a {@link #flush()} within {@code delayMillis} unless a flush is scheduled already.
+     *
+     * @return {@code false} if this object is not in write-behind mode and nothing has been scheduled
+     */
+    protected final boolean flushWithin(final long delayMillis) {
+        final StateWriteBehind wb = writeBehind;
+        if (wb == null) {
+            return false;
+        }
+        scheduleFlush(wb, delayMillis);
+        return true;
+    }
+
+    private void scheduleFlush(@NotNull final StateWriteBehind wb, final long delayMillis) {
+        synchronized (this) {
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        wb.scheduleFlush(this, delayMillis);
+    }
+
+    /**
+     * Called by {@link #flush()} before the pending value is written, without any lock held. Subclasses that keep
+     * state in memory that has not been passed to {@link #setValue(Object)} yet pass it here.
+     */
+    protected void beforeFlush() {
+    }
+
+    /**
+     * Converts the content of the variable into the value. Called with the store lock held.
+     */
+    @NotNull
+    protected A deserialize(@NotNull final byte[] value) {
+        return deserializer.apply(value);
+    }
+
+    /**
+     * Converts the value into the content of the variable. Called with the store lock held, right before the
+     * variable is written. Implementations may write parts of the value into other variables of {@link #getState()}.
+     */
+    @NotNull
+    protected byte[] serialize(@NotNull final A newValue) {
+        return serializer.apply(newValue);
+    }
+
+    /**
+     * Called with the store lock held after {@code newValue} has been successfully written.
+     */
+    protected void stored(@NotNull final A newValue) {
+    }
+
+    @NotNull
+    protected final State getState() {
+        return state;
+    }
+
+    /**
+     * Must be called with the store lock held.
+     */
     private Variable store(final A newValue) {
-        return await(state.store(var.mutate(serializer.apply(newValue))));
+        if (conflict) {
+            throw new StateConflictException(variableName);
+        }
+        final long startNanos = System.nanoTime();
+        final Variable stored;
+        final byte[] bytes;
+        try {
+            bytes = serialize(newValue);
+            stored = await(state.store(var.mutate(bytes)));
+        } catch (final StateConflictException e) {
+            // a variable written by serialize() has been modified concurrently
+            conflict = true;
+            throw e;
+        }
+        writeLatency.observeSince(startNanos);
+        writeBytes.observe(bytes.length);
+        if (stored == null) {
+            conflict = true;
+            throw new StateConflictException(variableName);
+        }
+        stored(newValue);
+        return stored;
     }
 }
@@ -0,0 +1,126 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronously flushes {@link StatePersistedObject}s that have been switched to write-behind mode.
+ * All mutations of an object that happen within {@code batchWindowMillis} after its first unflushed mutation
+ * are written to the state with a single store operation.
+ * <p>
+ * Failed flushes are retried, except for a {@link StateConflictException}: the state has been written by another
+ * scheduler instance, which is reported to the {@link ConflictListener}.
+ */
+public final class StateWriteBehind {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StateWriteBehind.class);
+
+    private final long batchWindowMillis;
+
+    @NotNull
+    private final ScheduledExecutorService scheduledExecutorService;
+
+    @Nullable
+    private volatile ConflictListener conflictListener = null;
+
+    public StateWriteBehind(final long batchWindowMillis) {
+        this.batchWindowMillis = batchWindowMillis;
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NotNull final Runnable r) {
+                final Thread t = new Thread(r, "state-write-behind");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    public long getBatchWindowMillis() {
+        return batchWindowMillis;
+    }
+
+    /**
+     * Switches the given objects to write-behind mode.
+     */
+    public void attach(@NotNull final StatePersistedObject<?>... objects) {
+        for (final StatePersistedObject<?> object : objects) {
+            object.writeBehind(this);
+        }
+    }
+
+    public void conflictListener(@Nullable final ConflictListener conflictListener) {
+        this.conflictListener = conflictListener;
+    }
+
+    /**
+     * Stops the background flushes. Pending values of attached objects must be written by explicitly calling
+     * {@link StatePersistedObject#flush()}.
+     */
+    public void shutdown() {
+        scheduledExecutorService.shutdown();
+    }
+
+    void scheduleFlush(@NotNull final StatePersistedObject<?> object, final long delayMillis) {
+        try {
+            scheduledExecutorService.schedule(new FlushTask(object), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            // expected while the final explicit flush runs
+            LOGGER.debug("Write-behind already shut down, state variable {} needs an explicit flush", object.variableName());
+        }
+    }
+
+    private final class FlushTask implements Runnable {
+        @NotNull
+        private final StatePersistedObject<?> object;
+
+        FlushTask(@NotNull final StatePersistedObject<?> object) {
+            this.object = object;
+        }
+
+        @Override
+        public void run() {
+            try {
+                object.flush();
+            } catch (final StateConflictException e) {
+                LOGGER.error("State variable " + object.variableName() + " has been written by another scheduler instance, not retrying", e);
+                final ConflictListener listener = conflictListener;
+                if (listener != null) {
+                    listener.stateConflict(e);
+                }
+            } catch (final RuntimeException e) {
+                // flush() has already re-scheduled the write
+                LOGGER.error("Failed to write state variable " + object.variableName() + ", will retry", e);
+            }
+        }
+    }
+
+    /**
+     * Called on the write-behind thread when a background flush failed with a {@link StateConflictException}.
+     * The in-memory state can no longer be persisted, the scheduler has to stop.
+     */
+    public interface ConflictListener {
+        void stateConflict(@NotNull StateConflictException e);
+    }
+}
@@ -18,6 +18,7 @@ package io.mesosphere.mesos.frameworks.cassandra.scheduler;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
 import org.apache.mesos.Protos;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -32,6 +33,13 @@ public class TasksForOffer {
     @NotNull
     private final List<Protos.TaskID> killTasks;
 
+    // node state after the tasks have been planned, used to publish events once the tasks have been launched
+    @Nullable
+    private CassandraFrameworkProtos.CassandraNode node;
+    private boolean nodeAcquired;
+    @Nullable
+    private CassandraFrameworkProtos.CassandraNodeTask serverTask;
+
     public TasksForOffer(@NotNull final CassandraFrameworkProtos.CassandraNodeExecutor executor) {
         this.executor = executor;
         this.launchTasks = new ArrayList<>();
@@ -59,6 +67,38 @@ public class TasksForOffer {
         return killTasks;
     }
 
+    @Nullable
+    public CassandraFrameworkProtos.CassandraNode getNode() {
+        return node;
+    }
+
+    public void setNode(@NotNull final CassandraFrameworkProtos.CassandraNode node) {
+        this.node = node;
+    }
+
+    /**
+     * Whether the node has been acquired for this offer.
+     */
+    public boolean isNodeAcquired() {
+        return nodeAcquired;
+    }
+
+    public void setNodeAcquired(final boolean nodeAcquired) {
+        this.nodeAcquired = nodeAcquired;
+    }
+
+    /**
+     * The server task among {@link #getLaunchTasks()}, if any.
+     */
+    @Nullable
+    public CassandraFrameworkProtos.CassandraNodeTask getServerTask() {
+        return serverTask;
+    }
+
+    public void setServerTask(@Nullable final CassandraFrameworkProtos.CassandraNodeTask serverTask) {
+        this.serverTask = serverTask;
+    }
+
     public boolean hasAnyTask() {
         return !submitTasks.isEmpty() || !launchTasks.isEmpty() || !killTasks.isEmpty();
     }
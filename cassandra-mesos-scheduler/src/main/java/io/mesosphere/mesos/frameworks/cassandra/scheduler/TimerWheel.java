@@ -0,0 +1,123 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Hashed timer wheel with a resolution of {@code tickMillis}. Each key has at most one pending deadline.
+ * Scheduling, cancelling and expiring a key is O(1), advancing the wheel only visits the buckets of elapsed ticks.
+ * <p>
+ * Not thread safe.
+ */
+final class TimerWheel<K> {
+    private final long tickMillis;
+    @NotNull
+    private final List<Set<K>> buckets;
+    /**
+     * Tick at which a key expires.
+     */
+    @NotNull
+    private final Map<K, Long> ticks = new HashMap<>();
+    /**
+     * Last processed tick.
+     */
+    private long currentTick;
+
+    TimerWheel(final int wheelSize, final long tickMillis, final long startMillis) {
+        checkArgument(wheelSize > 0, "wheelSize must be positive");
+        checkArgument(tickMillis > 0, "tickMillis must be positive");
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new LinkedHashSet<K>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules {@code key} to expire at {@code deadlineMillis}, replacing any pending deadline of that key.
+     * Deadlines in the past expire with the next tick.
+     */
+    void schedule(@NotNull final K key, final long deadlineMillis) {
+        cancel(key);
+        final long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        ticks.put(key, tick);
+        bucket(tick).add(key);
+    }
+
+    boolean cancel(@NotNull final K key) {
+        final Long tick = ticks.remove(key);
+        if (tick == null) {
+            return false;
+        }
+        bucket(tick).remove(key);
+        return true;
+    }
+
+    boolean isScheduled(@NotNull final K key) {
+        return ticks.containsKey(key);
+    }
+
+    int size() {
+        return ticks.size();
+    }
+
+    /**
+     * Advances the wheel to {@code nowMillis}.
+     *
+     * @return the keys that expired, in order of the elapsed ticks
+     */
+    @NotNull
+    List<K> advance(final long nowMillis) {
+        final long targetTick = nowMillis / tickMillis;
+        if (targetTick <= currentTick) {
+            return new ArrayList<>(0);
+        }
+
+        final List<K> expired = new ArrayList<>();
+        // each bucket has to be visited at most once, even if more than a full round elapsed
+        final long lastTick = Math.min(targetTick, currentTick + buckets.size());
+        for (long tick = currentTick + 1; tick <= lastTick; tick++) {
+            final Iterator<K> iter = bucket(tick).iterator();
+            while (iter.hasNext()) {
+                final K key = iter.next();
+                if (ticks.get(key) <= targetTick) {
+                    iter.remove();
+                    ticks.remove(key);
+                    expired.add(key);
+                }
+            }
+        }
+        currentTick = targetTick;
+        return expired;
+    }
+
+    @NotNull
+    private Set<K> bucket(final long tick) {
+        return buckets.get((int) (tick % buckets.size()));
+    }
+}
@@ -69,6 +69,7 @@ public final class ApiController {
                 new ApiEndpoint("GET",  "cluster/rolling-restart/last", newArrayList("application/json")),
                 new ApiEndpoint("GET",  "node/all", newArrayList("application/json")),
                 new ApiEndpoint("GET",  "node/seed/all", newArrayList("application/json")),
+                new ApiEndpoint("GET",  "node/{node}/metrics", newArrayList("application/json")),
                 new ApiEndpoint("POST", "node/{node}/stop/", newArrayList("application/json")),
                 new ApiEndpoint("POST", "node/{node}/start/", newArrayList("application/json")),
                 new ApiEndpoint("POST", "node/{node}/restart/", newArrayList("application/json")),
@@ -77,6 +78,9 @@ public final class ApiController {
                 new ApiEndpoint("POST", "node/{node}/rackdc", newArrayList("application/json")),
                 new ApiEndpoint("POST", "node/{node}/make-seed/", newArrayList("application/json")),
                 new ApiEndpoint("POST", "node/{node}/make-non-seed/", newArrayList("application/json")),
+                new ApiEndpoint("GET",  "metrics/query?node={node}&metric={metric}&from={from}&to={to}&step={step}", newArrayList("application/json")),
+                new ApiEndpoint("GET",  "metrics", newArrayList("text/plain")),
+                new ApiEndpoint("GET",  "events?epoch={epoch}&from={offset}&limit={limit}&timeout={seconds}", newArrayList("application/json")),
                 new ApiEndpoint("GET",  "live-nodes", newArrayList("application/json")),
                 new ApiEndpoint("GET",  "live-nodes/text", newArrayList("text/plain")),
                 new ApiEndpoint("GET",  "live-nodes/cqlsh", newArrayList("text/x-cassandra-cqlsh")),
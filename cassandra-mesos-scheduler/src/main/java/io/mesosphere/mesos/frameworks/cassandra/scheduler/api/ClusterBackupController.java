@@ -25,6 +25,14 @@ public final class ClusterBackupController {
 
     /**
      * Starts a cluster-wide backup.
+     * The optional {@code concurrency} query parameter sets how many nodes may run the backup at the same time;
+     * nodes in idle racks are preferred. {@code parallelism} sets how many tables each node processes at once.
+     * With {@code incremental=true} each node only stores SSTables that are not already part of an earlier
+     * incremental backup and writes a manifest per table referencing them.
+     * {@code compression} ({@code none}, {@code lz4} or {@code gzip}) compresses the SSTables written by the backup;
+     * compressed backups are checksummed and verified on restore. {@code maxMbPerSecond} and {@code maxFilesPerSecond}
+     * limit the disk I/O of each node (0 means unlimited); nodes lower these rates further while Cassandra is busy
+     * compacting or serving slow reads.
      *
      *     Example: <pre>{@code {
      * "started" : true
@@ -32,12 +40,21 @@ public final class ClusterBackupController {
      */
     @POST
     @Path("/start")
-    public Response backupStart(@QueryParam("name") String name) {
+    public Response backupStart(@QueryParam("name") String name, @QueryParam("concurrency") @DefaultValue("1") final int concurrency, @QueryParam("parallelism") @DefaultValue("1") final int parallelism, @QueryParam("incremental") @DefaultValue("false") final boolean incremental, @QueryParam("compression") @DefaultValue("none") final String compression,
+                                @QueryParam("maxMbPerSecond") @DefaultValue("0") final double maxMbPerSecond, @QueryParam("maxFilesPerSecond") @DefaultValue("0") final double maxFilesPerSecond) {
         if (name == null) {
             name = "backup-" + System.currentTimeMillis();
         }
 
-        return ClusterJobUtils.startJob(cluster, factory, CassandraFrameworkProtos.ClusterJobType.BACKUP, name);
+        final CassandraFrameworkProtos.BackupCompression backupCompression = ClusterJobUtils.parseCompression(compression);
+        if (backupCompression == null) {
+            return ClusterJobUtils.startFailed(factory, "unknown compression " + compression);
+        }
+
+        return ClusterJobUtils.startJob(cluster, factory, ClusterJobUtils.newJob(CassandraFrameworkProtos.ClusterJobType.BACKUP, name, concurrency, parallelism)
+            .setIncremental(incremental)
+            .setCompression(backupCompression)
+            .setIoLimits(ClusterJobUtils.ioLimits(maxMbPerSecond, maxFilesPerSecond)));
     }
 
     /**
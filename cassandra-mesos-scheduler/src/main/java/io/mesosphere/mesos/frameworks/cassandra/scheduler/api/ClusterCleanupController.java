@@ -21,10 +21,12 @@ import io.mesosphere.mesos.frameworks.cassandra.scheduler.CassandraCluster;
 import io.mesosphere.mesos.frameworks.cassandra.scheduler.util.ClusterJobUtils;
 import org.jetbrains.annotations.NotNull;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 
 @Path("/cluster/cleanup")
@@ -43,6 +45,8 @@ public final class ClusterCleanupController {
 
     /**
      * Starts a cluster-wide cleanup.
+     * The optional {@code concurrency} query parameter sets how many nodes may run the cleanup at the same time;
+     * nodes in idle racks are preferred. {@code parallelism} sets how many tables each node processes at once.
      *
      *     Example: <pre>{@code {
      * "started" : true
@@ -50,8 +54,8 @@ public final class ClusterCleanupController {
      */
     @POST
     @Path("/start")
-    public Response cleanupStart() {
-        return ClusterJobUtils.startJob(cluster, factory, CassandraFrameworkProtos.ClusterJobType.CLEANUP);
+    public Response cleanupStart(@QueryParam("concurrency") @DefaultValue("1") final int concurrency, @QueryParam("parallelism") @DefaultValue("1") final int parallelism) {
+        return ClusterJobUtils.startJob(cluster, factory, CassandraFrameworkProtos.ClusterJobType.CLEANUP, null, concurrency, parallelism);
     }
 
     /**
@@ -6,10 +6,12 @@ import io.mesosphere.mesos.frameworks.cassandra.scheduler.CassandraCluster;
 import io.mesosphere.mesos.frameworks.cassandra.scheduler.util.ClusterJobUtils;
 import org.jetbrains.annotations.NotNull;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 
 @Path("/cluster/repair")
@@ -28,6 +30,8 @@ public final class ClusterRepairController {
 
     /**
      * Starts a cluster-wide repair.
+     * The optional {@code concurrency} query parameter sets how many nodes may run the repair at the same time;
+     * nodes in idle racks are preferred.
      *
      *     Example: <pre>{@code {
      * "started" : true
@@ -35,8 +39,8 @@ public final class ClusterRepairController {
      */
     @POST
     @Path("/start")
-    public Response repairStart() {
-        return ClusterJobUtils.startJob(cluster, factory, CassandraFrameworkProtos.ClusterJobType.REPAIR);
+    public Response repairStart(@QueryParam("concurrency") @DefaultValue("1") final int concurrency) {
+        return ClusterJobUtils.startJob(cluster, factory, CassandraFrameworkProtos.ClusterJobType.REPAIR, null, concurrency, 1);
     }
 
     /**
@@ -71,6 +75,16 @@ public final class ClusterRepairController {
      *         "processedKeyspaces" : { },
      *         "remainingKeyspaces" : [ ]
      *     },
+     *     "maxConcurrentNodes" : 1,
+     *     "parallelism" : 1,
+     *     "currentNodes" : [ {
+     *         "executorId" : "cassandra.node.0.executor",
+     *         "taskId" : "cassandra.node.0.executor.REPAIR",
+     *         "hostname" : "127.0.0.2",
+     *         "ip" : "127.0.0.2",
+     *         "processedKeyspaces" : { },
+     *         "remainingKeyspaces" : [ ]
+     *     } ],
      *     "completedNodes" : [ {
      *         "executorId" : "cassandra.node.1.executor",
      *         "taskId" : "cassandra.node.1.executor.REPAIR",
@@ -28,6 +28,10 @@ public final class ClusterRestoreController {
 
     /**
      * Starts a cluster-wide restore.
+     * The optional {@code concurrency} query parameter sets how many nodes may restore at the same time once the
+     * initial truncate has finished; nodes in idle racks are preferred. {@code parallelism} sets how many tables
+     * each node restores at once. {@code maxMbPerSecond} and {@code maxFilesPerSecond} limit the disk I/O of each node
+     * (0 means unlimited); nodes lower these rates further while Cassandra is busy compacting or serving slow reads.
      *
      *     Example: <pre>{@code {
      * "started" : true
@@ -35,7 +39,8 @@ public final class ClusterRestoreController {
      */
     @POST
     @Path("/start")
-    public Response restoreStart(@QueryParam("name") String name) {
+    public Response restoreStart(@QueryParam("name") String name, @QueryParam("concurrency") @DefaultValue("1") final int concurrency, @QueryParam("parallelism") @DefaultValue("1") final int parallelism,
+                                 @QueryParam("maxMbPerSecond") @DefaultValue("0") final double maxMbPerSecond, @QueryParam("maxFilesPerSecond") @DefaultValue("0") final double maxFilesPerSecond) {
         if (name == null) {
             return JaxRsUtils.buildStreamingResponse(factory, Response.Status.BAD_REQUEST, new StreamingJsonResponse() {
                 @Override
@@ -46,7 +51,8 @@ public final class ClusterRestoreController {
             });
         }
 
-        return ClusterJobUtils.startJob(cluster, factory, CassandraFrameworkProtos.ClusterJobType.RESTORE, name);
+        return ClusterJobUtils.startJob(cluster, factory, ClusterJobUtils.newJob(CassandraFrameworkProtos.ClusterJobType.RESTORE, name, concurrency, parallelism)
+            .setIoLimits(ClusterJobUtils.ioLimits(maxMbPerSecond, maxFilesPerSecond)));
     }
 
     /**
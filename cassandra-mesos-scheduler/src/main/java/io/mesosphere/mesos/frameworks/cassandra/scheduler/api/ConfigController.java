@@ -27,6 +27,8 @@ import org.jetbrains.annotations.NotNull;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
 
@@ -34,18 +36,20 @@ import java.io.IOException;
 @Produces("application/json")
 public final class ConfigController {
 
-    @NotNull
-    private final JsonFactory factory;
     @NotNull
     private final CassandraCluster cluster;
+    @NotNull
+    private final JsonSnapshot configSnapshot;
 
     public ConfigController(@NotNull final CassandraCluster cluster, @NotNull final JsonFactory factory) {
         this.cluster = cluster;
-        this.factory = factory;
+        this.configSnapshot = new JsonSnapshot(cluster, factory);
     }
 
     /**
      * Returns the configuration as JSON.
+     * The response is cached until the cluster state changes and carries an {@code ETag}, requests with a matching
+     * {@code If-None-Match} header get a {@code 304 Not Modified}.
      *
      *     Example: <pre>{@code {
      * "frameworkName" : "cassandra",
@@ -75,8 +79,8 @@ public final class ConfigController {
      * }}</pre>
      */
     @GET
-    public Response config() {
-        return JaxRsUtils.buildStreamingResponse(factory, new StreamingJsonResponse() {
+    public Response config(@Context final Request request) {
+        return configSnapshot.response(request, new StreamingJsonResponse() {
             @Override
             public void write(final JsonGenerator json) throws IOException {
 
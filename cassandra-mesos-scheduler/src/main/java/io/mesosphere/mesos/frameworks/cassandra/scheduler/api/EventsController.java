@@ -0,0 +1,175 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.CassandraCluster;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.events.ClusterEvent;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.events.ClusterEventLog;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.util.JaxRsUtils;
+import org.jetbrains.annotations.NotNull;
+
+import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Path("/events")
+@Produces("application/json")
+public final class EventsController {
+
+    static final int MAX_TIMEOUT_SECONDS = 300;
+
+    @NotNull
+    private final CassandraCluster cluster;
+    @NotNull
+    private final JsonFactory factory;
+
+    public EventsController(@NotNull final CassandraCluster cluster, @NotNull final JsonFactory factory) {
+        this.cluster = cluster;
+        this.factory = factory;
+    }
+
+    /**
+     * Long-polls the log of cluster state changes: node acquired, server task launched or removed, node healthy or
+     * unhealthy, target run state changed, seed changed, node replaced, executor removed and cluster job started,
+     * progressed or finished.
+     *
+     * Returns up to {@code limit} events (default 100) starting at offset {@code from}. If there is no event at
+     * {@code from} yet, the request waits up to {@code timeout} seconds (default 30, at most 300) for the next event
+     * and returns an empty list if none happened. Clients continue with {@code from} set to the returned
+     * {@code nextOffset} and {@code epoch} set to the returned {@code epoch}. Offsets start at 0 with every scheduler
+     * start, the epoch tells the runs apart. Without {@code from}, reading starts at the oldest retained event.
+     * The scheduler retains the latest 1000 events in memory, {@code truncated} is {@code true} if events at the
+     * requested offset are no longer available or the offset is unknown, in particular if {@code epoch} is not the
+     * current one after a scheduler failover - clients then have to re-read the cluster state, e.g. via
+     * {@code /node/all}. An offset passed without {@code epoch} is taken as an offset of the current run.
+     *
+     * Example: <pre>{@code {
+     * "epoch" : "2b5f7c51-0c42-4b8e-9a3e-6f1d2e7c9a10",
+     * "nextOffset" : 3,
+     * "oldestOffset" : 0,
+     * "truncated" : false,
+     * "events" : [ {
+     *     "offset" : 2,
+     *     "timestamp" : 1426686000000,
+     *     "type" : "NODE_HEALTHY",
+     *     "executorId" : "cassandra.node.1.executor",
+     *     "ip" : "127.0.0.1",
+     *     "attributes" : {
+     *         "message" : "OK"
+     *     }
+     * } ]
+     * }}</pre>
+     */
+    @GET
+    public void events(@QueryParam("epoch") final String epoch,
+                       @QueryParam("from") @DefaultValue("-1") final long from,
+                       @QueryParam("limit") @DefaultValue("100") final int limit,
+                       @QueryParam("timeout") @DefaultValue("30") final int timeout,
+                       @Suspended final AsyncResponse asyncResponse) {
+        if (limit < 1) {
+            asyncResponse.resume(badRequest("limit must be at least 1"));
+            return;
+        }
+        if (timeout < 0) {
+            asyncResponse.resume(badRequest("timeout must not be negative"));
+            return;
+        }
+
+        final ClusterEventLog eventLog = cluster.getEventLog();
+        final ClusterEventLog.Waiter waiter = new ClusterEventLog.Waiter() {
+            @Override
+            public void eventsAvailable() {
+                asyncResponse.resume(page(eventLog.read(epoch, from, limit)));
+            }
+        };
+        if (timeout > 0) {
+            // set up the timeout before registering the waiter, the waiter may resume the response right away
+            asyncResponse.setTimeoutHandler(new TimeoutHandler() {
+                @Override
+                public void handleTimeout(final AsyncResponse response) {
+                    eventLog.cancel(waiter);
+                    response.resume(page(eventLog.read(epoch, from, limit)));
+                }
+            });
+            asyncResponse.setTimeout(Math.min(timeout, MAX_TIMEOUT_SECONDS), TimeUnit.SECONDS);
+            if (eventLog.await(epoch, from, waiter)) {
+                return;
+            }
+        }
+        asyncResponse.resume(page(eventLog.read(epoch, from, limit)));
+    }
+
+    @NotNull
+    private Response page(@NotNull final ClusterEventLog.Page page) {
+        return JaxRsUtils.buildStreamingResponse(factory, new StreamingJsonResponse() {
+            @Override
+            public void write(final JsonGenerator json) throws IOException {
+                json.writeStringField("epoch", page.getEpoch());
+                json.writeNumberField("nextOffset", page.getNextOffset());
+                json.writeNumberField("oldestOffset", page.getOldestOffset());
+                json.writeBooleanField("truncated", page.isTruncated());
+                json.writeArrayFieldStart("events");
+                for (final ClusterEvent event : page.getEvents()) {
+                    writeEvent(json, event);
+                }
+                json.writeEndArray();
+            }
+        });
+    }
+
+    private static void writeEvent(@NotNull final JsonGenerator json, @NotNull final ClusterEvent event) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("offset", event.getOffset());
+        json.writeNumberField("timestamp", event.getTimestamp());
+        json.writeStringField("type", event.getType().name());
+        if (event.getExecutorId() != null) {
+            json.writeStringField("executorId", event.getExecutorId());
+        }
+        if (event.getIp() != null) {
+            json.writeStringField("ip", event.getIp());
+        }
+        json.writeObjectFieldStart("attributes");
+        for (final Map.Entry<String, Object> attribute : event.getAttributes().entrySet()) {
+            final Object value = attribute.getValue();
+            if (value instanceof Boolean) {
+                json.writeBooleanField(attribute.getKey(), (Boolean) value);
+            } else if (value instanceof Long || value instanceof Integer) {
+                json.writeNumberField(attribute.getKey(), ((Number) value).longValue());
+            } else {
+                json.writeStringField(attribute.getKey(), String.valueOf(value));
+            }
+        }
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    @NotNull
+    private Response badRequest(@NotNull final String error) {
+        return JaxRsUtils.buildStreamingResponse(factory, Response.Status.BAD_REQUEST, new StreamingJsonResponse() {
+            @Override
+            public void write(final JsonGenerator json) throws IOException {
+                json.writeStringField("error", error);
+            }
+        });
+    }
+}
@@ -9,12 +9,18 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 @Path("/health")
 public final class HealthCheckController {
     private static final Logger LOGGER = LoggerFactory.getLogger(HealthCheckController.class);
 
+    private static final String HEALTHY = "{\"healthy\":true}";
+    private static final EntityTag HEALTHY_ETAG = new EntityTag("healthy");
+
     @NotNull
     private final HealthReportService healthReportService;
 
@@ -28,14 +34,22 @@ public final class HealthCheckController {
         return Response.ok("{\"healthy\":true}", "application/json").build();
     }
 
+    /**
+     * Returns {@code 200} if the cluster is healthy, {@code 500} otherwise. The healthy response carries an
+     * {@code ETag}, polling clients that send it in {@code If-None-Match} get a {@code 304 Not Modified} as long as the
+     * cluster stays healthy.
+     */
     @GET
     @Path("/cluster")
-    public Response cluster() {
-        final ClusterHealthReport report = healthReportService.generateClusterHealthReport();
-        boolean healthy = report.isHealthy();
-        LOGGER.info("Cluster Health Report Generated. result: healthy = {}", healthy);
+    public Response cluster(@Context final Request request) {
+        final boolean healthy = healthReportService.isClusterHealthy();
+        LOGGER.debug("Cluster health: healthy = {}", healthy);
         if (healthy) {
-            return Response.ok("{\"healthy\":true}", "application/json").build();
+            final Response.ResponseBuilder notModified = request.evaluatePreconditions(HEALTHY_ETAG);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            return Response.ok(HEALTHY, "application/json").tag(HEALTHY_ETAG).build();
         } else {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
         }
@@ -0,0 +1,164 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.api;
+
+import com.google.common.io.CountingOutputStream;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.Gauge;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.SchedulerMetrics;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.uri.UriTemplate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records latency, in-flight count and response size of REST API requests per route, e.g.
+ * {@code GET /node/{node}/metrics}, and logs requests that take longer than a threshold.
+ * <p>
+ * Most responses are streamed after the response filter ran, so a request with an entity is completed by the
+ * {@link WriterInterceptor} once the entity has been written, other requests are completed by the response filter.
+ * Requests that did not match a resource method (e.g. 404) are not recorded, to keep the number of routes bounded.
+ * Long-polling requests (resource methods with a {@code @Suspended} response) are expected to take long and are
+ * never logged as slow.
+ */
+public final class HttpMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpMetricsFilter.class);
+
+    public static final long DEFAULT_SLOW_REQUEST_THRESHOLD_MS = 1000L;
+
+    private static final String REQUEST_PROPERTY = HttpMetricsFilter.class.getName() + ".request";
+
+    private final long slowRequestThresholdNanos;
+
+    public HttpMetricsFilter() {
+        this(DEFAULT_SLOW_REQUEST_THRESHOLD_MS);
+    }
+
+    /**
+     * @param slowRequestThresholdMs requests taking longer are logged, {@code 0} disables the log
+     */
+    public HttpMetricsFilter(final long slowRequestThresholdMs) {
+        this.slowRequestThresholdNanos = slowRequestThresholdMs > 0 ? TimeUnit.MILLISECONDS.toNanos(slowRequestThresholdMs) : Long.MAX_VALUE;
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) {
+        final String route = requestContext.getMethod() + ' ' + route(requestContext);
+        final ResourceMethod resourceMethod = ((ExtendedUriInfo) requestContext.getUriInfo()).getMatchedResourceMethod();
+        final boolean suspended = resourceMethod != null && resourceMethod.isSuspendDeclared();
+        final TimedRequest request = new TimedRequest(route, System.nanoTime(), suspended);
+        request.inFlight.inc();
+        requestContext.setProperty(REQUEST_PROPERTY, request);
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) {
+        final TimedRequest request = (TimedRequest) requestContext.getProperty(REQUEST_PROPERTY);
+        if (request == null) {
+            return;
+        }
+        request.status = responseContext.getStatus();
+        request.uri = requestContext.getUriInfo().getRequestUri().toString();
+        if (!responseContext.hasEntity() || HttpMethod.HEAD.equals(requestContext.getMethod())) {
+            requestContext.removeProperty(REQUEST_PROPERTY);
+            complete(request, 0L);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(final WriterInterceptorContext context) throws IOException {
+        final TimedRequest request = (TimedRequest) context.getProperty(REQUEST_PROPERTY);
+        if (request == null) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(REQUEST_PROPERTY);
+        final CountingOutputStream out = new CountingOutputStream(context.getOutputStream());
+        context.setOutputStream(out);
+        try {
+            context.proceed();
+        } finally {
+            complete(request, out.getCount());
+        }
+    }
+
+    private void complete(@NotNull final TimedRequest request, final long responseBytes) {
+        final long elapsedNanos = System.nanoTime() - request.startNanos;
+        request.inFlight.dec();
+        SchedulerMetrics.HTTP_REQUEST_LATENCY.labels(request.route).observe(elapsedNanos);
+        SchedulerMetrics.HTTP_RESPONSE_BYTES.labels(request.route).inc(responseBytes);
+        if (elapsedNanos > slowRequestThresholdNanos && !request.suspended) {
+            LOGGER.warn("Slow request: {} took {} ms, status {}, {} bytes, uri {}",
+                request.route, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), request.status, responseBytes, request.uri);
+        }
+    }
+
+    /**
+     * Concatenates the matched {@code @Path} templates of the resource class and method, e.g. {@code /node/{node}/metrics}.
+     */
+    @NotNull
+    static String route(@NotNull final ContainerRequestContext requestContext) {
+        final List<UriTemplate> templates = ((ExtendedUriInfo) requestContext.getUriInfo()).getMatchedTemplates();
+        final StringBuilder sb = new StringBuilder();
+        // matched templates are ordered from the resource method back to the resource class
+        for (int i = templates.size() - 1; i >= 0; i--) {
+            String template = templates.get(i).getTemplate();
+            while (template.endsWith("/")) {
+                template = template.substring(0, template.length() - 1);
+            }
+            if (template.isEmpty()) {
+                continue;
+            }
+            if (template.charAt(0) != '/') {
+                sb.append('/');
+            }
+            sb.append(template);
+        }
+        return sb.length() == 0 ? "/" : sb.toString();
+    }
+
+    private static final class TimedRequest {
+        @NotNull
+        final String route;
+        final long startNanos;
+        final boolean suspended;
+        @NotNull
+        final Gauge inFlight;
+        int status;
+        @Nullable
+        String uri;
+
+        TimedRequest(@NotNull final String route, final long startNanos, final boolean suspended) {
+            this.route = route;
+            this.startNanos = startNanos;
+            this.suspended = suspended;
+            this.inFlight = SchedulerMetrics.HTTP_REQUESTS_IN_FLIGHT.labels(route);
+        }
+    }
+}
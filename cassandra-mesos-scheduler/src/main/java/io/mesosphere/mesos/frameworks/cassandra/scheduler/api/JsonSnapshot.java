@@ -0,0 +1,127 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.google.common.hash.Hashing;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.CassandraCluster;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.util.JaxRsUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Pre-serialized JSON response of a read-only endpoint.
+ * <p>
+ * The body is built on the first request after {@link CassandraCluster#stateVersion()} changed and served as is
+ * until the next change. The {@code ETag} is computed from the body, so clients that send {@code If-None-Match}
+ * get a {@code 304 Not Modified} as long as the content is the same, even if unrelated state changed.
+ * <p>
+ * Bodies with fields that change all the time, like timestamps, can be tagged with a weak {@code ETag} computed
+ * from a second serialization without these fields. Clients then get a {@code 304 Not Modified} if only those
+ * fields changed and see their new values with the next other change.
+ */
+final class JsonSnapshot {
+    @NotNull
+    private final CassandraCluster cluster;
+    @NotNull
+    private final JsonFactory factory;
+
+    @Nullable
+    private volatile Snapshot snapshot;
+
+    JsonSnapshot(@NotNull final CassandraCluster cluster, @NotNull final JsonFactory factory) {
+        this.cluster = cluster;
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the current snapshot, built using {@code jsonResponse} if it is outdated.
+     */
+    @NotNull
+    Response response(@NotNull final Request request, @NotNull final StreamingJsonResponse jsonResponse) {
+        return response(request, jsonResponse, null);
+    }
+
+    /**
+     * Returns the current snapshot, built using {@code jsonResponse} if it is outdated.
+     *
+     * @param tagResponse writes the stable part of the body that a weak {@code ETag} is computed from, or
+     *                    {@code null} for a strong {@code ETag} computed from the whole body
+     */
+    @NotNull
+    Response response(@NotNull final Request request, @NotNull final StreamingJsonResponse jsonResponse, @Nullable final StreamingJsonResponse tagResponse) {
+        final Snapshot current = current(jsonResponse, tagResponse);
+        final Response.ResponseBuilder notModified = request.evaluatePreconditions(current.etag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(current.body, "application/json").tag(current.etag).build();
+    }
+
+    @NotNull
+    private Snapshot current(@NotNull final StreamingJsonResponse jsonResponse, @Nullable final StreamingJsonResponse tagResponse) {
+        // read the version before the state, a change while building only causes another rebuild
+        final long version = cluster.stateVersion();
+        Snapshot current = snapshot;
+        if (current != null && current.version >= version) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || current.version < version) {
+                final byte[] body = serialize(jsonResponse);
+                final EntityTag etag = tagResponse != null
+                    ? new EntityTag(Hashing.murmur3_128().hashBytes(serialize(tagResponse)).toString(), true)
+                    : new EntityTag(Hashing.murmur3_128().hashBytes(body).toString());
+                current = new Snapshot(version, body, etag);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    @NotNull
+    private byte[] serialize(@NotNull final StreamingJsonResponse jsonResponse) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            JaxRsUtils.writeJson(factory, out, jsonResponse);
+        } catch (final IOException e) {
+            throw new WebApplicationException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Snapshot {
+        final long version;
+        @NotNull
+        final byte[] body;
+        @NotNull
+        final EntityTag etag;
+
+        Snapshot(final long version, @NotNull final byte[] body, @NotNull final EntityTag etag) {
+            this.version = version;
+            this.body = body;
+            this.etag = etag;
+        }
+    }
+}
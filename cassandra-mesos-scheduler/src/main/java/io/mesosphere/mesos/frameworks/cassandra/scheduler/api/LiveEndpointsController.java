@@ -17,18 +17,31 @@ package io.mesosphere.mesos.frameworks.cassandra.scheduler.api;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
 import io.mesosphere.mesos.frameworks.cassandra.scheduler.CassandraCluster;
 import io.mesosphere.mesos.frameworks.cassandra.scheduler.util.JaxRsUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Path("/live-nodes")
 public final class LiveEndpointsController {
@@ -38,6 +51,11 @@ public final class LiveEndpointsController {
     @NotNull
     private final JsonFactory factory;
 
+    @Nullable
+    private volatile LiveNodes liveNodesSnapshot;
+
+    private final AtomicInteger roundRobinCursor = new AtomicInteger();
+
     public LiveEndpointsController(@NotNull final CassandraCluster cluster, @NotNull final JsonFactory factory) {
         this.cluster = cluster;
         this.factory = factory;
@@ -46,7 +64,8 @@ public final class LiveEndpointsController {
     /**
      * Variant of the live Cassandra nodes endpoint that produces JSON.
      * Allows to retrieve multiple live nodes limited to 3 nodes by default. The limit can be changed with the
-     * query parameter {@code limit}.
+     * query parameter {@code limit}. How the nodes are chosen can be changed with the query parameter
+     * {@code strategy}, see {@link Selection}.
      *
      *     Example: <pre>{@code {
      * "nativePort" : 9042,
@@ -57,8 +76,8 @@ public final class LiveEndpointsController {
      */
     @GET
     @Produces("application/json")
-    public Response liveEndpointsJson(@QueryParam("limit") @DefaultValue("3") final int limit) {
-        return liveEndpoints("json", limit);
+    public Response liveEndpointsJson(@QueryParam("limit") @DefaultValue("3") final int limit, @BeanParam final Selection selection, @Context final Request request) {
+        return liveEndpoints("json", limit, selection, request);
     }
 
     /**
@@ -76,8 +95,8 @@ public final class LiveEndpointsController {
     @GET
     @Path("/text")
     @Produces("text/plain")
-    public Response liveEndpointsText(@QueryParam("limit") @DefaultValue("3") final int limit) {
-        return liveEndpoints("text", limit);
+    public Response liveEndpointsText(@QueryParam("limit") @DefaultValue("3") final int limit, @BeanParam final Selection selection, @Context final Request request) {
+        return liveEndpoints("text", limit, selection, request);
     }
 
     /**
@@ -86,8 +105,8 @@ public final class LiveEndpointsController {
     @GET
     @Path("/cqlsh")
     @Produces("text/x-cassandra-cqlsh")
-    public Response liveEndpointsCqlsh() {
-        return liveEndpoints("cqlsh", 1);
+    public Response liveEndpointsCqlsh(@BeanParam final Selection selection, @Context final Request request) {
+        return liveEndpoints("cqlsh", 1, selection, request);
     }
 
     /**
@@ -96,8 +115,8 @@ public final class LiveEndpointsController {
     @GET
     @Path("/nodetool")
     @Produces("text/x-cassandra-nodetool")
-    public Response liveEndpointsNodetool() {
-        return liveEndpoints("nodetool", 1);
+    public Response liveEndpointsNodetool(@BeanParam final Selection selection, @Context final Request request) {
+        return liveEndpoints("nodetool", 1, selection, request);
     }
 
     /**
@@ -108,22 +127,57 @@ public final class LiveEndpointsController {
     @GET
     @Path("/stress")
     @Produces("text/x-cassandra-stress")
-    public Response liveEndpointsStress(@QueryParam("limit") @DefaultValue("3") final int limit) {
-        return liveEndpoints("stress", limit);
+    public Response liveEndpointsStress(@QueryParam("limit") @DefaultValue("3") final int limit, @BeanParam final Selection selection, @Context final Request request) {
+        return liveEndpoints("stress", limit, selection, request);
     }
 
-    private Response liveEndpoints(final String forTool, final int limit) {
-        final List<CassandraFrameworkProtos.CassandraNode> liveNodes = cluster.liveNodes(limit);
+    /**
+     * All variants are served from a snapshot of the live nodes that is rebuilt when the cluster state changed.
+     * The {@code ETag} identifies the set of live nodes, the ports and the variant, so a client whose previous
+     * selection of live nodes is still valid gets a {@code 304 Not Modified}, see
+     * {@link #etag(LiveNodes, String, Strategy, Selection, int)}.
+     */
+    private Response liveEndpoints(final String forTool, final int limit, final Selection selection, final Request request) {
+        final Strategy strategy = Strategy.forName(selection.strategy);
+        if (strategy == null) {
+            return Response.status(400).build();
+        }
+
+        final LiveNodes snapshot = liveNodes();
+        // evaluated before selecting the nodes, a 304 must not advance the round-robin cursor
+        final EntityTag etag = etag(snapshot, forTool, strategy, selection, limit);
+        if (etag != null) {
+            final Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+            if (notModified != null) {
+                return notModified.header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+            }
+        }
+
+        final List<CassandraFrameworkProtos.CassandraNode> liveNodes;
+        switch (strategy) {
+            case LEAST_LOADED:
+                liveNodes = snapshot.selectLeastLoaded(limit);
+                break;
+            case LOCAL:
+                liveNodes = snapshot.selectLocal(limit, selection.dc, selection.rack);
+                break;
+            case ROUND_ROBIN:
+                liveNodes = selection.client != null
+                    ? snapshot.selectRoundRobin(limit, snapshot.stickyStart(selection.client))
+                    : snapshot.selectRoundRobin(limit, roundRobinCursor.getAndIncrement());
+                break;
+            default:
+                liveNodes = snapshot.selectRandom(limit);
+                break;
+        }
 
         if (liveNodes.isEmpty()) {
             return Response.status(400).build();
         }
 
-        final CassandraFrameworkProtos.CassandraFrameworkConfiguration configuration = cluster.getConfiguration().get();
-
-        final int nativePort = CassandraCluster.getPortMapping(configuration, CassandraCluster.PORT_NATIVE);
-        final int rpcPort = CassandraCluster.getPortMapping(configuration, CassandraCluster.PORT_RPC);
-        final int jmxPort = CassandraCluster.getPortMapping(configuration, CassandraCluster.PORT_JMX);
+        final int nativePort = snapshot.nativePort;
+        final int rpcPort = snapshot.rpcPort;
+        final int jmxPort = snapshot.jmxPort;
 
         final CassandraFrameworkProtos.CassandraNode first = liveNodes.get(0);
 
@@ -131,7 +185,7 @@ public final class LiveEndpointsController {
             switch (forTool) {
                 case "cqlsh":
                     // return a string: "HOST PORT"
-                    return Response.ok(first.getIp() + ' ' + nativePort).build();
+                    return tagged(etag, Response.ok(first.getIp() + ' ' + nativePort).build());
                 case "stress":
                     // cassandra-stress options:
                     // -node NODE1,NODE2,...
@@ -150,18 +204,18 @@ public final class LiveEndpointsController {
                         .append(rpcPort)
                         .append(" jmx=")
                         .append(jmxPort);
-                    return Response.ok(sb.toString()).build();
+                    return tagged(etag, Response.ok(sb.toString()).build());
                 case "nodetool":
                     // nodetool options:
                     // -h HOST
                     // -p JMX_PORT
-                    return Response.ok("-h " + first.getJmxConnect().getIp() + " -p " + first.getJmxConnect().getJmxPort()).build();
+                    return tagged(etag, Response.ok("-h " + first.getJmxConnect().getIp() + " -p " + first.getJmxConnect().getJmxPort()).build());
                 case "json":
                     // produce a simple JSON with the native port and live node IPs
-                    return JaxRsUtils.buildStreamingResponse(factory, new StreamingJsonResponse() {
+                    return tagged(etag, JaxRsUtils.buildStreamingResponse(factory, new StreamingJsonResponse() {
                         @Override
                         public void write(final JsonGenerator json) throws IOException {
-                            json.writeStringField("clusterName", configuration.getFrameworkName());
+                            json.writeStringField("clusterName", snapshot.clusterName);
                             json.writeNumberField("nativePort", nativePort);
                             json.writeNumberField("rpcPort", rpcPort);
                             json.writeNumberField("jmxPort", jmxPort);
@@ -172,10 +226,10 @@ public final class LiveEndpointsController {
                             }
                             json.writeEndArray();
                         }
-                    });
+                    }));
                 case "text":
                     // produce a simple text with the native port in the first line and one line per live node IP
-                    return JaxRsUtils.buildStreamingResponse(Response.Status.OK, "text/plain", new StreamingTextResponse() {
+                    return tagged(etag, JaxRsUtils.buildStreamingResponse(Response.Status.OK, "text/plain", new StreamingTextResponse() {
                         @Override
                         public void write(final PrintWriter pw) {
                             pw.println("NATIVE: " + nativePort);
@@ -185,7 +239,7 @@ public final class LiveEndpointsController {
                                 pw.println("IP: " + liveNode.getIp());
                             }
                         }
-                    });
+                    }));
             }
 
             return Response.status(404).build();
@@ -194,4 +248,320 @@ public final class LiveEndpointsController {
             return Response.serverError().build();
         }
     }
+
+    /**
+     * Returns the {@code ETag} for a selection, or {@code null} if the response cannot be validated. Every tag covers
+     * the variant ({@code forTool}, which determines the media type) and the selection parameters.
+     * {@code local} and {@code round-robin} with a client ID select the same nodes for the same snapshot, so their
+     * tag is strong. {@code random} picks another subset of the same live nodes for every request, these responses
+     * are only equivalent, not identical, so their tag is weak. {@code least-loaded} depends on the load figures and
+     * random picks and {@code round-robin} without a client ID advances a cursor, both are always served in full.
+     */
+    @Nullable
+    private static EntityTag etag(@NotNull final LiveNodes snapshot, @NotNull final String forTool, @NotNull final Strategy strategy, @NotNull final Selection selection, final int limit) {
+        switch (strategy) {
+            case RANDOM:
+                return new EntityTag(selectionTag(snapshot, forTool, strategy, selection, limit), true);
+            case LOCAL:
+                return new EntityTag(selectionTag(snapshot, forTool, strategy, selection, limit));
+            case ROUND_ROBIN:
+                return selection.client != null ? new EntityTag(selectionTag(snapshot, forTool, strategy, selection, limit)) : null;
+            default:
+                return null;
+        }
+    }
+
+    @NotNull
+    private static String selectionTag(@NotNull final LiveNodes snapshot, @NotNull final String forTool, @NotNull final Strategy strategy, @NotNull final Selection selection, final int limit) {
+        return Hashing.murmur3_128().newHasher()
+            .putString(snapshot.etag.getValue(), StandardCharsets.UTF_8)
+            .putString(forTool, StandardCharsets.UTF_8)
+            .putString(strategy.strategyName, StandardCharsets.UTF_8)
+            .putString(String.valueOf(selection.dc), StandardCharsets.UTF_8)
+            .putString(String.valueOf(selection.rack), StandardCharsets.UTF_8)
+            .putString(String.valueOf(selection.client), StandardCharsets.UTF_8)
+            .putInt(limit)
+            .hash().toString();
+    }
+
+    /**
+     * Adds the {@code ETag}, if any, and {@code Vary: Accept}, as the tag depends on the variant.
+     */
+    @NotNull
+    private static Response tagged(@Nullable final EntityTag etag, @NotNull final Response response) {
+        return Response.fromResponse(response).tag(etag).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).build();
+    }
+
+    @NotNull
+    private LiveNodes liveNodes() {
+        // read the version before the state, a change while building only causes another rebuild
+        final long version = cluster.stateVersion();
+        LiveNodes current = liveNodesSnapshot;
+        if (current != null && current.version >= version) {
+            return current;
+        }
+        synchronized (this) {
+            current = liveNodesSnapshot;
+            if (current == null || current.version < version) {
+                final List<CassandraFrameworkProtos.CassandraNode> nodes = new ArrayList<>();
+                for (final CassandraFrameworkProtos.CassandraNode node : cluster.getClusterState().get().getNodesList()) {
+                    if (cluster.isLiveNode(node)) {
+                        nodes.add(node);
+                    }
+                }
+                // round-robin walks the nodes in a stable order
+                Collections.sort(nodes, new Comparator<CassandraFrameworkProtos.CassandraNode>() {
+                    @Override
+                    public int compare(final CassandraFrameworkProtos.CassandraNode o1, final CassandraFrameworkProtos.CassandraNode o2) {
+                        return o1.getIp().compareTo(o2.getIp());
+                    }
+                });
+                final double[] load = new double[nodes.size()];
+                for (int i = 0; i < load.length; i++) {
+                    final CassandraFrameworkProtos.NodeMetrics metrics = cluster.getMetricsStore().latest(nodes.get(i).getCassandraNodeExecutor().getExecutorId());
+                    load[i] = metrics != null ? load(metrics) : -1d;
+                }
+                current = new LiveNodes(version, cluster.getConfiguration().get(), nodes, load);
+                liveNodesSnapshot = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Load of a node for {@link Strategy#LEAST_LOADED}: the 99th percentile read or write latency, whichever is
+     * higher, plus a penalty of 1 ms per pending compaction and hint in progress.
+     */
+    static double load(@NotNull final CassandraFrameworkProtos.NodeMetrics metrics) {
+        final long latencyMicros = Math.max(metrics.getReadLatency99Micros(), metrics.getWriteLatency99Micros());
+        final int pendingTasks = metrics.getPendingCompactions() + metrics.getHintsInProgress();
+        return latencyMicros + 1000d * pendingTasks;
+    }
+
+    /**
+     * Query parameters that control which live nodes are returned.
+     */
+    public static final class Selection {
+        /**
+         * One of {@code random} (default), {@code least-loaded}, {@code local} or {@code round-robin}.
+         */
+        @QueryParam("strategy")
+        @DefaultValue("random")
+        String strategy;
+        /**
+         * Data center of the client, prefers nodes in that data center for {@code local}.
+         */
+        @QueryParam("dc")
+        @Nullable
+        String dc;
+        /**
+         * Rack of the client, prefers nodes in that rack (and {@code dc}) for {@code local}.
+         */
+        @QueryParam("rack")
+        @Nullable
+        String rack;
+        /**
+         * Identifies the client for {@code round-robin}, the same client gets the same nodes as long as they are live.
+         */
+        @QueryParam("client")
+        @Nullable
+        String client;
+    }
+
+    enum Strategy {
+        /**
+         * Live nodes in random order.
+         */
+        RANDOM("random"),
+        /**
+         * Prefers nodes with a lower {@link #load(CassandraFrameworkProtos.NodeMetrics) load}. Each node is the less
+         * loaded one of two randomly picked nodes, so that concurrent clients do not all pick the least loaded node.
+         */
+        LEAST_LOADED("least-loaded"),
+        /**
+         * Nodes in the client's rack first, then nodes in the client's data center, then all others.
+         */
+        LOCAL("local"),
+        /**
+         * Consecutive nodes, starting at the next node for each request, or at a node chosen by the client ID.
+         */
+        ROUND_ROBIN("round-robin");
+
+        @NotNull
+        private final String strategyName;
+
+        Strategy(@NotNull final String strategyName) {
+            this.strategyName = strategyName;
+        }
+
+        @Nullable
+        static Strategy forName(@NotNull final String name) {
+            for (final Strategy strategy : values()) {
+                if (strategy.strategyName.equals(name)) {
+                    return strategy;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Immutable list of the live nodes at one state version, together with everything else the responses contain.
+     */
+    private static final class LiveNodes {
+        final long version;
+        @NotNull
+        final String clusterName;
+        final int nativePort;
+        final int rpcPort;
+        final int jmxPort;
+        @NotNull
+        final List<CassandraFrameworkProtos.CassandraNode> nodes;
+        /**
+         * Load per node, nodes that did not report metrics yet are assumed to have the average load.
+         */
+        @NotNull
+        final double[] load;
+        @NotNull
+        final EntityTag etag;
+
+        LiveNodes(
+            final long version,
+            @NotNull final CassandraFrameworkProtos.CassandraFrameworkConfiguration configuration,
+            @NotNull final List<CassandraFrameworkProtos.CassandraNode> nodes,
+            @NotNull final double[] load
+        ) {
+            this.version = version;
+            this.clusterName = configuration.getFrameworkName();
+            this.nativePort = CassandraCluster.getPortMapping(configuration, CassandraCluster.PORT_NATIVE);
+            this.rpcPort = CassandraCluster.getPortMapping(configuration, CassandraCluster.PORT_RPC);
+            this.jmxPort = CassandraCluster.getPortMapping(configuration, CassandraCluster.PORT_JMX);
+            this.nodes = Collections.unmodifiableList(nodes);
+            this.load = load;
+            double sum = 0d;
+            int known = 0;
+            for (final double l : load) {
+                if (l >= 0d) {
+                    sum += l;
+                    known++;
+                }
+            }
+            for (int i = 0; i < load.length; i++) {
+                if (load[i] < 0d) {
+                    load[i] = known > 0 ? sum / known : 0d;
+                }
+            }
+
+            final Hasher hasher = Hashing.murmur3_128().newHasher()
+                .putString(clusterName, StandardCharsets.UTF_8)
+                .putInt(nativePort)
+                .putInt(rpcPort)
+                .putInt(jmxPort);
+            for (final CassandraFrameworkProtos.CassandraNode node : nodes) {
+                hasher.putString(node.getIp(), StandardCharsets.UTF_8)
+                    .putString(node.getJmxConnect().getIp(), StandardCharsets.UTF_8)
+                    .putInt(node.getJmxConnect().getJmxPort());
+            }
+            this.etag = new EntityTag(hasher.hash().toString());
+        }
+
+        /**
+         * Returns up to {@code limit} randomly chosen live nodes.
+         */
+        @NotNull
+        List<CassandraFrameworkProtos.CassandraNode> selectRandom(final int limit) {
+            final List<CassandraFrameworkProtos.CassandraNode> shuffled = new ArrayList<>(nodes);
+            final int count = count(limit);
+            final ThreadLocalRandom tlr = ThreadLocalRandom.current();
+            // partial Fisher-Yates shuffle, only the first 'count' positions are needed
+            for (int i = 0; i < count; i++) {
+                Collections.swap(shuffled, i, i + tlr.nextInt(shuffled.size() - i));
+            }
+            return shuffled.subList(0, count);
+        }
+
+        @NotNull
+        List<CassandraFrameworkProtos.CassandraNode> selectLeastLoaded(final int limit) {
+            final int count = count(limit);
+            final List<CassandraFrameworkProtos.CassandraNode> result = new ArrayList<>(count);
+            final int[] candidates = new int[nodes.size()];
+            for (int i = 0; i < candidates.length; i++) {
+                candidates[i] = i;
+            }
+            final ThreadLocalRandom tlr = ThreadLocalRandom.current();
+            // candidates[0..remaining) have not been selected yet
+            for (int remaining = candidates.length; result.size() < count; remaining--) {
+                int pick = tlr.nextInt(remaining);
+                if (remaining > 1) {
+                    int other = tlr.nextInt(remaining - 1);
+                    if (other >= pick) {
+                        other++;
+                    }
+                    if (load[candidates[other]] < load[candidates[pick]]) {
+                        pick = other;
+                    }
+                }
+                result.add(nodes.get(candidates[pick]));
+                candidates[pick] = candidates[remaining - 1];
+            }
+            return result;
+        }
+
+        @NotNull
+        List<CassandraFrameworkProtos.CassandraNode> selectLocal(final int limit, @Nullable final String dc, @Nullable final String rack) {
+            final List<CassandraFrameworkProtos.CassandraNode> shuffled = new ArrayList<>(nodes);
+            Collections.shuffle(shuffled, ThreadLocalRandom.current());
+            // stable sort, nodes with the same distance stay in random order
+            Collections.sort(shuffled, new Comparator<CassandraFrameworkProtos.CassandraNode>() {
+                @Override
+                public int compare(final CassandraFrameworkProtos.CassandraNode o1, final CassandraFrameworkProtos.CassandraNode o2) {
+                    return Integer.compare(distance(o1, dc, rack), distance(o2, dc, rack));
+                }
+            });
+            return shuffled.subList(0, count(limit));
+        }
+
+        @NotNull
+        List<CassandraFrameworkProtos.CassandraNode> selectRoundRobin(final int limit, final int start) {
+            final int count = count(limit);
+            final List<CassandraFrameworkProtos.CassandraNode> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(nodes.get(((start & Integer.MAX_VALUE) + i) % nodes.size()));
+            }
+            return result;
+        }
+
+        /**
+         * Index of the node with the highest rendezvous hash for {@code client}. Only the clients of a node that is
+         * no longer live move to other nodes.
+         */
+        int stickyStart(@NotNull final String client) {
+            int start = 0;
+            int highest = Integer.MIN_VALUE;
+            for (int i = 0; i < nodes.size(); i++) {
+                final int hash = Hashing.murmur3_32().newHasher()
+                    .putString(client, StandardCharsets.UTF_8)
+                    .putString(nodes.get(i).getIp(), StandardCharsets.UTF_8)
+                    .hash().asInt();
+                if (hash >= highest) {
+                    highest = hash;
+                    start = i;
+                }
+            }
+            return start;
+        }
+
+        private int count(final int limit) {
+            return Math.max(0, Math.min(limit, nodes.size()));
+        }
+
+        private static int distance(@NotNull final CassandraFrameworkProtos.CassandraNode node, @Nullable final String dc, @Nullable final String rack) {
+            final CassandraFrameworkProtos.RackDc rackDc = node.getRackDc();
+            final boolean sameDc = dc == null || dc.equals(rackDc.getDc());
+            if (sameDc && rack != null && rack.equals(rackDc.getRack())) {
+                return 0;
+            }
+            return sameDc ? 1 : 2;
+        }
+    }
 }
@@ -0,0 +1,161 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.CassandraCluster;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.MetricPoint;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.MetricQueryResult;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.NodeMetric;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.SchedulerMetrics;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.util.JaxRsUtils;
+import org.jetbrains.annotations.NotNull;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+@Path("/metrics")
+@Produces("application/json")
+public final class MetricsController {
+
+    static final String PROMETHEUS_TEXT_FORMAT = "text/plain;version=0.0.4";
+
+    private static final long DEFAULT_RANGE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @NotNull
+    private final CassandraCluster cluster;
+    @NotNull
+    private final JsonFactory factory;
+
+    public MetricsController(@NotNull final CassandraCluster cluster, @NotNull final JsonFactory factory) {
+        this.cluster = cluster;
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the history of a metric of a node, as received with the node's health checks.
+     * The node is specified using the query parameter `node`, which can be either the IP address, the hostname or the
+     * executor ID. `from` and `to` are milliseconds since the epoch and default to the last hour. `step` is the
+     * requested distance of the points in milliseconds, it is rounded up to the resolution of the stored data
+     * (1 minute for the last 4 hours, 10 minutes for the last 2 days, 1 hour for the last 2 weeks).
+     * Steps without values are omitted. Negative values and a `from` after `to` are rejected with
+     * {@code 400 Bad Request}.
+     *
+     * Available metrics: {@code readLatency50Micros}, {@code readLatency99Micros}, {@code writeLatency50Micros},
+     * {@code writeLatency99Micros}, {@code pendingCompactions}, {@code droppedMutationsPerSecond},
+     * {@code heapUsedBytes}, {@code gcPauseMillisPerSecond}, {@code sstableCount}, {@code hintsInProgress},
+     * {@code diskUsedRatio}.
+     *
+     * Example: <pre>{@code {
+     * "executorId" : "cassandra.node.1.executor",
+     * "metric" : "readLatency99Micros",
+     * "from" : 1426686000000,
+     * "to" : 1426689600000,
+     * "step" : 600000,
+     * "points" : [ {
+     *     "timestamp" : 1426686000000,
+     *     "count" : 10,
+     *     "avg" : 2513.4,
+     *     "min" : 1955.0,
+     *     "max" : 3379.0
+     * } ]
+     * }}</pre>
+     */
+    @GET
+    @Path("/query")
+    public Response query(@QueryParam("node") final String node, @QueryParam("metric") final String metricName,
+                          @QueryParam("from") final Long fromParam, @QueryParam("to") final Long toParam,
+                          @QueryParam("step") @DefaultValue("0") final long step) {
+        if (node == null) {
+            return badRequest("node is required");
+        }
+        final NodeMetric metric = metricName != null ? NodeMetric.forName(metricName) : null;
+        if (metric == null) {
+            return badRequest("unknown metric '" + metricName + "'");
+        }
+        final CassandraFrameworkProtos.CassandraNode cassandraNode = cluster.findNode(node);
+        if (cassandraNode == null) {
+            return Response.status(404).build();
+        }
+        if (!cassandraNode.hasCassandraNodeExecutor()) {
+            return badRequest("node has no executor");
+        }
+
+        final String executorId = cassandraNode.getCassandraNodeExecutor().getExecutorId();
+        final long to = toParam != null ? toParam : System.currentTimeMillis();
+        final long from = fromParam != null ? fromParam : Math.max(to - DEFAULT_RANGE_MILLIS, 0L);
+        if (from < 0L || to < 0L || step < 0L) {
+            return badRequest("from, to and step must not be negative");
+        }
+        if (from > to) {
+            return badRequest("from must not be after to");
+        }
+        final MetricQueryResult result = cluster.getMetricsStore().query(executorId, metric, from, to, step);
+
+        return JaxRsUtils.buildStreamingResponse(factory, new StreamingJsonResponse() {
+            @Override
+            public void write(final JsonGenerator json) throws IOException {
+                json.writeStringField("executorId", executorId);
+                json.writeStringField("metric", metric.metricName());
+                json.writeNumberField("from", from);
+                json.writeNumberField("to", to);
+                json.writeNumberField("step", result.getStepMillis());
+                json.writeArrayFieldStart("points");
+                for (final MetricPoint point : result.getPoints()) {
+                    json.writeStartObject();
+                    json.writeNumberField("timestamp", point.getTimestamp());
+                    json.writeNumberField("count", point.getCount());
+                    json.writeNumberField("avg", point.getAvg());
+                    json.writeNumberField("min", point.getMin());
+                    json.writeNumberField("max", point.getMax());
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+            }
+        });
+    }
+
+    /**
+     * Exposes the instrumentation of the scheduler itself in the Prometheus text format: offers received, accepted
+     * and declined, offer evaluation latency, state write latency and size per persisted object, task status updates
+     * by state, framework messages by type, cluster job durations and REST API latency per controller.
+     */
+    @GET
+    @Produces(PROMETHEUS_TEXT_FORMAT)
+    public Response prometheus() {
+        return JaxRsUtils.buildStreamingResponse(Response.Status.OK, PROMETHEUS_TEXT_FORMAT, new StreamingTextResponse() {
+            @Override
+            public void write(final PrintWriter pw) throws IOException {
+                SchedulerMetrics.REGISTRY.write(pw);
+            }
+        });
+    }
+
+    @NotNull
+    private Response badRequest(@NotNull final String error) {
+        return JaxRsUtils.buildStreamingResponse(factory, Response.Status.BAD_REQUEST, new StreamingJsonResponse() {
+            @Override
+            public void write(final JsonGenerator json) throws IOException {
+                json.writeStringField("error", error);
+            }
+        });
+    }
+}
@@ -23,6 +23,8 @@ import io.mesosphere.mesos.frameworks.cassandra.scheduler.util.JaxRsUtils;
 import org.jetbrains.annotations.NotNull;
 
 import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.util.List;
@@ -35,14 +37,21 @@ public final class NodeController {
     private final CassandraCluster cluster;
     @NotNull
     private final JsonFactory factory;
+    @NotNull
+    private final JsonSnapshot nodesSnapshot;
 
     public NodeController(@NotNull final CassandraCluster cluster, @NotNull final JsonFactory factory) {
         this.cluster = cluster;
         this.factory = factory;
+        this.nodesSnapshot = new JsonSnapshot(cluster, factory);
     }
 
     /**
      * Retrieve a list of all nodes including their status.
+     * The response is cached until the cluster state changes and carries an {@code ETag}, requests with a matching
+     * {@code If-None-Match} header get a {@code 304 Not Modified}. The {@code ETag} is weak, it does not cover
+     * {@code lastHealthCheck} and {@code uptimeMillis} so that clients are not sent the whole list after every
+     * health check, new values of these fields are returned with the next other change.
      *
      *     <pre>{@code {
      * "replaceNodes" : [ ],
@@ -134,118 +143,81 @@ public final class NodeController {
      */
     @GET
     @Path("/all")
-    public Response nodes() {
+    public Response nodes(@Context final Request request) {
+        // the ETag ignores the health check timestamps and uptimes, which change with every health check
+        return nodesSnapshot.response(request, new NodesResponse(true), new NodesResponse(false));
+    }
+
+    /**
+     * Returns the performance metrics received with the last health check of the node specified using the path
+     * parameter `node`. The `node` parameter can be either the IP address, the hostname or the executor ID.
+     * Counters like {@code droppedMutations} and {@code gcPauseMillis} are the increase during the
+     * {@code intervalMillis} before the health check. {@code metrics} is {@code null} if no metrics have been received.
+     *
+     * Example:
+     * <pre>{@code {
+     * "ip" : "127.0.0.1",
+     * "hostname" : "localhost",
+     * "executorId" : "cassandra.node.1.executor",
+     * "lastHealthCheck" : 1426686217095,
+     * "metrics" : {
+     *     "intervalMillis" : 60001,
+     *     "readLatency50Micros" : 310,
+     *     "readLatency99Micros" : 2759,
+     *     "writeLatency50Micros" : 61,
+     *     "writeLatency99Micros" : 258,
+     *     "pendingCompactions" : 2,
+     *     "droppedMutations" : 0,
+     *     "heapUsedBytes" : 512327680,
+     *     "heapMaxBytes" : 2093809664,
+     *     "gcPauseMillis" : 48,
+     *     "sstableCount" : 42,
+     *     "hintsInProgress" : 0,
+     *     "diskUsage" : [ {
+     *         "path" : "/var/lib/cassandra/data",
+     *         "usedBytes" : 21474836480,
+     *         "totalBytes" : 107374182400
+     *     } ]
+     * }
+     * }}</pre>
+     */
+    @GET
+    @Path("/{node}/metrics")
+    public Response nodeMetrics(@PathParam("node") final String node) {
+        final CassandraFrameworkProtos.CassandraNode cassandraNode = cluster.findNode(node);
+        if (cassandraNode == null) {
+            return Response.status(404).build();
+        }
+
+        final CassandraFrameworkProtos.HealthCheckHistoryEntry lastHealthCheck =
+            cassandraNode.hasCassandraNodeExecutor() ? cluster.lastHealthCheck(cassandraNode.getCassandraNodeExecutor().getExecutorId()) : null;
+        final CassandraFrameworkProtos.NodeMetrics metrics =
+            cassandraNode.hasCassandraNodeExecutor() ? cluster.getMetricsStore().latest(cassandraNode.getCassandraNodeExecutor().getExecutorId()) : null;
+
         return JaxRsUtils.buildStreamingResponse(factory, new StreamingJsonResponse() {
             @Override
             public void write(final JsonGenerator json) throws IOException {
-                final CassandraFrameworkProtos.CassandraClusterState clusterState = cluster.getClusterState().get();
-
-                json.writeArrayFieldStart("replaceNodes");
-                for (final String ip : clusterState.getReplaceNodeIpsList()) {
-                    json.writeString(ip);
+                json.writeStringField("ip", cassandraNode.getIp());
+                json.writeStringField("hostname", cassandraNode.getHostname());
+                if (!cassandraNode.hasCassandraNodeExecutor()) {
+                    json.writeNullField("executorId");
+                } else {
+                    json.writeStringField("executorId", cassandraNode.getCassandraNodeExecutor().getExecutorId());
                 }
-                json.writeEndArray();
-
-                final NodeCounts nodeCounts = cluster.getClusterState().nodeCounts();
-                json.writeNumberField("nodesToAcquire", CassandraCluster.numberOfNodesToAcquire(nodeCounts, cluster.getConfiguration()));
-
-                json.writeArrayFieldStart("nodes");
-                for (final CassandraFrameworkProtos.CassandraNode cassandraNode : clusterState.getNodesList()) {
-                    json.writeStartObject();
-
-                    if (cassandraNode.hasReplacementForIp()) {
-                        json.writeStringField("replacementForIp", cassandraNode.getReplacementForIp());
-                    }
-
-                    json.writeObjectFieldStart("tasks");
-                    for (final CassandraFrameworkProtos.CassandraNodeTask cassandraNodeTask : cassandraNode.getTasksList()) {
-                        JaxRsUtils.writeTask(json, cassandraNodeTask);
-                    }
-                    json.writeEndObject();
-// TODO                cassandraNode.getDataVolumesList();
-
-                    if (!cassandraNode.hasCassandraNodeExecutor()) {
-                        json.writeNullField("executorId");
-                        json.writeNullField("workdir");
-                    } else {
-                        json.writeStringField("executorId", cassandraNode.getCassandraNodeExecutor().getExecutorId());
-                        final CassandraFrameworkProtos.ExecutorMetadata executorMetadata = cluster.metadataForExecutor(cassandraNode.getCassandraNodeExecutor().getExecutorId());
-                        if (executorMetadata != null) {
-                            json.writeStringField("workdir", executorMetadata.getWorkdir());
-                        } else {
-                            json.writeNullField("workdir");
-                        }
-                    }
-                    json.writeStringField("ip", cassandraNode.getIp());
-                    json.writeStringField("hostname", cassandraNode.getHostname());
-                    json.writeStringField("targetRunState", cassandraNode.getTargetRunState().name());
-                    json.writeNumberField("jmxPort", cassandraNode.getJmxConnect().getJmxPort());
-                    json.writeBooleanField("seedNode", cassandraNode.getSeed());
-
-                    CassandraFrameworkProtos.RackDc rackDc = cassandraNode.getRackDc();
-                    json.writeObjectFieldStart("rackDc");
-                    json.writeStringField("rack", rackDc.getRack());
-                    json.writeStringField("dc", rackDc.getDc());
-                    json.writeEndObject();
-
-                    if (!cassandraNode.hasCassandraDaemonPid()) {
-                        json.writeNullField("cassandraDaemonPid");
-                    } else {
-                        json.writeNumberField("cassandraDaemonPid", cassandraNode.getCassandraDaemonPid());
-                    }
-
-                    final CassandraFrameworkProtos.HealthCheckHistoryEntry lastHealthCheck =
-                            cassandraNode.hasCassandraNodeExecutor() ? cluster.lastHealthCheck(cassandraNode.getCassandraNodeExecutor().getExecutorId()) : null;
-
-                    if (lastHealthCheck != null) {
-                        json.writeNumberField("lastHealthCheck", lastHealthCheck.getTimestampEnd());
-                    } else {
-                        json.writeNullField("lastHealthCheck");
-                    }
-
-                    if (lastHealthCheck != null) {
-                        json.writeObjectFieldStart("healthCheckDetails");
-
-                        final CassandraFrameworkProtos.HealthCheckDetails hcd = lastHealthCheck.getDetails();
-
-                        json.writeBooleanField("healthy", hcd.getHealthy());
-                        json.writeStringField("msg", hcd.getMsg());
-
-                        json.writeStringField("version", hcd.getInfo().getVersion());
-                        json.writeStringField("operationMode", hcd.getInfo().getOperationMode());
-                        json.writeStringField("clusterName", hcd.getInfo().getClusterName());
-                        json.writeStringField("dataCenter", hcd.getInfo().getDataCenter());
-                        json.writeStringField("rack", hcd.getInfo().getRack());
-                        json.writeStringField("endpoint", hcd.getInfo().getEndpoint());
-                        json.writeStringField("hostId", hcd.getInfo().getHostId());
-                        json.writeBooleanField("joined", hcd.getInfo().getJoined());
-                        json.writeBooleanField("gossipInitialized", hcd.getInfo().getGossipInitialized());
-                        json.writeBooleanField("gossipRunning", hcd.getInfo().getGossipRunning());
-                        json.writeBooleanField("nativeTransportRunning", hcd.getInfo().getNativeTransportRunning());
-                        json.writeBooleanField("rpcServerRunning", hcd.getInfo().getRpcServerRunning());
-                        json.writeNumberField("tokenCount", hcd.getInfo().getTokenCount());
-                        json.writeNumberField("uptimeMillis", hcd.getInfo().getUptimeMillis());
-
-                        json.writeEndObject();
-                    } else {
-                        json.writeNullField("healthCheckDetails");
-                    }
 
-                    final List<CassandraFrameworkProtos.DataVolume> dataVolumes = cassandraNode.getDataVolumesList();
-                    json.writeArrayFieldStart("dataVolumes");
-                    for (final CassandraFrameworkProtos.DataVolume volume : dataVolumes) {
-                        json.writeStartObject();
-                        json.writeStringField("path", volume.getPath());
-                        if (volume.hasSizeMb()) {
-                            json.writeNumberField("size", volume.getSizeMb());
-                        }
-                        json.writeEndObject();
-                    }
-                    json.writeEndArray();
+                if (lastHealthCheck != null) {
+                    json.writeNumberField("lastHealthCheck", lastHealthCheck.getTimestampEnd());
+                } else {
+                    json.writeNullField("lastHealthCheck");
+                }
 
+                if (metrics != null) {
+                    json.writeObjectFieldStart("metrics");
+                    JaxRsUtils.writeNodeMetrics(json, metrics);
                     json.writeEndObject();
+                } else {
+                    json.writeNullField("metrics");
                 }
-                json.writeEndArray();
             }
         });
     }
@@ -543,4 +515,132 @@ public final class NodeController {
                 }
         );
     }
+
+    /**
+     * Writes the body of {@code /node/all}, or without the fields that change with every health check for its
+     * {@code ETag} if {@code volatileFields} is {@code false}.
+     */
+    private final class NodesResponse implements StreamingJsonResponse {
+        private final boolean volatileFields;
+
+        NodesResponse(final boolean volatileFields) {
+            this.volatileFields = volatileFields;
+        }
+
+        @Override
+        public void write(final JsonGenerator json) throws IOException {
+            final CassandraFrameworkProtos.CassandraClusterState clusterState = cluster.getClusterState().get();
+
+            json.writeArrayFieldStart("replaceNodes");
+            for (final String ip : clusterState.getReplaceNodeIpsList()) {
+                json.writeString(ip);
+            }
+            json.writeEndArray();
+
+            final NodeCounts nodeCounts = cluster.getClusterState().nodeCounts();
+            json.writeNumberField("nodesToAcquire", CassandraCluster.numberOfNodesToAcquire(nodeCounts, cluster.getConfiguration()));
+
+            json.writeArrayFieldStart("nodes");
+            for (final CassandraFrameworkProtos.CassandraNode cassandraNode : clusterState.getNodesList()) {
+                json.writeStartObject();
+
+                if (cassandraNode.hasReplacementForIp()) {
+                    json.writeStringField("replacementForIp", cassandraNode.getReplacementForIp());
+                }
+
+                json.writeObjectFieldStart("tasks");
+                for (final CassandraFrameworkProtos.CassandraNodeTask cassandraNodeTask : cassandraNode.getTasksList()) {
+                    JaxRsUtils.writeTask(json, cassandraNodeTask);
+                }
+                json.writeEndObject();
+// TODO                cassandraNode.getDataVolumesList();
+
+                if (!cassandraNode.hasCassandraNodeExecutor()) {
+                    json.writeNullField("executorId");
+                    json.writeNullField("workdir");
+                } else {
+                    json.writeStringField("executorId", cassandraNode.getCassandraNodeExecutor().getExecutorId());
+                    final CassandraFrameworkProtos.ExecutorMetadata executorMetadata = cluster.metadataForExecutor(cassandraNode.getCassandraNodeExecutor().getExecutorId());
+                    if (executorMetadata != null) {
+                        json.writeStringField("workdir", executorMetadata.getWorkdir());
+                    } else {
+                        json.writeNullField("workdir");
+                    }
+                }
+                json.writeStringField("ip", cassandraNode.getIp());
+                json.writeStringField("hostname", cassandraNode.getHostname());
+                json.writeStringField("targetRunState", cassandraNode.getTargetRunState().name());
+                json.writeNumberField("jmxPort", cassandraNode.getJmxConnect().getJmxPort());
+                json.writeBooleanField("seedNode", cassandraNode.getSeed());
+
+                CassandraFrameworkProtos.RackDc rackDc = cassandraNode.getRackDc();
+                json.writeObjectFieldStart("rackDc");
+                json.writeStringField("rack", rackDc.getRack());
+                json.writeStringField("dc", rackDc.getDc());
+                json.writeEndObject();
+
+                if (!cassandraNode.hasCassandraDaemonPid()) {
+                    json.writeNullField("cassandraDaemonPid");
+                } else {
+                    json.writeNumberField("cassandraDaemonPid", cassandraNode.getCassandraDaemonPid());
+                }
+
+                final CassandraFrameworkProtos.HealthCheckHistoryEntry lastHealthCheck =
+                        cassandraNode.hasCassandraNodeExecutor() ? cluster.lastHealthCheck(cassandraNode.getCassandraNodeExecutor().getExecutorId()) : null;
+
+                if (volatileFields) {
+                    if (lastHealthCheck != null) {
+                        json.writeNumberField("lastHealthCheck", lastHealthCheck.getTimestampEnd());
+                    } else {
+                        json.writeNullField("lastHealthCheck");
+                    }
+                }
+
+                if (lastHealthCheck != null) {
+                    json.writeObjectFieldStart("healthCheckDetails");
+
+                    final CassandraFrameworkProtos.HealthCheckDetails hcd = lastHealthCheck.getDetails();
+
+                    json.writeBooleanField("healthy", hcd.getHealthy());
+                    json.writeStringField("msg", hcd.getMsg());
+
+                    json.writeStringField("version", hcd.getInfo().getVersion());
+                    json.writeStringField("operationMode", hcd.getInfo().getOperationMode());
+                    json.writeStringField("clusterName", hcd.getInfo().getClusterName());
+                    json.writeStringField("dataCenter", hcd.getInfo().getDataCenter());
+                    json.writeStringField("rack", hcd.getInfo().getRack());
+                    json.writeStringField("endpoint", hcd.getInfo().getEndpoint());
+                    json.writeStringField("hostId", hcd.getInfo().getHostId());
+                    json.writeBooleanField("joined", hcd.getInfo().getJoined());
+                    json.writeBooleanField("gossipInitialized", hcd.getInfo().getGossipInitialized());
+                    json.writeBooleanField("gossipRunning", hcd.getInfo().getGossipRunning());
+                    json.writeBooleanField("nativeTransportRunning", hcd.getInfo().getNativeTransportRunning());
+                    json.writeBooleanField("rpcServerRunning", hcd.getInfo().getRpcServerRunning());
+                    json.writeNumberField("tokenCount", hcd.getInfo().getTokenCount());
+                    if (volatileFields) {
+                        json.writeNumberField("uptimeMillis", hcd.getInfo().getUptimeMillis());
+                    }
+
+                    json.writeEndObject();
+                } else {
+                    json.writeNullField("healthCheckDetails");
+                }
+
+                final List<CassandraFrameworkProtos.DataVolume> dataVolumes = cassandraNode.getDataVolumesList();
+                json.writeArrayFieldStart("dataVolumes");
+                for (final CassandraFrameworkProtos.DataVolume volume : dataVolumes) {
+                    json.writeStartObject();
+                    json.writeStringField("path", volume.getPath());
+                    if (volume.hasSizeMb()) {
+                        json.writeNumberField("size", volume.getSizeMb());
+                    }
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+    }
 }
@@ -0,0 +1,151 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.events;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable notification about a change of a node or of a cluster job, as stored in the {@link ClusterEventLog}.
+ */
+public final class ClusterEvent {
+
+    public enum Type {
+        /**
+         * A new node has been acquired from a resource offer. The executor ID is not known yet.
+         */
+        NODE_ACQUIRED,
+        /**
+         * The Cassandra server task of a node is being launched.
+         */
+        SERVER_TASK_LAUNCHED,
+        /**
+         * The Cassandra server task of a node is no longer running.
+         */
+        SERVER_TASK_REMOVED,
+        /**
+         * The node serves clients, i.e. it is healthy and runs the native protocol and thrift, like the nodes
+         * returned by {@code /live-nodes}.
+         */
+        NODE_HEALTHY,
+        /**
+         * The node no longer serves clients.
+         */
+        NODE_UNHEALTHY,
+        /**
+         * The requested run state (run, stop, restart, terminate) of a node changed.
+         */
+        NODE_TARGET_RUN_STATE_CHANGED,
+        /**
+         * A node became a seed node or stopped being one.
+         */
+        SEED_CHANGED,
+        /**
+         * A node that replaces a terminated node became healthy.
+         */
+        NODE_REPLACED,
+        /**
+         * The executor of a node is gone, together with all its tasks.
+         */
+        EXECUTOR_REMOVED,
+        CLUSTER_JOB_STARTED,
+        /**
+         * A node finished its part of the current cluster job.
+         */
+        CLUSTER_JOB_PROGRESS,
+        /**
+         * The current cluster job finished or has been aborted.
+         */
+        CLUSTER_JOB_FINISHED
+    }
+
+    private final long offset;
+    private final long timestamp;
+    @NotNull
+    private final Type type;
+    @Nullable
+    private final String executorId;
+    @Nullable
+    private final String ip;
+    @NotNull
+    private final Map<String, Object> attributes;
+
+    ClusterEvent(
+        final long offset,
+        final long timestamp,
+        @NotNull final Type type,
+        @Nullable final String executorId,
+        @Nullable final String ip,
+        @NotNull final Map<String, Object> attributes
+    ) {
+        this.offset = offset;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.executorId = executorId;
+        this.ip = ip;
+        this.attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+    }
+
+    /**
+     * Position of the event in the log, consecutive and starting at {@code 0} when the scheduler starts.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @NotNull
+    public Type getType() {
+        return type;
+    }
+
+    @Nullable
+    public String getExecutorId() {
+        return executorId;
+    }
+
+    @Nullable
+    public String getIp() {
+        return ip;
+    }
+
+    /**
+     * Type specific details, values are strings, numbers or booleans.
+     */
+    @NotNull
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterEvent{" +
+            "offset=" + offset +
+            ", timestamp=" + timestamp +
+            ", type=" + type +
+            ", executorId='" + executorId + '\'' +
+            ", ip='" + ip + '\'' +
+            ", attributes=" + attributes +
+            '}';
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.events;
+
+import io.mesosphere.mesos.util.Clock;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory log of {@link ClusterEvent}s with consecutive offsets.
+ * <p>
+ * Readers keep the offset of the next event they want to read and resume from it, e.g. after a reconnect. Only the
+ * latest {@code capacity} events are kept, a reader that fell further behind is told so via
+ * {@link Page#isTruncated()}. Readers that are up to date can register a {@link Waiter} that is notified once when
+ * the next event has been published, which allows long-polling without a thread per waiting client. Waiters are
+ * notified on a separate executor, so that neither the publishing thread (usually the Mesos driver's callback thread)
+ * nor the log's lock is held while a waiter writes its response.
+ * The log is not persisted, offsets start at {@code 0} when the scheduler starts. Offsets are therefore only
+ * meaningful together with the log's {@link #epoch()}, which is different for every scheduler run: a reader that
+ * passes the epoch of another run is told that its offset is unknown via {@link Page#isTruncated()}.
+ */
+public final class ClusterEventLog {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterEventLog.class);
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    public interface Waiter {
+        /**
+         * Called once on the log's notification executor, without any lock held, after an event at or after the
+         * awaited offset has been published.
+         */
+        void eventsAvailable();
+    }
+
+    @NotNull
+    private final Clock clock;
+    @NotNull
+    private final Executor notifier;
+    @NotNull
+    private final String epoch = UUID.randomUUID().toString();
+    // ring, nextOffset and waiters are guarded by this
+    @NotNull
+    private final ClusterEvent[] ring;
+    private long nextOffset;
+    @NotNull
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    public ClusterEventLog(@NotNull final Clock clock) {
+        this(clock, DEFAULT_CAPACITY);
+    }
+
+    public ClusterEventLog(@NotNull final Clock clock, final int capacity) {
+        this(clock, capacity, newNotifier());
+    }
+
+    public ClusterEventLog(@NotNull final Clock clock, final int capacity, @NotNull final Executor notifier) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.clock = clock;
+        this.ring = new ClusterEvent[capacity];
+        this.notifier = notifier;
+    }
+
+    @NotNull
+    private static Executor newNotifier() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(@NotNull final Runnable r) {
+                final Thread t = new Thread(r, "cluster-event-notifier");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public void publish(@NotNull final ClusterEvent.Type type, @Nullable final String executorId, @Nullable final String ip) {
+        publish(type, executorId, ip, Collections.<String, Object>emptyMap());
+    }
+
+    public void publish(
+        @NotNull final ClusterEvent.Type type,
+        @Nullable final String executorId,
+        @Nullable final String ip,
+        @NotNull final Map<String, Object> attributes
+    ) {
+        final ClusterEvent event;
+        synchronized (this) {
+            event = new ClusterEvent(nextOffset, clock.now().getMillis(), type, executorId, ip, attributes);
+            ring[(int) (nextOffset % ring.length)] = event;
+            nextOffset++;
+            // only hand the waiters over to the notifier here, they write their responses on its threads
+            for (final Waiter waiter : waiters) {
+                notifier.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            waiter.eventsAvailable();
+                        } catch (final RuntimeException e) {
+                            LOGGER.warn("Failed to notify waiter about cluster events", e);
+                        }
+                    }
+                });
+            }
+            waiters.clear();
+        }
+        LOGGER.debug("Published {}", event);
+    }
+
+    /**
+     * Identifies this run of the log, offsets of different runs must not be mixed.
+     */
+    @NotNull
+    public String epoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns up to {@code limit} events starting at offset {@code from}. If {@code from} is negative, reading starts
+     * at the oldest retained event. If {@code from} is older than the oldest retained event, beyond the next offset
+     * or belongs to another {@code epoch} (e.g. an offset from before a scheduler failover), reading starts at the
+     * oldest retained event and the page is truncated.
+     *
+     * @param epoch the {@link #epoch()} {@code from} has been returned with, {@code null} for the current one
+     */
+    @NotNull
+    public synchronized Page read(@Nullable final String epoch, final long from, final int limit) {
+        final long oldest = oldestOffset();
+        final boolean truncated = from >= 0 && (!isCurrentEpoch(epoch) || from > nextOffset || from < oldest);
+        final long start = from < 0 || truncated ? oldest : from;
+        final int count = (int) Math.max(0L, Math.min(limit, nextOffset - start));
+        final List<ClusterEvent> events = new ArrayList<>(count);
+        for (long offset = start; offset < start + count; offset++) {
+            events.add(ring[(int) (offset % ring.length)]);
+        }
+        return new Page(this.epoch, events, start + count, oldest, truncated);
+    }
+
+    /**
+     * Registers {@code waiter} to be notified about the next published event, unless events at {@code from} can
+     * be read already.
+     *
+     * @return {@code true} if the waiter has been registered, {@code false} if {@link #read(String, long, int)}
+     *         would return events (or a truncated page) right away
+     */
+    public synchronized boolean await(@Nullable final String epoch, final long from, @NotNull final Waiter waiter) {
+        if (from >= 0 && !isCurrentEpoch(epoch) || (from < 0 ? oldestOffset() : from) != nextOffset) {
+            return false;
+        }
+        waiters.add(waiter);
+        return true;
+    }
+
+    /**
+     * Unregisters a waiter that has not been notified, e.g. because the waiting client timed out.
+     */
+    public synchronized void cancel(@NotNull final Waiter waiter) {
+        waiters.remove(waiter);
+    }
+
+    public synchronized long nextOffset() {
+        return nextOffset;
+    }
+
+    private boolean isCurrentEpoch(@Nullable final String epoch) {
+        return epoch == null || this.epoch.equals(epoch);
+    }
+
+    private long oldestOffset() {
+        return Math.max(0L, nextOffset - ring.length);
+    }
+
+    /**
+     * Result of {@link #read(String, long, int)}.
+     */
+    public static final class Page {
+        @NotNull
+        private final String epoch;
+        @NotNull
+        private final List<ClusterEvent> events;
+        private final long nextOffset;
+        private final long oldestOffset;
+        private final boolean truncated;
+
+        Page(@NotNull final String epoch, @NotNull final List<ClusterEvent> events, final long nextOffset, final long oldestOffset, final boolean truncated) {
+            this.epoch = epoch;
+            this.events = Collections.unmodifiableList(events);
+            this.nextOffset = nextOffset;
+            this.oldestOffset = oldestOffset;
+            this.truncated = truncated;
+        }
+
+        /**
+         * Epoch of the offsets in this page, to be passed with {@link #getNextOffset()} when reading on.
+         */
+        @NotNull
+        public String getEpoch() {
+            return epoch;
+        }
+
+        @NotNull
+        public List<ClusterEvent> getEvents() {
+            return events;
+        }
+
+        /**
+         * Offset to continue reading from.
+         */
+        public long getNextOffset() {
+            return nextOffset;
+        }
+
+        public long getOldestOffset() {
+            return oldestOffset;
+        }
+
+        /**
+         * Whether events between the requested offset and the first returned event are no longer available, or
+         * the requested offset is unknown, so that the reader has to resynchronize its view of the cluster.
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+    }
+}
@@ -24,6 +24,8 @@ import static io.mesosphere.mesos.util.Functions.zip;
 
 final class ClusterStateEvaluations {
 
+    static final String LAST_HEALTH_CHECK_NEWER_THAN = "lastHealthCheckNewerThan";
+
     private static final Ordering<Comparable> REVERSE = Ordering.natural().reverse();
 
     private ClusterStateEvaluations() {}
@@ -147,7 +149,7 @@ final class ClusterStateEvaluations {
     @NotNull
     public static ClusterHealthEvaluationEntry<List<Long>> lastHealthCheckNewerThan(final long timestamp) {
         return new ClusterHealthEvaluationEntry<>(
-            "lastHealthCheckNewerThan",
+            LAST_HEALTH_CHECK_NEWER_THAN,
             new Function<ClusterHealthEvaluationContext, List<Long>>() {
                 @Override
                 public List<Long> apply(final ClusterHealthEvaluationContext input) {
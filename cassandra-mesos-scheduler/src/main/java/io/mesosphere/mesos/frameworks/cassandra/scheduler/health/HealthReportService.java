@@ -7,6 +7,7 @@ import io.mesosphere.mesos.frameworks.cassandra.scheduler.PersistedCassandraClus
 import io.mesosphere.mesos.frameworks.cassandra.scheduler.PersistedCassandraFrameworkConfiguration;
 import io.mesosphere.mesos.util.Clock;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.joda.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +32,9 @@ public final class HealthReportService {
     @NotNull
     private final Clock clock;
 
+    @Nullable
+    private volatile CachedHealth cachedHealth;
+
     public HealthReportService(
         @NotNull final PersistedCassandraClusterState clusterState,
         @NotNull final PersistedCassandraFrameworkConfiguration config,
@@ -56,6 +60,48 @@ public final class HealthReportService {
         return clusterHealthReport;
     }
 
+    /**
+     * Returns whether the cluster is healthy, like {@code generateClusterHealthReport().isHealthy()}.
+     * The cluster is only evaluated again when the cluster state, configuration or health check history changed,
+     * or when the oldest of the latest health checks of a healthy cluster expires.
+     */
+    public boolean isClusterHealthy() {
+        // read the version before the state, a change while evaluating only causes another evaluation
+        final long version = stateVersion();
+        final CachedHealth cached = cachedHealth;
+        if (cached != null && cached.version >= version && clock.now().getMillis() < cached.validUntil) {
+            return cached.healthy;
+        }
+
+        final ClusterHealthReport report = generateClusterHealthReport();
+        final boolean healthy = report.isHealthy();
+        if (cached == null || cached.healthy != healthy) {
+            LOGGER.info("Cluster health changed: healthy = {}", healthy);
+        }
+        // time can only turn a healthy cluster into an unhealthy one, by health checks getting too old
+        cachedHealth = new CachedHealth(version, healthy, healthy ? healthyUntil(report) : Long.MAX_VALUE);
+        return healthy;
+    }
+
+    private long stateVersion() {
+        return clusterState.version() + config.version() + healthCheckHistory.version();
+    }
+
+    /**
+     * Returns the time when the oldest of the latest health checks of the nodes expires.
+     */
+    private static long healthyUntil(@NotNull final ClusterHealthReport report) {
+        long oldest = Long.MAX_VALUE;
+        for (final ClusterHealthEvaluationResult<?> result : report.getResults()) {
+            if (LAST_HEALTH_CHECK_NEWER_THAN.equals(result.getName())) {
+                for (final Object timestamp : (List<?>) result.getActual()) {
+                    oldest = Math.min(oldest, (Long) timestamp);
+                }
+            }
+        }
+        return oldest == Long.MAX_VALUE ? Long.MAX_VALUE : oldest + HEATH_CHECK_EXPIRATION_DURATION.getMillis();
+    }
+
     @SuppressWarnings("unchecked")
     @NotNull
     @VisibleForTesting
@@ -84,4 +130,15 @@ public final class HealthReportService {
         return new ClusterHealthReport(results);
     }
 
+    private static final class CachedHealth {
+        final long version;
+        final boolean healthy;
+        final long validUntil;
+
+        CachedHealth(final long version, final boolean healthy, final long validUntil) {
+            this.version = version;
+            this.healthy = healthy;
+            this.validUntil = validUntil;
+        }
+    }
 }
@@ -0,0 +1,97 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of observed values over fixed buckets.
+ * Values are recorded as {@code long} in a base unit, e.g. nanoseconds or bytes, and converted to the exposed unit,
+ * e.g. seconds, only when the histogram is written. Recording does neither lock nor allocate.
+ */
+public final class Histogram {
+    /**
+     * Bucket bounds for latencies in nanoseconds, from 100 microseconds to 10 seconds.
+     */
+    public static final long[] LATENCY_NANOS_BUCKETS = {
+        TimeUnit.MICROSECONDS.toNanos(100), TimeUnit.MICROSECONDS.toNanos(250), TimeUnit.MICROSECONDS.toNanos(500),
+        TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MICROSECONDS.toNanos(2500), TimeUnit.MILLISECONDS.toNanos(5),
+        TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(25), TimeUnit.MILLISECONDS.toNanos(50),
+        TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.MILLISECONDS.toNanos(250), TimeUnit.MILLISECONDS.toNanos(500),
+        TimeUnit.SECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(2500), TimeUnit.SECONDS.toNanos(5),
+        TimeUnit.SECONDS.toNanos(10)
+    };
+    /**
+     * Factor to expose nanoseconds as seconds.
+     */
+    public static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @NotNull
+    private final long[] bounds;
+    /**
+     * One counter per bucket, the last one counts the values above the largest bound.
+     */
+    @NotNull
+    private final AtomicLongArray buckets;
+    @NotNull
+    private final AtomicLong sum = new AtomicLong();
+
+    Histogram(@NotNull final long[] bounds) {
+        this.bounds = bounds;
+        buckets = new AtomicLongArray(bounds.length + 1);
+    }
+
+    public void observe(final long value) {
+        int i = 0;
+        while (i < bounds.length && value > bounds[i]) {
+            i++;
+        }
+        buckets.incrementAndGet(i);
+        sum.addAndGet(value);
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, as returned by {@link System#nanoTime()}.
+     */
+    public void observeSince(final long startNanos) {
+        observe(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        long count = 0L;
+        for (int i = 0; i < buckets.length(); i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    @NotNull
+    long[] bounds() {
+        return bounds;
+    }
+
+    long bucket(final int i) {
+        return buckets.get(i);
+    }
+}
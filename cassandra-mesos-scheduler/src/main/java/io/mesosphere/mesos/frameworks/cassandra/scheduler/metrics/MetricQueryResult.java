@@ -0,0 +1,49 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Result of {@link NodeMetricsStore#query(String, NodeMetric, long, long, long)}.
+ */
+public final class MetricQueryResult {
+    private final long stepMillis;
+    @NotNull
+    private final List<MetricPoint> points;
+
+    MetricQueryResult(final long stepMillis, @NotNull final List<MetricPoint> points) {
+        this.stepMillis = stepMillis;
+        this.points = points;
+    }
+
+    /**
+     * Effective step of the points in milliseconds.
+     */
+    public long getStepMillis() {
+        return stepMillis;
+    }
+
+    /**
+     * Points in ascending time order, steps without values are omitted.
+     */
+    @NotNull
+    public List<MetricPoint> getPoints() {
+        return points;
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed size ring of aggregation buckets of one metric at one resolution.
+ * Each bucket keeps count, sum, minimum and maximum of the values recorded during its time span in primitive
+ * arrays. A bucket is reused once its slot is needed for a newer time span, so the tier holds the latest
+ * {@code resolutionMillis * buckets} milliseconds. Timestamps before the epoch are not held. Not thread safe.
+ */
+final class MetricTier {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long resolutionMillis;
+    @NotNull
+    private final long[] starts;
+    @NotNull
+    private final int[] counts;
+    @NotNull
+    private final double[] sums;
+    @NotNull
+    private final double[] mins;
+    @NotNull
+    private final double[] maxs;
+
+    MetricTier(final long resolutionMillis, final int buckets) {
+        this.resolutionMillis = resolutionMillis;
+        starts = new long[buckets];
+        Arrays.fill(starts, EMPTY);
+        counts = new int[buckets];
+        sums = new double[buckets];
+        mins = new double[buckets];
+        maxs = new double[buckets];
+    }
+
+    long resolutionMillis() {
+        return resolutionMillis;
+    }
+
+    long retentionMillis() {
+        return resolutionMillis * starts.length;
+    }
+
+    void add(final long timestamp, final double value) {
+        if (timestamp < 0L) {
+            return;
+        }
+        final long start = bucketStart(timestamp, resolutionMillis);
+        final int i = index(start);
+        if (starts[i] != start) {
+            if (starts[i] > start) {
+                // slot already holds a newer time span
+                return;
+            }
+            starts[i] = start;
+            counts[i] = 0;
+            sums[i] = 0d;
+            mins[i] = Double.POSITIVE_INFINITY;
+            maxs[i] = Double.NEGATIVE_INFINITY;
+        }
+        counts[i]++;
+        sums[i] += value;
+        mins[i] = Math.min(mins[i], value);
+        maxs[i] = Math.max(maxs[i], value);
+    }
+
+    /**
+     * Aggregates the buckets in {@code [from, to]} into points of {@code stepMillis}, which must be a multiple of
+     * the resolution. Time spans without values are omitted, the range is clamped to timestamps since the epoch.
+     */
+    void query(final long from, final long to, final long stepMillis, @NotNull final List<MetricPoint> points) {
+        if (to < 0L) {
+            return;
+        }
+        MetricPoint current = null;
+        // buckets older than the retention are gone, no need to visit them
+        final long last = bucketStart(to, resolutionMillis);
+        final long first = Math.max(bucketStart(Math.max(from, 0L), resolutionMillis), last - retentionMillis() + resolutionMillis);
+        // counted instead of comparing start with to, which would overflow for a to close to Long.MAX_VALUE
+        final long count = first <= last ? (last - first) / resolutionMillis + 1 : 0L;
+        for (long n = 0L; n < count; n++) {
+            final long start = first + n * resolutionMillis;
+            final int i = index(start);
+            if (starts[i] != start) {
+                continue;
+            }
+            final long pointStart = bucketStart(start, stepMillis);
+            if (current == null || current.getTimestamp() != pointStart) {
+                current = new MetricPoint(pointStart);
+                points.add(current);
+            }
+            current.add(counts[i], sums[i], mins[i], maxs[i]);
+        }
+    }
+
+    private int index(final long start) {
+        return (int) ((start / resolutionMillis) % starts.length);
+    }
+
+    static long bucketStart(final long timestamp, final long resolutionMillis) {
+        return timestamp - (timestamp % resolutionMillis);
+    }
+}
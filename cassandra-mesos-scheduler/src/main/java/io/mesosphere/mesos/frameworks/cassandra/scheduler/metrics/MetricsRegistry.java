@@ -0,0 +1,255 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Named counters, gauges and histograms, optionally split by the value of one label, that can be written in the
+ * Prometheus text exposition format.
+ * <p>
+ * Lines are terminated by {@code \n} regardless of the platform, as required by the format.
+ * Metrics are meant to be looked up once and kept in fields. Looking up the child of an existing label value is a
+ * single {@link ConcurrentHashMap#get(Object)}, only the first use of a label value allocates.
+ */
+public final class MetricsRegistry {
+    @NotNull
+    private final List<Family<?>> families = new CopyOnWriteArrayList<>();
+
+    @NotNull
+    public Counter counter(@NotNull final String name, @NotNull final String help) {
+        return counters(name, help, null).labels("");
+    }
+
+    @NotNull
+    public Family<Counter> counters(@NotNull final String name, @NotNull final String help, @Nullable final String labelName) {
+        return register(new Family<Counter>(name, help, labelName) {
+            @NotNull
+            @Override
+            Counter newChild() {
+                return new Counter();
+            }
+
+            @Override
+            void writeChild(@NotNull final PrintWriter out, @NotNull final String labelValue, @NotNull final Counter counter) {
+                out.print(name);
+                writeLabels(out, labelValue, null);
+                out.print(' ');
+                out.print(counter.get());
+                out.print('\n');
+            }
+        });
+    }
+
+    @NotNull
+    public Family<Gauge> gauges(@NotNull final String name, @NotNull final String help, @Nullable final String labelName) {
+        return register(new Family<Gauge>(name, help, labelName) {
+            @NotNull
+            @Override
+            Gauge newChild() {
+                return new Gauge();
+            }
+
+            @Override
+            String type() {
+                return "gauge";
+            }
+
+            @Override
+            void writeChild(@NotNull final PrintWriter out, @NotNull final String labelValue, @NotNull final Gauge gauge) {
+                out.print(name);
+                writeLabels(out, labelValue, null);
+                out.print(' ');
+                out.print(gauge.get());
+                out.print('\n');
+            }
+        });
+    }
+
+    /**
+     * @param scale divisor that converts the recorded values into the exposed unit, e.g.
+     *              {@link Histogram#NANOS_PER_SECOND} for latencies recorded in nanoseconds
+     * @param bounds upper bounds of the buckets in the recorded unit, ascending
+     */
+    @NotNull
+    public Histogram histogram(@NotNull final String name, @NotNull final String help, final double scale, @NotNull final long... bounds) {
+        return histograms(name, help, null, scale, bounds).labels("");
+    }
+
+    @NotNull
+    public Family<Histogram> histograms(@NotNull final String name, @NotNull final String help, @Nullable final String labelName,
+                                        final double scale, @NotNull final long... bounds) {
+        final long[] sortedBounds = bounds.clone();
+        Arrays.sort(sortedBounds);
+        return register(new Family<Histogram>(name, help, labelName) {
+            @NotNull
+            @Override
+            Histogram newChild() {
+                return new Histogram(sortedBounds);
+            }
+
+            @Override
+            String type() {
+                return "histogram";
+            }
+
+            @Override
+            void writeChild(@NotNull final PrintWriter out, @NotNull final String labelValue, @NotNull final Histogram histogram) {
+                long cumulative = 0L;
+                final long[] histogramBounds = histogram.bounds();
+                for (int i = 0; i <= histogramBounds.length; i++) {
+                    cumulative += histogram.bucket(i);
+                    out.print(name);
+                    out.print("_bucket");
+                    writeLabels(out, labelValue, i < histogramBounds.length ? format(histogramBounds[i], scale) : "+Inf");
+                    out.print(' ');
+                    out.print(cumulative);
+                    out.print('\n');
+                }
+                out.print(name);
+                out.print("_sum");
+                writeLabels(out, labelValue, null);
+                out.print(' ');
+                out.print(format(histogram.getSum(), scale));
+                out.print('\n');
+                out.print(name);
+                out.print("_count");
+                writeLabels(out, labelValue, null);
+                out.print(' ');
+                out.print(cumulative);
+                out.print('\n');
+            }
+        });
+    }
+
+    public void write(@NotNull final PrintWriter out) {
+        for (final Family<?> family : families) {
+            family.write(out);
+        }
+    }
+
+    @NotNull
+    private <F extends Family<?>> F register(@NotNull final F family) {
+        for (final Family<?> existing : families) {
+            if (existing.name.equals(family.name)) {
+                throw new IllegalArgumentException("metric " + family.name + " already registered");
+            }
+        }
+        families.add(family);
+        return family;
+    }
+
+    @NotNull
+    private static String format(final long value, final double scale) {
+        return scale == 1d ? Long.toString(value) : Double.toString(value / scale);
+    }
+
+    /**
+     * Metrics of the same name, one per value of the label. Metrics without label have a single child for the
+     * empty label value.
+     */
+    public abstract static class Family<T> {
+        @NotNull
+        final String name;
+        @NotNull
+        private final String help;
+        @Nullable
+        private final String labelName;
+        @NotNull
+        private final ConcurrentMap<String, T> children = new ConcurrentHashMap<>();
+
+        Family(@NotNull final String name, @NotNull final String help, @Nullable final String labelName) {
+            this.name = name;
+            this.help = help;
+            this.labelName = labelName;
+        }
+
+        @NotNull
+        public T labels(@NotNull final String labelValue) {
+            T child = children.get(labelValue);
+            if (child == null) {
+                child = newChild();
+                final T existing = children.putIfAbsent(labelValue, child);
+                if (existing != null) {
+                    child = existing;
+                }
+            }
+            return child;
+        }
+
+        @NotNull
+        abstract T newChild();
+
+        String type() {
+            return "counter";
+        }
+
+        abstract void writeChild(@NotNull PrintWriter out, @NotNull String labelValue, @NotNull T child);
+
+        void write(@NotNull final PrintWriter out) {
+            out.print("# HELP ");
+            out.print(name);
+            out.print(' ');
+            out.print(help);
+            out.print('\n');
+            out.print("# TYPE ");
+            out.print(name);
+            out.print(' ');
+            out.print(type());
+            out.print('\n');
+            for (final Map.Entry<String, T> child : new TreeMap<>(children).entrySet()) {
+                writeChild(out, child.getKey(), child.getValue());
+            }
+        }
+
+        void writeLabels(@NotNull final PrintWriter out, @NotNull final String labelValue, @Nullable final String le) {
+            if (labelName == null && le == null) {
+                return;
+            }
+            out.print('{');
+            if (labelName != null) {
+                out.print(labelName);
+                out.print("=\"");
+                out.print(escape(labelValue));
+                out.print('"');
+                if (le != null) {
+                    out.print(',');
+                }
+            }
+            if (le != null) {
+                out.print("le=\"");
+                out.print(le);
+                out.print('"');
+            }
+            out.print('}');
+        }
+
+        @NotNull
+        private static String escape(@NotNull final String labelValue) {
+            return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+    }
+}
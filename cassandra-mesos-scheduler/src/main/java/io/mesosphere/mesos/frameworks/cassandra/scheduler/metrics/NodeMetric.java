@@ -0,0 +1,140 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.DiskUsage;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.NodeMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Numeric metrics derived from the {@link NodeMetrics} received with health checks.
+ * Counter deltas are converted to rates per second, so values do not depend on the health check interval.
+ */
+public enum NodeMetric {
+    READ_LATENCY_50_MICROS("readLatency50Micros") {
+        @Override
+        double valueOf(@NotNull final NodeMetrics metrics) {
+            return metrics.hasReadLatency50Micros() ? metrics.getReadLatency50Micros() : Double.NaN;
+        }
+    },
+    READ_LATENCY_99_MICROS("readLatency99Micros") {
+        @Override
+        double valueOf(@NotNull final NodeMetrics metrics) {
+            return metrics.hasReadLatency99Micros() ? metrics.getReadLatency99Micros() : Double.NaN;
+        }
+    },
+    WRITE_LATENCY_50_MICROS("writeLatency50Micros") {
+        @Override
+        double valueOf(@NotNull final NodeMetrics metrics) {
+            return metrics.hasWriteLatency50Micros() ? metrics.getWriteLatency50Micros() : Double.NaN;
+        }
+    },
+    WRITE_LATENCY_99_MICROS("writeLatency99Micros") {
+        @Override
+        double valueOf(@NotNull final NodeMetrics metrics) {
+            return metrics.hasWriteLatency99Micros() ? metrics.getWriteLatency99Micros() : Double.NaN;
+        }
+    },
+    PENDING_COMPACTIONS("pendingCompactions") {
+        @Override
+        double valueOf(@NotNull final NodeMetrics metrics) {
+            return metrics.hasPendingCompactions() ? metrics.getPendingCompactions() : Double.NaN;
+        }
+    },
+    DROPPED_MUTATIONS_PER_SECOND("droppedMutationsPerSecond") {
+        @Override
+        double valueOf(@NotNull final NodeMetrics metrics) {
+            return metrics.hasDroppedMutations() ? perSecond(metrics, metrics.getDroppedMutations()) : Double.NaN;
+        }
+    },
+    HEAP_USED_BYTES("heapUsedBytes") {
+        @Override
+        double valueOf(@NotNull final NodeMetrics metrics) {
+            return metrics.hasHeapUsedBytes() ? metrics.getHeapUsedBytes() : Double.NaN;
+        }
+    },
+    GC_PAUSE_MILLIS_PER_SECOND("gcPauseMillisPerSecond") {
+        @Override
+        double valueOf(@NotNull final NodeMetrics metrics) {
+            return metrics.hasGcPauseMillis() ? perSecond(metrics, metrics.getGcPauseMillis()) : Double.NaN;
+        }
+    },
+    SSTABLE_COUNT("sstableCount") {
+        @Override
+        double valueOf(@NotNull final NodeMetrics metrics) {
+            return metrics.hasSstableCount() ? metrics.getSstableCount() : Double.NaN;
+        }
+    },
+    HINTS_IN_PROGRESS("hintsInProgress") {
+        @Override
+        double valueOf(@NotNull final NodeMetrics metrics) {
+            return metrics.hasHintsInProgress() ? metrics.getHintsInProgress() : Double.NaN;
+        }
+    },
+    /**
+     * Used fraction of the fullest data file location.
+     */
+    DISK_USED_RATIO("diskUsedRatio") {
+        @Override
+        double valueOf(@NotNull final NodeMetrics metrics) {
+            double max = Double.NaN;
+            for (final DiskUsage diskUsage : metrics.getDiskUsageList()) {
+                if (diskUsage.getTotalBytes() > 0L) {
+                    final double ratio = (double) diskUsage.getUsedBytes() / diskUsage.getTotalBytes();
+                    if (Double.isNaN(max) || ratio > max) {
+                        max = ratio;
+                    }
+                }
+            }
+            return max;
+        }
+    };
+
+    @NotNull
+    private final String metricName;
+
+    NodeMetric(@NotNull final String metricName) {
+        this.metricName = metricName;
+    }
+
+    /**
+     * Name of the metric as used in the REST API.
+     */
+    @NotNull
+    public String metricName() {
+        return metricName;
+    }
+
+    /**
+     * Returns the value of this metric or {@link Double#NaN} if the metrics do not contain it.
+     */
+    abstract double valueOf(@NotNull NodeMetrics metrics);
+
+    @Nullable
+    public static NodeMetric forName(@NotNull final String metricName) {
+        for (final NodeMetric metric : values()) {
+            if (metric.metricName.equals(metricName)) {
+                return metric;
+            }
+        }
+        return null;
+    }
+
+    private static double perSecond(@NotNull final NodeMetrics metrics, final long delta) {
+        return metrics.getIntervalMillis() > 0L ? delta * 1000d / metrics.getIntervalMillis() : Double.NaN;
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.NodeMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory time series of the metrics of all nodes, as received with health checks.
+ * <p>
+ * Every value is aggregated into three tiers of increasing resolution and retention, by default 1 minute buckets
+ * for 4 hours, 10 minute buckets for 2 days and 1 hour buckets for 2 weeks. The memory used per node and metric is
+ * fixed, tiers are only allocated for metrics that a node actually reports. The store is not persisted, the history
+ * starts with the scheduler. It is also the only place that keeps the metrics: the persisted health check history
+ * records health checks without them.
+ */
+public final class NodeMetricsStore {
+    static final long[] DEFAULT_RESOLUTIONS_MILLIS = {
+        TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(10), TimeUnit.HOURS.toMillis(1)
+    };
+    static final int[] DEFAULT_BUCKETS = {240, 288, 336};
+
+    @NotNull
+    private final long[] resolutionsMillis;
+    @NotNull
+    private final int[] buckets;
+    @NotNull
+    private final ConcurrentMap<String, NodeSeries> nodes = new ConcurrentHashMap<>();
+
+    public NodeMetricsStore() {
+        this(DEFAULT_RESOLUTIONS_MILLIS, DEFAULT_BUCKETS);
+    }
+
+    NodeMetricsStore(@NotNull final long[] resolutionsMillis, @NotNull final int[] buckets) {
+        if (resolutionsMillis.length == 0 || resolutionsMillis.length != buckets.length) {
+            throw new IllegalArgumentException("need the same, non-zero number of resolutions and bucket counts");
+        }
+        this.resolutionsMillis = resolutionsMillis.clone();
+        this.buckets = buckets.clone();
+    }
+
+    public void record(@NotNull final String executorId, final long timestamp, @NotNull final NodeMetrics metrics) {
+        NodeSeries series = nodes.get(executorId);
+        if (series == null) {
+            series = new NodeSeries();
+            final NodeSeries existing = nodes.putIfAbsent(executorId, series);
+            if (existing != null) {
+                series = existing;
+            }
+        }
+        series.record(timestamp, metrics);
+    }
+
+    public void remove(@NotNull final String executorId) {
+        nodes.remove(executorId);
+    }
+
+    /**
+     * Returns the most recently received metrics of a node or {@code null} if the node did not report any.
+     */
+    @Nullable
+    public NodeMetrics latest(@NotNull final String executorId) {
+        final NodeSeries series = nodes.get(executorId);
+        return series != null ? series.latest() : null;
+    }
+
+    /**
+     * Returns the aggregated values of a metric of a node between {@code from} and {@code to}.
+     * Uses the coarsest tier that still covers {@code from} and whose resolution does not exceed
+     * {@code stepMillis}, or the finest tier covering {@code from} if none is fine enough.
+     * The effective step is the requested step rounded up to a multiple of the tier's resolution.
+     */
+    @NotNull
+    public MetricQueryResult query(@NotNull final String executorId, @NotNull final NodeMetric metric,
+                                   final long from, final long to, final long stepMillis) {
+        final NodeSeries series = nodes.get(executorId);
+        if (series == null) {
+            return new MetricQueryResult(Math.max(stepMillis, resolutionsMillis[0]), Collections.<MetricPoint>emptyList());
+        }
+        return series.query(metric, from, to, stepMillis);
+    }
+
+    /**
+     * Metrics of a single node. Guards its tiers by its own monitor.
+     */
+    private final class NodeSeries {
+        @NotNull
+        private final Map<NodeMetric, MetricTier[]> tiers = new EnumMap<>(NodeMetric.class);
+        private long newestTimestamp = Long.MIN_VALUE;
+        @Nullable
+        private NodeMetrics latest;
+
+        synchronized void record(final long timestamp, @NotNull final NodeMetrics metrics) {
+            for (final NodeMetric metric : NodeMetric.values()) {
+                final double value = metric.valueOf(metrics);
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                MetricTier[] metricTiers = tiers.get(metric);
+                if (metricTiers == null) {
+                    metricTiers = new MetricTier[resolutionsMillis.length];
+                    for (int i = 0; i < metricTiers.length; i++) {
+                        metricTiers[i] = new MetricTier(resolutionsMillis[i], buckets[i]);
+                    }
+                    tiers.put(metric, metricTiers);
+                }
+                for (final MetricTier tier : metricTiers) {
+                    tier.add(timestamp, value);
+                }
+            }
+            if (timestamp >= newestTimestamp) {
+                latest = metrics;
+            }
+            newestTimestamp = Math.max(newestTimestamp, timestamp);
+        }
+
+        @Nullable
+        synchronized NodeMetrics latest() {
+            return latest;
+        }
+
+        @NotNull
+        synchronized MetricQueryResult query(@NotNull final NodeMetric metric, final long from, final long to, final long stepMillis) {
+            final MetricTier[] metricTiers = tiers.get(metric);
+            if (metricTiers == null) {
+                return new MetricQueryResult(Math.max(stepMillis, resolutionsMillis[0]), Collections.<MetricPoint>emptyList());
+            }
+
+            MetricTier chosen = null;
+            for (int i = 0; i < metricTiers.length; i++) {
+                final MetricTier tier = metricTiers[i];
+                final boolean covers = newestTimestamp - from < tier.retentionMillis() || i == metricTiers.length - 1;
+                if (covers && (chosen == null || tier.resolutionMillis() <= stepMillis)) {
+                    chosen = tier;
+                }
+            }
+
+            final long resolution = chosen.resolutionMillis();
+            // rounded up without overflowing, huge steps are capped at the largest multiple of the resolution
+            final long multiples = Math.min((stepMillis - 1) / resolution + 1, Long.MAX_VALUE / resolution);
+            final long step = stepMillis <= resolution ? resolution : multiples * resolution;
+            final List<MetricPoint> points = new ArrayList<>();
+            chosen.query(from, to, step, points);
+            return new MetricQueryResult(step, points);
+        }
+    }
+}
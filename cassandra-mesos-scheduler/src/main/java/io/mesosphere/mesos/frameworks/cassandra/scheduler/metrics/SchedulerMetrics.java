@@ -0,0 +1,84 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instrumentation of the scheduler's own hot paths, exposed via {@code /metrics}.
+ * The metrics are process wide, like the scheduler itself.
+ */
+public final class SchedulerMetrics {
+
+    @NotNull
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    private static final long KIB = 1024L;
+
+    @NotNull
+    public static final Counter OFFERS_RECEIVED = REGISTRY.counter(
+        "cassandra_mesos_offers_received_total", "Resource offers received from Mesos.");
+    @NotNull
+    public static final Counter OFFERS_ACCEPTED = REGISTRY.counter(
+        "cassandra_mesos_offers_accepted_total", "Resource offers used to launch tasks.");
+    @NotNull
+    public static final Counter OFFERS_DECLINED = REGISTRY.counter(
+        "cassandra_mesos_offers_declined_total", "Resource offers declined.");
+    @NotNull
+    public static final Histogram GET_TASKS_FOR_OFFER = REGISTRY.histogram(
+        "cassandra_mesos_get_tasks_for_offer_seconds", "Time to evaluate a single resource offer.",
+        Histogram.NANOS_PER_SECOND, Histogram.LATENCY_NANOS_BUCKETS);
+
+    @NotNull
+    public static final MetricsRegistry.Family<Histogram> STATE_WRITE_LATENCY = REGISTRY.histograms(
+        "cassandra_mesos_state_write_seconds", "Time to write a persisted object to the Mesos state (ZooKeeper).", "object",
+        Histogram.NANOS_PER_SECOND, Histogram.LATENCY_NANOS_BUCKETS);
+    @NotNull
+    public static final MetricsRegistry.Family<Histogram> STATE_WRITE_BYTES = REGISTRY.histograms(
+        "cassandra_mesos_state_write_bytes", "Size of a persisted object written to the Mesos state (ZooKeeper).", "object",
+        1d, KIB, 4 * KIB, 16 * KIB, 64 * KIB, 256 * KIB, 1024 * KIB, 4096 * KIB);
+
+    @NotNull
+    public static final MetricsRegistry.Family<Counter> STATUS_UPDATES = REGISTRY.counters(
+        "cassandra_mesos_status_updates_total", "Task status updates received, by task state.", "state");
+    @NotNull
+    public static final MetricsRegistry.Family<Counter> FRAMEWORK_MESSAGES = REGISTRY.counters(
+        "cassandra_mesos_framework_messages_total", "Framework messages received from executors, by type.", "type");
+
+    @NotNull
+    public static final MetricsRegistry.Family<Histogram> CLUSTER_JOB_DURATION = REGISTRY.histograms(
+        "cassandra_mesos_cluster_job_duration_seconds", "Duration of finished or aborted cluster jobs, by job type.", "type",
+        1000d,
+        TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(5), TimeUnit.MINUTES.toMillis(15), TimeUnit.MINUTES.toMillis(30),
+        TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(2), TimeUnit.HOURS.toMillis(6), TimeUnit.HOURS.toMillis(12),
+        TimeUnit.HOURS.toMillis(24));
+
+    @NotNull
+    public static final MetricsRegistry.Family<Histogram> HTTP_REQUEST_LATENCY = REGISTRY.histograms(
+        "cassandra_mesos_http_request_seconds", "Latency of REST API requests including writing the response, by route.", "route",
+        Histogram.NANOS_PER_SECOND, Histogram.LATENCY_NANOS_BUCKETS);
+    @NotNull
+    public static final MetricsRegistry.Family<Gauge> HTTP_REQUESTS_IN_FLIGHT = REGISTRY.gauges(
+        "cassandra_mesos_http_requests_in_flight", "REST API requests currently in progress, by route.", "route");
+    @NotNull
+    public static final MetricsRegistry.Family<Counter> HTTP_RESPONSE_BYTES = REGISTRY.counters(
+        "cassandra_mesos_http_response_bytes_total", "Bytes of REST API response bodies written, by route.", "route");
+
+    private SchedulerMetrics() {
+    }
+}
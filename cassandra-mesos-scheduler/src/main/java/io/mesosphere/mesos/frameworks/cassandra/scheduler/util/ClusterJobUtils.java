@@ -3,10 +3,14 @@ package io.mesosphere.mesos.frameworks.cassandra.scheduler.util;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.BackupCompression;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.ClusterJobStatus;
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.ClusterJobType;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.IoLimits;
 import io.mesosphere.mesos.frameworks.cassandra.scheduler.CassandraCluster;
 import io.mesosphere.mesos.frameworks.cassandra.scheduler.api.StreamingJsonResponse;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.ws.rs.core.Response;
 import java.io.IOException;
@@ -20,7 +24,22 @@ public final class ClusterJobUtils {
     }
 
     public static Response startJob(@NotNull final CassandraCluster cluster, @NotNull final JsonFactory factory, @NotNull final ClusterJobType type, final String backupName) {
-        final boolean started = cluster.startClusterTask(type, backupName);
+        return startJob(cluster, factory, type, backupName, 1, 1);
+    }
+
+    public static Response startJob(@NotNull final CassandraCluster cluster, @NotNull final JsonFactory factory, @NotNull final ClusterJobType type, final String backupName, final int concurrency, final int parallelism) {
+        return startJob(cluster, factory, newJob(type, backupName, concurrency, parallelism));
+    }
+
+    public static Response startJob(@NotNull final CassandraCluster cluster, @NotNull final JsonFactory factory, @NotNull final ClusterJobStatus.Builder job) {
+        if (job.getMaxConcurrentNodes() < 1 || job.getParallelism() < 1) {
+            return startFailed(factory, "concurrency and parallelism must be at least 1");
+        }
+        if (job.getIoLimits().getMaxMbPerSecond() < 0 || job.getIoLimits().getMaxFilesPerSecond() < 0) {
+            return startFailed(factory, "maxMbPerSecond and maxFilesPerSecond must not be negative");
+        }
+
+        final boolean started = cluster.startClusterTask(job);
         return JaxRsUtils.buildStreamingResponse(factory, new StreamingJsonResponse() {
             @Override
             public void write(final JsonGenerator json) throws IOException {
@@ -29,6 +48,48 @@ public final class ClusterJobUtils {
         });
     }
 
+    @NotNull
+    public static ClusterJobStatus.Builder newJob(@NotNull final ClusterJobType type, final String backupName, final int concurrency, final int parallelism) {
+        final ClusterJobStatus.Builder job = ClusterJobStatus.newBuilder()
+            .setJobType(type)
+            .setMaxConcurrentNodes(concurrency)
+            .setParallelism(parallelism);
+        if (backupName != null) {
+            job.setBackupName(backupName);
+        }
+        return job;
+    }
+
+    @NotNull
+    public static IoLimits ioLimits(final double maxMbPerSecond, final double maxFilesPerSecond) {
+        return IoLimits.newBuilder()
+            .setMaxMbPerSecond(maxMbPerSecond)
+            .setMaxFilesPerSecond(maxFilesPerSecond)
+            .build();
+    }
+
+    /**
+     * @return the compression named {@code compression} (case-insensitive) or {@code null} if there is none
+     */
+    @Nullable
+    public static BackupCompression parseCompression(@NotNull final String compression) {
+        try {
+            return BackupCompression.valueOf(compression.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static Response startFailed(@NotNull final JsonFactory factory, @NotNull final String error) {
+        return JaxRsUtils.buildStreamingResponse(factory, Response.Status.BAD_REQUEST, new StreamingJsonResponse() {
+            @Override
+            public void write(final JsonGenerator json) throws IOException {
+                json.writeBooleanField("started", false);
+                json.writeStringField("error", error);
+            }
+        });
+    }
+
     public static Response abortJob(@NotNull final CassandraCluster cluster, @NotNull final JsonFactory factory, @NotNull final ClusterJobType type) {
         final boolean aborted = cluster.abortClusterJob(type);
         return JaxRsUtils.buildStreamingResponse(factory, new StreamingJsonResponse() {
@@ -8,6 +8,7 @@ import io.mesosphere.mesos.frameworks.cassandra.scheduler.CassandraCluster;
 import io.mesosphere.mesos.frameworks.cassandra.scheduler.CassandraScheduler;
 import io.mesosphere.mesos.frameworks.cassandra.scheduler.api.StreamingJsonResponse;
 import io.mesosphere.mesos.frameworks.cassandra.scheduler.api.StreamingTextResponse;
+import io.mesosphere.mesos.util.CassandraFrameworkProtosUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -61,6 +62,23 @@ public final class JaxRsUtils {
                 json.writeNullField("currentNode");
             }
 
+            json.writeNumberField("maxConcurrentNodes", jobStatus.getMaxConcurrentNodes());
+            json.writeNumberField("parallelism", jobStatus.getParallelism());
+            if (jobStatus.getJobType() == ClusterJobType.BACKUP) {
+                json.writeBooleanField("incremental", jobStatus.getIncremental());
+                json.writeStringField("compression", jobStatus.getCompression().name());
+            }
+            if (jobStatus.hasIoLimits()) {
+                json.writeNumberField("maxMbPerSecond", jobStatus.getIoLimits().getMaxMbPerSecond());
+                json.writeNumberField("maxFilesPerSecond", jobStatus.getIoLimits().getMaxFilesPerSecond());
+            }
+            json.writeArrayFieldStart("currentNodes");
+            for (final NodeJobStatus nodeJobStatus : CassandraFrameworkProtosUtils.getCurrentNodes(jobStatus)) {
+                json.writeStartObject();
+                writeNodeJobStatus(cluster, json, nodeJobStatus);
+            }
+            json.writeEndArray();
+
             json.writeArrayFieldStart("completedNodes");
             for (final NodeJobStatus nodeJobStatus : jobStatus.getCompletedNodesList()) {
                 json.writeStartObject();
@@ -129,18 +147,26 @@ public final class JaxRsUtils {
         return Response.status(status).entity(new StreamingOutput() {
             @Override
             public void write(final OutputStream output) throws IOException, WebApplicationException {
-                try (JsonGenerator json = factory.createGenerator(output)) {
-                    json.setPrettyPrinter(new DefaultPrettyPrinter());
-                    json.writeStartObject();
-
-                    jsonResponse.write(json);
-
-                    json.writeEndObject();
-                }
+                writeJson(factory, output, jsonResponse);
             }
         }).type("application/json").build();
     }
 
+    /**
+     * Writes the JSON object produced by {@code jsonResponse} like the responses built by
+     * {@link #buildStreamingResponse(JsonFactory, StreamingJsonResponse)}.
+     */
+    public static void writeJson(@NotNull final JsonFactory factory, @NotNull final OutputStream output, @NotNull final StreamingJsonResponse jsonResponse) throws IOException {
+        try (JsonGenerator json = factory.createGenerator(output)) {
+            json.setPrettyPrinter(new DefaultPrettyPrinter());
+            json.writeStartObject();
+
+            jsonResponse.write(json);
+
+            json.writeEndObject();
+        }
+    }
+
     @NotNull
     public static Response buildStreamingResponse(@NotNull final Response.Status status, @NotNull final String type, @NotNull final StreamingTextResponse textResponse) {
         return Response.status(status).entity(new StreamingOutput() {
@@ -205,4 +231,55 @@ public final class JaxRsUtils {
             json.writeEndObject();
         }
     }
+
+    /**
+     * Writes the fields of the node metrics that are present.
+     */
+    public static void writeNodeMetrics(@NotNull final JsonGenerator json, @NotNull final NodeMetrics metrics) throws IOException {
+        if (metrics.hasIntervalMillis()) {
+            json.writeNumberField("intervalMillis", metrics.getIntervalMillis());
+        }
+        if (metrics.hasReadLatency50Micros()) {
+            json.writeNumberField("readLatency50Micros", metrics.getReadLatency50Micros());
+        }
+        if (metrics.hasReadLatency99Micros()) {
+            json.writeNumberField("readLatency99Micros", metrics.getReadLatency99Micros());
+        }
+        if (metrics.hasWriteLatency50Micros()) {
+            json.writeNumberField("writeLatency50Micros", metrics.getWriteLatency50Micros());
+        }
+        if (metrics.hasWriteLatency99Micros()) {
+            json.writeNumberField("writeLatency99Micros", metrics.getWriteLatency99Micros());
+        }
+        if (metrics.hasPendingCompactions()) {
+            json.writeNumberField("pendingCompactions", metrics.getPendingCompactions());
+        }
+        if (metrics.hasDroppedMutations()) {
+            json.writeNumberField("droppedMutations", metrics.getDroppedMutations());
+        }
+        if (metrics.hasHeapUsedBytes()) {
+            json.writeNumberField("heapUsedBytes", metrics.getHeapUsedBytes());
+        }
+        if (metrics.hasHeapMaxBytes()) {
+            json.writeNumberField("heapMaxBytes", metrics.getHeapMaxBytes());
+        }
+        if (metrics.hasGcPauseMillis()) {
+            json.writeNumberField("gcPauseMillis", metrics.getGcPauseMillis());
+        }
+        if (metrics.hasSstableCount()) {
+            json.writeNumberField("sstableCount", metrics.getSstableCount());
+        }
+        if (metrics.hasHintsInProgress()) {
+            json.writeNumberField("hintsInProgress", metrics.getHintsInProgress());
+        }
+        json.writeArrayFieldStart("diskUsage");
+        for (final DiskUsage diskUsage : metrics.getDiskUsageList()) {
+            json.writeStartObject();
+            json.writeStringField("path", diskUsage.getPath());
+            json.writeNumberField("usedBytes", diskUsage.getUsedBytes());
+            json.writeNumberField("totalBytes", diskUsage.getTotalBytes());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
 }
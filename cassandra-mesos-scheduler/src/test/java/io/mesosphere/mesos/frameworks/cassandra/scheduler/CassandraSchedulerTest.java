@@ -26,6 +26,7 @@ import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.TaskRes
 import io.mesosphere.mesos.util.CassandraFrameworkProtosUtils;
 import io.mesosphere.mesos.util.ProtoUtils;
 import io.mesosphere.mesos.util.SystemClock;
+import io.mesosphere.mesos.util.Tuple2;
 import org.apache.mesos.Protos;
 import org.junit.Test;
 
@@ -86,6 +87,87 @@ public class CassandraSchedulerTest extends AbstractCassandraSchedulerTest {
 
     }
 
+    @Test
+    public void testOffersAreEvaluatedAsBatch() throws Exception {
+        cleanState();
+
+        final Protos.Offer offer1 = createOffer(slaves[0]);
+        final Protos.Offer offer2 = createOffer(slaves[1]);
+        scheduler.resourceOffers(driver, Arrays.asList(offer1, offer2));
+
+        final Tuple2<Collection<Protos.OfferID>, Collection<Protos.TaskInfo>> launchTasks = driver.launchTasks();
+        assertThat(launchTasks._1).containsExactly(offer1.getId(), offer2.getId());
+        assertThat(launchTasks._2).hasSize(2);
+        for (final Protos.TaskInfo taskInfo : launchTasks._2) {
+            assertEquals(CassandraFrameworkProtos.TaskDetails.TaskDetailsType.EXECUTOR_METADATA, taskDetails(taskInfo).getType());
+        }
+        assertThat(driver.declinedOffers()).isEmpty();
+        assertEquals(2, cluster.getClusterState().get().getNodesCount());
+
+        // nothing to do for these offers, all of them get declined in the same callback
+        final Protos.Offer offer3 = createOffer(slaves[0]);
+        final Protos.Offer offer4 = createOffer(slaves[1]);
+        scheduler.resourceOffers(driver, Arrays.asList(offer3, offer4));
+        assertThat(driver.launchTasks()._2).isEmpty();
+        assertThat(driver.declinedOffers()).containsExactly(offer3.getId(), offer4.getId());
+    }
+
+    @Test
+    public void testSeveralNodesArePlacedFromOneBatch() throws Exception {
+        cleanState();
+
+        // the larger offer arrives first but is the worse fit, it must not be skipped after the better one got a node
+        final Protos.Offer large = Protos.Offer.newBuilder(createOffer(slaves[0]))
+            .setResources(0, Protos.Resource.newBuilder()
+                .setName("cpus")
+                .setRole("*")
+                .setType(Protos.Value.Type.SCALAR)
+                .setScalar(Protos.Value.Scalar.newBuilder().setValue(64d)))
+            .build();
+        final Protos.Offer fit = createOffer(slaves[1]);
+        scheduler.resourceOffers(driver, Arrays.asList(large, fit));
+
+        final Tuple2<Collection<Protos.OfferID>, Collection<Protos.TaskInfo>> launchTasks = driver.launchTasks();
+        assertThat(launchTasks._1).containsOnly(large.getId(), fit.getId());
+        assertThat(launchTasks._2).hasSize(2);
+        assertThat(driver.declinedOffers()).isEmpty();
+        assertEquals(2, cluster.getClusterState().get().getNodesCount());
+    }
+
+    @Test
+    public void testUnneededOffersAreDeclinedWithLongFilter() throws Exception {
+        threeNodeCluster();
+        driver.reviveOffersCount();
+
+        // all nodes running - nothing needs an offer
+        assertFalse(cluster.offersNeeded());
+        final Protos.Offer offer = createOffer(slaves[0]);
+        final Protos.Offer spare = createOffer(slaves[3]);
+        scheduler.resourceOffers(driver, Arrays.asList(offer, spare));
+        assertThat(driver.declinedOffers()).containsExactly(offer.getId(), spare.getId());
+        assertEquals(CassandraScheduler.DEFAULT_LONG_DECLINE_REFUSE_SECONDS, driver.declineFilters(offer.getId()).getRefuseSeconds(), 0d);
+        assertEquals(CassandraScheduler.DEFAULT_LONG_DECLINE_REFUSE_SECONDS, driver.declineFilters(spare.getId()).getRefuseSeconds(), 0d);
+
+        // restarting a node requires offers again
+        assertNotNull(cluster.nodeRestart(slaves[0]._2));
+        assertEquals(1, driver.reviveOffersCount());
+        assertTrue(cluster.offersNeeded());
+
+        // a host without a node can never run one until the cluster is scaled out
+        final Protos.Offer offer2 = createOffer(slaves[1]);
+        final Protos.Offer spare2 = createOffer(slaves[3]);
+        scheduler.resourceOffers(driver, Arrays.asList(offer2, spare2));
+        assertThat(driver.declinedOffers()).containsExactly(offer2.getId(), spare2.getId());
+        assertEquals(CassandraScheduler.DEFAULT_DECLINE_REFUSE_SECONDS, driver.declineFilters(offer2.getId()).getRefuseSeconds(), 0d);
+        assertEquals(CassandraScheduler.DEFAULT_LONG_DECLINE_REFUSE_SECONDS, driver.declineFilters(spare2.getId()).getRefuseSeconds(), 0d);
+
+        cluster.updateNodeCount(4);
+        assertEquals(1, driver.reviveOffersCount());
+        // no further revive without offers declined with the long filter
+        cluster.startClusterTask(CassandraFrameworkProtos.ClusterJobType.CLEANUP);
+        assertEquals(0, driver.reviveOffersCount());
+    }
+
     @Test
     public void testIsLiveNode() throws Exception {
         cleanState();
@@ -0,0 +1,122 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import io.mesosphere.mesos.util.Clock;
+import io.mesosphere.mesos.util.Tuple2;
+import org.apache.mesos.Protos;
+import org.jetbrains.annotations.NotNull;
+import org.joda.time.Duration;
+import org.joda.time.Instant;
+import org.junit.Test;
+
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FrameworkMessageTimerTest extends AbstractCassandraSchedulerTest {
+
+    private long now = 1000000L;
+
+    private final Clock testClock = new Clock() {
+        @NotNull
+        @Override
+        public Instant now() {
+            return new Instant(now);
+        }
+    };
+
+    @Test
+    public void testHealthChecksAreRequestedEveryInterval() throws Exception {
+        threeNodeCluster();
+        configuration.healthCheckInterval(Duration.standardSeconds(10));
+        driver.submitTasks();
+
+        final FrameworkMessageTimer timer = new FrameworkMessageTimer(cluster, testClock, 100);
+
+        // first tick registers the nodes with their phase offset - every node gets one request per interval
+        timer.tick(driver);
+        for (int i = 0; i < 100; i++) {
+            now += 100;
+            timer.tick(driver);
+        }
+        Collection<Tuple2<Protos.ExecutorID, CassandraFrameworkProtos.TaskDetails>> submitted = driver.submitTasks();
+        assertThat(submitted).hasSize(3);
+        for (final Tuple2<Protos.ExecutorID, CassandraFrameworkProtos.TaskDetails> message : submitted) {
+            assertThat(message._2.getType()).isEqualTo(CassandraFrameworkProtos.TaskDetails.TaskDetailsType.HEALTH_CHECK);
+        }
+
+        // stopped nodes are not asked
+        cluster.nodeStop(slaves[0]._2);
+        for (int i = 0; i < 100; i++) {
+            now += 100;
+            timer.tick(driver);
+        }
+        assertThat(driver.submitTasks()).hasSize(2);
+    }
+
+    @Test
+    public void testNodeJobStatusIsInquired() throws Exception {
+        threeNodeCluster();
+        configuration.healthCheckInterval(Duration.standardHours(1));
+
+        final FrameworkMessageTimer timer = new FrameworkMessageTimer(cluster, testClock, 100);
+        timer.tick(driver);
+
+        assertThat(cluster.startClusterTask(CassandraFrameworkProtos.ClusterJobType.CLEANUP)).isTrue();
+        final Protos.TaskInfo taskInfo = launchTaskOnAny(CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB);
+        assertThat(taskInfo).isNotNull();
+        final String executorId = executorIdValue(taskInfo);
+        driver.submitTasks();
+
+        timer.tick(driver);
+        assertThat(timer.isScheduled(executorId, CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB_STATUS)).isTrue();
+        for (int i = 0; i < 100; i++) {
+            now += 100;
+            timer.tick(driver);
+        }
+        // 10 seconds, one inquiry every 5 seconds
+        int inquiries = 0;
+        for (final Tuple2<Protos.ExecutorID, CassandraFrameworkProtos.TaskDetails> message : driver.submitTasks()) {
+            if (message._2.getType() == CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB_STATUS) {
+                assertThat(message._1.getValue()).isEqualTo(executorId);
+                inquiries++;
+            }
+        }
+        assertThat(inquiries).isEqualTo(2);
+    }
+
+    @Test
+    public void testTimersFollowExecutorLifecycle() throws Exception {
+        cleanState();
+        final FrameworkMessageTimer timer = new FrameworkMessageTimer(cluster, testClock, 100);
+
+        // executors launched after the timer has been created are registered without a tick
+        final String executorId = executorIdValue(launchExecutor(slaves[0], 1));
+        assertThat(timer.isScheduled(executorId, CassandraFrameworkProtos.TaskDetails.TaskDetailsType.HEALTH_CHECK)).isTrue();
+
+        cluster.removeExecutor(executorId);
+        assertThat(timer.isScheduled(executorId, CassandraFrameworkProtos.TaskDetails.TaskDetailsType.HEALTH_CHECK)).isFalse();
+    }
+
+    @Test
+    public void testPhaseIsWithinInterval() {
+        for (final String executorId : new String[]{"a", "executor-1", "some.long.executor.id.for.a.node", ""}) {
+            assertThat(FrameworkMessageTimer.phase(executorId, 10000L)).isBetween(0L, 9999L);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.HealthCheckDetails;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.NodeInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-heartbeat cost of the health check similarity check, descriptor based vs. hand written.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=io.mesosphere.mesos.frameworks.cassandra.scheduler.HealthCheckSimilarityBenchmark}
+ * from the scheduler module.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HealthCheckSimilarityBenchmark {
+
+    private HealthCheckDetails previous;
+    private HealthCheckDetails current;
+
+    @Setup
+    public void setup() {
+        final NodeInfo.Builder info = NodeInfo.newBuilder()
+            .setClusterName("cassandra")
+            .setOperationMode("NORMAL")
+            .setJoined(true)
+            .setRpcServerRunning(true)
+            .setNativeTransportRunning(true)
+            .setGossipInitialized(true)
+            .setGossipRunning(true)
+            .setUptimeMillis(60000)
+            .setHostId("4207396e-6aa0-432e-97d9-1a4df3c1057f")
+            .setEndpoint("127.0.0.1")
+            .setTokenCount(256)
+            .setDataCenter("DC1")
+            .setRack("RAC1")
+            .setVersion("2.1.4");
+        previous = HealthCheckDetails.newBuilder()
+            .setHealthy(true)
+            .setMsg("")
+            .setInfo(info)
+            .build();
+        // the common case: next heartbeat only differs in uptime, so all fields have to be compared
+        current = HealthCheckDetails.newBuilder(previous)
+            .setInfo(info.setUptimeMillis(120000))
+            .build();
+    }
+
+    @Benchmark
+    public boolean reflective() {
+        return PersistedCassandraClusterHealthCheckHistory.isSimilarEntryReflective(previous, current);
+    }
+
+    @Benchmark
+    public boolean direct() {
+        return PersistedCassandraClusterHealthCheckHistory.isSimilarEntry(previous, current);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(HealthCheckSimilarityBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
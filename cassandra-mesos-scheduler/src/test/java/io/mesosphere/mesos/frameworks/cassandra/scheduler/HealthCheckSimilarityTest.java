@@ -0,0 +1,165 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import com.google.protobuf.Descriptors;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.HealthCheckDetails;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.NodeInfo;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.NodeMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies the hand written {@link PersistedCassandraClusterHealthCheckHistory#isSimilarEntry} against the
+ * descriptor based reference implementation using randomly generated health check details.
+ */
+public class HealthCheckSimilarityTest {
+
+    private static final int ITERATIONS = 20000;
+
+    @Test
+    public void fastComparisonMatchesReflectiveComparison() {
+        final Random random = new Random(4711L);
+        int similar = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            final HealthCheckDetails a = randomDetails(random);
+            // derive b from a in most cases, so that similar pairs are frequent
+            final HealthCheckDetails b = random.nextInt(4) == 0 ? randomDetails(random) : mutate(random, a);
+
+            final boolean expected = PersistedCassandraClusterHealthCheckHistory.isSimilarEntryReflective(a, b);
+            assertThat(PersistedCassandraClusterHealthCheckHistory.isSimilarEntry(a, b))
+                .as("isSimilarEntry(%s, %s)", a, b)
+                .isEqualTo(expected);
+            assertThat(PersistedCassandraClusterHealthCheckHistory.isSimilarEntry(a.getInfo(), b.getInfo()))
+                .isEqualTo(PersistedCassandraClusterHealthCheckHistory.isSimilarEntryReflective(a.getInfo(), b.getInfo()));
+            if (expected) {
+                similar++;
+            }
+        }
+        // make sure both outcomes have actually been exercised
+        assertThat(similar).isGreaterThan(ITERATIONS / 10).isLessThan(ITERATIONS - ITERATIONS / 10);
+    }
+
+    /**
+     * Fails when fields are added to the messages, so that the hand written comparison is updated as well.
+     */
+    @Test
+    public void comparisonCoversAllFields() {
+        assertThat(fieldNames(HealthCheckDetails.getDescriptor()))
+            .containsExactly("healthy", "msg", "info", "metrics");
+        assertThat(fieldNames(NodeInfo.getDescriptor()))
+            .containsExactly("clusterName", "operationMode", "joined", "rpcServerRunning", "nativeTransportRunning",
+                "gossipInitialized", "gossipRunning", "uptimeMillis", "hostId", "endpoint", "tokenCount", "dataCenter",
+                "rack", "version");
+    }
+
+    @NotNull
+    private static List<String> fieldNames(@NotNull final Descriptors.Descriptor descriptor) {
+        final List<String> names = new ArrayList<>();
+        for (final Descriptors.FieldDescriptor field : descriptor.getFields()) {
+            names.add(field.getName());
+        }
+        return names;
+    }
+
+    @NotNull
+    private static HealthCheckDetails randomDetails(@NotNull final Random random) {
+        final HealthCheckDetails.Builder builder = HealthCheckDetails.newBuilder();
+        if (random.nextBoolean()) {
+            builder.setHealthy(random.nextBoolean());
+        }
+        if (random.nextBoolean()) {
+            builder.setMsg(randomString(random));
+        }
+        if (random.nextInt(5) != 0) {
+            final NodeInfo.Builder info = NodeInfo.newBuilder();
+            for (final Descriptors.FieldDescriptor field : NodeInfo.getDescriptor().getFields()) {
+                if (random.nextBoolean()) {
+                    info.setField(field, randomValue(random, field));
+                }
+            }
+            builder.setInfo(info);
+        }
+        return builder.build();
+    }
+
+    @NotNull
+    private static HealthCheckDetails mutate(@NotNull final Random random, @NotNull final HealthCheckDetails details) {
+        final HealthCheckDetails.Builder builder = HealthCheckDetails.newBuilder(details);
+        final NodeInfo.Builder info = NodeInfo.newBuilder(details.getInfo());
+        // uptime and metrics change with nearly every health check
+        info.setUptimeMillis(random.nextInt(100000));
+        builder.setMetrics(NodeMetrics.newBuilder()
+            .setIntervalMillis(random.nextInt(100000))
+            .setReadLatency99Micros(random.nextInt(100000)));
+        switch (random.nextInt(6)) {
+            case 0:
+                builder.setHealthy(!details.getHealthy());
+                break;
+            case 1:
+                builder.clearMsg();
+                break;
+            case 2:
+                final List<Descriptors.FieldDescriptor> fields = NodeInfo.getDescriptor().getFields();
+                final Descriptors.FieldDescriptor field = fields.get(random.nextInt(fields.size()));
+                if (random.nextBoolean()) {
+                    info.clearField(field);
+                } else {
+                    info.setField(field, randomValue(random, field));
+                }
+                break;
+            default:
+                // only uptime changed
+                break;
+        }
+        return builder.setInfo(info).build();
+    }
+
+    @NotNull
+    private static Object randomValue(@NotNull final Random random, @NotNull final Descriptors.FieldDescriptor field) {
+        switch (field.getJavaType()) {
+            case BOOLEAN:
+                return random.nextBoolean();
+            case INT:
+                return random.nextInt(3);
+            case LONG:
+                return (long) random.nextInt(3);
+            case STRING:
+                return randomString(random);
+            default:
+                throw new IllegalArgumentException("unexpected field type " + field);
+        }
+    }
+
+    @NotNull
+    private static String randomString(@NotNull final Random random) {
+        // small domain including the default value, so that equal values are likely
+        switch (random.nextInt(3)) {
+            case 0:
+                return "";
+            case 1:
+                return "a";
+            default:
+                return "b";
+        }
+    }
+}
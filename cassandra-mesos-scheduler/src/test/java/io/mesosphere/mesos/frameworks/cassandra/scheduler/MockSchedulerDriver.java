@@ -39,6 +39,9 @@ public class MockSchedulerDriver implements SchedulerDriver {
 
     @NotNull
     private List<Protos.OfferID> declinedOffers = new ArrayList<>();
+    @NotNull
+    private Map<Protos.OfferID, Protos.Filters> declineFilters = new HashMap<>();
+    private int reviveOffersCount;
 
     public MockSchedulerDriver(@NotNull final Scheduler scheduler) {
         this.scheduler = scheduler;
@@ -52,7 +55,12 @@ public class MockSchedulerDriver implements SchedulerDriver {
 
     @Override
     public Protos.Status launchTasks(final Collection<Protos.OfferID> offerIds, final Collection<Protos.TaskInfo> tasks, final Protos.Filters filters) {
-        launchTasks = Tuple2.tuple2(offerIds, tasks);
+        // offers of different slaves are launched in separate calls
+        final Collection<Protos.OfferID> allOfferIds = new ArrayList<>(launchTasks._1);
+        allOfferIds.addAll(offerIds);
+        final Collection<Protos.TaskInfo> allTasks = new ArrayList<>(launchTasks._2);
+        allTasks.addAll(tasks);
+        launchTasks = Tuple2.tuple2(allOfferIds, allTasks);
         return Protos.Status.DRIVER_RUNNING;
     }
 
@@ -65,6 +73,7 @@ public class MockSchedulerDriver implements SchedulerDriver {
     @Override
     public Protos.Status declineOffer(final Protos.OfferID offerId, final Protos.Filters filters) {
         declinedOffers.add(offerId);
+        declineFilters.put(offerId, filters);
         return Protos.Status.DRIVER_RUNNING;
     }
 
@@ -139,7 +148,8 @@ public class MockSchedulerDriver implements SchedulerDriver {
 
     @Override
     public Protos.Status reviveOffers() {
-        throw new UnsupportedOperationException();
+        reviveOffersCount++;
+        return Protos.Status.DRIVER_RUNNING;
     }
 
     @Override
@@ -169,6 +179,23 @@ public class MockSchedulerDriver implements SchedulerDriver {
         }
     }
 
+    @NotNull
+    public Protos.Filters declineFilters(@NotNull final Protos.OfferID offerId) {
+        final Protos.Filters filters = declineFilters.get(offerId);
+        if (filters == null) {
+            throw new AssertionError("offer " + offerId.getValue() + " has not been declined");
+        }
+        return filters;
+    }
+
+    public int reviveOffersCount() {
+        try {
+            return reviveOffersCount;
+        } finally {
+            reviveOffersCount = 0;
+        }
+    }
+
     @NotNull
     public Tuple2<Collection<Protos.OfferID>, Collection<Protos.TaskInfo>> launchTasks() {
         try {
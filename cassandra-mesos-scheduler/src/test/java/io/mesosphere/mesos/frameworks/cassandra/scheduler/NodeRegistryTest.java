@@ -0,0 +1,85 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NodeRegistryTest {
+
+    private final CassandraNode node1 = node("host1", "127.0.0.1", null, null);
+    private final CassandraNode node2 = node("host2", "127.0.0.2", "executor2", "task2");
+    // shares its hostname with node2 and its IP with node1
+    private final CassandraNode node3 = node("host2", "127.0.0.1", "executor3", "task3");
+    private final CassandraNode node4 = node("executor2", "127.0.0.4", "executor4", "task2");
+
+    private final NodeRegistry registry = new NodeRegistry(
+        CassandraClusterState.newBuilder()
+            .addNodes(node1)
+            .addNodes(node2)
+            .addNodes(node3)
+            .addNodes(node4)
+            .addExecutorMetadata(ExecutorMetadata.newBuilder().setExecutorId("executor2").setIp("127.0.0.2").setWorkdir("/w1"))
+            .addExecutorMetadata(ExecutorMetadata.newBuilder().setExecutorId("executor2").setIp("127.0.0.2").setWorkdir("/w2"))
+            .buildPartial()
+    );
+
+    @Test
+    public void lookupsReturnFirstMatch() {
+        assertThat(registry.nodeForHostname("host2").get()).isEqualTo(node2);
+        assertThat(registry.nodeForHostname("host9").isPresent()).isFalse();
+        assertThat(registry.nodeForExecutorId("executor3").get()).isEqualTo(node3);
+        assertThat(registry.nodeWithExecutorForTaskId("task2").get()).isEqualTo(node2);
+        assertThat(registry.metadataForExecutor("executor2").getWorkdir()).isEqualTo("/w1");
+        assertThat(registry.metadataForExecutor("executor9")).isNull();
+    }
+
+    @Test
+    public void lookupsRequiringExecutorSkipNodesWithoutExecutor() {
+        assertThat(registry.nodeWithExecutorForHostname("host1").isPresent()).isFalse();
+        assertThat(registry.nodeForHostname("host1").get()).isEqualTo(node1);
+        assertThat(registry.nodeWithExecutorForTaskId("task1").isPresent()).isFalse();
+    }
+
+    @Test
+    public void findNodeMatchesIpHostnameOrExecutorIdInNodeOrder() {
+        assertThat(registry.findNode("127.0.0.1")).isEqualTo(node1);
+        assertThat(registry.findNode("host2")).isEqualTo(node2);
+        // node2 has executor2 as executor ID, node4 has it as hostname
+        assertThat(registry.findNode("executor2")).isEqualTo(node2);
+        assertThat(registry.findNode("executor4")).isEqualTo(node4);
+        assertThat(registry.findNode("unknown")).isNull();
+    }
+
+    @NotNull
+    private static CassandraNode node(@NotNull final String hostname, @NotNull final String ip, final String executorId, final String taskId) {
+        final CassandraNode.Builder builder = CassandraNode.newBuilder()
+            .setHostname(hostname)
+            .setIp(ip);
+        if (executorId != null) {
+            builder.setCassandraNodeExecutor(CassandraNodeExecutor.newBuilder()
+                .setExecutorId(executorId)
+                .buildPartial());
+            builder.addTasks(CassandraNodeTask.newBuilder()
+                .setTaskId(taskId)
+                .buildPartial());
+        }
+        return builder.buildPartial();
+    }
+}
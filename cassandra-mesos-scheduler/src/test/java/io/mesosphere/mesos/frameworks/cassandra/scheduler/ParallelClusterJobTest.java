@@ -0,0 +1,122 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import io.mesosphere.mesos.util.Tuple2;
+import org.apache.mesos.Protos;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelClusterJobTest extends AbstractCassandraSchedulerTest {
+
+    @Test
+    public void testConcurrencyLimit() throws InvalidProtocolBufferException {
+        threeNodeCluster();
+
+        assertThat(cluster.startClusterTask(CassandraFrameworkProtos.ClusterJobType.REPAIR, null, 2, 1)).isTrue();
+
+        final Protos.TaskInfo job0 = launchTask(slaves[0], CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB)._1;
+        final Protos.TaskInfo job1 = launchTask(slaves[1], CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB)._1;
+        // limit reached
+        noopOnOffer(slaves[2], 3);
+
+        CassandraFrameworkProtos.ClusterJobStatus currentClusterJob = cluster.getCurrentClusterJob();
+        assertThat(currentClusterJob).isNotNull();
+        assertThat(currentClusterJob.getMaxConcurrentNodes()).isEqualTo(2);
+        assertThat(currentClusterJob.getCurrentNodesCount()).isEqualTo(2);
+        assertThat(currentClusterJob.getCurrentNode().getExecutorId()).isEqualTo(executorIdValue(job0));
+        assertThat(currentClusterJob.getCurrentNodes(1).getExecutorId()).isEqualTo(executorIdValue(job1));
+        assertThat(currentClusterJob.getRemainingNodesList()).containsExactly(executorIdValue(executorMetadata[2]));
+
+        nodeJobFinished(slaves[0], job0);
+
+        currentClusterJob = cluster.getCurrentClusterJob();
+        assertThat(currentClusterJob).isNotNull();
+        assertThat(currentClusterJob.getCurrentNodesCount()).isEqualTo(1);
+        assertThat(currentClusterJob.getCurrentNode().getExecutorId()).isEqualTo(executorIdValue(job1));
+        assertThat(currentClusterJob.getCompletedNodesCount()).isEqualTo(1);
+
+        final Protos.TaskInfo job2 = launchTask(slaves[2], CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB)._1;
+
+        nodeJobFinished(slaves[1], job1);
+        // the job must not finish while a node is still running
+        assertThat(cluster.getCurrentClusterJob()).isNotNull();
+
+        nodeJobFinished(slaves[2], job2);
+        assertThat(cluster.getCurrentClusterJob()).isNull();
+        final CassandraFrameworkProtos.ClusterJobStatus lastJob = cluster.getLastClusterJob(CassandraFrameworkProtos.ClusterJobType.REPAIR);
+        assertThat(lastJob).isNotNull();
+        assertThat(lastJob.getCompletedNodesCount()).isEqualTo(3);
+        assertThat(lastJob.getCurrentNodesCount()).isEqualTo(0);
+        assertThat(lastJob.hasCurrentNode()).isFalse();
+    }
+
+    @Test
+    public void testIdleRackIsPreferred() throws InvalidProtocolBufferException {
+        threeNodeCluster();
+
+        final List<CassandraFrameworkProtos.CassandraNode> nodes = new ArrayList<>();
+        for (final CassandraFrameworkProtos.CassandraNode node : cluster.getClusterState().nodes()) {
+            final String rack = node.getCassandraNodeExecutor().getExecutorId().equals(executorIdValue(executorMetadata[2])) ? "RAC2" : "RAC1";
+            nodes.add(CassandraFrameworkProtos.CassandraNode.newBuilder(node)
+                .setRackDc(CassandraFrameworkProtos.RackDc.newBuilder().setDc("DC1").setRack(rack))
+                .build());
+        }
+        cluster.getClusterState().nodes(nodes);
+
+        assertThat(cluster.startClusterTask(CassandraFrameworkProtos.ClusterJobType.CLEANUP, null, 2, 1)).isTrue();
+
+        final Protos.TaskInfo job0 = launchTask(slaves[0], CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB)._1;
+        // RAC1 is busy and the node in RAC2 has not started yet
+        noopOnOffer(slaves[1], 3);
+        final Protos.TaskInfo job2 = launchTask(slaves[2], CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB)._1;
+
+        final CassandraFrameworkProtos.ClusterJobStatus currentClusterJob = cluster.getCurrentClusterJob();
+        assertThat(currentClusterJob).isNotNull();
+        assertThat(currentClusterJob.getCurrentNodesCount()).isEqualTo(2);
+        assertThat(currentClusterJob.getRemainingNodesList()).containsExactly(executorIdValue(executorMetadata[1]));
+
+        nodeJobFinished(slaves[0], job0);
+        launchTask(slaves[1], CassandraFrameworkProtos.TaskDetails.TaskDetailsType.NODE_JOB);
+        nodeJobFinished(slaves[2], job2);
+
+        assertThat(cluster.getCurrentClusterJob().getCurrentNodesCount()).isEqualTo(1);
+    }
+
+    private void nodeJobFinished(final Tuple2<Protos.SlaveID, String> slave, final Protos.TaskInfo taskInfo) {
+        final CassandraFrameworkProtos.ClusterJobStatus currentClusterJob = cluster.getCurrentClusterJob();
+        assertThat(currentClusterJob).isNotNull();
+        scheduler.frameworkMessage(driver,
+            executorId(taskInfo),
+            slave._1,
+            CassandraFrameworkProtos.SlaveStatusDetails.newBuilder()
+                .setStatusDetailsType(CassandraFrameworkProtos.SlaveStatusDetails.StatusDetailsType.NODE_JOB_STATUS)
+                .setNodeJobStatus(CassandraFrameworkProtos.NodeJobStatus.newBuilder()
+                    .setJobType(currentClusterJob.getJobType())
+                    .setExecutorId(executorIdValue(taskInfo))
+                    .setTaskId(taskIdValue(taskInfo))
+                    .setRunning(false)
+                    .setStartedTimestamp(System.currentTimeMillis())
+                    .setFinishedTimestamp(System.currentTimeMillis()))
+                .build().toByteArray());
+    }
+}
@@ -16,18 +16,101 @@
 package io.mesosphere.mesos.frameworks.cassandra.scheduler;
 
 import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import io.mesosphere.mesos.util.Clock;
 import org.apache.mesos.state.InMemoryState;
 import org.apache.mesos.state.State;
 import org.jetbrains.annotations.NotNull;
+import org.joda.time.Instant;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.*;
 
 public class PersistedCassandraClusterHealthCheckHistoryTest {
 
+    @Test
+    public void testVersion() throws Exception {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterHealthCheckHistory hcHistory = new PersistedCassandraClusterHealthCheckHistory(state);
+        final CassandraFrameworkProtos.HealthCheckDetails hc = CassandraFrameworkProtos.HealthCheckDetails.newBuilder()
+            .setHealthy(true)
+            .build();
+
+        final long initial = hcHistory.version();
+        hcHistory.record("exec1", 2L, hc);
+        final long recorded = hcHistory.version();
+        assertThat(recorded).isGreaterThan(initial);
+
+        // outdated health checks are discarded and do not change the version
+        hcHistory.record("exec1", 1L, hc);
+        assertThat(hcHistory.version()).isEqualTo(recorded);
+
+        hcHistory.record("exec1", 3L, hc);
+        assertThat(hcHistory.version()).isGreaterThan(recorded);
+    }
+
+    @Test
+    public void testPersistInterval() throws Exception {
+        final State state = new InMemoryState();
+        final AtomicLong now = new AtomicLong(100000L);
+        final PersistedCassandraClusterHealthCheckHistory hcHistory = new PersistedCassandraClusterHealthCheckHistory(state, 10000L, new Clock() {
+            @NotNull
+            @Override
+            public Instant now() {
+                return new Instant(now.get());
+            }
+        });
+        final CassandraFrameworkProtos.HealthCheckDetails hc = CassandraFrameworkProtos.HealthCheckDetails.newBuilder()
+            .setHealthy(true)
+            .build();
+
+        // first record is persisted right away
+        hcHistory.record("exec1", 1L, hc);
+        assertThat(new PersistedCassandraClusterHealthCheckHistory(state).entries()).hasSize(1);
+
+        // records within the interval are kept in memory, get() does not write them
+        now.addAndGet(1000L);
+        hcHistory.record("exec2", 2L, hc);
+        assertThat(hcHistory.get().getEntriesCount()).isEqualTo(2);
+        assertThat(new PersistedCassandraClusterHealthCheckHistory(state).entries()).hasSize(1);
+
+        // flush writes them
+        hcHistory.flush();
+        assertThat(new PersistedCassandraClusterHealthCheckHistory(state).entries()).hasSize(2);
+
+        now.addAndGet(1000L);
+        hcHistory.record("exec3", 3L, hc);
+        assertThat(new PersistedCassandraClusterHealthCheckHistory(state).entries()).hasSize(2);
+
+        // the interval is measured by the clock, not by the timestamps of the health checks
+        now.addAndGet(10000L);
+        hcHistory.record("exec4", 3L, hc);
+        assertThat(new PersistedCassandraClusterHealthCheckHistory(state).entries()).hasSize(4);
+    }
+
+    @Test
+    public void testFlushWritesRecordsInWriteBehindMode() throws Exception {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterHealthCheckHistory hcHistory = new PersistedCassandraClusterHealthCheckHistory(state, 60000L);
+        final StateWriteBehind writeBehind = new StateWriteBehind(60000L);
+        writeBehind.attach(hcHistory);
+        final CassandraFrameworkProtos.HealthCheckDetails hc = CassandraFrameworkProtos.HealthCheckDetails.newBuilder()
+            .setHealthy(true)
+            .build();
+
+        hcHistory.record("exec1", 1L, hc);
+        hcHistory.record("exec2", 2L, hc);
+        assertThat(hcHistory.get().getEntriesCount()).isEqualTo(2);
+        assertThat(new PersistedCassandraClusterHealthCheckHistory(state).entries()).isEmpty();
+
+        writeBehind.shutdown();
+        hcHistory.flush();
+        assertThat(new PersistedCassandraClusterHealthCheckHistory(state).entries()).hasSize(2);
+    }
+
     @Test
     public void testRecord() throws Exception {
         final State state = new InMemoryState();
@@ -451,6 +534,40 @@ public class PersistedCassandraClusterHealthCheckHistoryTest {
         }
     }
 
+    @Test
+    public void testPersistenceIsThrottled() throws Exception {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterHealthCheckHistory hcHistory = new PersistedCassandraClusterHealthCheckHistory(state, 100L);
+
+        hcHistory.record("abc", 100L, healthy());
+        assertThat(new PersistedCassandraClusterHealthCheckHistory(state).entries()).hasSize(1);
+
+        // within the persist interval - only kept in memory
+        hcHistory.record("abc", 150L, unhealthy());
+        hcHistory.record("def", 160L, healthy());
+        assertThat(hcHistory.last("abc").getTimestampStart()).isEqualTo(150L);
+        assertThat(hcHistory.entries()).hasSize(3);
+        assertThat(new PersistedCassandraClusterHealthCheckHistory(state).entries()).hasSize(1);
+
+        hcHistory.record("abc", 200L, unhealthy());
+        final PersistedCassandraClusterHealthCheckHistory reloaded = new PersistedCassandraClusterHealthCheckHistory(state);
+        assertThat(reloaded.entries()).hasSize(3);
+        assertThat(reloaded.last("abc").getTimestampStart()).isEqualTo(150L);
+        assertThat(reloaded.last("abc").getTimestampEnd()).isEqualTo(200L);
+    }
+
+    @Test
+    public void testGetIncludesUnpersistedEntries() throws Exception {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterHealthCheckHistory hcHistory = new PersistedCassandraClusterHealthCheckHistory(state, 100000L);
+
+        hcHistory.record("abc", 1L, healthy());
+        hcHistory.record("abc", 2L, unhealthy());
+
+        assertThat(hcHistory.get().getEntriesList()).hasSize(2);
+        assertThat(new PersistedCassandraClusterHealthCheckHistory(state).entries()).hasSize(2);
+    }
+
     @NotNull
     static CassandraFrameworkProtos.HealthCheckDetails healthy() {
         return healthCheckDetails(true);
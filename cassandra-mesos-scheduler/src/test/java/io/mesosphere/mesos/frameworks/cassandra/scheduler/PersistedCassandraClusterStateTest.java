@@ -0,0 +1,185 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import org.apache.mesos.state.InMemoryState;
+import org.apache.mesos.state.State;
+import org.apache.mesos.state.Variable;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static io.mesosphere.mesos.frameworks.cassandra.scheduler.util.Futures.await;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class PersistedCassandraClusterStateTest {
+
+    @Test
+    public void nodesAreStoredInSeparateVariables() throws Exception {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterState clusterState = new PersistedCassandraClusterState(state);
+
+        clusterState.addOrSetNode(node("host1", "127.0.0.1"));
+        clusterState.addOrSetNode(node("host2", "127.0.0.2"));
+
+        final CassandraFrameworkProtos.CassandraClusterState manifest = readManifest(state);
+        assertThat(manifest.getNodesCount()).isZero();
+        assertThat(manifest.getNodeVariablesList()).containsExactly(
+            PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + "host1",
+            PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + "host2"
+        );
+        assertThat(readNode(state, "host2").getIp()).isEqualTo("127.0.0.2");
+
+        final PersistedCassandraClusterState reloaded = new PersistedCassandraClusterState(state);
+        assertThat(reloaded.get()).isEqualTo(clusterState.get());
+    }
+
+    @Test
+    public void onlyChangedNodesAreWritten() throws Exception {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterState clusterState = new PersistedCassandraClusterState(state);
+
+        clusterState.addOrSetNode(node("host1", "127.0.0.1"));
+        clusterState.addOrSetNode(node("host2", "127.0.0.2"));
+
+        // modify the persisted node1 behind the back of clusterState - it must not be overwritten
+        final Variable node1Var = await(state.fetch(PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + "host1"));
+        await(state.store(node1Var.mutate(node("host1", "10.0.0.1").toByteArray())));
+
+        clusterState.addOrSetNode(node("host2", "127.0.0.3"));
+
+        assertThat(readNode(state, "host1").getIp()).isEqualTo("10.0.0.1");
+        assertThat(readNode(state, "host2").getIp()).isEqualTo("127.0.0.3");
+    }
+
+    @Test
+    public void concurrentlyModifiedNodeIsNotOverwritten() throws Exception {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterState clusterState = new PersistedCassandraClusterState(state);
+
+        clusterState.addOrSetNode(node("host1", "127.0.0.1"));
+
+        final Variable node1Var = await(state.fetch(PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + "host1"));
+        await(state.store(node1Var.mutate(node("host1", "10.0.0.1").toByteArray())));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                clusterState.addOrSetNode(node("host1", "127.0.0.2"));
+                fail("Conflicting write must fail");
+            } catch (final StateConflictException e) {
+                // expected, also for the second write
+            }
+        }
+        assertThat(readNode(state, "host1").getIp()).isEqualTo("10.0.0.1");
+    }
+
+    @Test
+    public void removedNodesAreExpunged() throws Exception {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterState clusterState = new PersistedCassandraClusterState(state);
+
+        clusterState.nodes(Arrays.asList(node("host1", "127.0.0.1"), node("host2", "127.0.0.2")));
+        clusterState.nodes(Arrays.asList(node("host2", "127.0.0.2")));
+
+        assertThat(readManifest(state).getNodeVariablesList()).containsExactly(PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + "host2");
+        assertThat(await(state.fetch(PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + "host1")).value()).isEmpty();
+    }
+
+    @Test
+    public void oldLayoutIsMigrated() throws Exception {
+        final State state = new InMemoryState();
+        final CassandraFrameworkProtos.CassandraClusterState old = CassandraFrameworkProtos.CassandraClusterState.newBuilder()
+            .addNodes(node("host1", "127.0.0.1"))
+            .addNodes(node("host2", "127.0.0.2"))
+            .addReplaceNodeIps("127.0.0.9")
+            .setLastServerLaunchTimestamp(42L)
+            .build();
+        final Variable var = await(state.fetch(PersistedCassandraClusterState.VARIABLE_NAME));
+        await(state.store(var.mutate(old.toByteArray())));
+
+        final PersistedCassandraClusterState clusterState = new PersistedCassandraClusterState(state);
+        assertThat(clusterState.get()).isEqualTo(old);
+
+        final CassandraFrameworkProtos.CassandraClusterState manifest = readManifest(state);
+        assertThat(manifest.getNodesCount()).isZero();
+        assertThat(manifest.getNodeVariablesCount()).isEqualTo(2);
+        assertThat(manifest.getReplaceNodeIpsList()).containsExactly("127.0.0.9");
+        assertThat(readNode(state, "host1").getIp()).isEqualTo("127.0.0.1");
+
+        assertThat(new PersistedCassandraClusterState(state).get()).isEqualTo(old);
+    }
+
+    @Test
+    public void nodeVariableNamesAreUnique() {
+        assertThat(PersistedCassandraClusterState.nodeVariableNames(Arrays.asList(
+            node("host1", "127.0.0.1"),
+            node("host1", "127.0.0.2"),
+            node("host2", "127.0.0.3")
+        ))).containsExactly(
+            PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + "host1",
+            PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + "host1.1",
+            PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + "host2"
+        );
+    }
+
+    @Test
+    public void nodeVariableNamesDoNotDependOnOrder() {
+        final CassandraFrameworkProtos.CassandraNode node1 = node("host1", "127.0.0.1", "exec1");
+        final CassandraFrameworkProtos.CassandraNode node2 = node("host1", "127.0.0.1", "exec2");
+        final CassandraFrameworkProtos.CassandraNode pending = node("host1", "127.0.0.1");
+
+        assertThat(PersistedCassandraClusterState.nodeVariableNames(Arrays.asList(node1, node2, pending))).containsExactly(
+            PersistedCassandraClusterState.EXECUTOR_NODE_VARIABLE_PREFIX + "exec1",
+            PersistedCassandraClusterState.EXECUTOR_NODE_VARIABLE_PREFIX + "exec2",
+            PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + "host1"
+        );
+        assertThat(PersistedCassandraClusterState.nodeVariableNames(Arrays.asList(pending, node2, node1))).containsExactly(
+            PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + "host1",
+            PersistedCassandraClusterState.EXECUTOR_NODE_VARIABLE_PREFIX + "exec2",
+            PersistedCassandraClusterState.EXECUTOR_NODE_VARIABLE_PREFIX + "exec1"
+        );
+    }
+
+    @NotNull
+    private static CassandraFrameworkProtos.CassandraClusterState readManifest(@NotNull final State state) throws Exception {
+        return CassandraFrameworkProtos.CassandraClusterState.parseFrom(await(state.fetch(PersistedCassandraClusterState.VARIABLE_NAME)).value());
+    }
+
+    @NotNull
+    private static CassandraFrameworkProtos.CassandraNode readNode(@NotNull final State state, @NotNull final String hostname) throws Exception {
+        return CassandraFrameworkProtos.CassandraNode.parseFrom(await(state.fetch(PersistedCassandraClusterState.HOST_NODE_VARIABLE_PREFIX + hostname)).value());
+    }
+
+    @NotNull
+    private static CassandraFrameworkProtos.CassandraNode node(@NotNull final String hostname, @NotNull final String ip) {
+        return CassandraFrameworkProtos.CassandraNode.newBuilder()
+            .setHostname(hostname)
+            .setIp(ip)
+            .build();
+    }
+
+    @NotNull
+    private static CassandraFrameworkProtos.CassandraNode node(@NotNull final String hostname, @NotNull final String ip, @NotNull final String executorId) {
+        // only the executor ID is relevant here
+        return CassandraFrameworkProtos.CassandraNode.newBuilder(node(hostname, ip))
+            .setCassandraNodeExecutor(CassandraFrameworkProtos.CassandraNodeExecutor.newBuilder()
+                .setExecutorId(executorId))
+            .buildPartial();
+    }
+}
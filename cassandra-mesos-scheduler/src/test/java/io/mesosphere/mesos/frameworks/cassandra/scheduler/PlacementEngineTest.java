@@ -0,0 +1,167 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import org.apache.mesos.Protos;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static io.mesosphere.mesos.util.ProtoUtils.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PlacementEngineTest {
+
+    private static final CassandraFrameworkProtos.TaskResources RESOURCES = CassandraFrameworkProtos.TaskResources.newBuilder()
+        .setCpuCores(2d)
+        .setMemMb(2048)
+        .setDiskMb(2048)
+        .build();
+
+    @Test
+    public void testRackBalance() {
+        final PlacementEngine engine = new PlacementEngine();
+        final List<CassandraFrameworkProtos.CassandraNode> nodes = newArrayList(node("host1", "RAC1"), node("host2", "RAC1"));
+
+        final Protos.Offer rac1 = offer("host3", 8d, 8192, 8192, null);
+        final Protos.Offer rac2 = offer("host4", 8d, 8192, 8192, null);
+        engine.expire(0L);
+        engine.offered(rac1, rackDc("RAC1"), 0L);
+        engine.offered(rac2, rackDc("RAC2"), 0L);
+
+        assertFalse(engine.shouldPlace(rac1, rackDc("RAC1"), nodes, 4, RESOURCES, "*", 0L));
+        assertTrue(engine.shouldPlace(rac2, rackDc("RAC2"), nodes, 4, RESOURCES, "*", 0L));
+    }
+
+    @Test
+    public void testDiskTypeAndResourceFit() {
+        final PlacementEngine engine = new PlacementEngine(0L, "ssd");
+        final List<CassandraFrameworkProtos.CassandraNode> nodes = Collections.emptyList();
+
+        final Protos.Offer large = offer("host1", 32d, 65536, 65536, "ssd");
+        final Protos.Offer fit = offer("host2", 2d, 2048, 2048, "ssd");
+        final Protos.Offer hdd = offer("host3", 2d, 2048, 2048, "hdd");
+        engine.offered(large, rackDc("RAC1"), 0L);
+        engine.offered(fit, rackDc("RAC1"), 0L);
+        engine.offered(hdd, rackDc("RAC1"), 0L);
+
+        assertFalse(engine.shouldPlace(hdd, rackDc("RAC1"), nodes, 3, RESOURCES, "*", 0L));
+        assertFalse(engine.shouldPlace(large, rackDc("RAC1"), nodes, 3, RESOURCES, "*", 0L));
+        assertTrue(engine.shouldPlace(fit, rackDc("RAC1"), nodes, 3, RESOURCES, "*", 0L));
+    }
+
+    @Test
+    public void testHoldBack() {
+        final PlacementEngine engine = new PlacementEngine(10000L, null);
+        final List<CassandraFrameworkProtos.CassandraNode> nodes = newArrayList(node("host1", "RAC1"));
+
+        final Protos.Offer rac1 = offer("host2", 8d, 8192, 8192, null);
+        engine.expire(0L);
+        engine.offered(rac1, rackDc("RAC1"), 0L);
+        assertFalse(engine.shouldPlace(rac1, rackDc("RAC1"), nodes, 2, RESOURCES, "*", 0L));
+
+        // a better offer arrives within the window
+        final Protos.Offer rac2 = offer("host3", 8d, 8192, 8192, null);
+        engine.expire(5000L);
+        engine.offered(rac2, rackDc("RAC2"), 5000L);
+        assertFalse(engine.shouldPlace(rac2, rackDc("RAC2"), nodes, 2, RESOURCES, "*", 5000L));
+
+        engine.expire(10000L);
+        engine.offered(rac1, rackDc("RAC1"), 10000L);
+        assertFalse(engine.shouldPlace(rac1, rackDc("RAC1"), nodes, 2, RESOURCES, "*", 10000L));
+
+        engine.expire(12000L);
+        engine.offered(rac2, rackDc("RAC2"), 12000L);
+        assertTrue(engine.shouldPlace(rac2, rackDc("RAC2"), nodes, 2, RESOURCES, "*", 12000L));
+        engine.placed("host3", 12000L);
+
+        // the next window starts with the placement
+        engine.expire(16000L);
+        engine.offered(rac1, rackDc("RAC1"), 16000L);
+        assertFalse(engine.shouldPlace(rac1, rackDc("RAC1"), nodes, 3, RESOURCES, "*", 16000L));
+        engine.expire(22000L);
+        engine.offered(rac1, rackDc("RAC1"), 22000L);
+        assertTrue(engine.shouldPlace(rac1, rackDc("RAC1"), nodes, 3, RESOURCES, "*", 22000L));
+    }
+
+    @Test
+    public void testRankPlacesSeveralNodesPerBatch() {
+        final PlacementEngine engine = new PlacementEngine();
+        final List<CassandraFrameworkProtos.CassandraNode> nodes = newArrayList(node("host1", "RAC1"));
+
+        final Protos.Offer rac1Large = offer("host2", 32d, 65536, 65536, null);
+        final Protos.Offer rac1Fit = offer("host3", 2d, 2048, 2048, null);
+        final Protos.Offer rac2Large = offer("host4", 32d, 65536, 65536, null);
+        final Protos.Offer existing = offer("host1", 8d, 8192, 8192, null);
+        engine.expire(0L);
+        engine.offered(rac1Large, rackDc("RAC1"), 0L);
+        engine.offered(rac1Fit, rackDc("RAC1"), 0L);
+        engine.offered(rac2Large, rackDc("RAC2"), 0L);
+
+        // the empty rack first, then the better fit
+        final List<Protos.Offer> ranked = engine.rank(newArrayList(rac1Large, rac1Fit, existing, rac2Large), nodes, 4, RESOURCES, "*");
+        assertEquals(newArrayList(existing, rac2Large, rac1Fit, rac1Large), ranked);
+
+        // evaluated in that order, every candidate gets a node
+        for (final Protos.Offer offer : ranked) {
+            if (offer == existing) {
+                continue;
+            }
+            final CassandraFrameworkProtos.RackDc rackDc = rackDc(offer == rac2Large ? "RAC2" : "RAC1");
+            assertTrue(engine.shouldPlace(offer, rackDc, nodes, 4, RESOURCES, "*", 0L));
+            engine.placed(offer.getHostname(), 0L);
+            nodes.add(node(offer.getHostname(), rackDc.getRack()));
+        }
+    }
+
+    private static CassandraFrameworkProtos.RackDc rackDc(final String rack) {
+        return CassandraFrameworkProtos.RackDc.newBuilder().setDc("DC1").setRack(rack).build();
+    }
+
+    private static CassandraFrameworkProtos.CassandraNode node(final String hostname, final String rack) {
+        return CassandraFrameworkProtos.CassandraNode.newBuilder()
+            .setHostname(hostname)
+            .setIp(hostname)
+            .setSeed(false)
+            .setTargetRunState(CassandraFrameworkProtos.CassandraNode.TargetRunState.RUN)
+            .setJmxConnect(CassandraFrameworkProtos.JmxConnect.newBuilder().setIp(hostname).setJmxPort(7199))
+            .setRackDc(rackDc(rack))
+            .build();
+    }
+
+    private static Protos.Offer offer(final String hostname, final double cpus, final long mem, final long disk, final String diskType) {
+        final Protos.Offer.Builder builder = Protos.Offer.newBuilder()
+            .setId(Protos.OfferID.newBuilder().setValue(hostname + ".offer"))
+            .setFrameworkId(Protos.FrameworkID.newBuilder().setValue("framework"))
+            .setSlaveId(Protos.SlaveID.newBuilder().setValue(hostname + ".slave"))
+            .setHostname(hostname)
+            .addResources(cpu(cpus, "*"))
+            .addResources(mem(mem, "*"))
+            .addResources(disk(disk, "*"));
+        if (diskType != null) {
+            builder.addAttributes(Protos.Attribute.newBuilder()
+                .setName(PlacementEngine.DISK_TYPE_ATTRIBUTE)
+                .setType(Protos.Value.Type.TEXT)
+                .setText(Protos.Value.Text.newBuilder().setValue(diskType)));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import org.apache.mesos.state.InMemoryState;
+import org.apache.mesos.state.State;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.CassandraNode;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class StateWriteBehindTest {
+
+    @Test
+    public void mutationsAreVisibleImmediatelyButPersistedOnFlush() {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterState clusterState = new PersistedCassandraClusterState(state);
+        // long batch window, so that only the explicit flush writes the state
+        final StateWriteBehind writeBehind = new StateWriteBehind(60000L);
+        writeBehind.attach(clusterState);
+
+        clusterState.addOrSetNode(node("127.0.0.1"));
+        clusterState.addOrSetNode(node("127.0.0.2"));
+
+        assertThat(clusterState.nodes()).hasSize(2);
+        assertThat(new PersistedCassandraClusterState(state).nodes()).isEmpty();
+
+        clusterState.flush();
+
+        assertThat(new PersistedCassandraClusterState(state).nodes()).hasSize(2);
+
+        writeBehind.shutdown();
+    }
+
+    @Test
+    public void mutationsAreFlushedAfterBatchWindow() throws Exception {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterState clusterState = new PersistedCassandraClusterState(state);
+        final StateWriteBehind writeBehind = new StateWriteBehind(10L);
+        writeBehind.attach(clusterState);
+
+        clusterState.addOrSetNode(node("127.0.0.1"));
+
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (new PersistedCassandraClusterState(state).nodes().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertThat(new PersistedCassandraClusterState(state).nodes()).hasSize(1);
+
+        writeBehind.shutdown();
+    }
+
+    @Test
+    public void concurrentModificationIsNeverOverwritten() {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterState clusterState = new PersistedCassandraClusterState(state);
+        final StateWriteBehind writeBehind = new StateWriteBehind(60000L);
+        writeBehind.attach(clusterState);
+
+        clusterState.addOrSetNode(node("127.0.0.1"));
+        clusterState.flush();
+        new PersistedCassandraClusterState(state).addOrSetNode(node("127.0.0.2"));
+        clusterState.addOrSetNode(node("127.0.0.3"));
+
+        try {
+            clusterState.flush();
+            fail("Conflicting write must fail");
+        } catch (final StateConflictException e) {
+            assertThat(e.getMessage()).contains("modified concurrently");
+        }
+        // further writes fail as well instead of overwriting the other writer's change
+        clusterState.addOrSetNode(node("127.0.0.4"));
+        try {
+            clusterState.flush();
+            fail("Write after a conflict must fail");
+        } catch (final StateConflictException e) {
+            // expected
+        }
+
+        final List<CassandraNode> persisted = new PersistedCassandraClusterState(state).nodes();
+        assertThat(persisted).hasSize(2);
+        assertThat(persisted.get(1).getIp()).isEqualTo("127.0.0.2");
+
+        writeBehind.shutdown();
+    }
+
+    @Test
+    public void conflictInBackgroundFlushIsReported() throws Exception {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterState clusterState = new PersistedCassandraClusterState(state);
+        final StateWriteBehind writeBehind = new StateWriteBehind(10L);
+        final CountDownLatch conflict = new CountDownLatch(1);
+        writeBehind.conflictListener(new StateWriteBehind.ConflictListener() {
+            @Override
+            public void stateConflict(@NotNull final StateConflictException e) {
+                conflict.countDown();
+            }
+        });
+        writeBehind.attach(clusterState);
+
+        clusterState.get();
+        new PersistedCassandraClusterState(state).addOrSetNode(node("127.0.0.2"));
+        clusterState.addOrSetNode(node("127.0.0.3"));
+
+        assertThat(conflict.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(new PersistedCassandraClusterState(state).nodes()).containsExactly(node("127.0.0.2"));
+
+        writeBehind.shutdown();
+    }
+
+    @Test
+    public void flushWithoutPendingValueIsNoop() {
+        final State state = new InMemoryState();
+        final PersistedCassandraClusterState clusterState = new PersistedCassandraClusterState(state);
+
+        clusterState.addOrSetNode(node("127.0.0.1"));
+        clusterState.flush();
+
+        assertThat(new PersistedCassandraClusterState(state).nodes()).hasSize(1);
+    }
+
+    private static CassandraNode node(final String ip) {
+        return CassandraNode.newBuilder()
+            .setIp(ip)
+            .setHostname(ip)
+            .build();
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimerWheelTest {
+
+    @Test
+    public void testExpiresInDeadlineOrder() {
+        final TimerWheel<String> wheel = new TimerWheel<>(8, 100, 1000);
+
+        wheel.schedule("b", 1250);
+        wheel.schedule("a", 1100);
+        wheel.schedule("c", 1300);
+        assertThat(wheel.size()).isEqualTo(3);
+
+        assertThat(wheel.advance(1099)).isEmpty();
+        assertThat(wheel.advance(1100)).containsExactly("a");
+        // deadlines are rounded up to the next tick
+        assertThat(wheel.advance(1250)).isEmpty();
+        assertThat(wheel.advance(1300)).containsExactly("b", "c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void testRescheduleAndCancel() {
+        final TimerWheel<String> wheel = new TimerWheel<>(8, 100, 0);
+
+        wheel.schedule("a", 200);
+        wheel.schedule("a", 500);
+        wheel.schedule("b", 300);
+        assertThat(wheel.cancel("b")).isTrue();
+        assertThat(wheel.cancel("b")).isFalse();
+        assertThat(wheel.isScheduled("a")).isTrue();
+        assertThat(wheel.isScheduled("b")).isFalse();
+
+        assertThat(wheel.advance(400)).isEmpty();
+        assertThat(wheel.advance(500)).containsExactly("a");
+    }
+
+    @Test
+    public void testDeadlinesBeyondOneRound() {
+        final TimerWheel<String> wheel = new TimerWheel<>(4, 100, 0);
+
+        // same bucket, different rounds
+        wheel.schedule("a", 100);
+        wheel.schedule("b", 500);
+        wheel.schedule("c", 2100);
+
+        assertThat(wheel.advance(100)).containsExactly("a");
+        assertThat(wheel.advance(499)).isEmpty();
+        assertThat(wheel.advance(500)).containsExactly("b");
+        // advancing multiple rounds at once visits every bucket only once
+        assertThat(wheel.advance(5000)).containsExactly("c");
+    }
+
+    @Test
+    public void testPastDeadlineExpiresWithNextTick() {
+        final TimerWheel<String> wheel = new TimerWheel<>(4, 100, 1000);
+
+        wheel.schedule("a", 0);
+        assertThat(wheel.advance(1000)).isEmpty();
+        assertThat(wheel.advance(1100)).containsExactly("a");
+    }
+}
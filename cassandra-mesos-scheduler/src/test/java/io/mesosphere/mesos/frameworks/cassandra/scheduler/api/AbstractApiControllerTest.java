@@ -158,6 +158,25 @@ public abstract class AbstractApiControllerTest extends AbstractCassandraSchedul
         }
     }
 
+    /**
+     * Sends a GET request with an optional {@code If-None-Match} header and returns the status code and the
+     * {@code ETag} of the response.
+     */
+    @NotNull
+    protected Tuple2<Integer, String> fetchETag(final String rel, @Nullable final String ifNoneMatch) throws Exception {
+        final HttpURLConnection conn = (HttpURLConnection) resolve(rel).toURL().openConnection();
+        try {
+            conn.setRequestProperty("Accept", "*/*");
+            if (ifNoneMatch != null) {
+                conn.setRequestProperty("If-None-Match", ifNoneMatch);
+            }
+            conn.connect();
+            return Tuple2.tuple2(conn.getResponseCode(), conn.getHeaderField("ETag"));
+        } finally {
+            conn.disconnect();
+        }
+    }
+
     @NotNull
     protected URI resolve(final String rel) {
         return checkNotNull(httpServerBaseUri).resolve(rel);
@@ -183,7 +202,10 @@ public abstract class AbstractApiControllerTest extends AbstractCassandraSchedul
                     new ConfigController(cluster,factory),
                     new LiveEndpointsController(cluster,factory),
                     new NodeController(cluster,factory),
-                    new QaReportController(cluster, factory)
+                    new MetricsController(cluster,factory),
+                    new EventsController(cluster,factory),
+                    new QaReportController(cluster, factory),
+                    new HttpMetricsFilter()
                 ));
             httpServer = GrizzlyHttpServerFactory.createHttpServer(httpServerBaseUri, rc);
             httpServer.start();
@@ -60,6 +60,9 @@ public class ClusterRepairControllerTest extends AbstractApiControllerTest {
         assertTrue(status.has("remainingNodes"));
         assertTrue(status.get("remainingNodes").isArray());
         assertTrue(status.has("currentNode"));
+        assertTrue(status.has("currentNodes"));
+        assertTrue(status.get("currentNodes").isArray());
+        assertEquals(1, status.get("maxConcurrentNodes").asInt());
         assertTrue(status.has("completedNodes"));
         assertTrue(status.get("completedNodes").isArray());
 
@@ -0,0 +1,102 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.mesosphere.mesos.util.Tuple2;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventsControllerTest extends AbstractApiControllerTest {
+
+    @Test
+    public void testEvents() throws Exception {
+        addNode("exec1", "1.2.3.4");
+        cluster.recordHealthCheck("exec1", healthCheckDetailsSuccess("NORMAL", true));
+        // no change in liveness, no event
+        cluster.recordHealthCheck("exec1", healthCheckDetailsSuccess("NORMAL", true));
+
+        Tuple2<Integer, JsonNode> tup = getJson("/events?timeout=0");
+        assertThat(tup._1.intValue()).isEqualTo(200);
+        JsonNode json = tup._2;
+        assertThat(json.get("nextOffset").asLong()).isEqualTo(1L);
+        assertThat(json.get("truncated").asBoolean()).isFalse();
+        assertThat(json.get("events").size()).isEqualTo(1);
+        final JsonNode event = json.get("events").get(0);
+        assertThat(event.get("offset").asLong()).isEqualTo(0L);
+        assertThat(event.get("type").asText()).isEqualTo("NODE_HEALTHY");
+        assertThat(event.get("executorId").asText()).isEqualTo("exec1");
+        assertThat(event.get("ip").asText()).isEqualTo("1.2.3.4");
+
+        final String epoch = json.get("epoch").asText();
+        assertThat(epoch).isEqualTo(cluster.getEventLog().epoch());
+
+        // nothing new within the timeout
+        tup = getJson("/events?epoch=" + epoch + "&from=1&timeout=1");
+        assertThat(tup._1.intValue()).isEqualTo(200);
+        json = tup._2;
+        assertThat(json.get("nextOffset").asLong()).isEqualTo(1L);
+        assertThat(json.get("truncated").asBoolean()).isFalse();
+        assertThat(json.get("events").size()).isEqualTo(0);
+
+        // offsets of a previous scheduler run are unknown
+        tup = getJson("/events?epoch=previous&from=1&timeout=0");
+        assertThat(tup._1.intValue()).isEqualTo(200);
+        assertThat(tup._2.get("truncated").asBoolean()).isTrue();
+        assertThat(tup._2.get("events").size()).isEqualTo(1);
+
+        tup = getJson("/events?from=5&timeout=0");
+        assertThat(tup._1.intValue()).isEqualTo(200);
+        assertThat(tup._2.get("truncated").asBoolean()).isTrue();
+
+        tup = getJson("/events?limit=0");
+        assertThat(tup._1.intValue()).isEqualTo(400);
+    }
+
+    @Test
+    public void testLongPoll() throws Exception {
+        addNode("exec1", "1.2.3.4");
+        cluster.recordHealthCheck("exec1", healthCheckDetailsSuccess("NORMAL", true));
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Tuple2<Integer, JsonNode>> poll = executor.submit(new Callable<Tuple2<Integer, JsonNode>>() {
+                @Override
+                public Tuple2<Integer, JsonNode> call() throws Exception {
+                    return getJson("/events?from=1&timeout=30");
+                }
+            });
+            Thread.sleep(200L);
+            cluster.recordHealthCheck("exec1", healthCheckDetailsFailed());
+
+            final Tuple2<Integer, JsonNode> tup = poll.get(10, TimeUnit.SECONDS);
+            assertThat(tup._1.intValue()).isEqualTo(200);
+            final JsonNode json = tup._2;
+            assertThat(json.get("nextOffset").asLong()).isEqualTo(2L);
+            assertThat(json.get("events").size()).isEqualTo(1);
+            assertThat(json.get("events").get(0).get("type").asText()).isEqualTo("NODE_UNHEALTHY");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -18,9 +18,11 @@ package io.mesosphere.mesos.frameworks.cassandra.scheduler.api;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.TextNode;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
 import io.mesosphere.mesos.util.Tuple2;
 import org.junit.Test;
 
+import static com.google.common.collect.Sets.newHashSet;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 
@@ -172,4 +174,157 @@ public class LiveEndpointsControllerTest extends AbstractApiControllerTest {
         str = fetchText("/live-nodes/text?limit=2", "text/plain");
         assertEquals(200, str._1.intValue());
     }
+
+    @Test
+    public void testLiveNodesNotModified() throws Exception {
+        addNode("exec1", "1.2.3.4");
+
+        final Tuple2<Integer, String> first = fetchETag("/live-nodes", null);
+        assertEquals(200, first._1.intValue());
+        // random subsets are only equivalent, not identical
+        assertThat(first._2).startsWith("W/");
+
+        // the variants have different media types and are tagged separately
+        final Tuple2<Integer, String> text = fetchETag("/live-nodes/text", first._2);
+        assertEquals(200, text._1.intValue());
+        assertThat(text._2).isNotEqualTo(first._2);
+        assertEquals(304, fetchETag("/live-nodes/text", text._2)._1.intValue());
+
+        // a health check with the same result does not change the live nodes
+        cluster.recordHealthCheck("exec1", healthCheckDetailsSuccess("NORMAL", true));
+        Tuple2<Integer, String> tup = fetchETag("/live-nodes", first._2);
+        assertEquals(304, tup._1.intValue());
+        assertEquals(first._2, tup._2);
+
+        addNode("exec2", "2.2.2.2");
+        tup = fetchETag("/live-nodes", first._2);
+        assertEquals(200, tup._1.intValue());
+        assertThat(tup._2).isNotEqualTo(first._2);
+
+        cluster.recordHealthCheck("exec2", healthCheckDetailsFailed());
+        tup = fetchETag("/live-nodes", first._2);
+        assertEquals(304, tup._1.intValue());
+    }
+
+    @Test
+    public void testLeastLoaded() throws Exception {
+        addNode("exec1", "1.1.1.1");
+        addNode("exec2", "2.2.2.2");
+        recordMetrics("exec1", 50000, 10);
+        recordMetrics("exec2", 2000, 0);
+
+        // with two live nodes, both are compared for the first position
+        for (int i = 0; i < 5; i++) {
+            final Tuple2<Integer, String> str = fetchText("/live-nodes/cqlsh?strategy=least-loaded", "text/x-cassandra-cqlsh");
+            assertEquals(200, str._1.intValue());
+            assertEquals("2.2.2.2 9042", str._2);
+        }
+
+        final Tuple2<Integer, JsonNode> tup = fetchJson("/live-nodes?strategy=least-loaded", false);
+        assertEquals(200, tup._1.intValue());
+        assertThat(tup._2.get("liveNodes")).hasSize(2);
+        assertEquals("2.2.2.2", tup._2.get("liveNodes").get(0).asText());
+    }
+
+    @Test
+    public void testLocal() throws Exception {
+        addNode("exec1", "1.1.1.1");
+        addNode("exec2", "2.2.2.2");
+        addNode("exec3", "3.3.3.3");
+        setRackDc("2.2.2.2", "DC2", "RAC1");
+        setRackDc("3.3.3.3", "DC2", "RAC2");
+
+        for (int i = 0; i < 5; i++) {
+            Tuple2<Integer, JsonNode> tup = fetchJson("/live-nodes?strategy=local&dc=DC2&rack=RAC2", false);
+            assertEquals(200, tup._1.intValue());
+            JsonNode nodes = tup._2.get("liveNodes");
+            assertEquals("3.3.3.3", nodes.get(0).asText());
+            assertEquals("2.2.2.2", nodes.get(1).asText());
+            assertEquals("1.1.1.1", nodes.get(2).asText());
+
+            tup = fetchJson("/live-nodes?strategy=local&dc=DC1&limit=1", false);
+            assertEquals(200, tup._1.intValue());
+            nodes = tup._2.get("liveNodes");
+            assertThat(nodes).hasSize(1);
+            assertEquals("1.1.1.1", nodes.get(0).asText());
+        }
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception {
+        addNode("exec1", "1.1.1.1");
+        addNode("exec2", "2.2.2.2");
+        addNode("exec3", "3.3.3.3");
+
+        final Tuple2<Integer, String> first = fetchText("/live-nodes/cqlsh?strategy=round-robin", "text/x-cassandra-cqlsh");
+        final Tuple2<Integer, String> second = fetchText("/live-nodes/cqlsh?strategy=round-robin", "text/x-cassandra-cqlsh");
+        final Tuple2<Integer, String> third = fetchText("/live-nodes/cqlsh?strategy=round-robin", "text/x-cassandra-cqlsh");
+        assertThat(newHashSet(first._2, second._2, third._2))
+            .containsOnly("1.1.1.1 9042", "2.2.2.2 9042", "3.3.3.3 9042");
+
+        // sticky
+        final Tuple2<Integer, String> sticky = fetchText("/live-nodes/cqlsh?strategy=round-robin&client=app1", "text/x-cassandra-cqlsh");
+        assertEquals(200, sticky._1.intValue());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(sticky._2, fetchText("/live-nodes/cqlsh?strategy=round-robin&client=app1", "text/x-cassandra-cqlsh")._2);
+        }
+
+        final Tuple2<Integer, JsonNode> tup = fetchJson("/live-nodes?strategy=foo", false);
+        assertEquals(400, tup._1.intValue());
+    }
+
+    @Test
+    public void testNotModifiedDependsOnSelection() throws Exception {
+        addNode("exec1", "1.1.1.1");
+        addNode("exec2", "2.2.2.2");
+        addNode("exec3", "3.3.3.3");
+        setRackDc("3.3.3.3", "DC2", "RAC1");
+
+        // deterministic selections are tagged per selection
+        final Tuple2<Integer, String> local = fetchETag("/live-nodes?strategy=local&dc=DC2", null);
+        assertEquals(200, local._1.intValue());
+        assertEquals(304, fetchETag("/live-nodes?strategy=local&dc=DC2", local._2)._1.intValue());
+        Tuple2<Integer, String> tup = fetchETag("/live-nodes?strategy=local&dc=DC1", local._2);
+        assertEquals(200, tup._1.intValue());
+        assertThat(tup._2).isNotEqualTo(local._2);
+        assertEquals(200, fetchETag("/live-nodes?strategy=local&dc=DC2&limit=1", local._2)._1.intValue());
+        assertEquals(200, fetchETag("/live-nodes?strategy=round-robin&client=app1", local._2)._1.intValue());
+
+        final Tuple2<Integer, String> sticky = fetchETag("/live-nodes?strategy=round-robin&client=app1", null);
+        assertEquals(304, fetchETag("/live-nodes?strategy=round-robin&client=app1", sticky._2)._1.intValue());
+        assertEquals(200, fetchETag("/live-nodes?strategy=round-robin&client=app2", sticky._2)._1.intValue());
+
+        // least-loaded and round-robin without a client are never validated
+        tup = fetchETag("/live-nodes?strategy=least-loaded", null);
+        assertEquals(200, tup._1.intValue());
+        assertThat(tup._2).isNull();
+        tup = fetchETag("/live-nodes?strategy=round-robin", null);
+        assertEquals(200, tup._1.intValue());
+        assertThat(tup._2).isNull();
+
+        // conditional round-robin requests are served and advance the cursor once
+        final String random = fetchETag("/live-nodes", null)._2;
+        final Tuple2<Integer, String> first = fetchText("/live-nodes/cqlsh?strategy=round-robin", "text/x-cassandra-cqlsh");
+        assertEquals(200, fetchETag("/live-nodes/cqlsh?strategy=round-robin", random)._1.intValue());
+        final Tuple2<Integer, String> third = fetchText("/live-nodes/cqlsh?strategy=round-robin", "text/x-cassandra-cqlsh");
+        final Tuple2<Integer, String> fourth = fetchText("/live-nodes/cqlsh?strategy=round-robin", "text/x-cassandra-cqlsh");
+        assertThat(third._2).isNotEqualTo(first._2);
+        assertEquals(first._2, fourth._2);
+    }
+
+    private void recordMetrics(final String executorId, final long readLatency99Micros, final int pendingCompactions) {
+        cluster.recordHealthCheck(executorId, CassandraFrameworkProtos.HealthCheckDetails.newBuilder(healthCheckDetailsSuccess("NORMAL", true))
+            .setMetrics(CassandraFrameworkProtos.NodeMetrics.newBuilder()
+                .setReadLatency99Micros(readLatency99Micros)
+                .setPendingCompactions(pendingCompactions))
+            .build());
+    }
+
+    private void setRackDc(final String ip, final String dc, final String rack) {
+        final CassandraFrameworkProtos.CassandraNode node = cluster.findNode(ip);
+        assertThat(node).isNotNull();
+        cluster.getClusterState().addOrSetNode(CassandraFrameworkProtos.CassandraNode.newBuilder(node)
+            .setRackDc(CassandraFrameworkProtos.RackDc.newBuilder().setDc(dc).setRack(rack))
+            .build());
+    }
 }
@@ -0,0 +1,96 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos;
+import io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics.SchedulerMetrics;
+import io.mesosphere.mesos.util.Tuple2;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricsControllerTest extends AbstractApiControllerTest {
+
+    @Test
+    public void testQuery() throws Exception {
+        addNode("exec1", "1.2.3.4");
+        cluster.recordHealthCheck("exec1", CassandraFrameworkProtos.HealthCheckDetails.newBuilder(healthCheckDetailsSuccess("NORMAL", true))
+            .setMetrics(CassandraFrameworkProtos.NodeMetrics.newBuilder()
+                .setReadLatency99Micros(2759))
+            .build());
+
+        Tuple2<Integer, JsonNode> tup = fetchJson("/metrics/query?node=1.2.3.4&metric=readLatency99Micros", false);
+        assertThat(tup._1.intValue()).isEqualTo(200);
+        final JsonNode json = tup._2;
+        assertThat(json.get("executorId").asText()).isEqualTo("exec1");
+        assertThat(json.get("metric").asText()).isEqualTo("readLatency99Micros");
+        assertThat(json.get("step").asLong()).isEqualTo(60000L);
+        final JsonNode points = json.get("points");
+        assertThat(points.size()).isEqualTo(1);
+        assertThat(points.get(0).get("count").asInt()).isEqualTo(1);
+        assertThat(points.get(0).get("max").asDouble()).isEqualTo(2759d);
+
+        tup = fetchJson("/metrics/query?node=exec1&metric=writeLatency99Micros", false);
+        assertThat(tup._1.intValue()).isEqualTo(200);
+        assertThat(tup._2.get("points").size()).isEqualTo(0);
+
+        tup = fetchJson("/metrics/query?node=exec1&metric=foo", false);
+        assertThat(tup._1.intValue()).isEqualTo(400);
+        assertThat(tup._2.get("error").isTextual()).isTrue();
+
+        tup = fetchJson("/metrics/query?metric=readLatency99Micros", false);
+        assertThat(tup._1.intValue()).isEqualTo(400);
+
+        tup = fetchJson("/metrics/query?node=foobar&metric=readLatency99Micros", false);
+        assertThat(tup._1.intValue()).isEqualTo(404);
+
+        tup = fetchJson("/metrics/query?node=exec1&metric=readLatency99Micros&from=-1", false);
+        assertThat(tup._1.intValue()).isEqualTo(400);
+        assertThat(tup._2.get("error").isTextual()).isTrue();
+        tup = fetchJson("/metrics/query?node=exec1&metric=readLatency99Micros&from=0&to=-60000", false);
+        assertThat(tup._1.intValue()).isEqualTo(400);
+        tup = fetchJson("/metrics/query?node=exec1&metric=readLatency99Micros&step=-1", false);
+        assertThat(tup._1.intValue()).isEqualTo(400);
+        tup = fetchJson("/metrics/query?node=exec1&metric=readLatency99Micros&from=2000&to=1000", false);
+        assertThat(tup._1.intValue()).isEqualTo(400);
+
+        tup = fetchJson("/metrics/query?node=exec1&metric=readLatency99Micros&to=" + Long.MAX_VALUE + "&step=" + Long.MAX_VALUE, false);
+        assertThat(tup._1.intValue()).isEqualTo(200);
+        assertThat(tup._2.get("points").size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPrometheus() throws Exception {
+        addNode("exec1", "1.2.3.4");
+        // recorded by HttpMetricsFilter
+        fetchJson("/node/all", false);
+        fetchJson("/node/1.2.3.4/metrics", false);
+
+        final Tuple2<Integer, String> tup = fetchText("/metrics", MetricsController.PROMETHEUS_TEXT_FORMAT);
+        assertThat(tup._1.intValue()).isEqualTo(200);
+        assertThat(tup._2)
+            .contains("# TYPE cassandra_mesos_offers_received_total counter\n")
+            .contains("# TYPE cassandra_mesos_http_request_seconds histogram\n")
+            .contains("cassandra_mesos_http_request_seconds_count{route=\"GET /node/all\"} ")
+            .contains("cassandra_mesos_http_request_seconds_count{route=\"GET /node/{node}/metrics\"} ")
+            .contains("cassandra_mesos_http_response_bytes_total{route=\"GET /node/all\"} ")
+            // the request for /metrics itself is in progress while the metrics are written
+            .contains("cassandra_mesos_http_requests_in_flight{route=\"GET /metrics\"} 1\n");
+        assertThat(SchedulerMetrics.HTTP_RESPONSE_BYTES.labels("GET /node/all").get()).isGreaterThan(0L);
+        assertThat(SchedulerMetrics.HTTP_REQUESTS_IN_FLIGHT.labels("GET /node/all").get()).isEqualTo(0L);
+    }
+}
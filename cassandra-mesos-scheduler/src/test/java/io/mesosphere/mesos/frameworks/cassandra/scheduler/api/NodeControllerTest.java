@@ -279,4 +279,69 @@ public class NodeControllerTest extends AbstractApiControllerTest {
         assertThat(json.get("error").isTextual()).isTrue();
     }
 
+    @Test
+    public void testNodeMetrics() throws Exception {
+        threeNodeCluster();
+
+        Tuple2<Integer, JsonNode> tup = getJson(String.format("/node/%s/metrics", slaves[0]._2));
+        assertThat(tup._1.intValue()).isEqualTo(200);
+        assertThat(tup._2.get("metrics").isNull()).isTrue();
+
+        sendHealthCheckResult(executorMetadata[0], CassandraFrameworkProtos.HealthCheckDetails.newBuilder(healthCheckDetailsSuccess("NORMAL", true))
+            .setMetrics(CassandraFrameworkProtos.NodeMetrics.newBuilder()
+                .setIntervalMillis(60000)
+                .setReadLatency99Micros(2759)
+                .setPendingCompactions(2)
+                .addDiskUsage(CassandraFrameworkProtos.DiskUsage.newBuilder()
+                    .setPath("/var/lib/cassandra/data")
+                    .setUsedBytes(20)
+                    .setTotalBytes(100)))
+            .build());
+
+        tup = getJson(String.format("/node/%s/metrics", executorMetadata[0].getExecutor().getExecutorId().getValue()));
+        assertThat(tup._1.intValue()).isEqualTo(200);
+        final JsonNode json = tup._2;
+        assertThat(json.get("ip").asText()).isEqualTo(slaves[0]._2);
+        assertThat(json.get("lastHealthCheck").isNumber()).isTrue();
+        final JsonNode metrics = json.get("metrics");
+        assertThat(metrics.get("intervalMillis").asLong()).isEqualTo(60000L);
+        assertThat(metrics.get("readLatency99Micros").asLong()).isEqualTo(2759L);
+        assertThat(metrics.get("pendingCompactions").asInt()).isEqualTo(2);
+        assertThat(metrics.has("droppedMutations")).isFalse();
+        assertThat(metrics.get("diskUsage").size()).isEqualTo(1);
+        assertThat(metrics.get("diskUsage").get(0).get("path").asText()).isEqualTo("/var/lib/cassandra/data");
+
+        // metrics are only kept in memory, not in the persisted health check history
+        assertThat(cluster.lastHealthCheck(executorMetadata[0].getExecutor().getExecutorId().getValue()).getDetails().hasMetrics()).isFalse();
+
+        tup = getJson("/node/foobar/metrics");
+        assertThat(tup._1.intValue()).isEqualTo(404);
+    }
+
+
+    @Test
+    public void testNodesNotModified() throws Exception {
+        addNode("exec1", "1.2.3.4");
+
+        final Tuple2<Integer, String> first = fetchETag("/node/all", null);
+        assertThat(first._1.intValue()).isEqualTo(200);
+        assertNotNull(first._2);
+
+        Tuple2<Integer, String> tup = fetchETag("/node/all", first._2);
+        assertThat(tup._1.intValue()).isEqualTo(304);
+        assertThat(tup._2).isEqualTo(first._2);
+
+        // the tag ignores the timestamps of health checks with the same result
+        assertThat(first._2).startsWith("W/");
+        cluster.recordHealthCheck("exec1", healthCheckDetailsSuccess("NORMAL", true));
+        tup = fetchETag("/node/all", first._2);
+        assertThat(tup._1.intValue()).isEqualTo(304);
+
+        addNode("exec2", "2.2.2.2");
+
+        tup = fetchETag("/node/all", first._2);
+        assertThat(tup._1.intValue()).isEqualTo(200);
+        assertThat(tup._2).isNotEqualTo(first._2);
+        assertThat(getJson("/node/all")._2.get("nodes").size()).isEqualTo(2);
+    }
 }
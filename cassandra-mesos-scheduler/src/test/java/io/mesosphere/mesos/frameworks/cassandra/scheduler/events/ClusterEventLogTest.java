@@ -0,0 +1,147 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.events;
+
+import com.google.common.collect.ImmutableMap;
+import io.mesosphere.mesos.util.SystemClock;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClusterEventLogTest {
+
+    @Test
+    public void testRead() {
+        final ClusterEventLog log = new ClusterEventLog(new SystemClock(), 4);
+        assertThat(log.read(null, -1, 10).getEvents()).isEmpty();
+        assertThat(log.read(null, -1, 10).getNextOffset()).isEqualTo(0L);
+
+        log.publish(ClusterEvent.Type.NODE_ACQUIRED, null, "1.2.3.4", ImmutableMap.<String, Object>of("seed", true));
+        log.publish(ClusterEvent.Type.SERVER_TASK_LAUNCHED, "exec1", "1.2.3.4");
+        log.publish(ClusterEvent.Type.NODE_HEALTHY, "exec1", "1.2.3.4");
+
+        ClusterEventLog.Page page = log.read(null, -1, 2);
+        assertThat(page.getEvents()).hasSize(2);
+        assertThat(page.getEvents().get(0).getOffset()).isEqualTo(0L);
+        assertThat(page.getEvents().get(0).getType()).isEqualTo(ClusterEvent.Type.NODE_ACQUIRED);
+        assertThat(page.getEvents().get(0).getAttributes()).containsEntry("seed", true);
+        assertThat(page.getNextOffset()).isEqualTo(2L);
+        assertThat(page.isTruncated()).isFalse();
+
+        page = log.read(null, page.getNextOffset(), 2);
+        assertThat(page.getEvents()).hasSize(1);
+        assertThat(page.getEvents().get(0).getType()).isEqualTo(ClusterEvent.Type.NODE_HEALTHY);
+        assertThat(page.getEvents().get(0).getExecutorId()).isEqualTo("exec1");
+        assertThat(page.getNextOffset()).isEqualTo(3L);
+
+        page = log.read(null, page.getNextOffset(), 2);
+        assertThat(page.getEvents()).isEmpty();
+        assertThat(page.getNextOffset()).isEqualTo(3L);
+        assertThat(page.isTruncated()).isFalse();
+    }
+
+    @Test
+    public void testTruncated() {
+        final ClusterEventLog log = new ClusterEventLog(new SystemClock(), 4);
+        for (int i = 0; i < 6; i++) {
+            log.publish(ClusterEvent.Type.NODE_UNHEALTHY, "exec" + i, null);
+        }
+
+        ClusterEventLog.Page page = log.read(null, 1, 10);
+        assertThat(page.isTruncated()).isTrue();
+        assertThat(page.getOldestOffset()).isEqualTo(2L);
+        assertThat(page.getEvents()).hasSize(4);
+        assertThat(page.getEvents().get(0).getOffset()).isEqualTo(2L);
+        assertThat(page.getEvents().get(0).getExecutorId()).isEqualTo("exec2");
+        assertThat(page.getNextOffset()).isEqualTo(6L);
+
+        // offset of a previous scheduler instance
+        page = log.read(null, 42, 10);
+        assertThat(page.isTruncated()).isTrue();
+        assertThat(page.getEvents().get(0).getOffset()).isEqualTo(2L);
+
+        page = log.read(null, -1, 10);
+        assertThat(page.isTruncated()).isFalse();
+        assertThat(page.getEvents()).hasSize(4);
+    }
+
+    @Test
+    public void testEpoch() {
+        final ClusterEventLog log = new ClusterEventLog(new SystemClock(), 4);
+        for (int i = 0; i < 3; i++) {
+            log.publish(ClusterEvent.Type.NODE_UNHEALTHY, "exec" + i, null);
+        }
+
+        ClusterEventLog.Page page = log.read(null, -1, 1);
+        assertThat(page.getEpoch()).isEqualTo(log.epoch());
+        page = log.read(page.getEpoch(), page.getNextOffset(), 10);
+        assertThat(page.isTruncated()).isFalse();
+        assertThat(page.getEvents().get(0).getOffset()).isEqualTo(1L);
+
+        // an offset of a previous scheduler run is unknown, even if this run already has an event at it
+        page = log.read(new ClusterEventLog(new SystemClock()).epoch(), 1, 10);
+        assertThat(page.isTruncated()).isTrue();
+        assertThat(page.getEvents()).hasSize(3);
+        assertThat(page.getEvents().get(0).getOffset()).isEqualTo(0L);
+        assertThat(page.getEpoch()).isEqualTo(log.epoch());
+    }
+
+    @Test
+    public void testAwait() {
+        final List<Runnable> notifications = new ArrayList<>();
+        final ClusterEventLog log = new ClusterEventLog(new SystemClock(), 4, new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                notifications.add(command);
+            }
+        });
+        final AtomicInteger notified = new AtomicInteger();
+        final ClusterEventLog.Waiter waiter = new ClusterEventLog.Waiter() {
+            @Override
+            public void eventsAvailable() {
+                notified.incrementAndGet();
+            }
+        };
+
+        assertThat(log.await(null, -1, waiter)).isTrue();
+        log.publish(ClusterEvent.Type.SEED_CHANGED, "exec1", "1.2.3.4");
+        // waiters are not notified on the publishing thread
+        assertThat(notified.get()).isEqualTo(0);
+        assertThat(notifications).hasSize(1);
+        notifications.remove(0).run();
+        assertThat(notified.get()).isEqualTo(1);
+
+        // waiters are notified only once
+        log.publish(ClusterEvent.Type.SEED_CHANGED, "exec1", "1.2.3.4");
+        assertThat(notifications).isEmpty();
+
+        // events available
+        assertThat(log.await(null, 0, waiter)).isFalse();
+        assertThat(log.await(null, -1, waiter)).isFalse();
+
+        // offset of another run, read right away
+        assertThat(log.await("other", 2, waiter)).isFalse();
+        assertThat(log.await(log.epoch(), 2, waiter)).isTrue();
+        log.cancel(waiter);
+        log.publish(ClusterEvent.Type.SEED_CHANGED, "exec1", "1.2.3.4");
+        assertThat(notifications).isEmpty();
+    }
+}
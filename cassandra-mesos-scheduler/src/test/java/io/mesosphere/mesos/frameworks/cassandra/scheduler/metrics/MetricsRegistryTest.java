@@ -0,0 +1,108 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testCounter() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final Counter counter = registry.counter("test_total", "Test counter.");
+        counter.inc();
+        counter.inc(2);
+
+        assertThat(write(registry)).isEqualTo(
+            "# HELP test_total Test counter.\n" +
+            "# TYPE test_total counter\n" +
+            "test_total 3\n");
+    }
+
+    @Test
+    public void testLabeledCounters() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final MetricsRegistry.Family<Counter> counters = registry.counters("test_total", "Test counter.", "state");
+        counters.labels("b").inc();
+        counters.labels("a").inc();
+        counters.labels("a").inc();
+        counters.labels("quote\"back\\slash").inc();
+
+        assertThat(counters.labels("a")).isSameAs(counters.labels("a"));
+        assertThat(write(registry)).isEqualTo(
+            "# HELP test_total Test counter.\n" +
+            "# TYPE test_total counter\n" +
+            "test_total{state=\"a\"} 2\n" +
+            "test_total{state=\"b\"} 1\n" +
+            "test_total{state=\"quote\\\"back\\\\slash\"} 1\n");
+    }
+
+    @Test
+    public void testGauge() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final Gauge gauge = registry.gauges("test_in_flight", "Test gauge.", "route").labels("GET /");
+        gauge.inc();
+        gauge.inc();
+        gauge.dec();
+
+        assertThat(write(registry)).isEqualTo(
+            "# HELP test_in_flight Test gauge.\n" +
+            "# TYPE test_in_flight gauge\n" +
+            "test_in_flight{route=\"GET /\"} 1\n");
+    }
+
+    @Test
+    public void testHistogram() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final MetricsRegistry.Family<Histogram> histograms = registry.histograms("test_seconds", "Test histogram.", "op", 1000d, 10L, 100L);
+        final Histogram histogram = histograms.labels("read");
+        histogram.observe(5);
+        histogram.observe(10);
+        histogram.observe(50);
+        histogram.observe(500);
+
+        assertThat(histogram.getCount()).isEqualTo(4L);
+        assertThat(histogram.getSum()).isEqualTo(565L);
+        assertThat(write(registry)).isEqualTo(
+            "# HELP test_seconds Test histogram.\n" +
+            "# TYPE test_seconds histogram\n" +
+            "test_seconds_bucket{op=\"read\",le=\"0.01\"} 2\n" +
+            "test_seconds_bucket{op=\"read\",le=\"0.1\"} 3\n" +
+            "test_seconds_bucket{op=\"read\",le=\"+Inf\"} 4\n" +
+            "test_seconds_sum{op=\"read\"} 0.565\n" +
+            "test_seconds_count{op=\"read\"} 4\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateName() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_total", "Test counter.");
+        registry.counter("test_total", "Test counter.");
+    }
+
+    private static String write(final MetricsRegistry registry) {
+        final StringWriter sw = new StringWriter();
+        try (PrintWriter pw = new PrintWriter(sw)) {
+            registry.write(pw);
+        }
+        return sw.toString();
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ *    Copyright (C) 2015 Mesosphere, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mesosphere.mesos.frameworks.cassandra.scheduler.metrics;
+
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.DiskUsage;
+import io.mesosphere.mesos.frameworks.cassandra.CassandraFrameworkProtos.NodeMetrics;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NodeMetricsStoreTest {
+
+    // 3 tiers: 10ms x 10, 100ms x 10, 1000ms x 10
+    private final NodeMetricsStore store = new NodeMetricsStore(new long[]{10L, 100L, 1000L}, new int[]{10, 10, 10});
+
+    @Test
+    public void testAggregatesIntoSteps() {
+        for (long t = 1000L; t < 1100L; t += 5L) {
+            store.record("exec1", t, latency(t - 1000L));
+        }
+
+        final MetricQueryResult result = store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, 1050L, 1099L, 0L);
+        assertThat(result.getStepMillis()).isEqualTo(10L);
+        final List<MetricPoint> points = result.getPoints();
+        assertThat(points).hasSize(5);
+        final MetricPoint first = points.get(0);
+        assertThat(first.getTimestamp()).isEqualTo(1050L);
+        assertThat(first.getCount()).isEqualTo(2);
+        assertThat(first.getMin()).isEqualTo(50d);
+        assertThat(first.getMax()).isEqualTo(55d);
+        assertThat(first.getAvg()).isEqualTo(52.5d);
+
+        // step is rounded up to a multiple of the resolution, points are aligned to multiples of the step
+        final MetricQueryResult coarse = store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, 1000L, 1099L, 25L);
+        assertThat(coarse.getStepMillis()).isEqualTo(30L);
+        assertThat(coarse.getPoints().get(0).getTimestamp()).isEqualTo(990L);
+        assertThat(coarse.getPoints().get(0).getCount()).isEqualTo(4);
+        assertThat(coarse.getPoints().get(1).getTimestamp()).isEqualTo(1020L);
+        assertThat(coarse.getPoints().get(1).getCount()).isEqualTo(6);
+    }
+
+    @Test
+    public void testUsesCoarserTierForOlderData() {
+        for (long t = 0L; t < 5000L; t += 10L) {
+            store.record("exec1", t, latency(1L));
+        }
+
+        // only the last 100ms are held at 10ms resolution, the last second at 100ms resolution
+        final MetricQueryResult recent = store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, 4950L, 4999L, 0L);
+        assertThat(recent.getStepMillis()).isEqualTo(10L);
+        assertThat(recent.getPoints()).hasSize(5);
+
+        final MetricQueryResult older = store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, 4500L, 4999L, 0L);
+        assertThat(older.getStepMillis()).isEqualTo(100L);
+        assertThat(older.getPoints()).hasSize(5);
+        assertThat(older.getPoints().get(0).getCount()).isEqualTo(10);
+
+        final MetricQueryResult all = store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, 0L, 4999L, 0L);
+        assertThat(all.getStepMillis()).isEqualTo(1000L);
+        assertThat(all.getPoints()).hasSize(5);
+        assertThat(all.getPoints().get(0).getCount()).isEqualTo(100);
+
+        // a coarse step on recent data uses the coarsest tier that is fine enough
+        assertThat(store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, 4950L, 4999L, 100L).getStepMillis()).isEqualTo(100L);
+    }
+
+    @Test
+    public void testRingOverwritesOldBuckets() {
+        for (long t = 0L; t < 200L; t += 10L) {
+            store.record("exec1", t, latency(t));
+        }
+        // the 10ms tier only holds 100ms
+        final List<MetricPoint> points = store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, 100L, 199L, 10L).getPoints();
+        assertThat(points).hasSize(10);
+        assertThat(points.get(0).getMin()).isEqualTo(100d);
+
+        // late values for overwritten buckets are discarded
+        store.record("exec1", 0L, latency(4711L));
+        assertThat(store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, 100L, 199L, 10L).getPoints().get(0).getMin()).isEqualTo(100d);
+    }
+
+    @Test
+    public void testClampsNegativeTimestamps() {
+        store.record("exec1", -5L, latency(1L));
+        store.record("exec1", 5L, latency(2L));
+
+        assertThat(store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, -100L, 99L, 0L).getPoints()).hasSize(1);
+        assertThat(store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, -100L, -1L, 0L).getPoints()).isEmpty();
+    }
+
+    @Test
+    public void testHugeRangeAndStep() {
+        store.record("exec1", 5L, latency(2L));
+
+        assertThat(store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, 0L, Long.MAX_VALUE, 0L).getPoints()).isEmpty();
+        assertThat(store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, Long.MAX_VALUE - 5L, Long.MAX_VALUE, 0L).getPoints()).isEmpty();
+
+        final MetricQueryResult result = store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, 0L, 99L, Long.MAX_VALUE);
+        // the coarsest tier is fine enough for any step
+        assertThat(result.getStepMillis()).isEqualTo(Long.MAX_VALUE / 1000L * 1000L);
+        assertThat(result.getPoints()).hasSize(1);
+        assertThat(result.getPoints().get(0).getTimestamp()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testLatest() {
+        assertThat(store.latest("exec1")).isNull();
+        store.record("exec1", 100L, latency(1L));
+        store.record("exec1", 200L, latency(2L));
+        // late values do not replace newer ones
+        store.record("exec1", 150L, latency(3L));
+        assertThat(store.latest("exec1")).isEqualTo(latency(2L));
+
+        store.remove("exec1");
+        assertThat(store.latest("exec1")).isNull();
+    }
+
+    @Test
+    public void testMetricValues() {
+        final NodeMetrics metrics = NodeMetrics.newBuilder()
+            .setIntervalMillis(2000L)
+            .setDroppedMutations(10L)
+            .addDiskUsage(DiskUsage.newBuilder().setPath("/a").setUsedBytes(10L).setTotalBytes(100L))
+            .addDiskUsage(DiskUsage.newBuilder().setPath("/b").setUsedBytes(50L).setTotalBytes(100L))
+            .build();
+        assertThat(NodeMetric.DROPPED_MUTATIONS_PER_SECOND.valueOf(metrics)).isEqualTo(5d);
+        assertThat(NodeMetric.DISK_USED_RATIO.valueOf(metrics)).isEqualTo(0.5d);
+        assertThat(NodeMetric.READ_LATENCY_99_MICROS.valueOf(metrics)).isNaN();
+        assertThat(NodeMetric.forName("diskUsedRatio")).isSameAs(NodeMetric.DISK_USED_RATIO);
+        assertThat(NodeMetric.forName("foo")).isNull();
+
+        // absent values are not recorded
+        store.record("exec1", 0L, metrics);
+        assertThat(store.query("exec1", NodeMetric.READ_LATENCY_99_MICROS, 0L, 100L, 0L).getPoints()).isEmpty();
+        assertThat(store.query("exec1", NodeMetric.DISK_USED_RATIO, 0L, 100L, 0L).getPoints()).hasSize(1);
+
+        store.remove("exec1");
+        assertThat(store.query("exec1", NodeMetric.DISK_USED_RATIO, 0L, 100L, 0L).getPoints()).isEmpty();
+    }
+
+    private static NodeMetrics latency(final long micros) {
+        return NodeMetrics.newBuilder().setReadLatency99Micros(micros).build();
+    }
+}